@@ -0,0 +1,354 @@
+package io.github.ilyalisov.jwt.cache;
+
+import io.github.ilyalisov.jwt.service.DecodedToken;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of TokenCache bounded by number of entries and by
+ * estimated memory usage.
+ * <p>
+ * Eviction uses CLOCK (second chance) algorithm. Lookups are lock-free and
+ * only set a reference bit of an entry. Insertions and removals are
+ * serialized by a lock and move the clock hand, which skips recently used
+ * entries once and evicts expired or not used ones.
+ */
+public class ClockTokenCache implements TokenCache {
+
+    /**
+     * Estimated size of cache entry, its map node and header of key.
+     */
+    private static final long ENTRY_OVERHEAD = 128;
+
+    /**
+     * Inner map of cached entries.
+     */
+    private final ConcurrentHashMap<String, Entry> entries;
+
+    /**
+     * Ring of entries the clock hand moves over.
+     */
+    private final Entry[] ring;
+
+    /**
+     * Maximum estimated memory usage of entries in bytes.
+     */
+    private final long maxWeight;
+
+    /**
+     * Maximum time entry can stay in cache.
+     */
+    private final long maxAge;
+
+    /**
+     * Clock to expire entries against.
+     */
+    private final Clock clock;
+
+    /**
+     * Lock for modifications of ring.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Position of clock hand in ring.
+     */
+    private int hand;
+
+    /**
+     * Current estimated memory usage of entries in bytes.
+     */
+    private long weight;
+
+    /**
+     * Counter of hits.
+     */
+    private final LongAdder hits;
+
+    /**
+     * Counter of misses.
+     */
+    private final LongAdder misses;
+
+    /**
+     * Counter of evictions.
+     */
+    private final LongAdder evictions;
+
+    /**
+     * Creates an object.
+     *
+     * @param maxEntries maximum number of entries
+     * @param maxWeight  maximum estimated memory usage of entries in bytes
+     */
+    public ClockTokenCache(
+            final int maxEntries,
+            final long maxWeight
+    ) {
+        this(
+                maxEntries,
+                maxWeight,
+                Duration.ofMillis(Long.MAX_VALUE),
+                Clock.systemUTC()
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param maxEntries maximum number of entries
+     * @param maxWeight  maximum estimated memory usage of entries in bytes
+     * @param maxAge     maximum time entry can stay in cache
+     * @param clock      clock to expire entries against
+     */
+    public ClockTokenCache(
+            final int maxEntries,
+            final long maxWeight,
+            final Duration maxAge,
+            final Clock clock
+    ) {
+        if (maxEntries <= 0 || maxWeight <= 0) {
+            throw new IllegalArgumentException(
+                    "Cache bounds must be positive."
+            );
+        }
+        this.entries = new ConcurrentHashMap<>(maxEntries);
+        this.ring = new Entry[maxEntries];
+        this.maxWeight = maxWeight;
+        this.maxAge = maxAge.toMillis();
+        this.clock = clock;
+        this.lock = new ReentrantLock();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    @Override
+    public DecodedToken get(
+            final String token
+    ) {
+        Entry entry = entries.get(token);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(clock.millis())) {
+            invalidate(token);
+            misses.increment();
+            return null;
+        }
+        entry.referenced = true;
+        hits.increment();
+        return entry.value;
+    }
+
+    @Override
+    public void put(
+            final String token,
+            final DecodedToken decoded
+    ) {
+        long now = clock.millis();
+        long expiresAt = expiresAt(decoded, now);
+        long entryWeight = weigh(token, decoded);
+        if (expiresAt <= now || entryWeight > maxWeight) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (entries.containsKey(token)) {
+                return;
+            }
+            while (weight + entryWeight > maxWeight) {
+                evict(now);
+            }
+            int slot = findSlot(now);
+            Entry entry = new Entry(
+                    token,
+                    decoded,
+                    expiresAt,
+                    entryWeight,
+                    slot
+            );
+            ring[slot] = entry;
+            weight += entryWeight;
+            entries.put(token, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidate(
+            final String token
+    ) {
+        lock.lock();
+        try {
+            Entry entry = entries.remove(token);
+            if (entry != null) {
+                release(entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            Arrays.fill(ring, null);
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private long expiresAt(
+            final DecodedToken decoded,
+            final long now
+    ) {
+        long expiresAt = Long.MAX_VALUE;
+        if (now < Long.MAX_VALUE - maxAge) {
+            expiresAt = now + maxAge;
+        }
+        Date expiredAt = decoded.getExpiredAt();
+        if (expiredAt != null) {
+            expiresAt = Math.min(expiresAt, expiredAt.getTime());
+        }
+        return expiresAt;
+    }
+
+    private long weigh(
+            final String token,
+            final DecodedToken decoded
+    ) {
+        return ENTRY_OVERHEAD + token.length() + decoded.estimateSize();
+    }
+
+    private int findSlot(
+            final long now
+    ) {
+        if (entries.size() >= ring.length) {
+            evict(now);
+        }
+        while (ring[hand] != null) {
+            advance();
+        }
+        return hand;
+    }
+
+    private void evict(
+            final long now
+    ) {
+        while (true) {
+            Entry entry = ring[hand];
+            if (entry != null) {
+                if (entry.referenced && !entry.isExpired(now)) {
+                    entry.referenced = false;
+                } else {
+                    entries.remove(entry.key, entry);
+                    release(entry);
+                    evictions.increment();
+                    return;
+                }
+            }
+            advance();
+        }
+    }
+
+    private void release(
+            final Entry entry
+    ) {
+        ring[entry.slot] = null;
+        weight -= entry.weight;
+    }
+
+    private void advance() {
+        hand++;
+        if (hand == ring.length) {
+            hand = 0;
+        }
+    }
+
+    private static final class Entry {
+
+        /**
+         * JWT token.
+         */
+        private final String key;
+
+        /**
+         * Decoded JWT token.
+         */
+        private final DecodedToken value;
+
+        /**
+         * Time in millis when entry expires.
+         */
+        private final long expiresAt;
+
+        /**
+         * Estimated memory usage of entry in bytes.
+         */
+        private final long weight;
+
+        /**
+         * Position of entry in ring.
+         */
+        private final int slot;
+
+        /**
+         * Whether entry was read since clock hand passed it.
+         */
+        private volatile boolean referenced;
+
+        Entry(
+                final String key,
+                final DecodedToken value,
+                final long expiresAt,
+                final long weight,
+                final int slot
+        ) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+            this.slot = slot;
+        }
+
+        boolean isExpired(
+                final long now
+        ) {
+            return now >= expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.github.ilyalisov.jwt.cache;
+
+import io.github.ilyalisov.jwt.service.DecodedToken;
+
+/**
+ * Cache of verified JWT tokens. It allows TokenService to skip signature
+ * verification of tokens it has already seen.
+ */
+public interface TokenCache {
+
+    /**
+     * Returns verified JWT token from cache.
+     *
+     * @param token JWT token
+     * @return decoded JWT token or null if there is no valid entry
+     */
+    DecodedToken get(
+            String token
+    );
+
+    /**
+     * Puts verified JWT token to cache. Entry must not outlive "exp" of
+     * JWT token.
+     *
+     * @param token   JWT token
+     * @param decoded decoded JWT token
+     */
+    void put(
+            String token,
+            DecodedToken decoded
+    );
+
+    /**
+     * Removes JWT token from cache.
+     *
+     * @param token JWT token to be removed
+     */
+    void invalidate(
+            String token
+    );
+
+    /**
+     * Removes all JWT tokens from cache.
+     */
+    void clear();
+
+    /**
+     * Returns number of entries in cache.
+     *
+     * @return number of entries
+     */
+    int size();
+
+    /**
+     * Returns number of lookups that found a valid entry.
+     *
+     * @return number of hits
+     */
+    long getHitCount();
+
+    /**
+     * Returns number of lookups that did not find a valid entry.
+     *
+     * @return number of misses
+     */
+    long getMissCount();
+
+    /**
+     * Returns number of entries removed to keep cache within its bounds.
+     *
+     * @return number of evictions
+     */
+    long getEvictionCount();
+
+}
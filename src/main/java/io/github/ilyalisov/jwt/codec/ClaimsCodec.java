@@ -0,0 +1,49 @@
+package io.github.ilyalisov.jwt.codec;
+
+import java.util.Map;
+
+/**
+ * Serializer and deserializer of JWT payload. TokenService uses it for
+ * JWT tokens it signs and verifies itself, jjwt keeps its own JSON
+ * implementation for the rest.
+ */
+public interface ClaimsCodec {
+
+    /**
+     * Returns shared codec for callers that were not given one. It is
+     * {@link StreamingClaimsCodec} with {@link JjwtClaimsCodec} as
+     * fallback.
+     *
+     * @return ClaimsCodec
+     */
+    static ClaimsCodec standard() {
+        return ClaimsCodecs.STANDARD;
+    }
+
+    /**
+     * Serializes claims to UTF-8 JSON object.
+     *
+     * @param claims claims
+     * @return JSON bytes
+     */
+    byte[] serialize(
+            Map<String, ?> claims
+    );
+
+    /**
+     * Deserializes UTF-8 JSON object to claims. Buffer may be reused by
+     * caller after the method returns, so implementation must not keep a
+     * reference to it.
+     *
+     * @param json   buffer with JSON bytes
+     * @param length number of JSON bytes
+     * @return claims, caller may put values to the map
+     * @throws io.jsonwebtoken.MalformedJwtException if JSON is not a valid
+     *                                               object
+     */
+    Map<String, Object> deserialize(
+            byte[] json,
+            int length
+    );
+
+}
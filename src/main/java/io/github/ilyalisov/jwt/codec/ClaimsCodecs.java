@@ -0,0 +1,16 @@
+package io.github.ilyalisov.jwt.codec;
+
+/**
+ * Shared instances of ClaimsCodec.
+ */
+final class ClaimsCodecs {
+
+    /**
+     * Codec returned by {@link ClaimsCodec#standard()}.
+     */
+    static final ClaimsCodec STANDARD = new StreamingClaimsCodec();
+
+    private ClaimsCodecs() {
+    }
+
+}
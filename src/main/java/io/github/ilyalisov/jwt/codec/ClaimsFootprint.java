@@ -0,0 +1,132 @@
+package io.github.ilyalisov.jwt.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Estimator of heap retained by deserialized claims. Sizes assume 64-bit
+ * JVM with compressed references and compact strings.
+ */
+public final class ClaimsFootprint {
+
+    /**
+     * Estimated size of String object and header of its array.
+     */
+    private static final long STRING = 40;
+
+    /**
+     * Estimated size of boxed number.
+     */
+    private static final long NUMBER = 24;
+
+    /**
+     * Estimated size of big number.
+     */
+    private static final long BIG_NUMBER = 64;
+
+    /**
+     * Estimated size of empty map.
+     */
+    private static final long MAP = 64;
+
+    /**
+     * Estimated size of map entry with its slot in table.
+     */
+    private static final long MAP_ENTRY = 48;
+
+    /**
+     * Estimated size of empty collection.
+     */
+    private static final long COLLECTION = 40;
+
+    /**
+     * Estimated size of reference.
+     */
+    private static final long REFERENCE = 4;
+
+    /**
+     * Estimated size of other objects.
+     */
+    private static final long OBJECT = 16;
+
+    private ClaimsFootprint() {
+    }
+
+    /**
+     * Estimates heap retained by claims, including payload copy that lazy
+     * claims keep to build values on demand.
+     *
+     * @param claims claims
+     * @return estimated size in bytes
+     */
+    public static long estimate(
+            final Map<String, ?> claims
+    ) {
+        return value(claims);
+    }
+
+    /**
+     * Estimates heap retained by a claim value.
+     *
+     * @param value value
+     * @return estimated size in bytes
+     */
+    static long value(
+            final Object value
+    ) {
+        if (value == null || value instanceof Boolean) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return string((String) value);
+        }
+        if (value instanceof BigInteger || value instanceof BigDecimal) {
+            return BIG_NUMBER;
+        }
+        if (value instanceof Number) {
+            return NUMBER;
+        }
+        if (value instanceof LazyClaims) {
+            return ((LazyClaims) value).footprint();
+        }
+        if (value instanceof Map) {
+            long size = MAP;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += MAP_ENTRY
+                        + value(entry.getKey())
+                        + value(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = COLLECTION;
+            for (Object element : (Collection<?>) value) {
+                size += REFERENCE + value(element);
+            }
+            return size;
+        }
+        if (value instanceof Object[]) {
+            long size = OBJECT;
+            for (Object element : (Object[]) value) {
+                size += REFERENCE + value(element);
+            }
+            return size;
+        }
+        return OBJECT;
+    }
+
+    private static long string(
+            final String value
+    ) {
+        long size = STRING + value.length();
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xff) {
+                return size + value.length();
+            }
+        }
+        return size;
+    }
+
+}
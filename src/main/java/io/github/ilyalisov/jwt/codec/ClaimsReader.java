@@ -0,0 +1,352 @@
+package io.github.ilyalisov.jwt.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull reader of claims of JWT payload. Generated codecs iterate claims
+ * with {@link #next()}, match names against precomputed ones and read
+ * values they need, so numbers and booleans are read without boxing.
+ * Values that are not read are validated and skipped.
+ * <p>
+ * The "iat", "exp" and "nbf" claims are captured as they pass, so
+ * TokenService can validate JWT token without another pass over payload.
+ */
+public final class ClaimsReader {
+
+    /**
+     * Value of time claim that is absent.
+     */
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    /**
+     * Encoded name of "iat" claim.
+     */
+    private static final byte[] ISSUED_AT = ClaimsWriter.name("iat");
+
+    /**
+     * Encoded name of "exp" claim.
+     */
+    private static final byte[] EXPIRATION = ClaimsWriter.name("exp");
+
+    /**
+     * Encoded name of "nbf" claim.
+     */
+    private static final byte[] NOT_BEFORE = ClaimsWriter.name("nbf");
+
+    /**
+     * Reader of JSON.
+     */
+    private final JsonReader json;
+
+    /**
+     * Index after last JSON byte.
+     */
+    private final int end;
+
+    /**
+     * Whether opening brace was read.
+     */
+    private boolean started;
+
+    /**
+     * Whether closing brace was read.
+     */
+    private boolean finished;
+
+    /**
+     * Index of first byte of current name.
+     */
+    private int nameStart;
+
+    /**
+     * Index after last byte of current name.
+     */
+    private int nameEnd;
+
+    /**
+     * Current name if it has escapes, null otherwise.
+     */
+    private String escapedName;
+
+    /**
+     * Index of first byte of current value.
+     */
+    private int valueStart;
+
+    /**
+     * The "iat" claim in seconds.
+     */
+    private long issuedAt;
+
+    /**
+     * The "exp" claim in seconds.
+     */
+    private long expiration;
+
+    /**
+     * The "nbf" claim in seconds.
+     */
+    private long notBefore;
+
+    /**
+     * Creates an object. Buffer must not change while claims are read.
+     *
+     * @param json   buffer with JSON payload
+     * @param length length of JSON payload
+     */
+    public ClaimsReader(
+            final byte[] json,
+            final int length
+    ) {
+        this.json = new JsonReader(json, 0, length);
+        this.end = length;
+        this.valueStart = -1;
+        this.issuedAt = ABSENT;
+        this.expiration = ABSENT;
+        this.notBefore = ABSENT;
+    }
+
+    /**
+     * Moves to next claim. Value of previous claim is skipped if it was
+     * not read.
+     *
+     * @return true - if there is next claim, false - if payload is over
+     * @throws io.jsonwebtoken.MalformedJwtException if payload is not a
+     *                                               valid JSON object
+     */
+    public boolean next() {
+        if (finished) {
+            return false;
+        }
+        json.skipSpaces();
+        if (!started) {
+            started = true;
+            json.expect('{');
+            json.skipSpaces();
+            if (json.peek() == '}') {
+                json.next();
+                return finish();
+            }
+        } else {
+            if (json.position() == valueStart) {
+                json.skip();
+                json.skipSpaces();
+            }
+            byte b = json.next();
+            if (b == '}') {
+                return finish();
+            }
+            if (b != ',') {
+                throw json.error("Expected ',' or '}'");
+            }
+            json.skipSpaces();
+        }
+        name();
+        json.skipSpaces();
+        json.expect(':');
+        json.skipSpaces();
+        valueStart = json.position();
+        if (isName(ISSUED_AT)) {
+            issuedAt = seconds(issuedAt);
+        } else if (isName(EXPIRATION)) {
+            expiration = seconds(expiration);
+        } else if (isName(NOT_BEFORE)) {
+            notBefore = seconds(notBefore);
+        }
+        return true;
+    }
+
+    private void name() {
+        if (json.peek() != '"') {
+            throw json.error("Expected name of claim");
+        }
+        int start = json.position();
+        json.skipString();
+        nameStart = start + 1;
+        nameEnd = json.position() - 1;
+        escapedName = null;
+        for (int i = nameStart; i < nameEnd; i++) {
+            if (json.at(i) == '\\') {
+                json.position(start);
+                escapedName = json.string();
+                break;
+            }
+        }
+    }
+
+    private long seconds(
+            final long previous
+    ) {
+        if (previous != ABSENT) {
+            throw json.error("Duplicate time claim");
+        }
+        if (readNull()) {
+            json.position(valueStart);
+            return ABSENT;
+        }
+        long seconds = json.integer();
+        json.position(valueStart);
+        return seconds;
+    }
+
+    private boolean finish() {
+        json.skipSpaces();
+        if (json.position() != end) {
+            throw json.error("Unexpected data after JSON object");
+        }
+        finished = true;
+        return false;
+    }
+
+    /**
+     * Checks name of current claim.
+     *
+     * @param name encoded name from {@link ClaimsWriter#name(String)}
+     * @return true - if current claim has the name, false - otherwise
+     */
+    public boolean isName(
+            final byte[] name
+    ) {
+        if (escapedName != null) {
+            return escapedName.equals(
+                    new String(
+                            name,
+                            1,
+                            name.length - 2,
+                            StandardCharsets.UTF_8
+                    )
+            );
+        }
+        if (nameEnd - nameStart != name.length - 2) {
+            return false;
+        }
+        for (int i = nameStart; i < nameEnd; i++) {
+            if (json.at(i) != name[i - nameStart + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads value of current claim if it is null.
+     *
+     * @return true - if value is null, false - otherwise
+     */
+    public boolean readNull() {
+        if (json.peek() != 'n') {
+            return false;
+        }
+        json.skip();
+        return true;
+    }
+
+    /**
+     * Reads string value of current claim.
+     *
+     * @return value or null
+     */
+    public String readString() {
+        if (readNull()) {
+            return null;
+        }
+        if (json.peek() != '"') {
+            throw json.error("Expected string");
+        }
+        return json.string();
+    }
+
+    /**
+     * Reads integer value of current claim.
+     *
+     * @return value
+     */
+    public long readLong() {
+        return json.integer();
+    }
+
+    /**
+     * Reads integer value of current claim that fits in int.
+     *
+     * @return value
+     */
+    public int readInt() {
+        long value = json.integer();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw json.error("Integer is too large");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads boolean value of current claim.
+     *
+     * @return value
+     */
+    public boolean readBoolean() {
+        byte b = json.peek();
+        if (b != 't' && b != 'f') {
+            throw json.error("Expected boolean");
+        }
+        json.skip();
+        return b == 't';
+    }
+
+    /**
+     * Reads number value of current claim.
+     *
+     * @return value
+     */
+    public double readDouble() {
+        return json.decimal();
+    }
+
+    /**
+     * Reads value of current claim of any type. Objects and arrays are
+     * read as unmodifiable maps and lists.
+     *
+     * @param type expected type of value
+     * @param <V>  expected type of value
+     * @return value or null
+     */
+    public <V> V readValue(
+            final Class<V> type
+    ) {
+        int start = json.position();
+        json.skip();
+        json.position(start);
+        Object value = json.value();
+        if (value != null && !type.isInstance(value)) {
+            throw json.error("Expected " + type.getSimpleName());
+        }
+        return type.cast(value);
+    }
+
+    /**
+     * Returns "iat" claim read so far.
+     *
+     * @return "iat" in seconds or {@link #ABSENT}
+     */
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * Returns "exp" claim read so far.
+     *
+     * @return "exp" in seconds or {@link #ABSENT}
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * Returns "nbf" claim read so far.
+     *
+     * @return "nbf" in seconds or {@link #ABSENT}
+     */
+    public long getNotBefore() {
+        return notBefore;
+    }
+
+}
@@ -0,0 +1,55 @@
+package io.github.ilyalisov.jwt.codec;
+
+/**
+ * Codec of a claims record. Implementations are generated for records
+ * annotated with {@link JwtClaims}.
+ *
+ * @param <T> type of record
+ */
+public interface ClaimsRecordCodec<T extends Record> {
+
+    /**
+     * Returns generated codec of a record.
+     *
+     * @param type type of record
+     * @param <T>  type of record
+     * @return codec
+     * @throws IllegalArgumentException if no codec was generated for record
+     */
+    static <T extends Record> ClaimsRecordCodec<T> of(
+            final Class<T> type
+    ) {
+        return RecordCodecs.get(type);
+    }
+
+    /**
+     * Returns type of record.
+     *
+     * @return type of record
+     */
+    Class<T> type();
+
+    /**
+     * Writes components of record as claims.
+     *
+     * @param claims record
+     * @param writer writer of claims
+     */
+    void write(
+            T claims,
+            ClaimsWriter writer
+    );
+
+    /**
+     * Reads record from claims.
+     *
+     * @param reader reader of claims
+     * @return record
+     * @throws io.jsonwebtoken.MalformedJwtException if claims can not be
+     *                                               read
+     */
+    T read(
+            ClaimsReader reader
+    );
+
+}
@@ -0,0 +1,165 @@
+package io.github.ilyalisov.jwt.codec;
+
+/**
+ * Writer of claims of JWT payload straight to a reusable UTF-8 buffer.
+ * Generated codecs write every claim with a precomputed name, so numbers
+ * and booleans are written without boxing. Null values are omitted, as
+ * TokenService omits them for maps of claims.
+ */
+public final class ClaimsWriter {
+
+    /**
+     * Initial size of buffer.
+     */
+    private static final int BUFFER_SIZE = 512;
+
+    /**
+     * Writer of JSON.
+     */
+    private final JsonWriter json;
+
+    /**
+     * Whether no claim has been written since {@link #begin()}.
+     */
+    private boolean first;
+
+    /**
+     * Creates an object.
+     */
+    public ClaimsWriter() {
+        this.json = new JsonWriter(BUFFER_SIZE);
+    }
+
+    /**
+     * Encodes name of claim once, so it can be written many times.
+     *
+     * @param name name of claim
+     * @return encoded name
+     */
+    public static byte[] name(
+            final String name
+    ) {
+        JsonWriter writer = new JsonWriter(name.length() + 2);
+        writer.string(name);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Starts new JSON payload. Previously written bytes are discarded.
+     */
+    public void begin() {
+        json.reset();
+        json.put('{');
+        first = true;
+    }
+
+    /**
+     * Finishes JSON payload.
+     *
+     * @return length of JSON payload in {@link #buffer()}
+     */
+    public int end() {
+        json.put('}');
+        return json.position();
+    }
+
+    /**
+     * Returns buffer with JSON payload. It is reused by next payload.
+     *
+     * @return buffer
+     */
+    public byte[] buffer() {
+        return json.buffer();
+    }
+
+    /**
+     * Writes string claim. Null is omitted.
+     *
+     * @param name  encoded name of claim
+     * @param value value of claim
+     */
+    public void field(
+            final byte[] name,
+            final String value
+    ) {
+        if (value != null) {
+            key(name);
+            json.string(value);
+        }
+    }
+
+    /**
+     * Writes integer claim.
+     *
+     * @param name  encoded name of claim
+     * @param value value of claim
+     */
+    public void field(
+            final byte[] name,
+            final long value
+    ) {
+        key(name);
+        json.number(value);
+    }
+
+    /**
+     * Writes boolean claim.
+     *
+     * @param name  encoded name of claim
+     * @param value value of claim
+     */
+    public void field(
+            final byte[] name,
+            final boolean value
+    ) {
+        key(name);
+        json.value(value);
+    }
+
+    /**
+     * Writes number claim.
+     *
+     * @param name  encoded name of claim
+     * @param value value of claim
+     */
+    public void field(
+            final byte[] name,
+            final double value
+    ) {
+        field(name, (Object) value);
+    }
+
+    /**
+     * Writes claim of any type JSON can represent. Null is omitted.
+     *
+     * @param name  encoded name of claim
+     * @param value value of claim
+     * @throws IllegalArgumentException if value can not be written
+     */
+    public void field(
+            final byte[] name,
+            final Object value
+    ) {
+        if (value == null) {
+            return;
+        }
+        key(name);
+        if (!json.value(value)) {
+            throw new IllegalArgumentException(
+                    "Unsupported value of claim: " + value
+            );
+        }
+    }
+
+    private void key(
+            final byte[] name
+    ) {
+        if (!first) {
+            json.put(',');
+        }
+        first = false;
+        json.raw(name);
+        json.put(':');
+    }
+
+}
@@ -0,0 +1,90 @@
+package io.github.ilyalisov.jwt.codec;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.io.Deserializer;
+import io.jsonwebtoken.io.Serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * ClaimsCodec that uses the same JSON implementation jjwt discovers,
+ * jjwt-jackson by default. Every payload is mapped to a LinkedHashMap of
+ * boxed values.
+ */
+public final class JjwtClaimsCodec implements ClaimsCodec {
+
+    /**
+     * Serializer of claims.
+     */
+    @SuppressWarnings("rawtypes")
+    private final Serializer serializer;
+
+    /**
+     * Deserializer of claims.
+     */
+    @SuppressWarnings("rawtypes")
+    private final Deserializer deserializer;
+
+    /**
+     * Creates an object.
+     */
+    public JjwtClaimsCodec() {
+        this.serializer = load(Serializer.class);
+        this.deserializer = load(Deserializer.class);
+    }
+
+    private static <T> T load(
+            final Class<T> clazz
+    ) {
+        ClassLoader loader = JjwtClaimsCodec.class.getClassLoader();
+        return ServiceLoader.load(clazz, loader)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "No " + clazz.getName() + " implementation found."
+                ));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] serialize(
+            final Map<String, ?> claims
+    ) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize(claims, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> deserialize(
+            final byte[] json,
+            final int length
+    ) {
+        Object result;
+        try {
+            result = deserializer.deserialize(
+                    new InputStreamReader(
+                            new ByteArrayInputStream(json, 0, length),
+                            StandardCharsets.UTF_8
+                    )
+            );
+        } catch (RuntimeException e) {
+            throw new MalformedJwtException(
+                    "Unable to read JWT payload.",
+                    e
+            );
+        }
+        if (!(result instanceof Map)) {
+            throw new MalformedJwtException(
+                    "JWT payload is not a JSON object."
+            );
+        }
+        return (Map<String, Object>) result;
+    }
+
+}
@@ -0,0 +1,579 @@
+package io.github.ilyalisov.jwt.codec;
+
+import io.jsonwebtoken.MalformedJwtException;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reader of UTF-8 JSON. It validates whole payload without building
+ * values, and builds values of single claims on demand. Values are the
+ * same jjwt-jackson builds: Integer, Long or BigInteger for integers,
+ * Double for fractions, and maps and lists for objects and arrays.
+ */
+final class JsonReader {
+
+    /**
+     * Maximum nesting of objects and arrays.
+     */
+    private static final int MAX_DEPTH = 1000;
+
+    /**
+     * Maximum number of characters of integer that always fits in long.
+     */
+    private static final int LONG_DIGITS = 18;
+
+    /**
+     * JSON bytes.
+     */
+    private final byte[] json;
+
+    /**
+     * Index after last JSON byte.
+     */
+    private final int end;
+
+    /**
+     * Index of next byte to read.
+     */
+    private int position;
+
+    /**
+     * Creates an object.
+     *
+     * @param json     JSON bytes
+     * @param position index of first byte to read
+     * @param end      index after last JSON byte
+     */
+    JsonReader(
+            final byte[] json,
+            final int position,
+            final int end
+    ) {
+        this.json = json;
+        this.position = position;
+        this.end = end;
+    }
+
+    /**
+     * Returns index of next byte to read.
+     *
+     * @return index of next byte
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * Moves to a byte.
+     *
+     * @param position index of next byte to read
+     */
+    void position(
+            final int position
+    ) {
+        this.position = position;
+    }
+
+    /**
+     * Returns byte of JSON.
+     *
+     * @param index index of byte
+     * @return byte
+     */
+    byte at(
+            final int index
+    ) {
+        return json[index];
+    }
+
+    /**
+     * Reads JSON integer that starts at current position without creating
+     * a string.
+     *
+     * @return integer
+     */
+    long integer() {
+        int start = position;
+        skipNumber();
+        int i = start;
+        boolean negative = json[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        for (; i < position; i++) {
+            byte b = json[i];
+            if (b < '0' || b > '9') {
+                throw error("Expected integer");
+            }
+            int digit = b - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                throw error("Integer is too large");
+            }
+            value = value * 10 + digit;
+        }
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+    /**
+     * Reads JSON number that starts at current position.
+     *
+     * @return number
+     */
+    double decimal() {
+        int start = position;
+        skipNumber();
+        return Double.parseDouble(
+                new String(
+                        json,
+                        start,
+                        position - start,
+                        StandardCharsets.ISO_8859_1
+                )
+        );
+    }
+
+    /**
+     * Validates JSON object and indexes its entries. Values are not built.
+     *
+     * @return claims that build values when they are read
+     */
+    LazyClaims claims() {
+        LazyClaims claims = new LazyClaims(json);
+        skipSpaces();
+        expect('{');
+        skipSpaces();
+        if (peek() == '}') {
+            position++;
+        } else {
+            boolean more = true;
+            while (more) {
+                skipSpaces();
+                if (peek() != '"') {
+                    throw error("Expected name of claim");
+                }
+                String key = string();
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+                int start = position;
+                skip(1);
+                if (!claims.add(key, start)) {
+                    throw error("Duplicate claim \"" + key + "\"");
+                }
+                skipSpaces();
+                more = peek() == ',';
+                if (more) {
+                    position++;
+                } else {
+                    expect('}');
+                }
+            }
+        }
+        skipSpaces();
+        if (position != end) {
+            throw error("Unexpected data after JSON object");
+        }
+        return claims;
+    }
+
+    /**
+     * Builds JSON value that starts at current position. JSON must be
+     * validated first. Nested objects and arrays are unmodifiable, so
+     * values can be shared between threads once built.
+     *
+     * @return value
+     */
+    Object value() {
+        byte b = json[position];
+        if (b == '"') {
+            return string();
+        }
+        if (b == '{') {
+            return object();
+        }
+        if (b == '[') {
+            return array();
+        }
+        if (b == 't') {
+            position += "true".length();
+            return Boolean.TRUE;
+        }
+        if (b == 'f') {
+            position += "false".length();
+            return Boolean.FALSE;
+        }
+        if (b == 'n') {
+            position += "null".length();
+            return null;
+        }
+        return number();
+    }
+
+    private Map<String, Object> object() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        position++;
+        skipSpaces();
+        if (json[position] == '}') {
+            position++;
+            return Collections.unmodifiableMap(map);
+        }
+        boolean more = true;
+        while (more) {
+            skipSpaces();
+            String key = string();
+            skipSpaces();
+            position++;
+            skipSpaces();
+            map.put(key, value());
+            skipSpaces();
+            more = json[position] == ',';
+            position++;
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private List<Object> array() {
+        List<Object> list = new ArrayList<>();
+        position++;
+        skipSpaces();
+        if (json[position] == ']') {
+            position++;
+            return Collections.unmodifiableList(list);
+        }
+        boolean more = true;
+        while (more) {
+            skipSpaces();
+            list.add(value());
+            skipSpaces();
+            more = json[position] == ',';
+            position++;
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    private Object number() {
+        int start = position;
+        boolean integer = true;
+        while (position < end && isNumberByte(json[position])) {
+            byte b = json[position];
+            if (b == '.' || b == 'e' || b == 'E') {
+                integer = false;
+            }
+            position++;
+        }
+        String text = new String(
+                json,
+                start,
+                position - start,
+                StandardCharsets.ISO_8859_1
+        );
+        if (!integer) {
+            return Double.valueOf(text);
+        }
+        long value;
+        if (text.length() <= LONG_DIGITS) {
+            value = Long.parseLong(text);
+        } else {
+            BigInteger big = new BigInteger(text);
+            if (big.bitLength() >= Long.SIZE) {
+                return big;
+            }
+            value = big.longValue();
+        }
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    private static boolean isNumberByte(
+            final byte b
+    ) {
+        return b >= '0' && b <= '9'
+                || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+
+    /**
+     * Reads JSON string that starts at current position. It is validated
+     * as it is read.
+     *
+     * @return string
+     */
+    String string() {
+        position++;
+        int start = position;
+        while (position < end
+                && json[position] != '"'
+                && json[position] != '\\') {
+            if (json[position] >= 0 && json[position] < 0x20) {
+                throw error("Control character in string");
+            }
+            position++;
+        }
+        if (position >= end) {
+            throw error("Unterminated string");
+        }
+        if (json[position] == '"') {
+            position++;
+            return new String(
+                    json,
+                    start,
+                    position - 1 - start,
+                    StandardCharsets.UTF_8
+            );
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append(
+                new String(
+                        json,
+                        start,
+                        position - start,
+                        StandardCharsets.UTF_8
+                )
+        );
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                return builder.toString();
+            }
+            if (b == '\\') {
+                builder.append(escape());
+            } else {
+                int chunk = position - 1;
+                while (position < end
+                        && json[position] != '"'
+                        && json[position] != '\\') {
+                    position++;
+                }
+                for (int i = chunk; i < position; i++) {
+                    if (json[i] >= 0 && json[i] < 0x20) {
+                        throw error("Control character in string");
+                    }
+                }
+                builder.append(
+                        new String(
+                                json,
+                                chunk,
+                                position - chunk,
+                                StandardCharsets.UTF_8
+                        )
+                );
+            }
+        }
+    }
+
+    private char escape() {
+        byte b = next();
+        if (b == 'u') {
+            int c = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(next(), 16);
+                if (digit < 0) {
+                    throw error("Invalid escape in string");
+                }
+                c = c << 4 | digit;
+            }
+            return (char) c;
+        }
+        if (b == '"' || b == '\\' || b == '/') {
+            return (char) b;
+        }
+        if (b == 'b') {
+            return '\b';
+        }
+        if (b == 'f') {
+            return '\f';
+        }
+        if (b == 'n') {
+            return '\n';
+        }
+        if (b == 'r') {
+            return '\r';
+        }
+        if (b == 't') {
+            return '\t';
+        }
+        throw error("Invalid escape in string");
+    }
+
+    /**
+     * Validates JSON value that starts at current position and moves past
+     * it.
+     */
+    void skip() {
+        skip(1);
+    }
+
+    /**
+     * Validates JSON value that starts at current position and moves past
+     * it.
+     *
+     * @param depth nesting of value
+     */
+    private void skip(
+            final int depth
+    ) {
+        if (depth > MAX_DEPTH) {
+            throw error("JSON is nested too deeply");
+        }
+        byte b = peek();
+        if (b == '"') {
+            skipString();
+        } else if (b == '{') {
+            skipContainer(depth, '}', true);
+        } else if (b == '[') {
+            skipContainer(depth, ']', false);
+        } else if (b == 't') {
+            literal("true");
+        } else if (b == 'f') {
+            literal("false");
+        } else if (b == 'n') {
+            literal("null");
+        } else {
+            skipNumber();
+        }
+    }
+
+    private void skipContainer(
+            final int depth,
+            final char close,
+            final boolean object
+    ) {
+        position++;
+        skipSpaces();
+        if (peek() == close) {
+            position++;
+            return;
+        }
+        boolean more = true;
+        while (more) {
+            skipSpaces();
+            if (object) {
+                if (peek() != '"') {
+                    throw error("Expected name of field");
+                }
+                skipString();
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+            }
+            skip(depth + 1);
+            skipSpaces();
+            more = peek() == ',';
+            if (more) {
+                position++;
+            } else {
+                expect(close);
+            }
+        }
+    }
+
+    void skipString() {
+        position++;
+        while (true) {
+            byte b = next();
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                escape();
+            } else if (b >= 0 && b < 0x20) {
+                throw error("Control character in string");
+            }
+        }
+    }
+
+    void skipNumber() {
+        if (peek() == '-') {
+            position++;
+        }
+        if (peek() == '0') {
+            position++;
+        } else {
+            digits();
+        }
+        if (position < end && json[position] == '.') {
+            position++;
+            digits();
+        }
+        if (position < end
+                && (json[position] == 'e' || json[position] == 'E')) {
+            position++;
+            if (peek() == '+' || peek() == '-') {
+                position++;
+            }
+            digits();
+        }
+    }
+
+    private void digits() {
+        int start = position;
+        while (position < end && json[position] >= '0'
+                && json[position] <= '9') {
+            position++;
+        }
+        if (position == start) {
+            throw error("Invalid JSON value");
+        }
+    }
+
+    private void literal(
+            final String value
+    ) {
+        for (int i = 0; i < value.length(); i++) {
+            if (next() != value.charAt(i)) {
+                throw error("Invalid JSON value");
+            }
+        }
+    }
+
+    void skipSpaces() {
+        while (position < end && (json[position] == ' '
+                || json[position] == '\t'
+                || json[position] == '\n'
+                || json[position] == '\r')) {
+            position++;
+        }
+    }
+
+    void expect(
+            final char c
+    ) {
+        if (next() != c) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    byte peek() {
+        if (position >= end) {
+            throw error("Unexpected end of JSON");
+        }
+        return json[position];
+    }
+
+    byte next() {
+        byte b = peek();
+        position++;
+        return b;
+    }
+
+    MalformedJwtException error(
+            final String message
+    ) {
+        return new MalformedJwtException(
+                "Unable to read JWT payload: " + message + " at " + position
+                        + "."
+        );
+    }
+
+}
@@ -0,0 +1,311 @@
+package io.github.ilyalisov.jwt.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writer of JSON values to a growable UTF-8 buffer. Output is identical to
+ * the one of jjwt-jackson for the types it supports.
+ */
+final class JsonWriter {
+
+    /**
+     * Hexadecimal digits of escaped characters.
+     */
+    private static final byte[] HEX = "0123456789ABCDEF"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Short escapes by character code, 0 for characters written as
+     * {@code \\u00XX} and -1 for characters written as they are.
+     */
+    private static final byte[] ESCAPES = new byte[128];
+
+    static {
+        Arrays.fill(ESCAPES, (byte) -1);
+        for (int i = 0; i < 0x20; i++) {
+            ESCAPES[i] = 0;
+        }
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+    }
+
+    /**
+     * Buffer with written bytes.
+     */
+    private byte[] buffer;
+
+    /**
+     * Number of written bytes.
+     */
+    private int position;
+
+    /**
+     * Creates an object.
+     *
+     * @param capacity initial size of buffer
+     */
+    JsonWriter(
+            final int capacity
+    ) {
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Discards written bytes.
+     */
+    void reset() {
+        position = 0;
+    }
+
+    /**
+     * Returns buffer with written bytes. It is replaced when it grows.
+     *
+     * @return buffer
+     */
+    byte[] buffer() {
+        return buffer;
+    }
+
+    /**
+     * Returns number of written bytes.
+     *
+     * @return number of written bytes
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * Returns copy of written bytes.
+     *
+     * @return JSON bytes
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Writes JSON value.
+     *
+     * @param value value
+     * @return true - if value was written, false - if it has a type writer
+     * does not support
+     */
+    boolean value(
+            final Object value
+    ) {
+        if (value == null) {
+            return ascii("null");
+        }
+        if (value instanceof String) {
+            string((String) value);
+            return true;
+        }
+        if (value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte
+                || value instanceof BigInteger
+                || value instanceof BigDecimal
+                || value instanceof Boolean) {
+            return ascii(value.toString());
+        }
+        if (value instanceof Double) {
+            double number = (Double) value;
+            return Double.isFinite(number) && ascii(value.toString());
+        }
+        if (value instanceof Float) {
+            float number = (Float) value;
+            return Float.isFinite(number) && ascii(value.toString());
+        }
+        if (value instanceof Map) {
+            return object((Map<?, ?>) value);
+        }
+        if (value instanceof Collection) {
+            return array(((Collection<?>) value).toArray());
+        }
+        if (value instanceof Object[]) {
+            return array((Object[]) value);
+        }
+        return false;
+    }
+
+    /**
+     * Writes JSON object.
+     *
+     * @param map entries of object
+     * @return true - if object was written, false - if it has a key or a
+     * value of type writer does not support
+     */
+    boolean object(
+            final Map<?, ?> map
+    ) {
+        put('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!(entry.getKey() instanceof String)) {
+                return false;
+            }
+            if (!first) {
+                put(',');
+            }
+            first = false;
+            string((String) entry.getKey());
+            put(':');
+            if (!value(entry.getValue())) {
+                return false;
+            }
+        }
+        put('}');
+        return true;
+    }
+
+    private boolean array(
+            final Object[] values
+    ) {
+        put('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                put(',');
+            }
+            if (!value(values[i])) {
+                return false;
+            }
+        }
+        put(']');
+        return true;
+    }
+
+    /**
+     * Writes JSON string. Surrogates are escaped one by one, as
+     * jjwt-jackson does.
+     *
+     * @param value string
+     */
+    void string(
+            final String value
+    ) {
+        ensure(value.length() * 6 + 2);
+        byte[] out = buffer;
+        int p = position;
+        out[p++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                int escape = ESCAPES[c];
+                if (escape < 0) {
+                    out[p++] = (byte) c;
+                } else if (escape > 0) {
+                    out[p++] = '\\';
+                    out[p++] = (byte) escape;
+                } else {
+                    out[p++] = '\\';
+                    out[p++] = 'u';
+                    out[p++] = '0';
+                    out[p++] = '0';
+                    out[p++] = HEX[c >> 4];
+                    out[p++] = HEX[c & 0xf];
+                }
+            } else if (c < 0x800) {
+                out[p++] = (byte) (0xc0 | c >> 6);
+                out[p++] = (byte) (0x80 | c & 0x3f);
+            } else if (!Character.isSurrogate(c)) {
+                out[p++] = (byte) (0xe0 | c >> 12);
+                out[p++] = (byte) (0x80 | c >> 6 & 0x3f);
+                out[p++] = (byte) (0x80 | c & 0x3f);
+            } else {
+                out[p++] = '\\';
+                out[p++] = 'u';
+                out[p++] = HEX[c >> 12];
+                out[p++] = HEX[c >> 8 & 0xf];
+                out[p++] = HEX[c >> 4 & 0xf];
+                out[p++] = HEX[c & 0xf];
+            }
+        }
+        out[p++] = '"';
+        position = p;
+    }
+
+    /**
+     * Writes bytes as they are.
+     *
+     * @param bytes bytes
+     */
+    void raw(
+            final byte[] bytes
+    ) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Writes integer number without creating a string.
+     *
+     * @param value number
+     */
+    void number(
+            final long value
+    ) {
+        if (value < 0) {
+            ascii(Long.toString(value));
+            return;
+        }
+        int length = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            length++;
+        }
+        ensure(length);
+        long rest = value;
+        for (int i = position + length - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        position += length;
+    }
+
+    private boolean ascii(
+            final String value
+    ) {
+        ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position + i] = (byte) value.charAt(i);
+        }
+        position += value.length();
+        return true;
+    }
+
+    /**
+     * Writes structural character.
+     *
+     * @param c character
+     */
+    void put(
+            final char c
+    ) {
+        ensure(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void ensure(
+            final int length
+    ) {
+        if (buffer.length - position < length) {
+            buffer = Arrays.copyOf(
+                    buffer,
+                    Math.max(buffer.length * 2, position + length)
+            );
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.github.ilyalisov.jwt.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a record as claims of JWT tokens. Annotation processor of the
+ * library generates a {@link ClaimsRecordCodec} for it, so TokenService
+ * encodes and decodes the record without building a map.
+ * <p>
+ * Every component is a claim with the same name. Components can be
+ * String, long, int, boolean, double, their wrappers, List, Map or Object.
+ * The "iat" and "exp" claims are set by TokenService, so they can not be
+ * components.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JwtClaims {
+
+}
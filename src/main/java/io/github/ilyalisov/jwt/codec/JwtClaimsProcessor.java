@@ -0,0 +1,275 @@
+package io.github.ilyalisov.jwt.codec;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor that generates {@link ClaimsRecordCodec} for every
+ * record annotated with {@link JwtClaims}. Codec of record
+ * {@code Outer.UserClaims} is {@code Outer_UserClaimsJwtCodec} in the same
+ * package.
+ */
+@SupportedAnnotationTypes("io.github.ilyalisov.jwt.codec.JwtClaims")
+public final class JwtClaimsProcessor extends AbstractProcessor {
+
+    /**
+     * Claims TokenService sets itself.
+     */
+    private static final Set<String> RESERVED_CLAIMS = Set.of("iat", "exp");
+
+    /**
+     * Expressions that read values by kind of primitive type.
+     */
+    private static final Map<TypeKind, String> PRIMITIVE_READS = Map.of(
+            TypeKind.LONG, "reader.readLong()",
+            TypeKind.INT, "reader.readInt()",
+            TypeKind.BOOLEAN, "reader.readBoolean()",
+            TypeKind.DOUBLE, "reader.readDouble()"
+    );
+
+    /**
+     * Default values by kind of primitive type.
+     */
+    private static final Map<TypeKind, String> PRIMITIVE_DEFAULTS = Map.of(
+            TypeKind.LONG, "0L",
+            TypeKind.INT, "0",
+            TypeKind.BOOLEAN, "false",
+            TypeKind.DOUBLE, "0.0"
+    );
+
+    /**
+     * Expressions that read values by name of reference type.
+     */
+    private static final Map<String, String> REFERENCE_READS = Map.of(
+            "java.lang.String", "reader.readString()",
+            "java.lang.Long", "reader.readNull() ? null : reader.readLong()",
+            "java.lang.Integer", "reader.readNull() ? null : reader.readInt()",
+            "java.lang.Boolean",
+            "reader.readNull() ? null : reader.readBoolean()",
+            "java.lang.Double",
+            "reader.readNull() ? null : reader.readDouble()",
+            "java.util.List", "reader.readValue(java.util.List.class)",
+            "java.util.Map", "reader.readValue(java.util.Map.class)",
+            "java.lang.Object", "reader.readValue(Object.class)"
+    );
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(
+            final Set<? extends TypeElement> annotations,
+            final RoundEnvironment roundEnv
+    ) {
+        for (Element element
+                : roundEnv.getElementsAnnotatedWith(JwtClaims.class)) {
+            if (element.getKind() != ElementKind.RECORD) {
+                error(element, "@JwtClaims can only be applied to records.");
+            } else {
+                generate((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private void generate(
+            final TypeElement record
+    ) {
+        if (!record.getTypeParameters().isEmpty()) {
+            error(record, "Claims record can not be generic.");
+            return;
+        }
+        for (Element e = record; e instanceof TypeElement;
+             e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                error(record, "Claims record can not be private.");
+                return;
+            }
+        }
+        List<? extends RecordComponentElement> components =
+                record.getRecordComponents();
+        boolean valid = true;
+        for (RecordComponentElement component : components) {
+            String name = component.getSimpleName().toString();
+            if (RESERVED_CLAIMS.contains(name)) {
+                error(component, "Claim \"" + name + "\" is set by "
+                        + "TokenService.");
+                valid = false;
+            } else if (read(component.asType()) == null) {
+                error(component, "Unsupported type of claim: "
+                        + component.asType());
+                valid = false;
+            }
+        }
+        if (!valid) {
+            return;
+        }
+        String packageName = processingEnv.getElementUtils()
+                .getPackageOf(record)
+                .getQualifiedName()
+                .toString();
+        String codecName = RecordCodecs.codecName(
+                packageName,
+                processingEnv.getElementUtils()
+                        .getBinaryName(record)
+                        .toString()
+        );
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(codecName, record)
+                .openWriter()) {
+            writer.write(source(record, packageName, codecName, components));
+        } catch (IOException e) {
+            error(record, "Unable to generate " + codecName + ": "
+                    + e.getMessage());
+        }
+    }
+
+    private String source(
+            final TypeElement record,
+            final String packageName,
+            final String codecName,
+            final List<? extends RecordComponentElement> components
+    ) {
+        String type = record.getQualifiedName().toString();
+        String simpleName = codecName.substring(codecName.lastIndexOf('.')
+                + 1);
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("@javax.annotation.processing.Generated(\"")
+                .append(JwtClaimsProcessor.class.getName())
+                .append("\")\n")
+                .append("public final class ").append(simpleName)
+                .append("\n        implements ")
+                .append(ClaimsRecordCodec.class.getName())
+                .append('<').append(type).append("> {\n\n");
+        for (int i = 0; i < components.size(); i++) {
+            out.append("    private static final byte[] NAME_").append(i)
+                    .append(" = ")
+                    .append(ClaimsWriter.class.getName())
+                    .append(".name(\"")
+                    .append(components.get(i).getSimpleName())
+                    .append("\");\n\n");
+        }
+        out.append("    @Override\n")
+                .append("    public Class<").append(type)
+                .append("> type() {\n")
+                .append("        return ").append(type)
+                .append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void write(\n")
+                .append("            final ").append(type)
+                .append(" claims,\n")
+                .append("            final ")
+                .append(ClaimsWriter.class.getName())
+                .append(" writer\n")
+                .append("    ) {\n");
+        for (int i = 0; i < components.size(); i++) {
+            out.append("        writer.field(NAME_").append(i)
+                    .append(", claims.")
+                    .append(components.get(i).getSimpleName())
+                    .append("());\n");
+        }
+        out.append("    }\n\n")
+                .append("    @Override\n")
+                .append("    @SuppressWarnings(\"unchecked\")\n")
+                .append("    public ").append(type).append(" read(\n")
+                .append("            final ")
+                .append(ClaimsReader.class.getName())
+                .append(" reader\n")
+                .append("    ) {\n");
+        for (int i = 0; i < components.size(); i++) {
+            TypeMirror component = components.get(i).asType();
+            out.append("        ")
+                    .append(processingEnv.getTypeUtils().erasure(component))
+                    .append(" c").append(i)
+                    .append(" = ").append(defaultValue(component))
+                    .append(";\n");
+        }
+        out.append("        while (reader.next()) {\n");
+        for (int i = 0; i < components.size(); i++) {
+            out.append("            ");
+            if (i > 0) {
+                out.append("} else ");
+            }
+            out.append("if (reader.isName(NAME_").append(i).append(")) {\n")
+                    .append("                c").append(i).append(" = ")
+                    .append(read(components.get(i).asType()))
+                    .append(";\n");
+        }
+        if (!components.isEmpty()) {
+            out.append("            }\n");
+        }
+        out.append("        }\n")
+                .append("        return new ").append(type).append('(');
+        for (int i = 0; i < components.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append('c').append(i);
+        }
+        out.append(");\n")
+                .append("    }\n\n")
+                .append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Returns expression that reads value of a type.
+     *
+     * @param type type of component
+     * @return expression or null if type is not supported
+     */
+    private String read(
+            final TypeMirror type
+    ) {
+        if (type.getKind().isPrimitive()) {
+            return PRIMITIVE_READS.get(type.getKind());
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return REFERENCE_READS.get(
+                processingEnv.getTypeUtils()
+                        .erasure(type)
+                        .toString()
+        );
+    }
+
+    private static String defaultValue(
+            final TypeMirror type
+    ) {
+        if (type.getKind().isPrimitive()) {
+            return PRIMITIVE_DEFAULTS.get(type.getKind());
+        }
+        return "null";
+    }
+
+    private void error(
+            final Element element,
+            final String message
+    ) {
+        processingEnv.getMessager()
+                .printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+}
@@ -0,0 +1,272 @@
+package io.github.ilyalisov.jwt.codec;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Claims of validated JSON payload whose values are built when they are
+ * read. Verification reads only registered claims, so custom claims are
+ * never built unless application asks for them.
+ * <p>
+ * Built values are immutable, so concurrent readers may build the same
+ * value twice, but never observe a partially built one.
+ */
+final class LazyClaims extends AbstractMap<String, Object> {
+
+    /**
+     * Marker of value that is not built yet.
+     */
+    private static final Object PENDING = new Object();
+
+    /**
+     * Number of claims above which they are looked up by hash.
+     */
+    private static final int LINEAR_LOOKUP = 8;
+
+    /**
+     * Estimated size of object with its four arrays.
+     */
+    private static final long ARRAYS = 96;
+
+    /**
+     * Estimated size of key, offset and value slots of a claim.
+     */
+    private static final long ARRAY_SLOT = 12;
+
+    /**
+     * Estimated size of entry of index with its boxed position.
+     */
+    private static final long INDEX_ENTRY = 64;
+
+    /**
+     * Copy of JSON payload.
+     */
+    private final byte[] json;
+
+    /**
+     * Names of claims in order of payload.
+     */
+    private String[] keys;
+
+    /**
+     * Offsets of values in payload.
+     */
+    private int[] offsets;
+
+    /**
+     * Built values or {@link #PENDING}.
+     */
+    private Object[] values;
+
+    /**
+     * Number of claims.
+     */
+    private int size;
+
+    /**
+     * Indexes of claims by name. It is null while there are few claims.
+     */
+    private Map<String, Integer> index;
+
+    /**
+     * Creates an object.
+     *
+     * @param json copy of JSON payload
+     */
+    LazyClaims(
+            final byte[] json
+    ) {
+        this.json = json;
+        this.keys = new String[LINEAR_LOOKUP];
+        this.offsets = new int[LINEAR_LOOKUP];
+        this.values = new Object[LINEAR_LOOKUP];
+    }
+
+    /**
+     * Adds claim whose value is not built yet.
+     *
+     * @param key    name of claim
+     * @param offset offset of value in payload
+     * @return true - if claim was added, false - if it already exists
+     */
+    boolean add(
+            final String key,
+            final int offset
+    ) {
+        if (indexOf(key) >= 0) {
+            return false;
+        }
+        append(key, offset, PENDING);
+        return true;
+    }
+
+    private void append(
+            final String key,
+            final int offset,
+            final Object value
+    ) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = key;
+        offsets[size] = offset;
+        values[size] = value;
+        if (index != null) {
+            index.put(key, size);
+        } else if (size == LINEAR_LOOKUP) {
+            index = new HashMap<>();
+            for (int i = 0; i <= size; i++) {
+                index.put(keys[i], i);
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Estimates heap retained by claims. Values that are not built yet are
+     * counted as twice the length of their JSON, which is what strings,
+     * numbers and nested containers take once they are built.
+     *
+     * @return estimated size in bytes
+     */
+    long footprint() {
+        long bytes = ARRAYS + json.length
+                + (long) keys.length * ARRAY_SLOT;
+        if (index != null) {
+            bytes += (long) size * INDEX_ENTRY;
+        }
+        for (int i = 0; i < size; i++) {
+            bytes += ClaimsFootprint.value(keys[i]);
+            Object value = values[i];
+            if (value == PENDING) {
+                int end = json.length;
+                if (i + 1 < size && offsets[i + 1] > offsets[i]) {
+                    end = offsets[i + 1];
+                }
+                bytes += 2L * (end - offsets[i]);
+            } else {
+                bytes += ClaimsFootprint.value(value);
+            }
+        }
+        return bytes;
+    }
+
+    private int indexOf(
+            final Object key
+    ) {
+        if (index != null) {
+            Integer i = index.get(key);
+            if (i == null) {
+                return -1;
+            }
+            return i;
+        }
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Object value(
+            final int i
+    ) {
+        Object value = values[i];
+        if (value == PENDING) {
+            value = new JsonReader(json, offsets[i], json.length).value();
+            values[i] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public Object get(
+            final Object key
+    ) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        return value(i);
+    }
+
+    @Override
+    public boolean containsKey(
+            final Object key
+    ) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object put(
+            final String key,
+            final Object value
+    ) {
+        int i = indexOf(key);
+        if (i < 0) {
+            append(key, -1, value);
+            return null;
+        }
+        Object previous = value(i);
+        values[i] = value;
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+
+                    /**
+                     * Index of next claim.
+                     */
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < size;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, Object> entry =
+                                new SimpleImmutableEntry<>(
+                                        keys[next],
+                                        value(next)
+                                );
+                        next++;
+                        return entry;
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+        };
+    }
+
+}
@@ -0,0 +1,99 @@
+package io.github.ilyalisov.jwt.codec;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Generated codecs of claims records. Every codec is looked up once per
+ * record type.
+ */
+final class RecordCodecs {
+
+    /**
+     * Suffix of names of generated codecs.
+     */
+    static final String SUFFIX = "JwtCodec";
+
+    /**
+     * Codecs by type of record.
+     */
+    private static final ClassValue<ClaimsRecordCodec<?>> CODECS =
+            new ClassValue<>() {
+
+                @Override
+                protected ClaimsRecordCodec<?> computeValue(
+                        final Class<?> type
+                ) {
+                    return load(type);
+                }
+
+            };
+
+    private RecordCodecs() {
+    }
+
+    /**
+     * Returns generated codec of a record.
+     *
+     * @param type type of record
+     * @param <T>  type of record
+     * @return codec
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Record> ClaimsRecordCodec<T> get(
+            final Class<T> type
+    ) {
+        return (ClaimsRecordCodec<T>) CODECS.get(type);
+    }
+
+    /**
+     * Returns name of codec generated for a record. Names of enclosing
+     * classes are joined with underscores.
+     *
+     * @param packageName name of package of record
+     * @param binaryName  binary name of record
+     * @return binary name of codec
+     */
+    static String codecName(
+            final String packageName,
+            final String binaryName
+    ) {
+        String simpleName = binaryName.substring(packageName.length())
+                .replace('$', '_');
+        if (simpleName.startsWith(".")) {
+            simpleName = simpleName.substring(1);
+        }
+        String name = simpleName + SUFFIX;
+        if (packageName.isEmpty()) {
+            return name;
+        }
+        return packageName + "." + name;
+    }
+
+    private static ClaimsRecordCodec<?> load(
+            final Class<?> type
+    ) {
+        String name = codecName(type.getPackageName(), type.getName());
+        try {
+            Class<?> codec = Class.forName(name, true, type.getClassLoader());
+            return (ClaimsRecordCodec<?>) codec.getDeclaredConstructor()
+                    .newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException(
+                    "No codec was generated for " + type.getName()
+                            + ". Annotate it with @JwtClaims and enable "
+                            + "annotation processing.",
+                    e
+            );
+        } catch (ReflectiveOperationException e) {
+            Throwable cause = e;
+            if (e instanceof InvocationTargetException) {
+                cause = e.getCause();
+            }
+            throw new IllegalStateException(
+                    "Unable to create codec " + name + ".",
+                    cause
+            );
+        }
+    }
+
+}
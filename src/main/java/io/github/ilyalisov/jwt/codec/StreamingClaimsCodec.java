@@ -0,0 +1,75 @@
+package io.github.ilyalisov.jwt.codec;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * ClaimsCodec that writes claims straight to UTF-8 bytes and reads them
+ * without building a tree.
+ * <p>
+ * Serialized payload is identical to the one jjwt-jackson produces.
+ * Claims with values of other types than strings, numbers, booleans, maps
+ * and collections are serialized by a fallback codec. Deserialization
+ * validates whole payload, but builds value of a claim only when it is
+ * read, so verification of JWT token decodes only registered claims.
+ */
+public final class StreamingClaimsCodec implements ClaimsCodec {
+
+    /**
+     * Initial size of per-thread buffer.
+     */
+    private static final int BUFFER_SIZE = 512;
+
+    /**
+     * Codec for claims this codec can not serialize.
+     */
+    private final ClaimsCodec fallback;
+
+    /**
+     * Per-thread writers.
+     */
+    private final ThreadLocal<JsonWriter> writers;
+
+    /**
+     * Creates an object with {@link JjwtClaimsCodec} as fallback.
+     */
+    public StreamingClaimsCodec() {
+        this(new JjwtClaimsCodec());
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param fallback codec for claims this codec can not serialize
+     */
+    public StreamingClaimsCodec(
+            final ClaimsCodec fallback
+    ) {
+        this.fallback = fallback;
+        this.writers = ThreadLocal.withInitial(
+                () -> new JsonWriter(BUFFER_SIZE)
+        );
+    }
+
+    @Override
+    public byte[] serialize(
+            final Map<String, ?> claims
+    ) {
+        JsonWriter writer = writers.get();
+        writer.reset();
+        if (!writer.object(claims)) {
+            return fallback.serialize(claims);
+        }
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Map<String, Object> deserialize(
+            final byte[] json,
+            final int length
+    ) {
+        byte[] copy = Arrays.copyOf(json, length);
+        return new JsonReader(copy, 0, length).claims();
+    }
+
+}
@@ -0,0 +1,136 @@
+package io.github.ilyalisov.jwt.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for asynchronous adapters. Per-task executors start a new
+ * virtual thread for every task. The library is compiled for Java 17, so
+ * virtual threads are looked up reflectively. On runtimes without them,
+ * tasks run on a cached pool of daemon platform threads, which also never
+ * queues a task behind a blocked one.
+ * <p>
+ * Default asynchronous adapters share a per-task executor, so a blocked
+ * call of storage never holds a thread other calls wait for. Signers and
+ * JSON writers keep their buffers in thread locals, which a short-lived
+ * thread throws away after one task. Callers that do only CPU-bound work
+ * can opt in to {@link #newPlatformExecutor(int)} to reuse them.
+ */
+public final class VirtualThreads {
+
+    /**
+     * Factory of virtual-thread-per-task executors, null if virtual
+     * threads are not available.
+     */
+    private static final Method FACTORY = factory();
+
+    private VirtualThreads() {
+    }
+
+    private static Method factory() {
+        try {
+            Method method = Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor");
+            ((ExecutorService) method.invoke(null)).shutdown();
+            return method;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks if runtime supports virtual threads.
+     *
+     * @return true - if tasks run on virtual threads, false - if they run
+     * on platform threads
+     */
+    public static boolean isAvailable() {
+        return FACTORY != null;
+    }
+
+    /**
+     * Creates executor that starts a new thread for every task, virtual if
+     * runtime supports them.
+     *
+     * @return executor
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (FACTORY != null) {
+            try {
+                return (ExecutorService) FACTORY.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(
+                        "Unable to create virtual thread executor.",
+                        e
+                );
+            }
+        }
+        return Executors.newCachedThreadPool(new DaemonThreadFactory());
+    }
+
+    /**
+     * Creates executor with a fixed number of daemon platform threads.
+     * Threads live as long as executor, so their thread-local caches are
+     * reused by following tasks.
+     *
+     * @param threads number of threads
+     * @return executor
+     */
+    public static ExecutorService newPlatformExecutor(
+            final int threads
+    ) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException(
+                    "Number of threads must be positive."
+            );
+        }
+        return Executors.newFixedThreadPool(
+                threads,
+                new DaemonThreadFactory()
+        );
+    }
+
+    /**
+     * Returns per-task executor shared by asynchronous adapters that were
+     * not given an executor. It is never shut down.
+     *
+     * @return executor
+     */
+    public static ExecutorService shared() {
+        return Shared.EXECUTOR;
+    }
+
+    private static final class Shared {
+
+        /**
+         * Executor shared by asynchronous adapters.
+         */
+        private static final ExecutorService EXECUTOR = newPerTaskExecutor();
+
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        /**
+         * Number of created threads.
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(
+                final Runnable runnable
+        ) {
+            Thread thread = new Thread(
+                    runnable,
+                    "jwt-async-" + count.incrementAndGet()
+            );
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
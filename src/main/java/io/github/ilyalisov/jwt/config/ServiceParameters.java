@@ -0,0 +1,213 @@
+package io.github.ilyalisov.jwt.config;
+
+import io.github.ilyalisov.jwt.cache.TokenCache;
+import io.github.ilyalisov.jwt.codec.ClaimsCodec;
+import io.github.ilyalisov.jwt.codec.StreamingClaimsCodec;
+import io.github.ilyalisov.jwt.service.KeyRing;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Parameters of TokenService.
+ */
+@Builder(
+        builderMethodName = "hiddenBuilder",
+        access = AccessLevel.PRIVATE
+)
+@Getter
+public class ServiceParameters {
+
+    /**
+     * Default maximum length of JWT token.
+     */
+    public static final int DEFAULT_MAX_TOKEN_LENGTH = 8192;
+
+    /**
+     * Secret of key for JWT token generation. If key ring is set, it only
+     * verifies JWT tokens without "kid" header. Can be null.
+     */
+    private String secret;
+
+    /**
+     * Key ring to sign and verify JWT tokens with. Can be null.
+     */
+    private KeyRing keyRing;
+
+    /**
+     * Allowed clock skew when validating "exp" and "nbf" of JWT token.
+     */
+    private Duration leeway;
+
+    /**
+     * Clock to validate JWT token against.
+     */
+    private Clock clock;
+
+    /**
+     * Cache of verified JWT tokens. If null, every JWT token is verified.
+     */
+    private TokenCache cache;
+
+    /**
+     * Maximum length of JWT token. Longer JWT tokens are rejected before
+     * their signature is verified.
+     */
+    private int maxTokenLength;
+
+    /**
+     * Serializer and deserializer of payload of JWT tokens.
+     */
+    private ClaimsCodec claimsCodec;
+
+    /**
+     * Creates a builder for ServiceParameters.
+     *
+     * @param secret secret of key for JWT token generation
+     * @return ServiceParametersBuilder
+     */
+    public static ServiceParametersBuilder builder(
+            final String secret
+    ) {
+        return hiddenBuilder()
+                .secret(secret)
+                .leeway(Duration.ZERO)
+                .clock(Clock.systemUTC())
+                .maxTokenLength(DEFAULT_MAX_TOKEN_LENGTH)
+                .claimsCodec(new StreamingClaimsCodec());
+    }
+
+    /**
+     * Creates a builder for ServiceParameters with a key ring. JWT tokens
+     * without "kid" header are rejected unless secret is set.
+     *
+     * @param keyRing key ring to sign and verify JWT tokens with
+     * @return ServiceParametersBuilder
+     */
+    public static ServiceParametersBuilder builder(
+            final KeyRing keyRing
+    ) {
+        return hiddenBuilder()
+                .keyRing(keyRing)
+                .leeway(Duration.ZERO)
+                .clock(Clock.systemUTC())
+                .maxTokenLength(DEFAULT_MAX_TOKEN_LENGTH)
+                .claimsCodec(new StreamingClaimsCodec());
+    }
+
+    public static class ServiceParametersBuilder {
+
+        /**
+         * Sets secret of key for JWT tokens without "kid" header.
+         *
+         * @param secret secret of key
+         * @return ServiceParametersBuilder
+         */
+        public ServiceParametersBuilder secret(
+                final String secret
+        ) {
+            this.secret = secret;
+            return this;
+        }
+
+        /**
+         * Sets key ring to sign and verify JWT tokens with.
+         *
+         * @param keyRing key ring
+         * @return ServiceParametersBuilder
+         */
+        public ServiceParametersBuilder keyRing(
+                final KeyRing keyRing
+        ) {
+            this.keyRing = keyRing;
+            return this;
+        }
+
+        /**
+         * Sets allowed clock skew for JWT token validation.
+         *
+         * @param leeway allowed clock skew
+         * @return ServiceParametersBuilder
+         */
+        public ServiceParametersBuilder leeway(
+                final Duration leeway
+        ) {
+            this.leeway = leeway;
+            return this;
+        }
+
+        /**
+         * Sets clock to validate JWT token against.
+         *
+         * @param clock clock
+         * @return ServiceParametersBuilder
+         */
+        public ServiceParametersBuilder clock(
+                final Clock clock
+        ) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Sets cache of verified JWT tokens.
+         *
+         * @param cache cache of verified JWT tokens
+         * @return ServiceParametersBuilder
+         */
+        public ServiceParametersBuilder cache(
+                final TokenCache cache
+        ) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Sets maximum length of JWT token.
+         *
+         * @param maxTokenLength maximum length of JWT token
+         * @return ServiceParametersBuilder
+         */
+        public ServiceParametersBuilder maxTokenLength(
+                final int maxTokenLength
+        ) {
+            this.maxTokenLength = maxTokenLength;
+            return this;
+        }
+
+        /**
+         * Sets serializer and deserializer of payload of JWT tokens.
+         *
+         * @param claimsCodec codec of claims
+         * @return ServiceParametersBuilder
+         */
+        public ServiceParametersBuilder claimsCodec(
+                final ClaimsCodec claimsCodec
+        ) {
+            this.claimsCodec = claimsCodec;
+            return this;
+        }
+
+        /**
+         * Builds final object.
+         *
+         * @return ServiceParameters
+         */
+        public ServiceParameters build() {
+            return new ServiceParameters(
+                    secret,
+                    keyRing,
+                    leeway,
+                    clock,
+                    cache,
+                    maxTokenLength,
+                    claimsCodec
+            );
+        }
+
+    }
+
+}
@@ -4,10 +4,12 @@ import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -58,15 +60,38 @@ public class TokenParameters {
             final String type,
             final Duration duration
     ) {
-        Date issuedAt = new Date();
+        return builder(
+                subject,
+                type,
+                duration,
+                Clock.systemUTC()
+        );
+    }
+
+    /**
+     * Creates a builder for TokenParameters issued at current time of a
+     * clock.
+     *
+     * @param subject  "sub" of JWT token
+     * @param type     type of JWT token
+     * @param duration duration between token issuing and expiration date
+     * @param clock    clock to take issuing date from
+     * @return TokenParametersBuilder
+     */
+    public static TokenParametersBuilder builder(
+            final String subject,
+            final String type,
+            final Duration duration,
+            final Clock clock
+    ) {
+        long issuedAt = clock.millis();
         return hiddenBuilder()
-                .claims(new HashMap<>())
+                .claims(new LinkedHashMap<>())
                 .type(type)
-                .issuedAt(issuedAt)
+                .issuedAt(new Date(issuedAt))
                 .subject(subject)
                 .expiredAt(new Date(
-                        issuedAt.getTime()
-                                + 1000 * duration.get(ChronoUnit.SECONDS)
+                        issuedAt + 1000 * duration.get(ChronoUnit.SECONDS)
                 ));
     }
 
@@ -86,7 +111,7 @@ public class TokenParameters {
             if (this.claims != null) {
                 this.claims.put(key, value);
             } else {
-                this.claims = new HashMap<>();
+                this.claims = new LinkedHashMap<>();
             }
             return this;
         }
@@ -103,7 +128,7 @@ public class TokenParameters {
             if (this.claims != null) {
                 this.claims.putAll(claims);
             } else {
-                this.claims = new HashMap<>();
+                this.claims = new LinkedHashMap<>();
             }
             return this;
         }
@@ -121,6 +146,32 @@ public class TokenParameters {
             return this;
         }
 
+        /**
+         * Sets issued date for JWT token.
+         *
+         * @param issuedAt instant of issuing
+         * @return TokenParametersBuilder
+         */
+        public TokenParametersBuilder issuedAt(
+                final Instant issuedAt
+        ) {
+            this.issuedAt = new Date(issuedAt.toEpochMilli());
+            return this;
+        }
+
+        /**
+         * Sets expiration date for JWT token.
+         *
+         * @param expiredAt instant of expiration
+         * @return TokenParametersBuilder
+         */
+        public TokenParametersBuilder expiredAt(
+                final Instant expiredAt
+        ) {
+            this.expiredAt = new Date(expiredAt.toEpochMilli());
+            return this;
+        }
+
         /**
          * Sets expiration date for JWT token.
          *
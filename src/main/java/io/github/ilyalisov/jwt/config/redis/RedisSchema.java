@@ -18,4 +18,15 @@ public interface RedisSchema {
             String type
     );
 
+    /**
+     * Prefix of Redis keys of reverse index. Index key of JWT token is this
+     * prefix followed by lowercase hex SHA-1 of JWT token, and its value is
+     * Redis key JWT token is stored with.
+     *
+     * @return prefix of index keys
+     */
+    default String tokenIndexPrefix() {
+        return "tokens:index:";
+    }
+
 }
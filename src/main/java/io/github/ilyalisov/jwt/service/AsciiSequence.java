@@ -0,0 +1,164 @@
+package io.github.ilyalisov.jwt.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CharSequence view over bytes of JWT token. Every byte is one character,
+ * so JWT token read from network can be verified without building a
+ * String. Bytes are not copied.
+ */
+final class AsciiSequence implements CharSequence {
+
+    /**
+     * Array of bytes. It is null if bytes are in a direct buffer.
+     */
+    private final byte[] array;
+
+    /**
+     * Direct buffer of bytes. It is null if bytes are in an array.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Index of first byte in array or buffer.
+     */
+    private final int offset;
+
+    /**
+     * Number of bytes.
+     */
+    private final int length;
+
+    private AsciiSequence(
+            final byte[] array,
+            final ByteBuffer buffer,
+            final int offset,
+            final int length
+    ) {
+        this.array = array;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Creates a view over a slice of array.
+     *
+     * @param array  array of bytes
+     * @param offset index of first byte
+     * @param length number of bytes
+     * @return CharSequence
+     */
+    static AsciiSequence of(
+            final byte[] array,
+            final int offset,
+            final int length
+    ) {
+        if (offset < 0 || length < 0 || offset > array.length - length) {
+            throw new IndexOutOfBoundsException(
+                    "Range [" + offset + ", " + offset + " + " + length
+                            + ") out of bounds for length " + array.length
+            );
+        }
+        return new AsciiSequence(array, null, offset, length);
+    }
+
+    /**
+     * Creates a view over remaining bytes of buffer. Position of buffer is
+     * not changed.
+     *
+     * @param buffer buffer of bytes
+     * @return CharSequence
+     */
+    static AsciiSequence of(
+            final ByteBuffer buffer
+    ) {
+        if (buffer.hasArray()) {
+            return new AsciiSequence(
+                    buffer.array(),
+                    null,
+                    buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining()
+            );
+        }
+        return new AsciiSequence(
+                null,
+                buffer,
+                buffer.position(),
+                buffer.remaining()
+        );
+    }
+
+    /**
+     * Returns index of first occurrence of character.
+     *
+     * @param sequence characters to search in
+     * @param c        character to search for
+     * @param from     index to start search from
+     * @return index of character or -1 if there is none
+     */
+    static int indexOf(
+            final CharSequence sequence,
+            final char c,
+            final int from
+    ) {
+        if (sequence instanceof String) {
+            return ((String) sequence).indexOf(c, from);
+        }
+        for (int i = from; i < sequence.length(); i++) {
+            if (sequence.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(
+            final int index
+    ) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (array != null) {
+            return (char) (array[offset + index] & 0xff);
+        }
+        return (char) (buffer.get(offset + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(
+            final int start,
+            final int end
+    ) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(
+                    "Range [" + start + ", " + end
+                            + ") out of bounds for length " + length
+            );
+        }
+        return new AsciiSequence(array, buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        if (array != null) {
+            return new String(
+                    array,
+                    offset,
+                    length,
+                    StandardCharsets.ISO_8859_1
+            );
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+}
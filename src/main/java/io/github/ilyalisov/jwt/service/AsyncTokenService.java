@@ -0,0 +1,108 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.github.ilyalisov.jwt.concurrent.VirtualThreads;
+import io.github.ilyalisov.jwt.config.TokenParameters;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous version of TokenService. Methods return at once, so calls
+ * that reach TokenStorage do not block event-loop threads.
+ */
+public interface AsyncTokenService {
+
+    /**
+     * Creates adapter that runs every call of TokenService on a new thread,
+     * virtual if runtime supports them.
+     *
+     * @param service synchronous TokenService
+     * @return AsyncTokenService
+     */
+    static AsyncTokenService of(
+            final TokenService service
+    ) {
+        return of(service, VirtualThreads.shared());
+    }
+
+    /**
+     * Creates adapter that runs calls of TokenService on provided executor.
+     *
+     * @param service  synchronous TokenService
+     * @param executor executor to run calls on
+     * @return AsyncTokenService
+     */
+    static AsyncTokenService of(
+            final TokenService service,
+            final Executor executor
+    ) {
+        return new AsyncTokenServiceAdapter(service, executor);
+    }
+
+    /**
+     * Creates JWT token with provided parameters.
+     *
+     * @param params parameters for JWT token
+     * @return future of JWT token
+     */
+    CompletableFuture<String> create(
+            TokenParameters params
+    );
+
+    /**
+     * Creates a batch of JWT tokens.
+     *
+     * @param params parameters for JWT tokens
+     * @return future of JWT tokens in the order of provided parameters
+     */
+    CompletableFuture<List<String>> createAll(
+            List<TokenParameters> params
+    );
+
+    /**
+     * Verifies JWT token and returns its decoded content.
+     *
+     * @param token JWT token
+     * @return future of decoded JWT token, completed exceptionally if JWT
+     * token is invalid
+     */
+    CompletableFuture<DecodedToken> decode(
+            String token
+    );
+
+    /**
+     * Validates JWT token without failing.
+     *
+     * @param token JWT token
+     * @return future of result with status of JWT token
+     */
+    CompletableFuture<TokenValidationResult> validate(
+            String token
+    );
+
+    /**
+     * Removes JWT token from storage.
+     *
+     * @param token JWT token
+     * @return future of true - if JWT token was removed, false - otherwise,
+     * completed with UnsupportedOperationException if service has no
+     * storage
+     */
+    CompletableFuture<Boolean> invalidate(
+            String token
+    );
+
+    /**
+     * Removes JWT token from storage by its parameters.
+     *
+     * @param params parameters of JWT token
+     * @return future of true - if JWT token was removed, false - otherwise,
+     * completed with UnsupportedOperationException if service has no
+     * storage
+     */
+    CompletableFuture<Boolean> invalidate(
+            TokenParameters params
+    );
+
+}
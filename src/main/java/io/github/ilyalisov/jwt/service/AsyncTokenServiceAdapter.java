@@ -0,0 +1,108 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * AsyncTokenService that runs calls of synchronous TokenService on an
+ * executor.
+ */
+final class AsyncTokenServiceAdapter implements AsyncTokenService {
+
+    /**
+     * Synchronous TokenService.
+     */
+    private final TokenService service;
+
+    /**
+     * Executor to run calls on.
+     */
+    private final Executor executor;
+
+    /**
+     * Creates an object.
+     *
+     * @param service  synchronous TokenService
+     * @param executor executor to run calls on
+     */
+    AsyncTokenServiceAdapter(
+            final TokenService service,
+            final Executor executor
+    ) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<String> create(
+            final TokenParameters params
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> service.create(params),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<List<String>> createAll(
+            final List<TokenParameters> params
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> service.createAll(params),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<DecodedToken> decode(
+            final String token
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> service.decode(token),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<TokenValidationResult> validate(
+            final String token
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> service.validate(token),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> invalidate(
+            final String token
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> persistent().invalidate(token),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> invalidate(
+            final TokenParameters params
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> persistent().invalidate(params),
+                executor
+        );
+    }
+
+    private PersistentTokenService persistent() {
+        if (!(service instanceof PersistentTokenService)) {
+            throw new UnsupportedOperationException(
+                    "TokenService has no storage to invalidate JWT tokens in."
+            );
+        }
+        return (PersistentTokenService) service;
+    }
+
+}
@@ -0,0 +1,255 @@
+package io.github.ilyalisov.jwt.service;
+
+import java.util.Arrays;
+
+/**
+ * Base64URL encoder and decoder without padding, as it is used in JWT
+ * segments.
+ */
+final class Base64Url {
+
+    /**
+     * Alphabet of Base64URL.
+     */
+    private static final byte[] ALPHABET = (
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZ"
+                    + "abcdefghijklmnopqrstuvwxyz"
+                    + "0123456789-_"
+    ).getBytes();
+
+    /**
+     * Values of characters by their codes, -1 for characters out of
+     * alphabet. Values are shifted into a 24-bit group, so a negative group
+     * means that one of its characters is invalid.
+     */
+    private static final int[] VALUES = new int[256];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = i;
+        }
+    }
+
+    private Base64Url() {
+    }
+
+    /**
+     * Checks if character belongs to Base64URL alphabet.
+     *
+     * @param c character
+     * @return true - if character belongs to alphabet, false - otherwise
+     */
+    static boolean isValid(
+            final char c
+    ) {
+        return c < VALUES.length && VALUES[c] >= 0;
+    }
+
+    /**
+     * Returns maximum length of decoded data.
+     *
+     * @param length length of encoded data without padding
+     * @return length of decoded data
+     */
+    static int decodedLength(
+            final int length
+    ) {
+        return length * 3 / 4;
+    }
+
+    /**
+     * Returns length of encoded data without padding.
+     *
+     * @param length length of data
+     * @return length of encoded data
+     */
+    static int encodedLength(
+            final int length
+    ) {
+        return (length * 4 + 2) / 3;
+    }
+
+    /**
+     * Encodes bytes to Base64URL without padding.
+     *
+     * @param src    source array
+     * @param srcOff offset in source array
+     * @param len    number of bytes to encode
+     * @param dst    destination array
+     * @param dstOff offset in destination array
+     * @return offset in destination array after encoded data
+     */
+    static int encode(
+            final byte[] src,
+            final int srcOff,
+            final int len,
+            final byte[] dst,
+            final int dstOff
+    ) {
+        int s = srcOff;
+        int d = dstOff;
+        int end = srcOff + len - len % 3;
+        while (s < end) {
+            int bits = (src[s] & 0xff) << 16
+                    | (src[s + 1] & 0xff) << 8
+                    | src[s + 2] & 0xff;
+            dst[d] = ALPHABET[bits >>> 18];
+            dst[d + 1] = ALPHABET[bits >>> 12 & 0x3f];
+            dst[d + 2] = ALPHABET[bits >>> 6 & 0x3f];
+            dst[d + 3] = ALPHABET[bits & 0x3f];
+            s += 3;
+            d += 4;
+        }
+        int rest = srcOff + len - s;
+        if (rest == 1) {
+            int bits = (src[s] & 0xff) << 16;
+            dst[d] = ALPHABET[bits >>> 18];
+            dst[d + 1] = ALPHABET[bits >>> 12 & 0x3f];
+            d += 2;
+        } else if (rest == 2) {
+            int bits = (src[s] & 0xff) << 16
+                    | (src[s + 1] & 0xff) << 8;
+            dst[d] = ALPHABET[bits >>> 18];
+            dst[d + 1] = ALPHABET[bits >>> 12 & 0x3f];
+            dst[d + 2] = ALPHABET[bits >>> 6 & 0x3f];
+            d += 3;
+        }
+        return d;
+    }
+
+    /**
+     * Decodes Base64URL characters without padding. Groups of four
+     * characters are decoded with table lookups and a single validity
+     * check per group.
+     *
+     * @param src    source characters
+     * @param srcOff offset of first character
+     * @param srcEnd offset after last character
+     * @param dst    destination array
+     * @param dstOff offset in destination array
+     * @return offset in destination array after decoded data or -1 if
+     * source is not valid Base64URL
+     */
+    static int decode(
+            final CharSequence src,
+            final int srcOff,
+            final int srcEnd,
+            final byte[] dst,
+            final int dstOff
+    ) {
+        int s = srcOff;
+        int d = dstOff;
+        int end = srcEnd - (srcEnd - srcOff) % 4;
+        while (s < end) {
+            char c0 = src.charAt(s);
+            char c1 = src.charAt(s + 1);
+            char c2 = src.charAt(s + 2);
+            char c3 = src.charAt(s + 3);
+            if ((c0 | c1 | c2 | c3) >= VALUES.length) {
+                return -1;
+            }
+            int bits = VALUES[c0] << 18
+                    | VALUES[c1] << 12
+                    | VALUES[c2] << 6
+                    | VALUES[c3];
+            if (bits < 0) {
+                return -1;
+            }
+            d = put(bits, 3, dst, d);
+            s += 4;
+        }
+        int rest = srcEnd - s;
+        int bits = 0;
+        for (int i = 0; i < rest; i++) {
+            char c = src.charAt(s + i);
+            if (c >= VALUES.length) {
+                return -1;
+            }
+            bits |= VALUES[c] << 18 - 6 * i;
+        }
+        return tail(bits, rest, dst, d);
+    }
+
+    /**
+     * Decodes Base64URL characters without padding from ASCII bytes.
+     *
+     * @param src    source bytes
+     * @param srcOff offset of first byte
+     * @param srcEnd offset after last byte
+     * @param dst    destination array
+     * @param dstOff offset in destination array
+     * @return offset in destination array after decoded data or -1 if
+     * source is not valid Base64URL
+     */
+    static int decode(
+            final byte[] src,
+            final int srcOff,
+            final int srcEnd,
+            final byte[] dst,
+            final int dstOff
+    ) {
+        int s = srcOff;
+        int d = dstOff;
+        int end = srcEnd - (srcEnd - srcOff) % 4;
+        while (s < end) {
+            int bits = VALUES[src[s] & 0xff] << 18
+                    | VALUES[src[s + 1] & 0xff] << 12
+                    | VALUES[src[s + 2] & 0xff] << 6
+                    | VALUES[src[s + 3] & 0xff];
+            if (bits < 0) {
+                return -1;
+            }
+            d = put(bits, 3, dst, d);
+            s += 4;
+        }
+        int rest = srcEnd - s;
+        int bits = 0;
+        for (int i = 0; i < rest; i++) {
+            bits |= VALUES[src[s + i] & 0xff] << 18 - 6 * i;
+        }
+        return tail(bits, rest, dst, d);
+    }
+
+    /**
+     * Writes bytes of the last incomplete group.
+     *
+     * @param bits  24-bit group
+     * @param rest  number of characters in group
+     * @param dst   destination array
+     * @param d     offset in destination array
+     * @return offset in destination array after decoded data or -1 if
+     * group is not valid
+     */
+    private static int tail(
+            final int bits,
+            final int rest,
+            final byte[] dst,
+            final int d
+    ) {
+        if (rest == 0) {
+            return d;
+        }
+        if (rest == 1 || bits < 0) {
+            return -1;
+        }
+        return put(bits, rest - 1, dst, d);
+    }
+
+    private static int put(
+            final int bits,
+            final int count,
+            final byte[] dst,
+            final int d
+    ) {
+        dst[d] = (byte) (bits >> 16);
+        if (count > 1) {
+            dst[d + 1] = (byte) (bits >> 8);
+        }
+        if (count > 2) {
+            dst[d + 2] = (byte) bits;
+        }
+        return d + count;
+    }
+
+}
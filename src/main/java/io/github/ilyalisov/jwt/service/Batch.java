@@ -0,0 +1,121 @@
+package io.github.ilyalisov.jwt.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Helper for running an action for every index of a batch in parallel.
+ */
+final class Batch {
+
+    /**
+     * Number of items below which a batch is not split further.
+     */
+    static final int THRESHOLD = 128;
+
+    private Batch() {
+    }
+
+    /**
+     * Runs action for every index from 0 to size and waits for completion.
+     * If executor is a ForkJoinPool, work is split recursively, otherwise
+     * it is split into chunks, one task per chunk.
+     *
+     * @param size     number of items
+     * @param action   action for index of item
+     * @param executor executor to run action on
+     */
+    static void forEach(
+            final int size,
+            final IntConsumer action,
+            final Executor executor
+    ) {
+        if (size <= THRESHOLD) {
+            run(action, 0, size);
+            return;
+        }
+        if (executor instanceof ForkJoinPool) {
+            ((ForkJoinPool) executor).invoke(
+                    new RangeAction(action, 0, size)
+            );
+            return;
+        }
+        int chunks = Math.min(
+                (size + THRESHOLD - 1) / THRESHOLD,
+                4 * Runtime.getRuntime().availableProcessors()
+        );
+        int chunkSize = (size + chunks - 1) / chunks;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks];
+        for (int i = 0; i < chunks; i++) {
+            int from = i * chunkSize;
+            int to = Math.min(size, from + chunkSize);
+            futures[i] = CompletableFuture.runAsync(
+                    () -> run(action, from, to),
+                    executor
+            );
+        }
+        CompletableFuture.allOf(futures)
+                .join();
+    }
+
+    private static void run(
+            final IntConsumer action,
+            final int from,
+            final int to
+    ) {
+        for (int i = from; i < to; i++) {
+            action.accept(i);
+        }
+    }
+
+    private static final class RangeAction extends RecursiveAction {
+
+        /**
+         * Version of serialized form.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Action for index of item.
+         */
+        private final transient IntConsumer action;
+
+        /**
+         * First index, inclusive.
+         */
+        private final int from;
+
+        /**
+         * Last index, exclusive.
+         */
+        private final int to;
+
+        RangeAction(
+                final IntConsumer action,
+                final int from,
+                final int to
+        ) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                run(action, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new RangeAction(action, from, middle),
+                    new RangeAction(action, middle, to)
+            );
+        }
+
+    }
+
+}
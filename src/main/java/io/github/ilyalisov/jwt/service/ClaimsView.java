@@ -0,0 +1,161 @@
+package io.github.ilyalisov.jwt.service;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view over parsed payload of JWT token.
+ * <p>
+ * Nothing is copied when view is created. Nested objects and arrays are
+ * wrapped into read-only views only when they are accessed, so reading a
+ * single claim does not touch the rest of payload.
+ */
+final class ClaimsView extends AbstractMap<String, Object> {
+
+    /**
+     * Parsed payload.
+     */
+    private final Map<String, ?> claims;
+
+    /**
+     * View over entries of payload.
+     */
+    private final Set<Entry<String, Object>> entries;
+
+    /**
+     * Creates an object.
+     *
+     * @param claims parsed payload
+     */
+    ClaimsView(
+            final Map<String, ?> claims
+    ) {
+        this.claims = claims;
+        this.entries = new Entries();
+    }
+
+    /**
+     * Returns parsed payload the view is over.
+     *
+     * @return parsed payload
+     */
+    Map<String, ?> source() {
+        return claims;
+    }
+
+    /**
+     * Wraps nested objects and arrays into read-only views.
+     *
+     * @param value value of claim
+     * @return read-only value of claim
+     */
+    @SuppressWarnings("unchecked")
+    static Object view(
+            final Object value
+    ) {
+        if (value instanceof ClaimsView || value instanceof ListView) {
+            return value;
+        }
+        if (value instanceof Map) {
+            return new ClaimsView((Map<String, ?>) value);
+        }
+        if (value instanceof List) {
+            return new ListView((List<?>) value);
+        }
+        return value;
+    }
+
+    @Override
+    public Object get(
+            final Object key
+    ) {
+        return view(claims.get(key));
+    }
+
+    @Override
+    public boolean containsKey(
+            final Object key
+    ) {
+        return claims.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return claims.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return claims.isEmpty();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return entries;
+    }
+
+    private final class Entries extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            Iterator<? extends Entry<String, ?>> iterator = claims.entrySet()
+                    .iterator();
+            return new Iterator<>() {
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Entry<String, Object> next() {
+                    Entry<String, ?> entry = iterator.next();
+                    return new SimpleImmutableEntry<>(
+                            entry.getKey(),
+                            view(entry.getValue())
+                    );
+                }
+
+            };
+        }
+
+        @Override
+        public int size() {
+            return claims.size();
+        }
+
+    }
+
+    private static final class ListView extends AbstractList<Object> {
+
+        /**
+         * Parsed array.
+         */
+        private final List<?> values;
+
+        ListView(
+                final List<?> values
+        ) {
+            this.values = values;
+        }
+
+        @Override
+        public Object get(
+                final int index
+        ) {
+            return view(values.get(index));
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+    }
+
+}
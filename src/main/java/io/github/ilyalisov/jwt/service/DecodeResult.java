@@ -0,0 +1,44 @@
+package io.github.ilyalisov.jwt.service;
+
+import lombok.Getter;
+
+/**
+ * Result of decoding a single JWT token in a batch.
+ */
+@Getter
+public final class DecodeResult {
+
+    /**
+     * Decoded JWT token. It is null if decoding failed.
+     */
+    private final DecodedToken token;
+
+    /**
+     * Error of decoding. It is null if decoding succeeded.
+     */
+    private final RuntimeException error;
+
+    /**
+     * Creates an object.
+     *
+     * @param token decoded JWT token
+     * @param error error of decoding
+     */
+    public DecodeResult(
+            final DecodedToken token,
+            final RuntimeException error
+    ) {
+        this.token = token;
+        this.error = error;
+    }
+
+    /**
+     * Checks if JWT token was decoded.
+     *
+     * @return true - if JWT token was decoded, false - otherwise
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+}
@@ -0,0 +1,261 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.github.ilyalisov.jwt.codec.ClaimsFootprint;
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Verified and decoded JWT token. It is immutable, so it can be shared
+ * between threads and read many times after a single signature check.
+ */
+public final class DecodedToken {
+
+    /**
+     * Estimated size of decoded JWT token without claims.
+     */
+    private static final long OVERHEAD = 128;
+
+    /**
+     * The "sub" of JWT token.
+     */
+    @Getter
+    private final String subject;
+
+    /**
+     * Type of JWT token.
+     */
+    @Getter
+    private final String type;
+
+    /**
+     * Date when JWT token was issued.
+     */
+    private final Date issuedAt;
+
+    /**
+     * Date when JWT token will be expired.
+     */
+    private final Date expiredAt;
+
+    /**
+     * Read-only view over payload of JWT token.
+     */
+    private final ClaimsView claims;
+
+    /**
+     * Creates an object.
+     *
+     * @param subject   "sub" of JWT token
+     * @param type      type of JWT token
+     * @param issuedAt  date when JWT token was issued
+     * @param expiredAt date when JWT token will be expired
+     * @param claims    payload of JWT token
+     */
+    public DecodedToken(
+            final String subject,
+            final String type,
+            final Date issuedAt,
+            final Date expiredAt,
+            final Map<String, Object> claims
+    ) {
+        this.subject = subject;
+        this.type = type;
+        this.issuedAt = copy(issuedAt);
+        this.expiredAt = copy(expiredAt);
+        this.claims = new ClaimsView(claims);
+    }
+
+    /**
+     * Creates decoded JWT token from its payload. Times may be given as
+     * dates or as seconds since epoch.
+     *
+     * @param claims payload of JWT token
+     * @return DecodedToken
+     */
+    static DecodedToken of(
+            final Map<String, Object> claims
+    ) {
+        Object type = claims.get(TokenService.TOKEN_TYPE_KEY);
+        if (!(type instanceof String)) {
+            type = null;
+        }
+        return new DecodedToken(
+                (String) claims.get(Claims.SUBJECT),
+                (String) type,
+                date(claims.get(Claims.ISSUED_AT)),
+                date(claims.get(Claims.EXPIRATION)),
+                claims
+        );
+    }
+
+    private static Date date(
+            final Object value
+    ) {
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof Number) {
+            return new Date(((Number) value).longValue() * 1000);
+        }
+        return null;
+    }
+
+    private static Date copy(
+            final Date date
+    ) {
+        if (date == null) {
+            return null;
+        }
+        return new Date(date.getTime());
+    }
+
+    /**
+     * Estimates heap retained by decoded JWT token and its claims.
+     *
+     * @return estimated size in bytes
+     */
+    public long estimateSize() {
+        return OVERHEAD + ClaimsFootprint.estimate(claims.source());
+    }
+
+    /**
+     * Returns date when JWT token was issued.
+     *
+     * @return date of issuing or null if there is no "iat" claim
+     */
+    public Date getIssuedAt() {
+        return copy(issuedAt);
+    }
+
+    /**
+     * Returns date when JWT token will be expired.
+     *
+     * @return date of expiration or null if there is no "exp" claim
+     */
+    public Date getExpiredAt() {
+        return copy(expiredAt);
+    }
+
+    /**
+     * Returns payload of JWT token as a read-only Map. It is a view, so
+     * nothing is copied, and nested objects and arrays are read-only views
+     * too.
+     *
+     * @return a map of key-value pairs from payload
+     */
+    public Map<String, Object> getClaims() {
+        return claims;
+    }
+
+    /**
+     * Returns claim of JWT token by its key.
+     *
+     * @param key key of claim
+     * @return value of claim or null if there is no value
+     */
+    public Object claim(
+            final String key
+    ) {
+        return claims.get(key);
+    }
+
+    /**
+     * Returns claim of JWT token by its key cast to provided type. Numbers
+     * are converted to Integer, Long and Double if needed, as JSON does not
+     * keep their Java type.
+     *
+     * @param key   key of claim
+     * @param clazz expected type of claim
+     * @param <T>   expected type of claim
+     * @return value of claim or null if there is no value
+     * @throws ClassCastException if claim is not of provided type
+     */
+    public <T> T claim(
+            final String key,
+            final Class<T> clazz
+    ) {
+        Object value = claims.get(key);
+        if (value instanceof Number && !clazz.isInstance(value)) {
+            value = convert((Number) value, clazz);
+        }
+        return clazz.cast(value);
+    }
+
+    private static Object convert(
+            final Number value,
+            final Class<?> clazz
+    ) {
+        boolean integral = value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte;
+        if (clazz == Long.class && integral) {
+            return value.longValue();
+        }
+        if (clazz == Integer.class && integral
+                && value.longValue() == value.intValue()) {
+            return value.intValue();
+        }
+        if (clazz == Double.class) {
+            return value.doubleValue();
+        }
+        return value;
+    }
+
+    /**
+     * Checks if JWT token has a key-value pair in payload.
+     *
+     * @param key   key of payload
+     * @param value value of payload
+     * @return true - if JWT token has a provided key-value pair in payload,
+     * false - otherwise
+     */
+    public boolean has(
+            final String key,
+            final Object value
+    ) {
+        Object claim = claims.get(key);
+        return claim != null && claim.equals(value);
+    }
+
+    /**
+     * Checks whether JWT token is expired by provided time.
+     *
+     * @param date date to check expiration of JWT token
+     * @return true - if JWT token expired, false - otherwise
+     */
+    public boolean isExpired(
+            final Date date
+    ) {
+        return isExpired(date.getTime());
+    }
+
+    /**
+     * Checks whether JWT token is expired by provided time.
+     *
+     * @param instant time to check expiration of JWT token
+     * @return true - if JWT token expired, false - otherwise
+     */
+    public boolean isExpired(
+            final Instant instant
+    ) {
+        return isExpired(instant.toEpochMilli());
+    }
+
+    /**
+     * Checks whether JWT token is expired by provided time.
+     *
+     * @param millis time in millis to check expiration of JWT token
+     * @return true - if JWT token expired, false - otherwise
+     */
+    public boolean isExpired(
+            final long millis
+    ) {
+        return expiredAt != null && expiredAt.getTime() < millis;
+    }
+
+}
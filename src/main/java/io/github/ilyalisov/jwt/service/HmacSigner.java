@@ -0,0 +1,389 @@
+package io.github.ilyalisov.jwt.service;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Signer and verifier of JWT tokens with HS256, HS384 and HS512
+ * algorithms.
+ * <p>
+ * Every thread keeps its own Mac instance initialized with the key, so
+ * signing and verification do not repeat key setup. Signature is computed
+ * over the raw bytes of "header.payload" without building intermediate
+ * strings. Produced JWT tokens are identical to the ones jjwt produces for
+ * the same key and payload.
+ */
+final class HmacSigner {
+
+    /**
+     * Result of verification of JWT token with a header this signer does
+     * not produce.
+     */
+    static final int FOREIGN = -1;
+
+    /**
+     * Result of verification of JWT token with invalid signature.
+     */
+    static final int BAD_SIGNATURE = -2;
+
+    /**
+     * Result of verification of malformed JWT token.
+     */
+    static final int MALFORMED = -3;
+
+    /**
+     * Initial size of per-thread buffer.
+     */
+    private static final int BUFFER_SIZE = 1024;
+
+    /**
+     * JWT algorithm names by JCA algorithm names.
+     */
+    private static final Map<String, String> ALGORITHMS = Map.of(
+            "HmacSHA256", "HS256",
+            "HmacSHA384", "HS384",
+            "HmacSHA512", "HS512"
+    );
+
+    /**
+     * Base64URL encoded header with trailing dot.
+     */
+    private final byte[] header;
+
+    /**
+     * Decoded header of produced JWT tokens. It is the same for all of
+     * them, so it is never decoded again.
+     */
+    private final Map<String, Object> headerClaims;
+
+    /**
+     * Per-thread Mac instances initialized with the key.
+     */
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Per-thread buffers.
+     */
+    private final ThreadLocal<Buffers> buffers;
+
+    /**
+     * Length of signature in bytes.
+     */
+    private final int signatureLength;
+
+    private HmacSigner(
+            final SecretKey key,
+            final String algorithm,
+            final String keyId
+    ) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (keyId != null) {
+            fields.put("kid", keyId);
+        }
+        fields.put("alg", algorithm);
+        byte[] bytes = Json.serialize(fields);
+        this.header = new byte[Base64Url.encodedLength(bytes.length) + 1];
+        int end = Base64Url.encode(bytes, 0, bytes.length, header, 0);
+        this.header[end] = '.';
+        this.headerClaims = Collections.unmodifiableMap(fields);
+        this.macs = ThreadLocal.withInitial(() -> mac(key));
+        this.signatureLength = macs.get().getMacLength();
+        this.buffers = ThreadLocal.withInitial(Buffers::new);
+    }
+
+    /**
+     * Creates a signer for a key if its algorithm is supported.
+     *
+     * @param key secret key
+     * @return signer or null if algorithm of key is not supported
+     */
+    static HmacSigner of(
+            final SecretKey key
+    ) {
+        return of(key, null);
+    }
+
+    /**
+     * Creates a signer for a key if its algorithm is supported. Produced
+     * JWT tokens have "kid" header.
+     *
+     * @param key   secret key
+     * @param keyId id of key, if null "kid" header is omitted
+     * @return signer or null if algorithm of key is not supported
+     */
+    static HmacSigner of(
+            final SecretKey key,
+            final String keyId
+    ) {
+        String algorithm = ALGORITHMS.get(key.getAlgorithm());
+        if (algorithm == null) {
+            return null;
+        }
+        return new HmacSigner(key, algorithm, keyId);
+    }
+
+    /**
+     * Checks if JWT token has a header this signer produces.
+     *
+     * @param token JWT token
+     * @return true - if header matches, false - otherwise
+     */
+    boolean hasHeader(
+            final CharSequence token
+    ) {
+        int headerEnd = header.length - 1;
+        if (token.length() <= header.length
+                || token.charAt(headerEnd) != '.') {
+            return false;
+        }
+        for (int i = 0; i < headerEnd; i++) {
+            if (token.charAt(i) != header[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns Base64URL encoded header of produced JWT tokens.
+     *
+     * @return header segment without trailing dot
+     */
+    String header() {
+        return new String(
+                header,
+                0,
+                header.length - 1,
+                StandardCharsets.US_ASCII
+        );
+    }
+
+    /**
+     * Returns decoded header of produced JWT tokens.
+     *
+     * @return unmodifiable header
+     */
+    Map<String, Object> headerClaims() {
+        return headerClaims;
+    }
+
+    /**
+     * Returns per-thread buffer with JSON payload decoded by the last
+     * successful {@link #verify(CharSequence)} in this thread. It is
+     * overwritten by the next verification.
+     *
+     * @return buffer with JSON payload
+     */
+    byte[] payload() {
+        return buffers.get().payload;
+    }
+
+    private static Mac mac(
+            final SecretKey key
+    ) {
+        try {
+            Mac mac = Mac.getInstance(key.getAlgorithm());
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(
+                    "Unable to initialize " + key.getAlgorithm(),
+                    e
+            );
+        }
+    }
+
+    /**
+     * Creates signed JWT token.
+     *
+     * @param payload JSON payload
+     * @return JWT token
+     */
+    String sign(
+            final byte[] payload
+    ) {
+        return sign(payload, payload.length);
+    }
+
+    /**
+     * Creates signed JWT token.
+     *
+     * @param payload       JSON payload
+     * @param payloadLength length of JSON payload
+     * @return JWT token
+     */
+    String sign(
+            final byte[] payload,
+            final int payloadLength
+    ) {
+        Buffers buffers = this.buffers.get();
+        int length = header.length
+                + Base64Url.encodedLength(payloadLength)
+                + 1
+                + Base64Url.encodedLength(signatureLength);
+        byte[] out = buffers.out(length);
+        System.arraycopy(header, 0, out, 0, header.length);
+        int end = Base64Url.encode(
+                payload,
+                0,
+                payloadLength,
+                out,
+                header.length
+        );
+        byte[] signature = buffers.signature;
+        Mac mac = macs.get();
+        mac.update(out, 0, end);
+        try {
+            mac.doFinal(signature, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        out[end] = '.';
+        end = Base64Url.encode(
+                signature,
+                0,
+                signatureLength,
+                out,
+                end + 1
+        );
+        return new String(out, 0, end, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Verifies signature of JWT token and decodes its payload into
+     * {@link #payload()}. It does not throw, so rejected JWT tokens cost no
+     * stack traces, and it does not allocate.
+     *
+     * @param token JWT token
+     * @return length of decoded JSON payload, {@link #FOREIGN} if JWT token
+     * has a header this signer does not produce, {@link #BAD_SIGNATURE} if
+     * signature does not match or {@link #MALFORMED} if JWT token is
+     * malformed
+     */
+    int verify(
+            final CharSequence token
+    ) {
+        int headerEnd = header.length - 1;
+        if (token.length() <= header.length
+                || token.charAt(headerEnd) != '.') {
+            return FOREIGN;
+        }
+        Buffers buffers = this.buffers.get();
+        byte[] in = buffers.in(token.length());
+        for (int i = 0; i < headerEnd; i++) {
+            if (token.charAt(i) != header[i]) {
+                return FOREIGN;
+            }
+            in[i] = header[i];
+        }
+        int payloadEnd = AsciiSequence.indexOf(token, '.', header.length);
+        if (payloadEnd < 0
+                || AsciiSequence.indexOf(token, '.', payloadEnd + 1) >= 0) {
+            return MALFORMED;
+        }
+        in[headerEnd] = '.';
+        for (int i = header.length; i < payloadEnd; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7f) {
+                return MALFORMED;
+            }
+            in[i] = (byte) c;
+        }
+        Mac mac = macs.get();
+        mac.update(in, 0, payloadEnd);
+        byte[] signature = buffers.signature;
+        try {
+            mac.doFinal(signature, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] expected = buffers.expected;
+        int expectedLength = Base64Url.encode(
+                signature,
+                0,
+                signatureLength,
+                expected,
+                0
+        );
+        int diff = expectedLength ^ (token.length() - payloadEnd - 1);
+        for (int i = 0; i < expectedLength; i++) {
+            int c = payloadEnd + 1 + i;
+            if (c < token.length()) {
+                diff |= expected[i] ^ token.charAt(c);
+            }
+        }
+        if (diff != 0) {
+            return BAD_SIGNATURE;
+        }
+        byte[] payload = buffers.payload(
+                Base64Url.decodedLength(payloadEnd - header.length)
+        );
+        int end = Base64Url.decode(in, header.length, payloadEnd, payload, 0);
+        if (end < 0) {
+            return MALFORMED;
+        }
+        return end;
+    }
+
+    private static final class Buffers {
+
+        /**
+         * Buffer for JWT token being created.
+         */
+        private byte[] out = new byte[BUFFER_SIZE];
+
+        /**
+         * Buffer for JWT token being verified.
+         */
+        private byte[] in = new byte[BUFFER_SIZE];
+
+        /**
+         * Buffer for decoded JSON payload of JWT token being verified.
+         */
+        private byte[] payload = new byte[BUFFER_SIZE];
+
+        /**
+         * Buffer for computed signature.
+         */
+        private final byte[] signature = new byte[64];
+
+        /**
+         * Buffer for encoded computed signature.
+         */
+        private final byte[] expected = new byte[Base64Url.encodedLength(64)];
+
+        byte[] out(
+                final int length
+        ) {
+            if (out.length < length) {
+                out = new byte[length];
+            }
+            return out;
+        }
+
+        byte[] in(
+                final int length
+        ) {
+            if (in.length < length) {
+                in = new byte[length];
+            }
+            return in;
+        }
+
+        byte[] payload(
+                final int length
+        ) {
+            if (payload.length < length) {
+                payload = new byte[length];
+            }
+            return payload;
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.github.ilyalisov.jwt.codec.ClaimsCodec;
+import io.github.ilyalisov.jwt.codec.JjwtClaimsCodec;
+import io.jsonwebtoken.MalformedJwtException;
+
+import java.util.Map;
+
+/**
+ * JSON serializer and deserializer of headers and claims. It uses the same
+ * implementations that jjwt discovers, so produced JSON is identical to
+ * jjwt output.
+ */
+final class Json {
+
+    /**
+     * Codec jjwt uses.
+     */
+    private static final ClaimsCodec CODEC = new JjwtClaimsCodec();
+
+    private Json() {
+    }
+
+    /**
+     * Serializes claims to UTF-8 JSON.
+     *
+     * @param claims claims
+     * @return JSON bytes
+     */
+    static byte[] serialize(
+            final Map<String, Object> claims
+    ) {
+        return CODEC.serialize(claims);
+    }
+
+    /**
+     * Deserializes UTF-8 JSON object to claims.
+     *
+     * @param json JSON bytes
+     * @return claims
+     */
+    static Map<String, Object> deserialize(
+            final byte[] json
+    ) {
+        return deserialize(json, json.length);
+    }
+
+    /**
+     * Deserializes UTF-8 JSON object from the start of a reusable buffer
+     * to claims. Buffer is not copied.
+     *
+     * @param json   buffer with JSON bytes
+     * @param length number of JSON bytes
+     * @return claims
+     */
+    static Map<String, Object> deserialize(
+            final byte[] json,
+            final int length
+    ) {
+        return CODEC.deserialize(json, length);
+    }
+
+    /**
+     * Deserializes UTF-8 JSON object to claims without throwing.
+     *
+     * @param codec  codec of claims
+     * @param json   buffer with JSON bytes
+     * @param length number of JSON bytes
+     * @return claims or null if JSON is not a valid object
+     */
+    static Map<String, Object> tryDeserialize(
+            final ClaimsCodec codec,
+            final byte[] json,
+            final int length
+    ) {
+        try {
+            return codec.deserialize(json, length);
+        } catch (MalformedJwtException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package io.github.ilyalisov.jwt.service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set of secret keys identified by "kid" header.
+ * <p>
+ * JWT tokens are signed with the active key and carry its id in "kid"
+ * header. Verification looks up key by header of JWT token, so it takes
+ * the same time for any number of keys. Keys can be added, activated and
+ * retired at runtime. Lookups are lock-free, so rotation does not block
+ * JWT tokens being verified.
+ */
+public final class KeyRing {
+
+    /**
+     * Keys by id.
+     */
+    private final Map<String, SigningKey> keys;
+
+    /**
+     * Keys by Base64URL encoded header of JWT tokens they produce.
+     */
+    private final Map<String, SigningKey> headers;
+
+    /**
+     * Key new JWT tokens are signed with.
+     */
+    private volatile SigningKey active;
+
+    /**
+     * Number of retired keys. Services compare it to drop JWT tokens they
+     * verified with retired keys from cache.
+     */
+    private volatile long generation;
+
+    /**
+     * Creates an object with active key.
+     *
+     * @param id     id of key
+     * @param secret secret of key
+     */
+    public KeyRing(
+            final String id,
+            final String secret
+    ) {
+        this.keys = new ConcurrentHashMap<>();
+        this.headers = new ConcurrentHashMap<>();
+        add(id, secret);
+        activate(id);
+    }
+
+    /**
+     * Adds key. It can be used to verify JWT tokens right away, and to sign
+     * them after it is activated.
+     *
+     * @param id     id of key
+     * @param secret secret of key
+     */
+    public synchronized void add(
+            final String id,
+            final String secret
+    ) {
+        if (id == null) {
+            throw new IllegalArgumentException("Key id must not be null.");
+        }
+        SigningKey key = new SigningKey(id, secret);
+        if (keys.putIfAbsent(id, key) != null) {
+            throw new IllegalArgumentException(
+                    "Key " + id + " already exists."
+            );
+        }
+        if (key.getSigner() != null) {
+            headers.put(key.getSigner().header(), key);
+        }
+    }
+
+    /**
+     * Makes key active, so new JWT tokens are signed with it.
+     *
+     * @param id id of key
+     */
+    public synchronized void activate(
+            final String id
+    ) {
+        SigningKey key = keys.get(id);
+        if (key == null) {
+            throw new IllegalArgumentException(
+                    "Key " + id + " does not exist."
+            );
+        }
+        this.active = key;
+    }
+
+    /**
+     * Removes key. JWT tokens signed with it are no longer valid. Active
+     * key can not be retired.
+     *
+     * @param id id of key
+     * @return true - if key was removed, false - otherwise
+     */
+    public synchronized boolean retire(
+            final String id
+    ) {
+        if (active.getId().equals(id)) {
+            throw new IllegalStateException(
+                    "Active key " + id + " can not be retired."
+            );
+        }
+        SigningKey key = keys.remove(id);
+        if (key == null) {
+            return false;
+        }
+        if (key.getSigner() != null) {
+            headers.remove(key.getSigner().header());
+        }
+        generation++;
+        return true;
+    }
+
+    /**
+     * Returns id of active key.
+     *
+     * @return id of active key
+     */
+    public String getActiveKeyId() {
+        return active.getId();
+    }
+
+    /**
+     * Returns ids of all keys.
+     *
+     * @return unmodifiable set of ids
+     */
+    public Set<String> getKeyIds() {
+        return Collections.unmodifiableSet(keys.keySet());
+    }
+
+    /**
+     * Returns key new JWT tokens are signed with.
+     *
+     * @return active key
+     */
+    SigningKey active() {
+        return active;
+    }
+
+    /**
+     * Returns key by id.
+     *
+     * @param id id of key
+     * @return key or null if it does not exist
+     */
+    SigningKey byId(
+            final String id
+    ) {
+        return keys.get(id);
+    }
+
+    /**
+     * Returns key that produces JWT tokens with provided header.
+     *
+     * @param header Base64URL encoded header
+     * @return key or null if no key produces such header
+     */
+    SigningKey byHeader(
+            final String header
+    ) {
+        return headers.get(header);
+    }
+
+    /**
+     * Returns number of retired keys.
+     *
+     * @return number of retired keys
+     */
+    long generation() {
+        return generation;
+    }
+
+}
@@ -2,11 +2,52 @@ package io.github.ilyalisov.jwt.service;
 
 import io.github.ilyalisov.jwt.config.TokenParameters;
 
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Interface if PersistentTokenService.
  */
 public interface PersistentTokenService extends TokenService {
 
+    /**
+     * Creates a batch of JWT tokens in parallel and saves them to storage
+     * in a single operation. Unlike {@link #create(TokenParameters)}, it
+     * does not look up stored JWT tokens, new ones replace them.
+     *
+     * @param params parameters for JWT tokens
+     * @return JWT tokens in the order of provided parameters
+     */
+    @Override
+    default List<String> createAll(
+            final List<TokenParameters> params
+    ) {
+        return createAll(
+                params,
+                ForkJoinPool.commonPool()
+        );
+    }
+
+    /**
+     * Creates a batch of JWT tokens in parallel on provided executor and
+     * saves them to storage in a single operation. Unlike
+     * {@link #create(TokenParameters)}, it does not look up stored JWT
+     * tokens, new ones replace them. By default JWT tokens are created
+     * and saved one by one.
+     *
+     * @param params   parameters for JWT tokens
+     * @param executor executor to create JWT tokens on
+     * @return JWT tokens in the order of provided parameters
+     */
+    @Override
+    default List<String> createAll(
+            final List<TokenParameters> params,
+            final Executor executor
+    ) {
+        return TokenService.super.createAll(params, executor);
+    }
+
     /**
      * Removes JWT token from storage. Method removes all entries
      * of the same token.
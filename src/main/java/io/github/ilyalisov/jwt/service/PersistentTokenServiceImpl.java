@@ -1,39 +1,28 @@
 package io.github.ilyalisov.jwt.service;
 
+import io.github.ilyalisov.jwt.config.ServiceParameters;
 import io.github.ilyalisov.jwt.config.TokenParameters;
 import io.github.ilyalisov.jwt.storage.TokenStorage;
 import io.github.ilyalisov.jwt.storage.TokenStorageImpl;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jws;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 
-import javax.crypto.SecretKey;
-import java.util.Date;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Implementation of TokenService with JWT token storage.
  */
-public class PersistentTokenServiceImpl implements PersistentTokenService {
-
-    /**
-     * Secret key for verifying JWT token.
-     */
-    private final SecretKey key;
+public class PersistentTokenServiceImpl
+        extends TokenServiceImpl
+        implements PersistentTokenService {
 
     /**
      * TokenStorage for accessing persistence layer.
      */
     private final TokenStorage tokenStorage;
 
-    /**
-     * Name of field in JWT token for token type.
-     */
-    public static final String TOKEN_TYPE_KEY = "tokenType";
-
     /**
      * Creates an object.
      *
@@ -42,8 +31,10 @@ public class PersistentTokenServiceImpl implements PersistentTokenService {
     public PersistentTokenServiceImpl(
             final String secret
     ) {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes());
-        this.tokenStorage = new TokenStorageImpl();
+        this(
+                secret,
+                new TokenStorageImpl()
+        );
     }
 
     /**
@@ -56,7 +47,24 @@ public class PersistentTokenServiceImpl implements PersistentTokenService {
             final String secret,
             final TokenStorage tokenStorage
     ) {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this(
+                ServiceParameters.builder(secret)
+                        .build(),
+                tokenStorage
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param params       parameters of TokenService
+     * @param tokenStorage implementation of JWT token storage interface
+     */
+    public PersistentTokenServiceImpl(
+            final ServiceParameters params,
+            final TokenStorage tokenStorage
+    ) {
+        super(params);
         this.tokenStorage = tokenStorage;
     }
 
@@ -70,17 +78,7 @@ public class PersistentTokenServiceImpl implements PersistentTokenService {
         if (token != null) {
             return token;
         }
-        Claims claims = Jwts.claims()
-                .subject(params.getSubject())
-                .add(params.getClaims())
-                .add(TOKEN_TYPE_KEY, params.getType())
-                .build();
-        token = Jwts.builder()
-                .claims(claims)
-                .issuedAt(params.getIssuedAt())
-                .expiration(params.getExpiredAt())
-                .signWith(key)
-                .compact();
+        token = super.create(params);
         tokenStorage.save(
                 token,
                 params
@@ -88,115 +86,130 @@ public class PersistentTokenServiceImpl implements PersistentTokenService {
         return token;
     }
 
+    /**
+     * Creates JWT token with components of a claims record and saves it
+     * to storage. Unlike {@link #create(TokenParameters)}, it does not
+     * look up stored JWT token, as it may differ in claims of record, so
+     * new JWT token replaces it.
+     *
+     * @param claims   claims record
+     * @param duration duration of JWT token
+     * @param <T>      type of claims record
+     * @return JWT token
+     */
     @Override
-    public boolean isExpired(
-            final String token
+    public <T extends Record> String create(
+            final T claims,
+            final Duration duration
     ) {
-        return isExpired(
+        String token = super.create(claims, duration);
+        DecodedToken decoded = decode(token);
+        tokenStorage.save(
                 token,
-                new Date()
+                TokenParameters.builder(
+                                decoded.getSubject(),
+                                decoded.getType(),
+                                duration,
+                                clock()
+                        )
+                        .expiredAt(decoded.getExpiredAt())
+                        .build()
         );
+        return token;
     }
 
     @Override
-    public boolean isExpired(
-            final String token,
-            final Date date
+    public List<String> createAll(
+            final List<TokenParameters> params,
+            final Executor executor
     ) {
-        try {
-            Jws<Claims> claims = Jwts
-                    .parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return claims.getPayload()
-                    .getExpiration()
-                    .before(date);
-        } catch (ExpiredJwtException e) {
-            return true;
+        List<String> tokens = super.createAll(params, executor);
+        Map<String, TokenParameters> batch = new LinkedHashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            batch.put(tokens.get(i), params.get(i));
         }
+        tokenStorage.saveAll(batch);
+        return tokens;
     }
 
     @Override
-    public boolean has(
-            final String token,
-            final String key,
-            final Object value
+    public TokenTemplate template(
+            final TokenParameters prototype
     ) {
-        Jws<Claims> claims = Jwts
-                .parser()
-                .verifyWith(this.key)
-                .build()
-                .parseSignedClaims(token);
-        return claims.getPayload()
-                .get(key)
-                .equals(value);
-    }
-
-    @Override
-    public String getSubject(
-            final String token
-    ) {
-        return Jwts
-                .parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getSubject();
-    }
-
-    @Override
-    public String getType(
-            final String token
-    ) {
-        return Jwts
-                .parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get(TOKEN_TYPE_KEY, String.class);
-    }
-
-    @Override
-    public Map<String, Object> claims(
-            final String token
-    ) {
-        Jws<Claims> claims = Jwts
-                .parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token);
-        return new HashMap<>(claims.getPayload());
+        return new TokenTemplate(
+                prototype,
+                this,
+                tokenStorage,
+                clock()
+        );
     }
 
+    /**
+     * Validates JWT token without throwing exceptions. Valid JWT token
+     * that is not in storage is reported as revoked and removed from cache
+     * of verified JWT tokens, which also drops JWT tokens that were
+     * revoked without being known, as by digest or by replacement.
+     *
+     * @param token JWT token
+     * @return result with status and decoded JWT token if it is valid
+     */
     @Override
-    public Object claim(
-            final String token,
-            final String key
+    public TokenValidationResult validate(
+            final CharSequence token
     ) {
-        Jws<Claims> claims = Jwts
-                .parser()
-                .verifyWith(this.key)
-                .build()
-                .parseSignedClaims(token);
-        return claims.getPayload()
-                .get(key);
+        TokenValidationResult result = super.validate(token);
+        if (!result.isValid()) {
+            return result;
+        }
+        DecodedToken decoded = result.getToken();
+        TokenParameters params = TokenParameters.builder(
+                        decoded.getSubject(),
+                        decoded.getType(),
+                        Duration.ZERO,
+                        clock()
+                )
+                .build();
+        if (!tokenStorage.exists(token.toString(), params)) {
+            evict(token.toString());
+            return TokenValidationResult.rejected(TokenStatus.REVOKED);
+        }
+        return result;
     }
 
+    /**
+     * Removes JWT token from storage and then from cache of verified JWT
+     * tokens, so a concurrent validation can not put it back to cache
+     * after it is evicted.
+     *
+     * @param token JWT token
+     * @return true - if JWT token was removed, false - otherwise
+     */
     @Override
     public boolean invalidate(
             final String token
     ) {
-        return tokenStorage.remove(token);
+        boolean removed = tokenStorage.remove(token);
+        evict(token);
+        return removed;
     }
 
+    /**
+     * Removes JWT token from storage and then from cache of verified JWT
+     * tokens. If storage keeps only digests, JWT token is unknown, so its
+     * cache entry is dropped when it is validated next time or when it
+     * expires.
+     *
+     * @param params parameters of JWT token
+     * @return true - if JWT token was removed, false - otherwise
+     */
     @Override
     public boolean invalidate(
             final TokenParameters params
     ) {
-        return tokenStorage.remove(params);
+        String token = tokenStorage.get(params);
+        boolean removed = tokenStorage.remove(params);
+        evict(token);
+        return removed;
     }
 
 }
@@ -0,0 +1,28 @@
+package io.github.ilyalisov.jwt.service;
+
+/**
+ * Reason JWT token was rejected before its signature was verified.
+ */
+public enum RejectionReason {
+
+    /**
+     * JWT token does not consist of exactly three segments.
+     */
+    SEGMENTS,
+
+    /**
+     * JWT token is too long or has an empty segment.
+     */
+    LENGTH,
+
+    /**
+     * JWT token has characters out of Base64URL alphabet.
+     */
+    CHARSET,
+
+    /**
+     * JWT token has already expired according to its "exp" claim.
+     */
+    EXPIRED
+
+}
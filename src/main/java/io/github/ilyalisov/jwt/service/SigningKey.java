@@ -0,0 +1,44 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.jsonwebtoken.security.Keys;
+import lombok.Getter;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Secret key with its id and signer.
+ */
+@Getter
+final class SigningKey {
+
+    /**
+     * Id of key. If null, JWT tokens have no "kid" header.
+     */
+    private final String id;
+
+    /**
+     * Secret key.
+     */
+    private final SecretKey key;
+
+    /**
+     * Signer for the key. If null, JWT tokens are handled by jjwt.
+     */
+    private final HmacSigner signer;
+
+    /**
+     * Creates an object.
+     *
+     * @param id     id of key, can be null
+     * @param secret secret of key
+     */
+    SigningKey(
+            final String id,
+            final String secret
+    ) {
+        this.id = id;
+        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.signer = HmacSigner.of(key, id);
+    }
+
+}
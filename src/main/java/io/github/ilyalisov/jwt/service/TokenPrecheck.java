@@ -0,0 +1,199 @@
+package io.github.ilyalisov.jwt.service;
+
+/**
+ * Structural checks of JWT token that run before its signature is
+ * verified.
+ * <p>
+ * They only scan characters of JWT token and do not allocate, so garbage
+ * can be rejected at a fraction of verification cost.
+ */
+final class TokenPrecheck {
+
+    /**
+     * Value returned when JWT token has no "exp" claim that can be read
+     * without full parsing.
+     */
+    static final long NO_EXPIRATION = Long.MIN_VALUE;
+
+    /**
+     * Maximum number of digits of "exp" that can be converted to millis
+     * without overflow.
+     */
+    private static final int MAX_DIGITS = 15;
+
+    /**
+     * Name of "exp" claim with quotes.
+     */
+    private static final byte[] EXPIRATION = {'"', 'e', 'x', 'p', '"'};
+
+    /**
+     * Per-thread buffers for decoded payload.
+     */
+    private static final ThreadLocal<byte[]> BUFFERS =
+            ThreadLocal.withInitial(() -> new byte[1024]);
+
+    private TokenPrecheck() {
+    }
+
+    /**
+     * Checks segments, length and characters of JWT token.
+     *
+     * @param token     JWT token
+     * @param maxLength maximum length of JWT token
+     * @return reason JWT token is rejected or null if it passes
+     */
+    static RejectionReason check(
+            final CharSequence token,
+            final int maxLength
+    ) {
+        int length = token.length();
+        if (length > maxLength) {
+            return RejectionReason.LENGTH;
+        }
+        int headerEnd = -1;
+        int payloadEnd = -1;
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c != '.') {
+                if (!Base64Url.isValid(c)) {
+                    return RejectionReason.CHARSET;
+                }
+            } else if (headerEnd < 0) {
+                headerEnd = i;
+            } else if (payloadEnd < 0) {
+                payloadEnd = i;
+            } else {
+                return RejectionReason.SEGMENTS;
+            }
+        }
+        if (payloadEnd < 0) {
+            return RejectionReason.SEGMENTS;
+        }
+        if (headerEnd == 0
+                || payloadEnd == headerEnd + 1
+                || payloadEnd == length - 1) {
+            return RejectionReason.LENGTH;
+        }
+        return null;
+    }
+
+    /**
+     * Reads "exp" claim of JWT token without parsing whole payload. JWT
+     * token must pass {@link #check(CharSequence, int)} first.
+     *
+     * @param token JWT token
+     * @return "exp" in seconds or {@link #NO_EXPIRATION}
+     */
+    static long expiration(
+            final CharSequence token
+    ) {
+        int headerEnd = AsciiSequence.indexOf(token, '.', 0);
+        int payloadEnd = AsciiSequence.indexOf(token, '.', headerEnd + 1);
+        byte[] buffer = BUFFERS.get();
+        int length = Base64Url.decodedLength(payloadEnd - headerEnd - 1);
+        if (buffer.length < length) {
+            buffer = new byte[length];
+            BUFFERS.set(buffer);
+        }
+        int end = Base64Url.decode(token, headerEnd + 1, payloadEnd, buffer, 0);
+        if (end < 0) {
+            return NO_EXPIRATION;
+        }
+        return expiration(buffer, end);
+    }
+
+    private static long expiration(
+            final byte[] json,
+            final int end
+    ) {
+        int depth = 0;
+        boolean string = false;
+        for (int i = 0; i < end; i++) {
+            byte b = json[i];
+            if (string) {
+                if (b == '\\') {
+                    i++;
+                } else if (b == '"') {
+                    string = false;
+                }
+            } else if (b == '"') {
+                if (depth == 1 && startsWith(json, i, end, EXPIRATION)) {
+                    int value = skipSpaces(json, i + EXPIRATION.length, end);
+                    if (value < end && json[value] == ':') {
+                        return number(
+                                json,
+                                skipSpaces(json, value + 1, end),
+                                end
+                        );
+                    }
+                }
+                string = true;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+        }
+        return NO_EXPIRATION;
+    }
+
+    private static boolean startsWith(
+            final byte[] json,
+            final int offset,
+            final int end,
+            final byte[] prefix
+    ) {
+        if (end - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (json[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipSpaces(
+            final byte[] json,
+            final int offset,
+            final int end
+    ) {
+        int i = offset;
+        while (i < end && (json[i] == ' ' || json[i] == '\t'
+                || json[i] == '\n' || json[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static long number(
+            final byte[] json,
+            final int offset,
+            final int end
+    ) {
+        int i = offset;
+        boolean negative = i < end && json[i] == '-';
+        if (negative) {
+            i++;
+        }
+        int start = i;
+        long value = 0;
+        while (i < end && json[i] >= '0' && json[i] <= '9') {
+            value = value * 10 + json[i] - '0';
+            i++;
+        }
+        int digits = i - start;
+        if (digits == 0 || digits > MAX_DIGITS) {
+            return NO_EXPIRATION;
+        }
+        if (i < end && (json[i] == '.' || json[i] == 'e' || json[i] == 'E')) {
+            return NO_EXPIRATION;
+        }
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+}
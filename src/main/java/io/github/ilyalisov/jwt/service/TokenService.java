@@ -1,15 +1,42 @@
 package io.github.ilyalisov.jwt.service;
 
+import io.github.ilyalisov.jwt.codec.ClaimsCodec;
+import io.github.ilyalisov.jwt.codec.ClaimsReader;
+import io.github.ilyalisov.jwt.codec.ClaimsRecordCodec;
+import io.github.ilyalisov.jwt.codec.ClaimsWriter;
 import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.security.SecurityException;
 
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Interface of TokenService.
+ * Interface of TokenService. Only methods for a single JWT token must be
+ * implemented, batches, templates and other ways to read JWT tokens are
+ * built on them by default.
  */
 public interface TokenService {
 
+    /**
+     * Name of field in JWT token for its type.
+     */
+    String TOKEN_TYPE_KEY = "tokenType";
+
     /**
      * Creates JWT token with provided parameters.
      *
@@ -20,6 +47,344 @@ public interface TokenService {
             TokenParameters params
     );
 
+    /**
+     * Creates JWT token with components of a claims record. The record
+     * must be annotated with {@link io.github.ilyalisov.jwt.codec.JwtClaims},
+     * so its claims are written by generated codec without building a map.
+     * Persistent implementations save JWT token to their storage.
+     *
+     * @param claims   claims record
+     * @param duration duration of JWT token
+     * @param <T>      type of claims record
+     * @return JWT token
+     */
+    @SuppressWarnings("unchecked")
+    default <T extends Record> String create(
+            final T claims,
+            final Duration duration
+    ) {
+        ClaimsWriter writer = new ClaimsWriter();
+        writer.begin();
+        ClaimsRecordCodec.of((Class<T>) claims.getClass())
+                .write(claims, writer);
+        int length = writer.end();
+        Map<String, Object> payload = new LinkedHashMap<>(
+                claimsCodec().deserialize(
+                        writer.buffer(),
+                        length
+                )
+        );
+        Object subject = payload.remove(Claims.SUBJECT);
+        Object type = payload.remove(TOKEN_TYPE_KEY);
+        return create(
+                TokenParameters.builder(
+                                (String) subject,
+                                (String) type,
+                                duration
+                        )
+                        .claims(payload)
+                        .build()
+        );
+    }
+
+    /**
+     * Creates a batch of JWT tokens in parallel on common ForkJoinPool.
+     *
+     * @param params parameters for JWT tokens
+     * @return JWT tokens in the order of provided parameters
+     */
+    default List<String> createAll(
+            final List<TokenParameters> params
+    ) {
+        return createAll(
+                params,
+                ForkJoinPool.commonPool()
+        );
+    }
+
+    /**
+     * Creates a batch of JWT tokens in parallel on provided executor.
+     *
+     * @param params   parameters for JWT tokens
+     * @param executor executor to create JWT tokens on
+     * @return JWT tokens in the order of provided parameters
+     */
+    default List<String> createAll(
+            final List<TokenParameters> params,
+            final Executor executor
+    ) {
+        TokenParameters[] input = params.toArray(new TokenParameters[0]);
+        String[] tokens = new String[input.length];
+        Batch.forEach(
+                input.length,
+                i -> {
+                    tokens[i] = create(input[i]);
+                },
+                executor
+        );
+        return Collections.unmodifiableList(Arrays.asList(tokens));
+    }
+
+    /**
+     * Creates a template for issuing JWT tokens with the same type and
+     * custom claims as prototype has. Duration of JWT tokens is the one
+     * between issuing and expiration dates of prototype. By default
+     * template creates every JWT token with this service and takes time
+     * from {@link #clock()}.
+     *
+     * @param prototype parameters for JWT tokens
+     * @return template for JWT tokens
+     */
+    default TokenTemplate template(
+            final TokenParameters prototype
+    ) {
+        return new TokenTemplate(
+                prototype,
+                this,
+                null,
+                clock()
+        );
+    }
+
+    /**
+     * Returns clock JWT tokens are issued and validated against. By default
+     * it is system clock in UTC, implementations with their own clock
+     * override it.
+     *
+     * @return clock
+     */
+    default Clock clock() {
+        return Clock.systemUTC();
+    }
+
+    /**
+     * Returns serializer and deserializer of payload of JWT tokens. By
+     * default it is {@link ClaimsCodec#standard()}, implementations with
+     * their own codec override it.
+     *
+     * @return codec of claims
+     */
+    default ClaimsCodec claimsCodec() {
+        return ClaimsCodec.standard();
+    }
+
+    /**
+     * Verifies JWT token once and returns its decoded content.
+     *
+     * @param token JWT token
+     * @return decoded JWT token
+     */
+    default DecodedToken decode(
+            final CharSequence token
+    ) {
+        return DecodedToken.of(claims(token.toString()));
+    }
+
+    /**
+     * Verifies JWT token read as ASCII bytes and returns its decoded
+     * content. Bytes are not copied to a String.
+     *
+     * @param token  array with JWT token
+     * @param offset index of first byte of JWT token
+     * @param length length of JWT token
+     * @return decoded JWT token
+     */
+    default DecodedToken decode(
+            final byte[] token,
+            final int offset,
+            final int length
+    ) {
+        return decode(AsciiSequence.of(token, offset, length));
+    }
+
+    /**
+     * Verifies JWT token in remaining ASCII bytes of buffer and returns its
+     * decoded content. Bytes are not copied to a String and position of
+     * buffer is not changed.
+     *
+     * @param token buffer with JWT token
+     * @return decoded JWT token
+     */
+    default DecodedToken decode(
+            final ByteBuffer token
+    ) {
+        return decode(AsciiSequence.of(token));
+    }
+
+    /**
+     * Verifies JWT token and reads its claims into a record with generated
+     * codec. Verified JWT tokens are not cached.
+     *
+     * @param token JWT token
+     * @param type  type of claims record
+     * @param <T>   type of claims record
+     * @return claims record
+     */
+    default <T extends Record> T decode(
+            final CharSequence token,
+            final Class<T> type
+    ) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        decode(token).getClaims()
+                .forEach((key, value) -> {
+                    if (value instanceof Date) {
+                        claims.put(key, ((Date) value).getTime() / 1000);
+                    } else {
+                        claims.put(key, value);
+                    }
+                });
+        byte[] payload = claimsCodec().serialize(claims);
+        return ClaimsRecordCodec.of(type)
+                .read(new ClaimsReader(payload, payload.length));
+    }
+
+    /**
+     * Decodes a batch of JWT tokens in parallel on common ForkJoinPool.
+     * An invalid JWT token does not abort the batch, its error is returned
+     * in its result instead.
+     *
+     * @param tokens JWT tokens
+     * @return results of decoding in the order of provided JWT tokens
+     */
+    default List<DecodeResult> decodeAll(
+            final Collection<String> tokens
+    ) {
+        return decodeAll(
+                tokens,
+                ForkJoinPool.commonPool()
+        );
+    }
+
+    /**
+     * Decodes a batch of JWT tokens in parallel on provided executor.
+     * An invalid JWT token does not abort the batch, its error is returned
+     * in its result instead.
+     *
+     * @param tokens   JWT tokens
+     * @param executor executor to decode JWT tokens on
+     * @return results of decoding in the order of provided JWT tokens
+     */
+    default List<DecodeResult> decodeAll(
+            final Collection<String> tokens,
+            final Executor executor
+    ) {
+        String[] input = tokens.toArray(new String[0]);
+        DecodeResult[] results = new DecodeResult[input.length];
+        Batch.forEach(
+                input.length,
+                i -> {
+                    try {
+                        results[i] = new DecodeResult(
+                                decode(input[i]),
+                                null
+                        );
+                    } catch (RuntimeException e) {
+                        results[i] = new DecodeResult(null, e);
+                    }
+                },
+                executor
+        );
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Validates a batch of JWT tokens in parallel on common ForkJoinPool.
+     * JWT token is valid if its signature is correct and it is not
+     * expired.
+     *
+     * @param tokens JWT tokens
+     * @return results of validation in the order of provided JWT tokens
+     */
+    default List<Boolean> validateAll(
+            final Collection<String> tokens
+    ) {
+        return validateAll(
+                tokens,
+                ForkJoinPool.commonPool()
+        );
+    }
+
+    /**
+     * Validates a batch of JWT tokens in parallel on provided executor.
+     * JWT token is valid if its signature is correct and it is not
+     * expired.
+     *
+     * @param tokens   JWT tokens
+     * @param executor executor to validate JWT tokens on
+     * @return results of validation in the order of provided JWT tokens
+     */
+    default List<Boolean> validateAll(
+            final Collection<String> tokens,
+            final Executor executor
+    ) {
+        String[] input = tokens.toArray(new String[0]);
+        Boolean[] results = new Boolean[input.length];
+        Batch.forEach(
+                input.length,
+                i -> {
+                    results[i] = validate(input[i]).isValid();
+                },
+                executor
+        );
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Validates JWT token without throwing exceptions. Rejected JWT tokens
+     * return shared results, so rejection costs no stack traces.
+     *
+     * @param token JWT token
+     * @return result with status and decoded JWT token if it is valid
+     */
+    default TokenValidationResult validate(
+            final CharSequence token
+    ) {
+        TokenStatus status;
+        try {
+            return TokenValidationResult.valid(decode(token));
+        } catch (ExpiredJwtException e) {
+            status = TokenStatus.EXPIRED;
+        } catch (PrematureJwtException e) {
+            status = TokenStatus.NOT_YET_VALID;
+        } catch (SecurityException e) {
+            status = TokenStatus.BAD_SIGNATURE;
+        } catch (JwtException | IllegalArgumentException e) {
+            status = TokenStatus.MALFORMED;
+        }
+        return TokenValidationResult.rejected(status);
+    }
+
+    /**
+     * Validates JWT token read as ASCII bytes without throwing exceptions.
+     * Bytes are not copied to a String.
+     *
+     * @param token  array with JWT token
+     * @param offset index of first byte of JWT token
+     * @param length length of JWT token
+     * @return result with status and decoded JWT token if it is valid
+     */
+    default TokenValidationResult validate(
+            final byte[] token,
+            final int offset,
+            final int length
+    ) {
+        return validate(AsciiSequence.of(token, offset, length));
+    }
+
+    /**
+     * Validates JWT token in remaining ASCII bytes of buffer without
+     * throwing exceptions. Bytes are not copied to a String and position
+     * of buffer is not changed.
+     *
+     * @param token buffer with JWT token
+     * @return result with status and decoded JWT token if it is valid
+     */
+    default TokenValidationResult validate(
+            final ByteBuffer token
+    ) {
+        return validate(AsciiSequence.of(token));
+    }
+
     /**
      * Checks if JWT token is expired by current time.
      *
@@ -42,6 +407,23 @@ public interface TokenService {
             Date date
     );
 
+    /**
+     * Checks whether JWT token is expired by provided time.
+     *
+     * @param token   JWT token to be checked
+     * @param instant time to check expiration of JWT token
+     * @return true - if JWT token expired, false - otherwise
+     */
+    default boolean isExpired(
+            final String token,
+            final Instant instant
+    ) {
+        return isExpired(
+                token,
+                Date.from(instant)
+        );
+    }
+
     /**
      * Checks if JWT token has a key-value pair in payload.
      *
@@ -78,7 +460,9 @@ public interface TokenService {
     );
 
     /**
-     * Returns payload of JWT token as a Map.
+     * Returns payload of JWT token as a read-only Map. Payload is not
+     * copied, nested objects and arrays are converted to read-only views
+     * only when they are accessed.
      *
      * @param token JWT token
      * @return a map of key-value pairs from payload
@@ -99,4 +483,23 @@ public interface TokenService {
             String key
     );
 
+    /**
+     * Returns claim of JWT token by its key cast to provided type.
+     *
+     * @param token JWT token
+     * @param key   key of claim
+     * @param clazz expected type of claim
+     * @param <T>   expected type of claim
+     * @return value of claim or null if there is no value
+     * @throws ClassCastException if claim is not of provided type
+     */
+    default <T> T claim(
+            final String token,
+            final String key,
+            final Class<T> clazz
+    ) {
+        return decode(token)
+                .claim(key, clazz);
+    }
+
 }
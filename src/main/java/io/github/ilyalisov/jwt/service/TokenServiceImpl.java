@@ -1,16 +1,38 @@
 package io.github.ilyalisov.jwt.service;
 
+import io.github.ilyalisov.jwt.cache.TokenCache;
+import io.github.ilyalisov.jwt.codec.ClaimsCodec;
+import io.github.ilyalisov.jwt.codec.ClaimsReader;
+import io.github.ilyalisov.jwt.codec.ClaimsRecordCodec;
+import io.github.ilyalisov.jwt.codec.ClaimsWriter;
+import io.github.ilyalisov.jwt.config.ServiceParameters;
 import io.github.ilyalisov.jwt.config.TokenParameters;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.SecurityException;
+import io.jsonwebtoken.security.SignatureException;
 
-import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Default implementation of TokenService.
@@ -18,14 +40,108 @@ import java.util.Map;
 public class TokenServiceImpl implements TokenService {
 
     /**
-     * Secret key for verifying JWT token.
+     * Key for JWT tokens without "kid" header. Can be null if key ring is
+     * set.
      */
-    private final SecretKey key;
+    private final SigningKey legacyKey;
 
     /**
-     * Name of field in JWT token for its type.
+     * Key ring to sign and verify JWT tokens with. Can be null.
      */
-    public static final String TOKEN_TYPE_KEY = "tokenType";
+    private final KeyRing keyRing;
+
+    /**
+     * Number of retired keys of key ring cache was last cleared at. It is
+     * written after cache is cleared.
+     */
+    private volatile long generation;
+
+    /**
+     * Parser of JWT tokens. It is immutable and thread-safe, so it is built
+     * once and shared between all calls.
+     */
+    private final JwtParser parser;
+
+    /**
+     * Allowed clock skew in millis.
+     */
+    private final long leeway;
+
+    /**
+     * Clock to validate JWT token against.
+     */
+    private final Clock clock;
+
+    /**
+     * Cache of verified JWT tokens. Can be null.
+     */
+    private final TokenCache cache;
+
+    /**
+     * Maximum length of JWT token.
+     */
+    private final int maxTokenLength;
+
+    /**
+     * Serializer and deserializer of payload of JWT tokens.
+     */
+    private final ClaimsCodec claimsCodec;
+
+    /**
+     * Numbers of rejected JWT tokens by ordinal of RejectionReason.
+     */
+    private final LongAdder[] rejections;
+
+    /**
+     * Message of SignatureException for JWT token with invalid signature.
+     */
+    private static final String SIGNATURE_MESSAGE = "JWT signature does "
+            + "not match locally computed signature. JWT validity cannot be "
+            + "asserted and should not be trusted.";
+
+    /**
+     * Messages of MalformedJwtException by reason of rejection.
+     */
+    private static final Map<RejectionReason, String> MALFORMED_MESSAGES =
+            Map.of(
+                    RejectionReason.SEGMENTS,
+                    "JWT must have exactly 2 period characters.",
+                    RejectionReason.LENGTH,
+                    "JWT is too long or has an empty segment.",
+                    RejectionReason.CHARSET,
+                    "JWT has characters out of Base64URL alphabet."
+            );
+
+    /**
+     * Encoded name of "iat" claim.
+     */
+    private static final byte[] ISSUED_AT_NAME =
+            ClaimsWriter.name(Claims.ISSUED_AT);
+
+    /**
+     * Encoded name of "exp" claim.
+     */
+    private static final byte[] EXPIRATION_NAME =
+            ClaimsWriter.name(Claims.EXPIRATION);
+
+    /**
+     * Writers of claims records, one per thread.
+     */
+    private static final ThreadLocal<ClaimsWriter> CLAIMS_WRITERS =
+            ThreadLocal.withInitial(ClaimsWriter::new);
+
+    /**
+     * Names of registered claims jjwt treats specially.
+     */
+    private static final Set<String> REGISTERED_CLAIMS = Set.of(
+            "iss",
+            "sub",
+            "aud",
+            "exp",
+            "nbf",
+            "iat",
+            "jti"
+    );
 
     /**
      * Creates an object.
@@ -35,12 +151,188 @@ public class TokenServiceImpl implements TokenService {
     public TokenServiceImpl(
             final String secret
     ) {
-        this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this(
+                ServiceParameters.builder(secret)
+                        .build()
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param params parameters of TokenService
+     */
+    public TokenServiceImpl(
+            final ServiceParameters params
+    ) {
+        if (params.getSecret() != null) {
+            this.legacyKey = new SigningKey(null, params.getSecret());
+        } else {
+            this.legacyKey = null;
+        }
+        this.keyRing = params.getKeyRing();
+        if (keyRing == null && legacyKey == null) {
+            throw new IllegalArgumentException(
+                    "Either secret or key ring must be set."
+            );
+        }
+        if (keyRing != null) {
+            this.generation = keyRing.generation();
+        }
+        this.clock = params.getClock();
+        this.cache = params.getCache();
+        this.maxTokenLength = params.getMaxTokenLength();
+        this.claimsCodec = params.getClaimsCodec();
+        this.rejections = new LongAdder[RejectionReason.values().length];
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+        this.leeway = params.getLeeway().toSeconds() * 1000;
+        this.parser = Jwts.parser()
+                .keyLocator(this::locate)
+                .clockSkewSeconds(params.getLeeway().toSeconds())
+                .clock(() -> new Date(clock.millis()))
+                .build();
+    }
+
+    private Key locate(
+            final Header header
+    ) {
+        if (keyRing == null) {
+            return legacyKey.getKey();
+        }
+        String id = null;
+        if (header instanceof ProtectedHeader) {
+            id = ((ProtectedHeader) header).getKeyId();
+        }
+        SigningKey key = legacyKey;
+        if (id != null) {
+            key = keyRing.byId(id);
+        }
+        if (key == null) {
+            return null;
+        }
+        return key.getKey();
+    }
+
+    /**
+     * Returns key new JWT tokens are signed with.
+     *
+     * @return active key of key ring or key for JWT tokens without "kid"
+     */
+    SigningKey signingKey() {
+        if (keyRing != null) {
+            return keyRing.active();
+        }
+        return legacyKey;
+    }
+
+    @Override
+    public ClaimsCodec claimsCodec() {
+        return claimsCodec;
     }
 
     @Override
     public String create(
             final TokenParameters params
+    ) {
+        return sign(params);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Record> String create(
+            final T claims,
+            final Duration duration
+    ) {
+        ClaimsRecordCodec<T> codec = ClaimsRecordCodec.of(
+                (Class<T>) claims.getClass()
+        );
+        long now = clock.millis();
+        ClaimsWriter writer = CLAIMS_WRITERS.get();
+        writer.begin();
+        codec.write(claims, writer);
+        writer.field(ISSUED_AT_NAME, now / 1000);
+        writer.field(EXPIRATION_NAME, (now + duration.toMillis()) / 1000);
+        int length = writer.end();
+        SigningKey key = signingKey();
+        if (key.getSigner() != null) {
+            return key.getSigner().sign(writer.buffer(), length);
+        }
+        return Jwts.builder()
+                .header()
+                .keyId(key.getId())
+                .and()
+                .content(Arrays.copyOf(writer.buffer(), length))
+                .signWith(key.getKey())
+                .compact();
+    }
+
+    private String sign(
+            final TokenParameters params
+    ) {
+        SigningKey signingKey = signingKey();
+        HmacSigner signer = signingKey.getSigner();
+        if (signer == null || !isSimple(params)) {
+            return createWithJjwt(params, signingKey);
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        putIfNotNull(payload, Claims.SUBJECT, params.getSubject());
+        params.getClaims()
+                .forEach((key, value) -> putIfNotNull(payload, key, value));
+        putIfNotNull(payload, TOKEN_TYPE_KEY, params.getType());
+        if (params.getIssuedAt() != null) {
+            payload.put(
+                    Claims.ISSUED_AT,
+                    params.getIssuedAt().getTime() / 1000
+            );
+        }
+        if (params.getExpiredAt() != null) {
+            payload.put(
+                    Claims.EXPIRATION,
+                    params.getExpiredAt().getTime() / 1000
+            );
+        }
+        return signer.sign(claimsCodec.serialize(payload));
+    }
+
+    /**
+     * Checks if JWT token with provided parameters can be created without
+     * jjwt, which converts registered claims.
+     *
+     * @param params parameters for JWT token
+     * @return true - if JWT token can be created without jjwt,
+     * false - otherwise
+     */
+    static boolean isSimple(
+            final TokenParameters params
+    ) {
+        if (params.getClaims() == null) {
+            return false;
+        }
+        for (String claim : params.getClaims().keySet()) {
+            if (claim == null || REGISTERED_CLAIMS.contains(claim)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putIfNotNull(
+            final Map<String, Object> payload,
+            final String key,
+            final Object value
+    ) {
+        if (value != null) {
+            payload.put(key, value);
+        } else {
+            payload.remove(key);
+        }
+    }
+
+    private String createWithJjwt(
+            final TokenParameters params,
+            final SigningKey key
     ) {
         Claims claims = Jwts.claims()
                 .subject(params.getSubject())
@@ -48,20 +340,502 @@ public class TokenServiceImpl implements TokenService {
                 .add(TOKEN_TYPE_KEY, params.getType())
                 .build();
         return Jwts.builder()
+                .header()
+                .keyId(key.getId())
+                .and()
                 .claims(claims)
                 .issuedAt(params.getIssuedAt())
                 .expiration(params.getExpiredAt())
-                .signWith(key)
+                .signWith(key.getKey())
                 .compact();
     }
 
+    @Override
+    public List<String> createAll(
+            final List<TokenParameters> params,
+            final Executor executor
+    ) {
+        TokenParameters[] input = params.toArray(new TokenParameters[0]);
+        String[] tokens = new String[input.length];
+        Batch.forEach(
+                input.length,
+                i -> {
+                    tokens[i] = sign(input[i]);
+                },
+                executor
+        );
+        return Collections.unmodifiableList(Arrays.asList(tokens));
+    }
+
+    @Override
+    public Clock clock() {
+        return clock;
+    }
+
+    @Override
+    public DecodedToken decode(
+            final CharSequence token
+    ) {
+        Verification verification = resolve(token, false);
+        if (verification.getToken() == null) {
+            throw exception(token, verification);
+        }
+        return verification.getToken();
+    }
+
+    @Override
+    public <T extends Record> T decode(
+            final CharSequence token,
+            final Class<T> type
+    ) {
+        ClaimsRecordCodec<T> codec = ClaimsRecordCodec.of(type);
+        RejectionReason reason = precheck(token, clock.millis() - leeway);
+        if (reason == RejectionReason.EXPIRED) {
+            throw exception(
+                    token,
+                    Verification.rejected(
+                            TokenStatus.EXPIRED,
+                            null,
+                            "JWT expired."
+                    )
+            );
+        }
+        if (reason != null) {
+            throw new MalformedJwtException(MALFORMED_MESSAGES.get(reason));
+        }
+        int length = HmacSigner.FOREIGN;
+        SigningKey key = verificationKey(token);
+        if (key != null && key.getSigner() != null) {
+            length = key.getSigner().verify(token);
+        }
+        byte[] payload;
+        if (length == HmacSigner.FOREIGN) {
+            Verification verification = verifyWithJjwt(token);
+            if (verification.getToken() == null) {
+                throw exception(token, verification);
+            }
+            int start = AsciiSequence.indexOf(token, '.', 0) + 1;
+            int end = AsciiSequence.indexOf(token, '.', start);
+            payload = new byte[Base64Url.decodedLength(end - start)];
+            length = Base64Url.decode(token, start, end, payload, 0);
+        } else if (length == HmacSigner.BAD_SIGNATURE) {
+            throw new SignatureException(SIGNATURE_MESSAGE);
+        } else if (length == HmacSigner.MALFORMED) {
+            throw new MalformedJwtException(
+                    "JWT payload is not valid Base64URL."
+            );
+        } else {
+            payload = key.getSigner().payload();
+        }
+        ClaimsReader reader = new ClaimsReader(payload, length);
+        T claims = codec.read(reader);
+        long now = clock.millis();
+        long expiredAt = reader.getExpiration();
+        if (expiredAt != ClaimsReader.ABSENT
+                && now - leeway > expiredAt * 1000) {
+            throw exception(
+                    token,
+                    Verification.rejected(
+                            TokenStatus.EXPIRED,
+                            null,
+                            "JWT expired " + (now - expiredAt * 1000)
+                                    + " milliseconds ago."
+                    )
+            );
+        }
+        long notBefore = reader.getNotBefore();
+        if (notBefore != ClaimsReader.ABSENT
+                && now + leeway < notBefore * 1000) {
+            throw exception(
+                    token,
+                    Verification.rejected(
+                            TokenStatus.NOT_YET_VALID,
+                            null,
+                            "JWT must not be accepted before its \"nbf\"."
+                    )
+            );
+        }
+        return claims;
+    }
+
+    @Override
+    public TokenValidationResult validate(
+            final CharSequence token
+    ) {
+        Verification verification = check(token, Long.MIN_VALUE);
+        if (verification.getToken() == null) {
+            return TokenValidationResult.rejected(verification.getStatus());
+        }
+        return TokenValidationResult.valid(verification.getToken());
+    }
+
+    /**
+     * Checks structure and expiration of JWT token, then verifies it.
+     * JWT token is expired by a time if its "exp" is before that time
+     * minus leeway.
+     *
+     * @param token  JWT token
+     * @param millis time in millis JWT token must not be expired by, if
+     *               Long.MIN_VALUE time of clock is used
+     * @return Verification
+     */
+    private Verification check(
+            final CharSequence token,
+            final long millis
+    ) {
+        long expiredBefore = millis;
+        if (millis == Long.MIN_VALUE) {
+            expiredBefore = clock.millis();
+        }
+        RejectionReason reason = precheck(token, expiredBefore - leeway);
+        if (reason == RejectionReason.EXPIRED) {
+            return Verification.rejected(TokenStatus.EXPIRED, null, null);
+        }
+        if (reason != null) {
+            return Verification.rejected(
+                    TokenStatus.MALFORMED,
+                    MALFORMED_MESSAGES.get(reason)
+            );
+        }
+        return resolve(token, true);
+    }
+
+    /**
+     * Returns verified JWT token from cache or verifies it. Cached JWT
+     * token is checked against clock of service, as cache may expire
+     * entries against another clock, and it is verified again if it is
+     * expired.
+     * <p>
+     * Cache is cleared before generation of key ring is recorded, so a
+     * thread that sees recorded generation never reads entries of retired
+     * keys. JWT token verified while a key was retired is removed from
+     * cache right after it is put.
+     *
+     * @param token   JWT token
+     * @param checked whether structure of JWT token was already checked
+     * @return Verification
+     */
+    private Verification resolve(
+            final CharSequence token,
+            final boolean checked
+    ) {
+        if (cache == null) {
+            return verify(token, checked);
+        }
+        long ring = 0;
+        if (keyRing != null) {
+            ring = keyRing.generation();
+            if (ring != generation) {
+                cache.clear();
+                generation = ring;
+            }
+        }
+        String key = token.toString();
+        DecodedToken decoded = cache.get(key);
+        if (decoded != null) {
+            if (!decoded.isExpired(clock.millis() - leeway)) {
+                return Verification.valid(decoded);
+            }
+            cache.invalidate(key);
+        }
+        Verification verification = verify(key, checked);
+        if (verification.getToken() != null) {
+            cache.put(key, verification.getToken());
+            if (keyRing != null && keyRing.generation() != ring) {
+                cache.invalidate(key);
+            }
+        }
+        return verification;
+    }
+
+    private Verification verify(
+            final CharSequence token,
+            final boolean checked
+    ) {
+        if (!checked) {
+            RejectionReason reason = precheck(token, Long.MIN_VALUE);
+            if (reason != null) {
+                return Verification.rejected(
+                        TokenStatus.MALFORMED,
+                        MALFORMED_MESSAGES.get(reason)
+                );
+            }
+        }
+        int length = HmacSigner.FOREIGN;
+        SigningKey key = verificationKey(token);
+        if (key != null && key.getSigner() != null) {
+            length = key.getSigner().verify(token);
+        }
+        if (length == HmacSigner.FOREIGN) {
+            return verifyWithJjwt(token);
+        }
+        if (length == HmacSigner.BAD_SIGNATURE) {
+            return Verification.rejected(
+                    TokenStatus.BAD_SIGNATURE,
+                    SIGNATURE_MESSAGE
+            );
+        }
+        if (length == HmacSigner.MALFORMED) {
+            return Verification.rejected(
+                    TokenStatus.MALFORMED,
+                    "JWT payload is not valid Base64URL."
+            );
+        }
+        Map<String, Object> claims = Json.tryDeserialize(
+                claimsCodec,
+                key.getSigner().payload(),
+                length
+        );
+        if (claims == null) {
+            return Verification.rejected(
+                    TokenStatus.MALFORMED,
+                    "Unable to read JWT payload."
+            );
+        }
+        if (!seconds(claims, Claims.ISSUED_AT)
+                || !seconds(claims, Claims.EXPIRATION)
+                || !seconds(claims, Claims.NOT_BEFORE)) {
+            return Verification.rejected(
+                    TokenStatus.MALFORMED,
+                    "JWT \"iat\", \"exp\" and \"nbf\" must be numbers of "
+                            + "seconds."
+            );
+        }
+        Long issuedAt = (Long) claims.get(Claims.ISSUED_AT);
+        Long expiredAt = (Long) claims.get(Claims.EXPIRATION);
+        Long notBefore = (Long) claims.get(Claims.NOT_BEFORE);
+        long now = clock.millis();
+        if (expiredAt != null && now - leeway > expiredAt * 1000) {
+            return Verification.rejected(
+                    TokenStatus.EXPIRED,
+                    claims,
+                    "JWT expired " + (now - expiredAt * 1000)
+                            + " milliseconds ago."
+            );
+        }
+        if (notBefore != null && now + leeway < notBefore * 1000) {
+            return Verification.rejected(
+                    TokenStatus.NOT_YET_VALID,
+                    claims,
+                    "JWT must not be accepted before its \"nbf\"."
+            );
+        }
+        Object subject = claims.get(Claims.SUBJECT);
+        Object type = claims.get(TOKEN_TYPE_KEY);
+        if (subject != null && !(subject instanceof String)
+                || type != null && !(type instanceof String)) {
+            return Verification.rejected(
+                    TokenStatus.MALFORMED,
+                    "JWT \"sub\" and type must be strings."
+            );
+        }
+        return Verification.valid(
+                new DecodedToken(
+                        (String) subject,
+                        (String) type,
+                        date(issuedAt),
+                        date(expiredAt),
+                        claims
+                )
+        );
+    }
+
+    /**
+     * Creates exception that describes rejection of JWT token.
+     *
+     * @param token        JWT token
+     * @param verification verification of JWT token
+     * @return exception
+     */
+    private RuntimeException exception(
+            final CharSequence token,
+            final Verification verification
+    ) {
+        if (verification.getError() != null) {
+            return verification.getError();
+        }
+        TokenStatus status = verification.getStatus();
+        if (status == TokenStatus.BAD_SIGNATURE) {
+            return new SignatureException(verification.getMessage());
+        }
+        if (status == TokenStatus.MALFORMED) {
+            return new MalformedJwtException(verification.getMessage());
+        }
+        Header header = Jwts.header()
+                .add(parserHeader(token))
+                .build();
+        Claims claims = null;
+        if (verification.getClaims() != null) {
+            claims = Jwts.claims()
+                    .add(verification.getClaims())
+                    .build();
+        }
+        if (status == TokenStatus.NOT_YET_VALID) {
+            return new PrematureJwtException(
+                    header,
+                    claims,
+                    verification.getMessage()
+            );
+        }
+        return new ExpiredJwtException(
+                header,
+                claims,
+                verification.getMessage()
+        );
+    }
+
+    private SigningKey verificationKey(
+            final CharSequence token
+    ) {
+        if (keyRing == null) {
+            return legacyKey;
+        }
+        SigningKey active = keyRing.active();
+        if (active.getSigner() != null
+                && active.getSigner().hasHeader(token)) {
+            return active;
+        }
+        int headerEnd = AsciiSequence.indexOf(token, '.', 0);
+        if (headerEnd < 0) {
+            return null;
+        }
+        SigningKey key = keyRing.byHeader(
+                token.subSequence(0, headerEnd).toString()
+        );
+        if (key == null) {
+            return legacyKey;
+        }
+        return key;
+    }
+
+    /**
+     * Returns decoded header of JWT token. Headers produced by known keys
+     * are cached, so only foreign headers are decoded.
+     *
+     * @param token JWT token
+     * @return header
+     */
+    private Map<String, Object> parserHeader(
+            final CharSequence token
+    ) {
+        SigningKey key = verificationKey(token);
+        if (key != null
+                && key.getSigner() != null
+                && key.getSigner().hasHeader(token)) {
+            return key.getSigner().headerClaims();
+        }
+        int headerEnd = AsciiSequence.indexOf(token, '.', 0);
+        byte[] header = new byte[Base64Url.decodedLength(headerEnd)];
+        int length = Base64Url.decode(token, 0, headerEnd, header, 0);
+        if (length < 0) {
+            throw new MalformedJwtException(
+                    "JWT header is not valid Base64URL."
+            );
+        }
+        return Json.deserialize(header, length);
+    }
+
+    /**
+     * Converts a claim with number of seconds to Long.
+     *
+     * @param claims claims of JWT token
+     * @param key    key of claim
+     * @return true - if claim is absent or an integer number,
+     * false - otherwise
+     */
+    private static boolean seconds(
+            final Map<String, Object> claims,
+            final String key
+    ) {
+        Object value = claims.get(key);
+        if (value == null || value instanceof Long) {
+            return true;
+        }
+        if (!(value instanceof Integer)) {
+            return false;
+        }
+        claims.put(key, ((Integer) value).longValue());
+        return true;
+    }
+
+    private static Date date(
+            final Long seconds
+    ) {
+        if (seconds == null) {
+            return null;
+        }
+        return new Date(seconds * 1000);
+    }
+
+    private Verification verifyWithJjwt(
+            final CharSequence token
+    ) {
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token)
+                    .getPayload();
+        } catch (ExpiredJwtException e) {
+            return Verification.failed(TokenStatus.EXPIRED, e);
+        } catch (PrematureJwtException e) {
+            return Verification.failed(TokenStatus.NOT_YET_VALID, e);
+        } catch (SecurityException e) {
+            return Verification.failed(TokenStatus.BAD_SIGNATURE, e);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Verification.failed(TokenStatus.MALFORMED, e);
+        }
+        return Verification.valid(
+                new DecodedToken(
+                        claims.getSubject(),
+                        claims.get(TOKEN_TYPE_KEY, String.class),
+                        claims.getIssuedAt(),
+                        claims.getExpiration(),
+                        claims
+                )
+        );
+    }
+
+    @Override
+    public List<Boolean> validateAll(
+            final Collection<String> tokens,
+            final Executor executor
+    ) {
+        String[] input = tokens.toArray(new String[0]);
+        Boolean[] results = new Boolean[input.length];
+        long now = clock.millis();
+        Batch.forEach(
+                input.length,
+                i -> {
+                    Verification verification = check(input[i], now);
+                    results[i] = verification.getToken() != null
+                            && !verification.getToken()
+                            .isExpired(now - leeway);
+                },
+                executor
+        );
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Removes JWT token from cache of verified JWT tokens if it is
+     * configured.
+     *
+     * @param token JWT token to be removed
+     */
+    protected void evict(
+            final String token
+    ) {
+        if (cache != null && token != null) {
+            cache.invalidate(token);
+        }
+    }
+
     @Override
     public boolean isExpired(
             final String token
     ) {
         return isExpired(
                 token,
-                new Date()
+                clock.millis()
         );
     }
 
@@ -70,18 +844,75 @@ public class TokenServiceImpl implements TokenService {
             final String token,
             final Date date
     ) {
-        try {
-            Jws<Claims> claims = Jwts
-                    .parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
-            return claims.getPayload()
-                    .getExpiration()
-                    .before(date);
-        } catch (ExpiredJwtException e) {
+        return isExpired(
+                token,
+                date.getTime()
+        );
+    }
+
+    @Override
+    public boolean isExpired(
+            final String token,
+            final Instant instant
+    ) {
+        return isExpired(
+                token,
+                instant.toEpochMilli()
+        );
+    }
+
+    private boolean isExpired(
+            final String token,
+            final long millis
+    ) {
+        Verification verification = check(token, millis);
+        if (verification.getStatus() == TokenStatus.EXPIRED) {
             return true;
         }
+        if (verification.getToken() == null) {
+            throw exception(token, verification);
+        }
+        return verification.getToken()
+                .isExpired(millis - leeway);
+    }
+
+    /**
+     * Checks structure of JWT token before its signature is verified.
+     * Rejected JWT tokens are counted.
+     *
+     * @param token         JWT token
+     * @param expiredBefore time in millis JWT token is rejected as expired
+     *                      if its "exp" is before
+     * @return reason JWT token is rejected or null if it passes
+     */
+    private RejectionReason precheck(
+            final CharSequence token,
+            final long expiredBefore
+    ) {
+        RejectionReason reason = TokenPrecheck.check(token, maxTokenLength);
+        if (reason == null && expiredBefore != Long.MIN_VALUE) {
+            long expiration = TokenPrecheck.expiration(token);
+            if (expiration != TokenPrecheck.NO_EXPIRATION
+                    && expiration * 1000 < expiredBefore) {
+                reason = RejectionReason.EXPIRED;
+            }
+        }
+        if (reason != null) {
+            rejections[reason.ordinal()].increment();
+        }
+        return reason;
+    }
+
+    /**
+     * Returns number of JWT tokens rejected before signature verification.
+     *
+     * @param reason reason of rejection
+     * @return number of rejected JWT tokens
+     */
+    public long getRejectionCount(
+            final RejectionReason reason
+    ) {
+        return rejections[reason.ordinal()].sum();
     }
 
     @Override
@@ -90,26 +921,15 @@ public class TokenServiceImpl implements TokenService {
             final String key,
             final Object value
     ) {
-        Jws<Claims> claims = Jwts
-                .parser()
-                .verifyWith(this.key)
-                .build()
-                .parseSignedClaims(token);
-        return claims.getPayload()
-                .get(key)
-                .equals(value);
+        return decode(token)
+                .has(key, value);
     }
 
     @Override
     public String getSubject(
             final String token
     ) {
-        return Jwts
-                .parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
+        return decode(token)
                 .getSubject();
     }
 
@@ -117,25 +937,16 @@ public class TokenServiceImpl implements TokenService {
     public String getType(
             final String token
     ) {
-        return Jwts
-                .parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get(TOKEN_TYPE_KEY, String.class);
+        return decode(token)
+                .getType();
     }
 
     @Override
     public Map<String, Object> claims(
             final String token
     ) {
-        Jws<Claims> claims = Jwts
-                .parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token);
-        return new HashMap<>(claims.getPayload());
+        return decode(token)
+                .getClaims();
     }
 
     @Override
@@ -143,13 +954,8 @@ public class TokenServiceImpl implements TokenService {
             final String token,
             final String key
     ) {
-        Jws<Claims> claims = Jwts
-                .parser()
-                .verifyWith(this.key)
-                .build()
-                .parseSignedClaims(token);
-        return claims.getPayload()
-                .get(key);
+        return decode(token)
+                .claim(key);
     }
 
 }
@@ -0,0 +1,38 @@
+package io.github.ilyalisov.jwt.service;
+
+/**
+ * Status of JWT token validation.
+ */
+public enum TokenStatus {
+
+    /**
+     * JWT token is valid.
+     */
+    VALID,
+
+    /**
+     * JWT token has expired.
+     */
+    EXPIRED,
+
+    /**
+     * JWT token must not be accepted before its "nbf".
+     */
+    NOT_YET_VALID,
+
+    /**
+     * Signature of JWT token does not match or its key is unknown.
+     */
+    BAD_SIGNATURE,
+
+    /**
+     * JWT token can not be parsed.
+     */
+    MALFORMED,
+
+    /**
+     * JWT token is valid, but it was removed from storage.
+     */
+    REVOKED
+
+}
@@ -0,0 +1,338 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.github.ilyalisov.jwt.codec.ClaimsCodec;
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.storage.TokenStorage;
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Precompiled template for issuing JWT tokens that differ only in "sub",
+ * "iat" and "exp".
+ * <p>
+ * Header, custom claims and type are taken from a prototype and encoded
+ * once, so every issuance only writes the varying claims and computes the
+ * signature. Produced JWT tokens are identical to the ones
+ * {@link TokenService#create(TokenParameters)} produces for the same
+ * parameters.
+ */
+public final class TokenTemplate {
+
+    /**
+     * Start of JSON payload.
+     */
+    private static final byte[] SUBJECT = bytes("{\"sub\":");
+
+    /**
+     * Name of "iat" claim with its leading comma.
+     */
+    private static final byte[] ISSUED_AT = bytes(",\"iat\":");
+
+    /**
+     * Name of "exp" claim with its leading comma.
+     */
+    private static final byte[] EXPIRATION = bytes(",\"exp\":");
+
+    /**
+     * Maximum length of a long number in JSON.
+     */
+    private static final int LONG_LENGTH = 20;
+
+    /**
+     * TokenService for keys and JWT tokens the template can not precompile.
+     */
+    private final TokenService service;
+
+    /**
+     * Whether prototype can be precompiled. If not, or if service is not a
+     * TokenServiceImpl, JWT tokens are created by service.
+     */
+    private final boolean simple;
+
+    /**
+     * Storage to save issued JWT tokens to. Can be null.
+     */
+    private final TokenStorage storage;
+
+    /**
+     * Clock to issue JWT tokens by.
+     */
+    private final Clock clock;
+
+    /**
+     * Type of JWT tokens.
+     */
+    private final String type;
+
+    /**
+     * Custom claims of JWT tokens.
+     */
+    private final Map<String, Object> claims;
+
+    /**
+     * Duration between issuing and expiration of JWT tokens in millis.
+     */
+    private final long duration;
+
+    /**
+     * Encoded custom claims and type with leading comma. It is null if
+     * prototype is not precompiled.
+     */
+    private final byte[] fragment;
+
+    /**
+     * Per-thread buffers for JSON payload.
+     */
+    private final ThreadLocal<byte[]> buffers;
+
+    TokenTemplate(
+            final TokenParameters prototype,
+            final TokenService service,
+            final TokenStorage storage,
+            final Clock clock
+    ) {
+        this.service = service;
+        this.storage = storage;
+        this.clock = clock;
+        this.type = prototype.getType();
+        this.claims = new LinkedHashMap<>();
+        if (prototype.getClaims() != null) {
+            this.claims.putAll(prototype.getClaims());
+        }
+        this.duration = prototype.getExpiredAt().getTime()
+                - prototype.getIssuedAt().getTime();
+        this.simple = service instanceof TokenServiceImpl
+                && TokenServiceImpl.isSimple(prototype);
+        if (simple) {
+            this.fragment = fragment(
+                    ((TokenServiceImpl) service).claimsCodec(),
+                    claims,
+                    type
+            );
+        } else {
+            this.fragment = null;
+        }
+        this.buffers = ThreadLocal.withInitial(() -> new byte[256]);
+    }
+
+    private static byte[] bytes(
+            final String value
+    ) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] fragment(
+            final ClaimsCodec codec,
+            final Map<String, Object> claims,
+            final String type
+    ) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        claims.forEach((key, value) -> {
+            if (value != null) {
+                payload.put(key, value);
+            }
+        });
+        if (type != null) {
+            payload.put(TokenService.TOKEN_TYPE_KEY, type);
+        } else {
+            payload.remove(TokenService.TOKEN_TYPE_KEY);
+        }
+        if (payload.isEmpty()) {
+            return new byte[0];
+        }
+        byte[] json = codec.serialize(payload);
+        json[0] = ',';
+        byte[] fragment = new byte[json.length - 1];
+        System.arraycopy(json, 0, fragment, 0, fragment.length);
+        return fragment;
+    }
+
+    /**
+     * Issues JWT token for a subject. It is issued now and expires after
+     * the same duration as the prototype.
+     *
+     * @param subject "sub" of JWT token
+     * @return JWT token
+     */
+    public String create(
+            final String subject
+    ) {
+        long now = clock.millis();
+        return create(
+                subject,
+                now,
+                now + duration
+        );
+    }
+
+    /**
+     * Issues JWT token for a subject.
+     *
+     * @param subject   "sub" of JWT token
+     * @param issuedAt  instant when JWT token was issued
+     * @param expiredAt instant when JWT token will be expired
+     * @return JWT token
+     */
+    public String create(
+            final String subject,
+            final Instant issuedAt,
+            final Instant expiredAt
+    ) {
+        return create(
+                subject,
+                issuedAt.toEpochMilli(),
+                expiredAt.toEpochMilli()
+        );
+    }
+
+    /**
+     * Issues JWT token for a subject.
+     *
+     * @param subject   "sub" of JWT token
+     * @param issuedAt  date when JWT token was issued
+     * @param expiredAt date when JWT token will be expired
+     * @return JWT token
+     */
+    public String create(
+            final String subject,
+            final Date issuedAt,
+            final Date expiredAt
+    ) {
+        return create(
+                subject,
+                issuedAt.getTime(),
+                expiredAt.getTime()
+        );
+    }
+
+    private String create(
+            final String subject,
+            final long issuedAt,
+            final long expiredAt
+    ) {
+        if (!simple || subject == null) {
+            return service.create(params(subject, issuedAt, expiredAt));
+        }
+        TokenServiceImpl impl = (TokenServiceImpl) service;
+        HmacSigner signer = impl.signingKey().getSigner();
+        if (signer == null) {
+            return service.create(params(subject, issuedAt, expiredAt));
+        }
+        TokenParameters params = null;
+        if (storage != null) {
+            params = params(subject, issuedAt, expiredAt);
+            String token = storage.get(params);
+            if (token != null) {
+                return token;
+            }
+        }
+        byte[] sub = subject(impl.claimsCodec(), subject);
+        byte[] payload = buffer(
+                SUBJECT.length
+                        + sub.length
+                        + fragment.length
+                        + 2 * (ISSUED_AT.length + LONG_LENGTH)
+                        + 1
+        );
+        int position = put(payload, 0, SUBJECT);
+        position = put(payload, position, sub);
+        position = put(payload, position, fragment);
+        position = put(payload, position, ISSUED_AT);
+        position = putLong(payload, position, issuedAt / 1000);
+        position = put(payload, position, EXPIRATION);
+        position = putLong(payload, position, expiredAt / 1000);
+        payload[position] = '}';
+        String token = signer.sign(payload, position + 1);
+        if (storage != null) {
+            storage.save(token, params);
+        }
+        return token;
+    }
+
+    private TokenParameters params(
+            final String subject,
+            final long issuedAt,
+            final long expiredAt
+    ) {
+        return TokenParameters.builder(subject, type, Duration.ZERO, clock)
+                .claims(claims)
+                .issuedAt(new Date(issuedAt))
+                .expiredAt(new Date(expiredAt))
+                .build();
+    }
+
+    private byte[] buffer(
+            final int length
+    ) {
+        byte[] buffer = buffers.get();
+        if (buffer.length < length) {
+            buffer = new byte[length];
+            buffers.set(buffer);
+        }
+        return buffer;
+    }
+
+    private static byte[] subject(
+            final ClaimsCodec codec,
+            final String subject
+    ) {
+        boolean plain = true;
+        for (int i = 0; i < subject.length() && plain; i++) {
+            char c = subject.charAt(i);
+            plain = c >= 0x20 && c < 0x7f && c != '"' && c != '\\';
+        }
+        if (plain) {
+            byte[] bytes = new byte[subject.length() + 2];
+            bytes[0] = '"';
+            for (int i = 0; i < subject.length(); i++) {
+                bytes[i + 1] = (byte) subject.charAt(i);
+            }
+            bytes[bytes.length - 1] = '"';
+            return bytes;
+        }
+        byte[] json = codec.serialize(Map.of(Claims.SUBJECT, subject));
+        int start = SUBJECT.length;
+        byte[] bytes = new byte[json.length - start - 1];
+        System.arraycopy(json, start, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    private static int put(
+            final byte[] buffer,
+            final int position,
+            final byte[] value
+    ) {
+        System.arraycopy(value, 0, buffer, position, value.length);
+        return position + value.length;
+    }
+
+    private static int putLong(
+            final byte[] buffer,
+            final int position,
+            final long value
+    ) {
+        if (value < 0) {
+            byte[] digits = Long.toString(value)
+                    .getBytes(StandardCharsets.US_ASCII);
+            return put(buffer, position, digits);
+        }
+        int length = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            length++;
+        }
+        long rest = value;
+        for (int i = position + length - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        return position + length;
+    }
+
+}
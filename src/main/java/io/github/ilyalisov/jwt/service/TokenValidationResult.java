@@ -0,0 +1,79 @@
+package io.github.ilyalisov.jwt.service;
+
+import lombok.Getter;
+
+/**
+ * Result of JWT token validation. Results of rejected JWT tokens are
+ * shared constants, so rejection allocates nothing.
+ */
+@Getter
+public final class TokenValidationResult {
+
+    /**
+     * Results of rejected JWT tokens by ordinal of TokenStatus.
+     */
+    private static final TokenValidationResult[] REJECTED;
+
+    static {
+        TokenStatus[] statuses = TokenStatus.values();
+        REJECTED = new TokenValidationResult[statuses.length];
+        for (TokenStatus status : statuses) {
+            REJECTED[status.ordinal()] = new TokenValidationResult(
+                    status,
+                    null
+            );
+        }
+    }
+
+    /**
+     * Status of JWT token.
+     */
+    private final TokenStatus status;
+
+    /**
+     * Decoded JWT token. It is null unless JWT token is valid.
+     */
+    private final DecodedToken token;
+
+    private TokenValidationResult(
+            final TokenStatus status,
+            final DecodedToken token
+    ) {
+        this.status = status;
+        this.token = token;
+    }
+
+    /**
+     * Creates result of valid JWT token.
+     *
+     * @param token decoded JWT token
+     * @return TokenValidationResult
+     */
+    static TokenValidationResult valid(
+            final DecodedToken token
+    ) {
+        return new TokenValidationResult(TokenStatus.VALID, token);
+    }
+
+    /**
+     * Returns result of rejected JWT token.
+     *
+     * @param status status of JWT token
+     * @return TokenValidationResult
+     */
+    static TokenValidationResult rejected(
+            final TokenStatus status
+    ) {
+        return REJECTED[status.ordinal()];
+    }
+
+    /**
+     * Checks if JWT token is valid.
+     *
+     * @return true - if JWT token is valid, false - otherwise
+     */
+    public boolean isValid() {
+        return status == TokenStatus.VALID;
+    }
+
+}
@@ -0,0 +1,109 @@
+package io.github.ilyalisov.jwt.service;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Outcome of JWT token verification. It keeps details of rejection, so an
+ * exception is built only if caller needs one.
+ */
+@Getter
+final class Verification {
+
+    /**
+     * Status of JWT token.
+     */
+    private final TokenStatus status;
+
+    /**
+     * Decoded JWT token. It is null unless JWT token is valid.
+     */
+    private final DecodedToken token;
+
+    /**
+     * Claims of expired or premature JWT token. Can be null.
+     */
+    private final Map<String, Object> claims;
+
+    /**
+     * Description of rejection. Can be null.
+     */
+    private final String message;
+
+    /**
+     * Exception thrown by jjwt. Can be null.
+     */
+    private final RuntimeException error;
+
+    private Verification(
+            final TokenStatus status,
+            final DecodedToken token,
+            final Map<String, Object> claims,
+            final String message,
+            final RuntimeException error
+    ) {
+        this.status = status;
+        this.token = token;
+        this.claims = claims;
+        this.message = message;
+        this.error = error;
+    }
+
+    /**
+     * Creates verification of valid JWT token.
+     *
+     * @param token decoded JWT token
+     * @return Verification
+     */
+    static Verification valid(
+            final DecodedToken token
+    ) {
+        return new Verification(TokenStatus.VALID, token, null, null, null);
+    }
+
+    /**
+     * Creates verification of rejected JWT token.
+     *
+     * @param status  status of JWT token
+     * @param message description of rejection
+     * @return Verification
+     */
+    static Verification rejected(
+            final TokenStatus status,
+            final String message
+    ) {
+        return new Verification(status, null, null, message, null);
+    }
+
+    /**
+     * Creates verification of expired or premature JWT token.
+     *
+     * @param status  status of JWT token
+     * @param claims  claims of JWT token
+     * @param message description of rejection
+     * @return Verification
+     */
+    static Verification rejected(
+            final TokenStatus status,
+            final Map<String, Object> claims,
+            final String message
+    ) {
+        return new Verification(status, null, claims, message, null);
+    }
+
+    /**
+     * Creates verification of JWT token jjwt rejected.
+     *
+     * @param status status of JWT token
+     * @param error  exception thrown by jjwt
+     * @return Verification
+     */
+    static Verification failed(
+            final TokenStatus status,
+            final RuntimeException error
+    ) {
+        return new Verification(status, null, null, null, error);
+    }
+
+}
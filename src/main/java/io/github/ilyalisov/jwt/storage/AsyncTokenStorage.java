@@ -0,0 +1,109 @@
+package io.github.ilyalisov.jwt.storage;
+
+import io.github.ilyalisov.jwt.concurrent.VirtualThreads;
+import io.github.ilyalisov.jwt.config.TokenParameters;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous version of TokenStorage. Methods return at once and
+ * complete their futures when storage replies, so they can be called from
+ * event-loop threads.
+ */
+public interface AsyncTokenStorage {
+
+    /**
+     * Creates adapter that runs every call of TokenStorage on a new thread,
+     * virtual if runtime supports them.
+     *
+     * @param storage synchronous TokenStorage
+     * @return AsyncTokenStorage
+     */
+    static AsyncTokenStorage of(
+            final TokenStorage storage
+    ) {
+        return of(storage, VirtualThreads.shared());
+    }
+
+    /**
+     * Creates adapter that runs calls of TokenStorage on provided
+     * executor.
+     *
+     * @param storage  synchronous TokenStorage
+     * @param executor executor to run calls on
+     * @return AsyncTokenStorage
+     */
+    static AsyncTokenStorage of(
+            final TokenStorage storage,
+            final Executor executor
+    ) {
+        return new AsyncTokenStorageAdapter(storage, executor);
+    }
+
+    /**
+     * Saves JWT token.
+     *
+     * @param token  JWT token
+     * @param params parameters of JWT token
+     * @return future completed when JWT token is saved
+     */
+    CompletableFuture<Void> save(
+            String token,
+            TokenParameters params
+    );
+
+    /**
+     * Saves a batch of JWT tokens.
+     *
+     * @param tokens parameters by JWT token
+     * @return future completed when JWT tokens are saved
+     */
+    CompletableFuture<Void> saveAll(
+            Map<String, TokenParameters> tokens
+    );
+
+    /**
+     * Checks if JWT token exists.
+     *
+     * @param token  JWT token
+     * @param params parameters of JWT token
+     * @return future of true - if JWT token exists, false - otherwise
+     */
+    CompletableFuture<Boolean> exists(
+            String token,
+            TokenParameters params
+    );
+
+    /**
+     * Returns JWT token by its parameters.
+     *
+     * @param params parameters of JWT token
+     * @return future of JWT token or null if it does not exist
+     */
+    CompletableFuture<String> get(
+            TokenParameters params
+    );
+
+    /**
+     * Removes JWT token.
+     *
+     * @param token JWT token
+     * @return future of true - if JWT token was removed, false - otherwise
+     */
+    CompletableFuture<Boolean> remove(
+            String token
+    );
+
+    /**
+     * Removes JWT token by its parameters.
+     *
+     * @param params parameters of JWT token
+     * @return future of true - if JWT token was removed, false - otherwise
+     */
+    CompletableFuture<Boolean> remove(
+            TokenParameters params
+    );
+
+}
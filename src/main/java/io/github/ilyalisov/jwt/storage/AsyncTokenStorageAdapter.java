@@ -0,0 +1,101 @@
+package io.github.ilyalisov.jwt.storage;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * AsyncTokenStorage that runs calls of synchronous TokenStorage on an
+ * executor.
+ */
+final class AsyncTokenStorageAdapter implements AsyncTokenStorage {
+
+    /**
+     * Synchronous TokenStorage.
+     */
+    private final TokenStorage storage;
+
+    /**
+     * Executor to run calls on.
+     */
+    private final Executor executor;
+
+    /**
+     * Creates an object.
+     *
+     * @param storage  synchronous TokenStorage
+     * @param executor executor to run calls on
+     */
+    AsyncTokenStorageAdapter(
+            final TokenStorage storage,
+            final Executor executor
+    ) {
+        this.storage = storage;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Void> save(
+            final String token,
+            final TokenParameters params
+    ) {
+        return CompletableFuture.runAsync(
+                () -> storage.save(token, params),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAll(
+            final Map<String, TokenParameters> tokens
+    ) {
+        return CompletableFuture.runAsync(
+                () -> storage.saveAll(tokens),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(
+            final String token,
+            final TokenParameters params
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> storage.exists(token, params),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<String> get(
+            final TokenParameters params
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> storage.get(params),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(
+            final String token
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> storage.remove(token),
+                executor
+        );
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(
+            final TokenParameters params
+    ) {
+        return CompletableFuture.supplyAsync(
+                () -> storage.remove(params),
+                executor
+        );
+    }
+
+}
@@ -0,0 +1,26 @@
+package io.github.ilyalisov.jwt.storage;
+
+/**
+ * Policy of choosing JWT tokens to evict from bounded
+ * {@link TokenStorageImpl}. Expired JWT tokens are always removed first.
+ */
+public enum EvictionPolicy {
+
+    /**
+     * JWT token that was not read for the longest time is evicted.
+     */
+    LRU,
+
+    /**
+     * JWT token that expires soonest is evicted.
+     */
+    SOONEST_EXPIRY,
+
+    /**
+     * JWT token that was read least often recently is evicted. Frequencies
+     * are estimated by a sketch that halves them periodically, and newest
+     * JWT tokens are kept for a while, so they can gain frequency.
+     */
+    TINY_LFU
+
+}
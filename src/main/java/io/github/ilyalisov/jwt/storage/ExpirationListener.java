@@ -0,0 +1,24 @@
+package io.github.ilyalisov.jwt.storage;
+
+/**
+ * Listener of JWT tokens that are removed from storage because they are
+ * expired.
+ */
+@FunctionalInterface
+public interface ExpirationListener {
+
+    /**
+     * Called once for every expired JWT token. It is called on thread that
+     * removed JWT token, which is cleanup thread or thread that read
+     * expired JWT token, so it must not block.
+     *
+     * @param key   key JWT token was stored with
+     * @param token expired JWT token or null if storage keeps only
+     *              digests of JWT tokens
+     */
+    void expired(
+            String key,
+            String token
+    );
+
+}
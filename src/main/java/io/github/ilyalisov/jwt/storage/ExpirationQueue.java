@@ -0,0 +1,265 @@
+package io.github.ilyalisov.jwt.storage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Index of elements by expiration time. Elements are put into buckets of
+ * one tick each, sorted by time, so polling touches only buckets whose
+ * whole tick is in the past, and never elements that are not due.
+ * <p>
+ * Every bucket is a doubly-linked list of nodes guarded by its own lock,
+ * so an element that is replaced or removed from storage is unlinked in
+ * constant time, and index holds only live elements. A bucket that gets
+ * empty is dropped.
+ *
+ * @param <E> type of elements
+ */
+final class ExpirationQueue<E> {
+
+    /**
+     * Duration of tick in milliseconds.
+     */
+    private final long tickMillis;
+
+    /**
+     * Buckets by number of tick after which their elements are expired.
+     */
+    private final ConcurrentSkipListMap<Long, Bucket<E>> buckets;
+
+    /**
+     * Number of linked nodes.
+     */
+    private final AtomicInteger size;
+
+    /**
+     * Creates an object.
+     *
+     * @param tick duration of tick
+     */
+    ExpirationQueue(
+            final Duration tick
+    ) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException(
+                    "Tick must be at least one millisecond."
+            );
+        }
+        this.tickMillis = tick.toMillis();
+        this.buckets = new ConcurrentSkipListMap<>();
+        this.size = new AtomicInteger();
+    }
+
+    /**
+     * Adds element.
+     *
+     * @param element   element
+     * @param expiredAt time in milliseconds after which element is expired
+     * @return node to remove element with
+     */
+    Node<E> add(
+            final E element,
+            final long expiredAt
+    ) {
+        long tick = expiredAt / tickMillis + 1;
+        Node<E> node = new Node<>(element);
+        while (true) {
+            Bucket<E> bucket = buckets.computeIfAbsent(
+                    tick,
+                    key -> new Bucket<>(key)
+            );
+            synchronized (bucket) {
+                if (!bucket.dropped) {
+                    bucket.link(node);
+                    size.incrementAndGet();
+                    return node;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes element by its node. It does nothing if element was already
+     * removed or polled.
+     *
+     * @param node node of element
+     */
+    void remove(
+            final Node<E> node
+    ) {
+        Bucket<E> bucket = node.bucket;
+        if (bucket == null) {
+            return;
+        }
+        synchronized (bucket) {
+            if (node.bucket != bucket) {
+                return;
+            }
+            bucket.unlink(node);
+            size.decrementAndGet();
+            if (bucket.head == null) {
+                bucket.dropped = true;
+                buckets.remove(bucket.tick, bucket);
+            }
+        }
+    }
+
+    /**
+     * Removes elements of buckets that are due and passes them to
+     * consumer.
+     *
+     * @param now      current time in milliseconds
+     * @param consumer consumer of due elements
+     * @return number of removed elements
+     */
+    int poll(
+            final long now,
+            final Consumer<E> consumer
+    ) {
+        int polled = 0;
+        ConcurrentNavigableMap<Long, Bucket<E>> due = buckets.headMap(
+                now / tickMillis,
+                true
+        );
+        List<E> elements = new ArrayList<>();
+        for (Map.Entry<Long, Bucket<E>> entry = due.pollFirstEntry();
+             entry != null;
+             entry = due.pollFirstEntry()) {
+            Bucket<E> bucket = entry.getValue();
+            synchronized (bucket) {
+                bucket.dropped = true;
+                while (bucket.head != null) {
+                    Node<E> node = bucket.head;
+                    bucket.unlink(node);
+                    elements.add(node.element);
+                }
+            }
+            size.addAndGet(-elements.size());
+            for (E element : elements) {
+                consumer.accept(element);
+            }
+            polled += elements.size();
+            elements.clear();
+        }
+        return polled;
+    }
+
+    /**
+     * Returns number of buckets.
+     *
+     * @return number of buckets
+     */
+    int buckets() {
+        return buckets.size();
+    }
+
+    /**
+     * Returns number of indexed elements.
+     *
+     * @return number of elements
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Element linked into a bucket.
+     *
+     * @param <E> type of element
+     */
+    static final class Node<E> {
+
+        /**
+         * Indexed element.
+         */
+        private final E element;
+
+        /**
+         * Bucket node is linked into or null after it is unlinked.
+         */
+        private volatile Bucket<E> bucket;
+
+        /**
+         * Previous node of bucket. It is guarded by lock of bucket.
+         */
+        private Node<E> prev;
+
+        /**
+         * Next node of bucket. It is guarded by lock of bucket.
+         */
+        private Node<E> next;
+
+        private Node(
+                final E element
+        ) {
+            this.element = element;
+        }
+
+    }
+
+    /**
+     * Doubly-linked list of nodes that expire in the same tick. It is
+     * guarded by its own lock.
+     *
+     * @param <E> type of elements
+     */
+    private static final class Bucket<E> {
+
+        /**
+         * Number of tick of bucket.
+         */
+        private final long tick;
+
+        /**
+         * First node or null if bucket is empty.
+         */
+        private Node<E> head;
+
+        /**
+         * Whether bucket was removed from index, so nodes must not be
+         * linked into it.
+         */
+        private boolean dropped;
+
+        private Bucket(
+                final long tick
+        ) {
+            this.tick = tick;
+        }
+
+        private void link(
+                final Node<E> node
+        ) {
+            node.bucket = this;
+            node.next = head;
+            if (head != null) {
+                head.prev = node;
+            }
+            head = node;
+        }
+
+        private void unlink(
+                final Node<E> node
+        ) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.bucket = null;
+        }
+
+    }
+
+}
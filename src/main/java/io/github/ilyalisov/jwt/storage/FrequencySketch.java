@@ -0,0 +1,149 @@
+package io.github.ilyalisov.jwt.storage;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch of 4-bit counters that estimates how often keys were
+ * used recently. When number of additions reaches ten times number of
+ * tracked keys, all counters are halved, so old usage fades out.
+ * Concurrent increments may be lost, which only makes estimates a bit
+ * lower.
+ */
+final class FrequencySketch {
+
+    /**
+     * Number of counters per key.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Maximum number of longs in table.
+     */
+    private static final int MAX_LENGTH = 1 << 22;
+
+    /**
+     * Maximum value of counter.
+     */
+    private static final long MAX_COUNT = 15;
+
+    /**
+     * Mask that clears high bit of every counter after shift.
+     */
+    private static final long HALF_MASK = 0x7777777777777777L;
+
+    /**
+     * Seeds of hashes of counters.
+     */
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L,
+            0xC2B2AE3D27D4EB4FL,
+            0x165667B19E3779F9L,
+            0x27D4EB2F165667C5L
+    };
+
+    /**
+     * Counters, sixteen in every long.
+     */
+    private final AtomicLongArray table;
+
+    /**
+     * Mask of index in table.
+     */
+    private final int mask;
+
+    /**
+     * Number of additions after which counters are halved.
+     */
+    private final int sampleSize;
+
+    /**
+     * Number of additions since counters were halved.
+     */
+    private final AtomicInteger additions;
+
+    /**
+     * Creates an object.
+     *
+     * @param keys expected number of tracked keys
+     */
+    FrequencySketch(
+            final int keys
+    ) {
+        int length = Integer.highestOneBit(
+                Math.max(1, Math.min(keys, MAX_LENGTH) - 1)
+        ) << 1;
+        this.table = new AtomicLongArray(length);
+        this.mask = length - 1;
+        this.sampleSize = (int) Math.min(10L * keys, Integer.MAX_VALUE);
+        this.additions = new AtomicInteger();
+    }
+
+    /**
+     * Increments counters of key.
+     *
+     * @param hash hash of key
+     */
+    void increment(
+            final int hash
+    ) {
+        for (int i = 0; i < DEPTH; i++) {
+            long h = spread(hash, i);
+            int index = (int) h & mask;
+            int shift = (int) (h >>> 60) << 2;
+            long value = table.get(index);
+            while ((value >>> shift & MAX_COUNT) < MAX_COUNT) {
+                long next = value + (1L << shift);
+                if (table.weakCompareAndSetVolatile(index, value, next)) {
+                    break;
+                }
+                value = table.get(index);
+            }
+        }
+        if (additions.incrementAndGet() == sampleSize) {
+            halve();
+            additions.addAndGet(-sampleSize / 2);
+        }
+    }
+
+    /**
+     * Returns estimated frequency of key.
+     *
+     * @param hash hash of key
+     * @return frequency from 0 to 15
+     */
+    int frequency(
+            final int hash
+    ) {
+        long frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            long h = spread(hash, i);
+            int shift = (int) (h >>> 60) << 2;
+            long count = table.get((int) h & mask) >>> shift & MAX_COUNT;
+            frequency = Math.min(frequency, count);
+        }
+        return (int) frequency;
+    }
+
+    private void halve() {
+        for (int i = 0; i < table.length(); i++) {
+            long value = table.get(i);
+            while (!table.weakCompareAndSetVolatile(
+                    i,
+                    value,
+                    value >>> 1 & HALF_MASK
+            )) {
+                value = table.get(i);
+            }
+        }
+    }
+
+    private static long spread(
+            final int hash,
+            final int row
+    ) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return h ^ h >>> 32;
+    }
+
+}
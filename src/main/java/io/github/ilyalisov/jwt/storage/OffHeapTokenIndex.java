@@ -0,0 +1,366 @@
+package io.github.ilyalisov.jwt.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index of slots of {@link OffHeapTokenStorageImpl} by 64-bit hash of JWT
+ * token, kept in direct byte buffers. It lets JWT token be removed without
+ * scanning slots.
+ * <p>
+ * Index is split into segments by hash, each guarded by its own lock.
+ * Segment is an open-addressed table with linear probing, and removed
+ * entries are replaced by entries that follow them, so there are no
+ * tombstones and probes stay short. A segment doubles when it is three
+ * quarters full.
+ */
+final class OffHeapTokenIndex {
+
+    /**
+     * Number of segments.
+     */
+    private static final int SEGMENTS = 64;
+
+    /**
+     * Number of bits of mixed hash that choose segment.
+     */
+    private static final int SEGMENT_BITS = 6;
+
+    /**
+     * Minimum number of entries of segment.
+     */
+    private static final int MIN_ENTRIES = 16;
+
+    /**
+     * Offset of hash of JWT token in entry.
+     */
+    private static final int HASH = 0;
+
+    /**
+     * Offset of number of slot plus one in entry, zero if entry is empty.
+     */
+    private static final int SLOT = 8;
+
+    /**
+     * Size of entry in bytes.
+     */
+    private static final int ENTRY = 12;
+
+    /**
+     * Segments by high bits of mixed hash.
+     */
+    private final Segment[] segments;
+
+    /**
+     * Creates an object.
+     *
+     * @param capacity number of slots to be indexed
+     */
+    OffHeapTokenIndex(
+            final int capacity
+    ) {
+        int entries = MIN_ENTRIES;
+        while (entries < capacity / SEGMENTS * 2 && entries < 1 << 30) {
+            entries <<= 1;
+        }
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(entries);
+        }
+    }
+
+    /**
+     * Adds slot of JWT token.
+     *
+     * @param hash hash of JWT token
+     * @param slot number of slot
+     */
+    void add(
+            final long hash,
+            final int slot
+    ) {
+        long mixed = mix(hash);
+        Segment segment = segment(mixed);
+        segment.lock.lock();
+        try {
+            segment.add(hash, mixed, slot);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes slot of JWT token. It does nothing if slot is not indexed
+     * with this hash.
+     *
+     * @param hash hash of JWT token
+     * @param slot number of slot
+     */
+    void remove(
+            final long hash,
+            final int slot
+    ) {
+        long mixed = mix(hash);
+        Segment segment = segment(mixed);
+        segment.lock.lock();
+        try {
+            segment.remove(hash, mixed, slot);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns slots of JWT tokens with hash.
+     *
+     * @param hash hash of JWT token
+     * @return numbers of slots
+     */
+    int[] find(
+            final long hash
+    ) {
+        long mixed = mix(hash);
+        Segment segment = segment(mixed);
+        segment.lock.lock();
+        try {
+            return segment.find(hash, mixed);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns number of indexed slots.
+     *
+     * @return number of slots
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns number of bytes allocated for segments.
+     *
+     * @return number of bytes
+     */
+    long getMemorySize() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                bytes += (long) segment.entries * ENTRY;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return bytes;
+    }
+
+    private Segment segment(
+            final long mixed
+    ) {
+        return segments[(int) (mixed >>> Long.SIZE - SEGMENT_BITS)];
+    }
+
+    /**
+     * Spreads bits of FNV-1a hash, so both high and low bits are random.
+     *
+     * @param hash hash of JWT token
+     * @return mixed hash
+     */
+    private static long mix(
+            final long hash
+    ) {
+        long mixed = hash * 0x9e3779b97f4a7c15L;
+        return mixed ^ mixed >>> 29;
+    }
+
+    /**
+     * Open-addressed table of entries. It is guarded by its lock.
+     */
+    private static final class Segment {
+
+        /**
+         * Lock of segment.
+         */
+        private final ReentrantLock lock;
+
+        /**
+         * Entries of table.
+         */
+        private ByteBuffer table;
+
+        /**
+         * Number of entries of table, power of two.
+         */
+        private int entries;
+
+        /**
+         * Number of occupied entries.
+         */
+        private int size;
+
+        private Segment(
+                final int entries
+        ) {
+            this.lock = new ReentrantLock();
+            this.entries = entries;
+            this.table = allocate(entries);
+        }
+
+        private static ByteBuffer allocate(
+                final int entries
+        ) {
+            return ByteBuffer.allocateDirect(entries * ENTRY)
+                    .order(ByteOrder.nativeOrder());
+        }
+
+        private void add(
+                final long hash,
+                final long mixed,
+                final int slot
+        ) {
+            if ((size + 1) * 4L > entries * 3L) {
+                grow();
+            }
+            int i = home(mixed);
+            while (table.getInt(i * ENTRY + SLOT) != 0) {
+                i = next(i);
+            }
+            put(i, hash, slot + 1);
+            size++;
+        }
+
+        private void remove(
+                final long hash,
+                final long mixed,
+                final int slot
+        ) {
+            int i = home(mixed);
+            while (true) {
+                int stored = table.getInt(i * ENTRY + SLOT);
+                if (stored == 0) {
+                    return;
+                }
+                if (stored == slot + 1
+                        && table.getLong(i * ENTRY + HASH) == hash) {
+                    break;
+                }
+                i = next(i);
+            }
+            int hole = i;
+            for (int j = next(hole);
+                 table.getInt(j * ENTRY + SLOT) != 0;
+                 j = next(j)) {
+                long moved = table.getLong(j * ENTRY + HASH);
+                int k = home(mix(moved));
+                if (isBetween(k, hole, j)) {
+                    continue;
+                }
+                put(hole, moved, table.getInt(j * ENTRY + SLOT));
+                hole = j;
+            }
+            put(hole, 0, 0);
+            size--;
+        }
+
+        private int[] find(
+                final long hash,
+                final long mixed
+        ) {
+            int found = 0;
+            int[] slots = new int[1];
+            for (int i = home(mixed);
+                 table.getInt(i * ENTRY + SLOT) != 0;
+                 i = next(i)) {
+                if (table.getLong(i * ENTRY + HASH) != hash) {
+                    continue;
+                }
+                if (found == slots.length) {
+                    int[] grown = new int[found * 2];
+                    System.arraycopy(slots, 0, grown, 0, found);
+                    slots = grown;
+                }
+                slots[found++] = table.getInt(i * ENTRY + SLOT) - 1;
+            }
+            if (found == slots.length) {
+                return slots;
+            }
+            int[] result = new int[found];
+            System.arraycopy(slots, 0, result, 0, found);
+            return result;
+        }
+
+        private void grow() {
+            ByteBuffer old = table;
+            int oldEntries = entries;
+            entries = oldEntries * 2;
+            table = allocate(entries);
+            for (int i = 0; i < oldEntries; i++) {
+                int slot = old.getInt(i * ENTRY + SLOT);
+                if (slot == 0) {
+                    continue;
+                }
+                long hash = old.getLong(i * ENTRY + HASH);
+                int j = home(mix(hash));
+                while (table.getInt(j * ENTRY + SLOT) != 0) {
+                    j = next(j);
+                }
+                put(j, hash, slot);
+            }
+        }
+
+        /**
+         * Checks if home entry lies cyclically in (hole, current], so
+         * entry can not be moved to hole.
+         *
+         * @param home    home entry of moved hash
+         * @param hole    entry being emptied
+         * @param current entry of moved hash
+         * @return true - if entry stays, false - if it moves to hole
+         */
+        private static boolean isBetween(
+                final int home,
+                final int hole,
+                final int current
+        ) {
+            if (hole <= current) {
+                return hole < home && home <= current;
+            }
+            return hole < home || home <= current;
+        }
+
+        private void put(
+                final int i,
+                final long hash,
+                final int slot
+        ) {
+            table.putLong(i * ENTRY + HASH, hash);
+            table.putInt(i * ENTRY + SLOT, slot);
+        }
+
+        private int home(
+                final long mixed
+        ) {
+            return (int) mixed & entries - 1;
+        }
+
+        private int next(
+                final int i
+        ) {
+            return i + 1 & entries - 1;
+        }
+
+    }
+
+}
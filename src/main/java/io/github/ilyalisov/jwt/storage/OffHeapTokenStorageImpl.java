@@ -0,0 +1,603 @@
+package io.github.ilyalisov.jwt.storage;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of TokenStorage that keeps JWT tokens in direct byte
+ * buffers, out of Java heap, so millions of JWT tokens do not make garbage
+ * collection slower.
+ * <p>
+ * Storage is a hash table of fixed number of fixed-size slots, allocated
+ * at once. Slot holds 128-bit digest of subject and type, expiration time
+ * and bytes of JWT token. JWT token is stored in one of
+ * {@link #WINDOW} slots that follow slot of its digest. Expired slots are
+ * reused, and if every slot of window holds live JWT token, storage is
+ * full and {@link #save(String, TokenParameters)} throws
+ * IllegalStateException.
+ * <p>
+ * Reads take no locks. Every slot has a version that is odd while slot is
+ * written, and reads retry if version changed while they read. Writes of
+ * the same subject and type are serialized by one of striped locks, and a
+ * slot is claimed by changing its version with compare-and-set.
+ * <p>
+ * {@link #remove(String)} finds slots by 64-bit hash of JWT token in
+ * {@link OffHeapTokenIndex}, which is kept off heap as well and is updated
+ * while slot is written, so it takes constant time.
+ */
+public class OffHeapTokenStorageImpl implements TokenStorage {
+
+    /**
+     * Number of slots JWT token can be stored in.
+     */
+    public static final int WINDOW = 16;
+
+    /**
+     * Number of striped locks.
+     */
+    private static final int STRIPES = 1024;
+
+    /**
+     * Offset of slot version.
+     */
+    private static final int VERSION = 0;
+
+    /**
+     * Offset of high bits of digest of subject and type.
+     */
+    private static final int KEY_HIGH = 8;
+
+    /**
+     * Offset of low bits of digest of subject and type.
+     */
+    private static final int KEY_LOW = 16;
+
+    /**
+     * Offset of expiration time in millis.
+     */
+    private static final int EXPIRED_AT = 24;
+
+    /**
+     * Offset of hash of JWT token.
+     */
+    private static final int TOKEN_HASH = 32;
+
+    /**
+     * Offset of length of JWT token.
+     */
+    private static final int TOKEN_LENGTH = 40;
+
+    /**
+     * Offset of slot state.
+     */
+    private static final int STATE = 44;
+
+    /**
+     * Offset of bytes of JWT token.
+     */
+    private static final int TOKEN = 48;
+
+    /**
+     * State of slot without JWT token.
+     */
+    private static final int EMPTY = 0;
+
+    /**
+     * State of slot with JWT token.
+     */
+    private static final int FULL = 1;
+
+    /**
+     * Atomic access to versions of slots.
+     */
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(
+                    long[].class,
+                    ByteOrder.nativeOrder()
+            );
+
+    /**
+     * Buffers with slots.
+     */
+    private final ByteBuffer[] buffers;
+
+    /**
+     * Number of slots in every buffer but last.
+     */
+    private final int slotsPerBuffer;
+
+    /**
+     * Size of slot in bytes.
+     */
+    private final int slotSize;
+
+    /**
+     * Number of slots.
+     */
+    private final int capacity;
+
+    /**
+     * Maximum length of JWT token in bytes.
+     */
+    private final int maxTokenLength;
+
+    /**
+     * Slots of JWT tokens by hash of JWT token.
+     */
+    private final OffHeapTokenIndex index;
+
+    /**
+     * Locks of writes by digest of subject and type.
+     */
+    private final ReentrantLock[] locks;
+
+    /**
+     * Clock to expire JWT tokens against.
+     */
+    private final Clock clock;
+
+    /**
+     * Creates an object.
+     *
+     * @param capacity       number of slots
+     * @param maxTokenLength maximum length of JWT token in bytes
+     */
+    public OffHeapTokenStorageImpl(
+            final int capacity,
+            final int maxTokenLength
+    ) {
+        this(capacity, maxTokenLength, Clock.systemUTC());
+    }
+
+    /**
+     * Creates an object. It allocates
+     * {@link #getMemorySize()} bytes for slots at once, and index of slots
+     * by hash of JWT token grows if it has to.
+     *
+     * @param capacity       number of slots
+     * @param maxTokenLength maximum length of JWT token in bytes
+     * @param clock          clock to expire JWT tokens against
+     */
+    public OffHeapTokenStorageImpl(
+            final int capacity,
+            final int maxTokenLength,
+            final Clock clock
+    ) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity must be positive."
+            );
+        }
+        if (maxTokenLength < 1
+                || maxTokenLength > Integer.MAX_VALUE / 2 - TOKEN) {
+            throw new IllegalArgumentException(
+                    "Maximum token length must be positive and less than "
+                            + "1 GB."
+            );
+        }
+        this.capacity = capacity;
+        this.maxTokenLength = maxTokenLength;
+        this.slotSize = (TOKEN + maxTokenLength + Long.BYTES - 1)
+                / Long.BYTES * Long.BYTES;
+        this.slotsPerBuffer = (Integer.MAX_VALUE - Long.BYTES) / slotSize;
+        int count = (capacity - 1) / slotsPerBuffer + 1;
+        this.buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            int slots = Math.min(
+                    slotsPerBuffer,
+                    capacity - i * slotsPerBuffer
+            );
+            buffers[i] = ByteBuffer.allocateDirect(
+                            slots * slotSize + Long.BYTES
+                    )
+                    .alignedSlice(Long.BYTES)
+                    .order(ByteOrder.nativeOrder());
+        }
+        this.index = new OffHeapTokenIndex(capacity);
+        this.locks = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.clock = clock;
+    }
+
+    /**
+     * Returns number of slots.
+     *
+     * @return number of slots
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns number of bytes allocated for slots.
+     *
+     * @return number of bytes
+     */
+    public long getMemorySize() {
+        return (long) capacity * slotSize;
+    }
+
+    /**
+     * Returns number of bytes allocated for index of slots by hash of JWT
+     * token. It is about 24 bytes per slot.
+     *
+     * @return number of bytes
+     */
+    public long getIndexMemorySize() {
+        return index.getMemorySize();
+    }
+
+    /**
+     * Returns number of slots in index by hash of JWT token.
+     *
+     * @return number of indexed slots
+     */
+    int indexSize() {
+        return index.size();
+    }
+
+    @Override
+    public void save(
+            final String token,
+            final TokenParameters params
+    ) {
+        byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxTokenLength) {
+            throw new IllegalArgumentException(
+                    "Token is longer than " + maxTokenLength + " bytes."
+            );
+        }
+        long[] key = key(params);
+        long expiredAt = Long.MAX_VALUE;
+        if (params.getExpiredAt() != null) {
+            expiredAt = params.getExpiredAt().getTime();
+        }
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try {
+            while (!write(key, bytes, expiredAt)) {
+                Thread.onSpinWait();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes JWT token to slot of its key or to a free slot.
+     *
+     * @param key       digest of subject and type
+     * @param bytes     bytes of JWT token
+     * @param expiredAt expiration time in millis
+     * @return true - if JWT token was written, false - if slot was changed
+     * by another write and window must be scanned again
+     */
+    private boolean write(
+            final long[] key,
+            final byte[] bytes,
+            final long expiredAt
+    ) {
+        long now = clock.millis();
+        int home = home(key);
+        int free = -1;
+        for (int i = 0; i < window(); i++) {
+            int slot = (home + i) % capacity;
+            ByteBuffer buffer = buffer(slot);
+            int offset = offset(slot);
+            if (isKey(buffer, offset, key)) {
+                return writeSlot(slot, key, bytes, expiredAt, true, now);
+            }
+            if (free < 0 && isFree(buffer, offset, now)) {
+                free = slot;
+            }
+        }
+        if (free < 0) {
+            throw new IllegalStateException(
+                    "Token storage is full."
+            );
+        }
+        return writeSlot(free, key, bytes, expiredAt, false, now);
+    }
+
+    private boolean writeSlot(
+            final int slot,
+            final long[] key,
+            final byte[] bytes,
+            final long expiredAt,
+            final boolean replace,
+            final long now
+    ) {
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        long version = lockSlot(buffer, offset);
+        boolean claimed;
+        if (replace) {
+            claimed = isKey(buffer, offset, key);
+        } else {
+            claimed = isFree(buffer, offset, now);
+        }
+        if (claimed) {
+            if (buffer.getInt(offset + STATE) == FULL) {
+                index.remove(buffer.getLong(offset + TOKEN_HASH), slot);
+            }
+            long hash = hash(bytes);
+            buffer.putLong(offset + KEY_HIGH, key[0]);
+            buffer.putLong(offset + KEY_LOW, key[1]);
+            buffer.putLong(offset + EXPIRED_AT, expiredAt);
+            buffer.putLong(offset + TOKEN_HASH, hash);
+            buffer.putInt(offset + TOKEN_LENGTH, bytes.length);
+            buffer.put(offset + TOKEN, bytes);
+            buffer.putInt(offset + STATE, FULL);
+            index.add(hash, slot);
+        }
+        LONGS.setRelease(buffer, offset + VERSION, version + 2);
+        return claimed;
+    }
+
+    @Override
+    public boolean exists(
+            final String token,
+            final TokenParameters params
+    ) {
+        return token.equals(get(params));
+    }
+
+    @Override
+    public String get(
+            final TokenParameters params
+    ) {
+        long[] key = key(params);
+        int home = home(key);
+        for (int i = 0; i < window(); i++) {
+            int slot = (home + i) % capacity;
+            ByteBuffer buffer = buffer(slot);
+            int offset = offset(slot);
+            while (true) {
+                long version = (long) LONGS.getAcquire(
+                        buffer,
+                        offset + VERSION
+                );
+                if ((version & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                boolean found = isKey(buffer, offset, key);
+                long expiredAt = buffer.getLong(offset + EXPIRED_AT);
+                int length = buffer.getInt(offset + TOKEN_LENGTH);
+                byte[] bytes = null;
+                if (found && length >= 0 && length <= maxTokenLength) {
+                    bytes = new byte[length];
+                    buffer.get(offset + TOKEN, bytes);
+                }
+                VarHandle.acquireFence();
+                if ((long) LONGS.getOpaque(buffer, offset + VERSION)
+                        != version) {
+                    continue;
+                }
+                if (!found) {
+                    break;
+                }
+                if (expiredAt < clock.millis()) {
+                    return null;
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean remove(
+            final String token
+    ) {
+        byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+        boolean removed = false;
+        for (int slot : index.find(hash(bytes))) {
+            ByteBuffer buffer = buffer(slot);
+            int offset = offset(slot);
+            long[] key = {
+                    buffer.getLong(offset + KEY_HIGH),
+                    buffer.getLong(offset + KEY_LOW)
+            };
+            if (remove(key, bytes)) {
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean remove(
+            final TokenParameters params
+    ) {
+        return remove(key(params), null);
+    }
+
+    /**
+     * Removes JWT token by key.
+     *
+     * @param key   digest of subject and type
+     * @param bytes bytes of JWT token to be removed or null to remove any
+     * @return true - if live JWT token was removed, false - otherwise
+     */
+    private boolean remove(
+            final long[] key,
+            final byte[] bytes
+    ) {
+        ReentrantLock lock = lock(key);
+        lock.lock();
+        try {
+            int home = home(key);
+            for (int i = 0; i < window(); i++) {
+                int slot = (home + i) % capacity;
+                ByteBuffer buffer = buffer(slot);
+                int offset = offset(slot);
+                if (isKey(buffer, offset, key)) {
+                    return clearSlot(slot, key, bytes);
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean clearSlot(
+            final int slot,
+            final long[] key,
+            final byte[] bytes
+    ) {
+        ByteBuffer buffer = buffer(slot);
+        int offset = offset(slot);
+        long version = lockSlot(buffer, offset);
+        boolean removed = isKey(buffer, offset, key)
+                && (bytes == null || hasToken(buffer, offset, bytes));
+        boolean live = buffer.getLong(offset + EXPIRED_AT) >= clock.millis();
+        if (removed) {
+            buffer.putInt(offset + STATE, EMPTY);
+            index.remove(buffer.getLong(offset + TOKEN_HASH), slot);
+        }
+        LONGS.setRelease(buffer, offset + VERSION, version + 2);
+        return removed && live;
+    }
+
+    private long lockSlot(
+            final ByteBuffer buffer,
+            final int offset
+    ) {
+        while (true) {
+            long version = (long) LONGS.getVolatile(buffer, offset + VERSION);
+            if ((version & 1) == 0) {
+                boolean locked = LONGS.compareAndSet(
+                        buffer,
+                        offset + VERSION,
+                        version,
+                        version + 1
+                );
+                if (locked) {
+                    return version;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static boolean isKey(
+            final ByteBuffer buffer,
+            final int offset,
+            final long[] key
+    ) {
+        return buffer.getInt(offset + STATE) == FULL
+                && buffer.getLong(offset + KEY_HIGH) == key[0]
+                && buffer.getLong(offset + KEY_LOW) == key[1];
+    }
+
+    private static boolean isFree(
+            final ByteBuffer buffer,
+            final int offset,
+            final long now
+    ) {
+        return buffer.getInt(offset + STATE) == EMPTY
+                || buffer.getLong(offset + EXPIRED_AT) < now;
+    }
+
+    private static boolean hasToken(
+            final ByteBuffer buffer,
+            final int offset,
+            final byte[] bytes
+    ) {
+        if (buffer.getInt(offset + TOKEN_LENGTH) != bytes.length) {
+            return false;
+        }
+        byte[] stored = new byte[bytes.length];
+        buffer.get(offset + TOKEN, stored);
+        return Arrays.equals(stored, bytes);
+    }
+
+    private int window() {
+        return Math.min(WINDOW, capacity);
+    }
+
+    private int home(
+            final long[] key
+    ) {
+        return (int) Math.floorMod(key[0], (long) capacity);
+    }
+
+    private ReentrantLock lock(
+            final long[] key
+    ) {
+        return locks[(int) Math.floorMod(key[1], (long) STRIPES)];
+    }
+
+    private ByteBuffer buffer(
+            final int slot
+    ) {
+        return buffers[slot / slotsPerBuffer];
+    }
+
+    private int offset(
+            final int slot
+    ) {
+        return slot % slotsPerBuffer * slotSize;
+    }
+
+    /**
+     * Returns 128-bit digest of subject and type.
+     *
+     * @param params params of JWT token
+     * @return high and low bits of digest
+     */
+    private static long[] key(
+            final TokenParameters params
+    ) {
+        byte[] digest;
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            String subject = String.valueOf(params.getSubject());
+            sha.update(
+                    (subject.length() + ":" + subject)
+                            .getBytes(StandardCharsets.UTF_8)
+            );
+            sha.update(
+                    String.valueOf(params.getType())
+                            .getBytes(StandardCharsets.UTF_8)
+            );
+            digest = sha.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer wrapped = ByteBuffer.wrap(digest);
+        return new long[]{wrapped.getLong(), wrapped.getLong()};
+    }
+
+    /**
+     * Returns 64-bit FNV-1a hash of bytes of JWT token.
+     *
+     * @param bytes bytes of JWT token
+     * @return hash
+     */
+    private static long hash(
+            final byte[] bytes
+    ) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+}
@@ -0,0 +1,716 @@
+package io.github.ilyalisov.jwt.storage;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.config.redis.DefaultRedisSchema;
+import io.github.ilyalisov.jwt.config.redis.RedisSchema;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Implementation of TokenStorage based on Redis that speaks RESP over a
+ * few non-blocking connections. Commands of concurrent callers are
+ * pipelined on the same connection, so throughput does not depend on size
+ * of a connection pool. Keys are spread over connections by hash, so
+ * commands for the same key are executed in order they were sent.
+ * {@link #remove(String)} does not know the key of JWT token, so it waits
+ * until commands sent before it over other connections are replied.
+ * <p>
+ * Scripts are loaded with SCRIPT LOAD when a connection is opened and are
+ * called with EVALSHA. If Redis lost them, for example after SCRIPT FLUSH,
+ * the call fails with IllegalStateException together with commands sent
+ * after it over the same connection, and the connection is opened again,
+ * which loads the scripts before any later command. Calls are not
+ * repeated, so commands for the same key are never reordered.
+ * <p>
+ * Methods of TokenStorage wait for replies, batch methods send all
+ * commands before waiting, so a batch takes one round trip. Use
+ * {@link #async()} to get futures instead. Both fail with
+ * IllegalStateException or TimeoutException if Redis does not reply
+ * within timeout.
+ * <p>
+ * With {@link TokenStorageMode#DIGEST} digest of JWT token is stored and
+ * indexed instead of JWT token.
+ */
+public class PipelinedRedisTokenStorageImpl
+        implements TokenStorage, AutoCloseable {
+
+    /**
+     * Default number of connections.
+     */
+    public static final int DEFAULT_CONNECTIONS = 2;
+
+    /**
+     * Default timeout of connecting and of waiting for replies.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * Name of GET command.
+     */
+    private static final byte[] GET = bytes("GET");
+
+    /**
+     * Name of MGET command.
+     */
+    private static final byte[] MGET = bytes("MGET");
+
+    /**
+     * Name of PING command.
+     */
+    private static final byte[] PING = bytes("PING");
+
+    /**
+     * Name of EVALSHA command.
+     */
+    private static final byte[] EVALSHA = bytes("EVALSHA");
+
+    /**
+     * Number of keys of scripts with one key.
+     */
+    private static final byte[] ONE_KEY = bytes("1");
+
+    /**
+     * Number of keys of scripts with two keys.
+     */
+    private static final byte[] TWO_KEYS = bytes("2");
+
+    /**
+     * Lua script that saves JWT token with its expiration.
+     */
+    private static final byte[] SAVE = bytes(RedisScripts.SAVE);
+
+    /**
+     * Lua script that removes JWT token by its index key.
+     */
+    private static final byte[] REMOVE_TOKEN = bytes(
+            RedisScripts.REMOVE_TOKEN
+    );
+
+    /**
+     * Lua script that removes JWT token by its key.
+     */
+    private static final byte[] REMOVE_KEY = bytes(RedisScripts.REMOVE_KEY);
+
+    /**
+     * SHA-1 of {@link #SAVE}.
+     */
+    private static final byte[] SAVE_SHA = bytes(RedisScripts.SAVE_SHA);
+
+    /**
+     * SHA-1 of {@link #REMOVE_TOKEN}.
+     */
+    private static final byte[] REMOVE_TOKEN_SHA = bytes(
+            RedisScripts.REMOVE_TOKEN_SHA
+    );
+
+    /**
+     * SHA-1 of {@link #REMOVE_KEY}.
+     */
+    private static final byte[] REMOVE_KEY_SHA = bytes(
+            RedisScripts.REMOVE_KEY_SHA
+    );
+
+    /**
+     * Connections to Redis.
+     */
+    private final RespConnection[] connections;
+
+    /**
+     * Schema of keys for storing JWT tokens.
+     */
+    private final RedisSchema redisSchema;
+
+    /**
+     * Prefix of index keys of {@link #redisSchema}.
+     */
+    private final byte[] indexPrefix;
+
+    /**
+     * Name of storage mode that scripts get to compute index keys.
+     */
+    private final byte[] modeName;
+
+    /**
+     * Timeout of waiting for replies in milliseconds.
+     */
+    private final long timeout;
+
+    /**
+     * What is stored for every JWT token.
+     */
+    private final TokenStorageMode mode;
+
+    /**
+     * Non-blocking view of this storage.
+     */
+    private final AsyncTokenStorage async = new Async();
+
+    /**
+     * Creates an object.
+     *
+     * @param host Redis host
+     * @param port Redis port
+     */
+    public PipelinedRedisTokenStorageImpl(
+            final String host,
+            final int port
+    ) {
+        this(host, port, new DefaultRedisSchema());
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param host        Redis host
+     * @param port        Redis port
+     * @param redisSchema RedisSchema object
+     */
+    public PipelinedRedisTokenStorageImpl(
+            final String host,
+            final int port,
+            final RedisSchema redisSchema
+    ) {
+        this(
+                new InetSocketAddress(host, port),
+                null,
+                null,
+                redisSchema,
+                DEFAULT_CONNECTIONS,
+                DEFAULT_TIMEOUT
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param host     Redis host
+     * @param port     Redis port
+     * @param user     Redis username
+     * @param password Redis password
+     */
+    public PipelinedRedisTokenStorageImpl(
+            final String host,
+            final int port,
+            final String user,
+            final String password
+    ) {
+        this(
+                new InetSocketAddress(host, port),
+                user,
+                password,
+                new DefaultRedisSchema(),
+                DEFAULT_CONNECTIONS,
+                DEFAULT_TIMEOUT
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param address     Redis address
+     * @param user        Redis username or null
+     * @param password    Redis password or null if Redis has no
+     *                    authentication
+     * @param redisSchema RedisSchema object
+     * @param connections number of connections
+     * @param timeout     timeout of connecting and of waiting for replies
+     */
+    public PipelinedRedisTokenStorageImpl(
+            final InetSocketAddress address,
+            final String user,
+            final String password,
+            final RedisSchema redisSchema,
+            final int connections,
+            final Duration timeout
+    ) {
+        this(
+                address,
+                user,
+                password,
+                redisSchema,
+                connections,
+                timeout,
+                TokenStorageMode.TOKEN
+        );
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param address     Redis address
+     * @param user        Redis username or null
+     * @param password    Redis password or null if Redis has no
+     *                    authentication
+     * @param redisSchema RedisSchema object
+     * @param connections number of connections
+     * @param timeout     timeout of connecting and of waiting for replies
+     * @param mode        what is stored for every JWT token
+     */
+    public PipelinedRedisTokenStorageImpl(
+            final InetSocketAddress address,
+            final String user,
+            final String password,
+            final RedisSchema redisSchema,
+            final int connections,
+            final Duration timeout,
+            final TokenStorageMode mode
+    ) {
+        if (connections < 1) {
+            throw new IllegalArgumentException(
+                    "Number of connections must be positive."
+            );
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException(
+                    "Timeout must be positive."
+            );
+        }
+        List<byte[][]> hello = new ArrayList<>();
+        if (password != null && user != null) {
+            hello.add(new byte[][]{
+                    bytes("AUTH"), bytes(user), bytes(password)
+            });
+        } else if (password != null) {
+            hello.add(new byte[][]{bytes("AUTH"), bytes(password)});
+        }
+        for (byte[] script : List.of(SAVE, REMOVE_TOKEN, REMOVE_KEY)) {
+            hello.add(new byte[][]{bytes("SCRIPT"), bytes("LOAD"), script});
+        }
+        this.connections = new RespConnection[connections];
+        for (int i = 0; i < connections; i++) {
+            this.connections[i] = new RespConnection(
+                    address,
+                    hello,
+                    timeout,
+                    "jwt-redis-" + i
+            );
+        }
+        this.redisSchema = redisSchema;
+        this.indexPrefix = bytes(redisSchema.tokenIndexPrefix());
+        this.timeout = timeout.toMillis();
+        this.mode = mode;
+        this.modeName = bytes(mode.name());
+    }
+
+    /**
+     * Returns non-blocking view of this storage. Its futures are completed
+     * on I/O threads of storage, so dependent actions must not block, and
+     * fail with TimeoutException if Redis does not reply within timeout.
+     *
+     * @return AsyncTokenStorage
+     */
+    public AsyncTokenStorage async() {
+        return async;
+    }
+
+    @Override
+    public void save(
+            final String token,
+            final TokenParameters params
+    ) {
+        await(async.save(token, params));
+    }
+
+    @Override
+    public void saveAll(
+            final Map<String, TokenParameters> tokens
+    ) {
+        await(async.saveAll(tokens));
+    }
+
+    @Override
+    public boolean exists(
+            final String token,
+            final TokenParameters params
+    ) {
+        return await(async.exists(token, params));
+    }
+
+    @Override
+    public Set<String> existsAll(
+            final Map<String, TokenParameters> tokens
+    ) {
+        List<String> candidates = new ArrayList<>(tokens.size());
+        List<String> keys = new ArrayList<>(tokens.size());
+        tokens.forEach((token, params) -> {
+            candidates.add(token);
+            keys.add(key(params));
+        });
+        List<String> stored = await(values(keys));
+        Set<String> existing = new HashSet<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (mode.encode(candidates.get(i)).equals(stored.get(i))) {
+                existing.add(candidates.get(i));
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public String get(
+            final TokenParameters params
+    ) {
+        return await(async.get(params));
+    }
+
+    @Override
+    public List<String> getAll(
+            final List<TokenParameters> params
+    ) {
+        List<String> keys = new ArrayList<>(params.size());
+        for (TokenParameters tokenParams : params) {
+            keys.add(key(tokenParams));
+        }
+        List<String> tokens = await(values(keys));
+        tokens.replaceAll(mode::decode);
+        return tokens;
+    }
+
+    @Override
+    public boolean remove(
+            final String token
+    ) {
+        return await(async.remove(token));
+    }
+
+    @Override
+    public boolean remove(
+            final TokenParameters params
+    ) {
+        return await(async.remove(params));
+    }
+
+    @Override
+    public int removeAll(
+            final Collection<TokenParameters> params
+    ) {
+        List<CompletableFuture<Boolean>> futures =
+                new ArrayList<>(params.size());
+        for (TokenParameters tokenParams : params) {
+            futures.add(async.remove(tokenParams));
+        }
+        awaitAll(futures);
+        int removed = 0;
+        for (CompletableFuture<Boolean> future : futures) {
+            if (future.join()) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Closes connections. Commands that are not replied yet fail with
+     * IllegalStateException.
+     */
+    @Override
+    public void close() {
+        for (RespConnection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private <T> T await(
+            final CompletableFuture<T> future
+    ) {
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw timeoutException();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw timeoutException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Interrupted while waiting for Redis.",
+                    e
+            );
+        }
+    }
+
+    private IllegalStateException timeoutException() {
+        return new IllegalStateException(
+                "Redis did not reply in " + timeout + " ms."
+        );
+    }
+
+    /**
+     * Makes future fail with TimeoutException if Redis does not reply
+     * within timeout.
+     *
+     * @param future future of reply
+     * @param <T>    type of result
+     * @return the same future
+     */
+    private <T> CompletableFuture<T> timed(
+            final CompletableFuture<T> future
+    ) {
+        return future.orTimeout(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    private void awaitAll(
+            final Collection<? extends CompletableFuture<?>> futures
+    ) {
+        await(CompletableFuture.allOf(
+                futures.toArray(new CompletableFuture<?>[0])
+        ));
+    }
+
+    private String key(
+            final TokenParameters params
+    ) {
+        return redisSchema.subjectTokenKey(
+                params.getSubject(),
+                params.getType()
+        );
+    }
+
+    private int index(
+            final String key
+    ) {
+        return Math.floorMod(key.hashCode(), connections.length);
+    }
+
+    private RespConnection connection(
+            final String key
+    ) {
+        return connections[index(key)];
+    }
+
+    /**
+     * Reads values of keys with one MGET per connection, so every key is
+     * read over the connection its other commands are sent over.
+     *
+     * @param keys Redis keys
+     * @return values in the order of keys
+     */
+    private CompletableFuture<List<String>> values(
+            final List<String> keys
+    ) {
+        List<List<Integer>> positions = new ArrayList<>(connections.length);
+        for (int i = 0; i < connections.length; i++) {
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            positions.get(index(keys.get(i))).add(i);
+        }
+        String[] values = new String[keys.size()];
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < connections.length; i++) {
+            List<Integer> group = positions.get(i);
+            if (group.isEmpty()) {
+                continue;
+            }
+            byte[][] command = new byte[group.size() + 1][];
+            command[0] = MGET;
+            for (int j = 0; j < group.size(); j++) {
+                command[j + 1] = bytes(keys.get(group.get(j)));
+            }
+            futures.add(connections[i].send(command)
+                    .thenAccept(reply -> {
+                        List<?> replies = (List<?>) reply;
+                        for (int j = 0; j < group.size(); j++) {
+                            values[group.get(j)] = (String) replies.get(j);
+                        }
+                    }));
+        }
+        return CompletableFuture.allOf(
+                        futures.toArray(new CompletableFuture<?>[0])
+                )
+                .thenApply(ignored -> new ArrayList<>(Arrays.asList(values)));
+    }
+
+    /**
+     * Calls script by its SHA-1. Scripts are loaded when connection is
+     * opened.
+     *
+     * @param connection connection to send command over
+     * @param sha        SHA-1 of script
+     * @param args       number of keys, keys and arguments of script
+     * @return future of reply
+     */
+    private static CompletableFuture<Object> eval(
+            final RespConnection connection,
+            final byte[] sha,
+            final byte[]... args
+    ) {
+        byte[][] command = new byte[args.length + 2][];
+        command[0] = EVALSHA;
+        command[1] = sha;
+        System.arraycopy(args, 0, command, 2, args.length);
+        return connection.send(command);
+    }
+
+    /**
+     * Returns future that is completed when commands sent before over
+     * every connection except provided one are replied.
+     *
+     * @param connection connection to skip
+     * @return future of barrier
+     */
+    private CompletableFuture<Void> barrier(
+            final RespConnection connection
+    ) {
+        List<CompletableFuture<?>> pings = new ArrayList<>();
+        for (RespConnection other : connections) {
+            if (other != connection) {
+                pings.add(other.send(PING)
+                        .handle((reply, e) -> null));
+            }
+        }
+        return CompletableFuture.allOf(
+                pings.toArray(new CompletableFuture<?>[0])
+        );
+    }
+
+    private CompletableFuture<Void> send(
+            final String token,
+            final TokenParameters params
+    ) {
+        String key = key(params);
+        String value = mode.encode(token);
+        return eval(
+                connection(key),
+                SAVE_SHA,
+                TWO_KEYS,
+                bytes(key),
+                bytes(indexKey(value)),
+                bytes(value),
+                bytes(Long.toString(params.getExpiredAt().getTime())),
+                indexPrefix,
+                modeName
+        )
+                .thenApply(reply -> null);
+    }
+
+    private String indexKey(
+            final String value
+    ) {
+        return RedisScripts.indexKey(
+                redisSchema.tokenIndexPrefix(),
+                mode,
+                value
+        );
+    }
+
+    private static byte[] bytes(
+            final String value
+    ) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean positive(
+            final Object reply
+    ) {
+        return reply instanceof Long && (Long) reply > 0;
+    }
+
+    /**
+     * Non-blocking view of storage.
+     */
+    private final class Async implements AsyncTokenStorage {
+
+        @Override
+        public CompletableFuture<Void> save(
+                final String token,
+                final TokenParameters params
+        ) {
+            return timed(send(token, params));
+        }
+
+        @Override
+        public CompletableFuture<Void> saveAll(
+                final Map<String, TokenParameters> tokens
+        ) {
+            List<CompletableFuture<Void>> futures =
+                    new ArrayList<>(tokens.size());
+            tokens.forEach((token, params) ->
+                    futures.add(send(token, params))
+            );
+            return timed(CompletableFuture.allOf(
+                    futures.toArray(new CompletableFuture<?>[0])
+            ));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> exists(
+                final String token,
+                final TokenParameters params
+        ) {
+            return timed(
+                    value(params).thenApply(mode.encode(token)::equals)
+            );
+        }
+
+        @Override
+        public CompletableFuture<String> get(
+                final TokenParameters params
+        ) {
+            return timed(value(params).thenApply(mode::decode));
+        }
+
+        private CompletableFuture<String> value(
+                final TokenParameters params
+        ) {
+            String key = key(params);
+            return connection(key)
+                    .send(GET, bytes(key))
+                    .thenApply(String.class::cast);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> remove(
+                final String token
+        ) {
+            String value = mode.encode(token);
+            String indexKey = indexKey(value);
+            RespConnection connection = connection(indexKey);
+            return timed(barrier(connection)
+                    .thenCompose(ignored -> eval(
+                            connection,
+                            REMOVE_TOKEN_SHA,
+                            ONE_KEY,
+                            bytes(indexKey),
+                            bytes(value)
+                    ))
+                    .thenApply(PipelinedRedisTokenStorageImpl::positive));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> remove(
+                final TokenParameters params
+        ) {
+            String key = key(params);
+            return timed(eval(
+                    connection(key),
+                    REMOVE_KEY_SHA,
+                    ONE_KEY,
+                    bytes(key),
+                    indexPrefix,
+                    modeName
+            )
+                    .thenApply(PipelinedRedisTokenStorageImpl::positive));
+        }
+
+    }
+
+}
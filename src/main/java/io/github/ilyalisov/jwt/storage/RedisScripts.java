@@ -0,0 +1,150 @@
+package io.github.ilyalisov.jwt.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Lua scripts of Redis token storages. Every stored JWT token has an index
+ * key that holds Redis key of JWT token and expires with it, so JWT token
+ * is found by its value without scanning keys. Scripts keep both keys
+ * consistent.
+ * <p>
+ * Index key is index prefix followed by hex SHA-1 of JWT token, or by the
+ * stored digest itself with {@link TokenStorageMode#DIGEST}, as a digest
+ * is already short and unique. Scripts get index prefix and mode in ARGV
+ * and compute index keys of replaced JWT tokens themselves, so they are
+ * meant for standalone Redis, not for Redis Cluster.
+ * <p>
+ * Storages call scripts by SHA-1 with EVALSHA, which is the digest SCRIPT
+ * LOAD returns, and send source with EVAL only if Redis replies NOSCRIPT.
+ * EVAL caches the script, so following calls send only its digest.
+ */
+final class RedisScripts {
+
+    /**
+     * Script that saves JWT token ARGV[1] with key KEYS[1] and index key
+     * KEYS[2], both expiring at ARGV[2] milliseconds since epoch. Index of
+     * replaced JWT token is removed by prefix ARGV[3] and mode ARGV[4].
+     */
+    static final String SAVE = """
+            local old = redis.call('get', KEYS[1])
+            if old and old ~= ARGV[1] then
+              local index = ARGV[3] .. old
+              if ARGV[4] ~= 'DIGEST' then
+                index = ARGV[3] .. redis.sha1hex(old)
+              end
+              if redis.call('get', index) == KEYS[1] then
+                redis.call('del', index)
+              end
+            end
+            redis.call('set', KEYS[1], ARGV[1])
+            redis.call('pexpireat', KEYS[1], ARGV[2])
+            redis.call('set', KEYS[2], KEYS[1])
+            return redis.call('pexpireat', KEYS[2], ARGV[2])
+            """;
+
+    /**
+     * Script that removes JWT token ARGV[1] by its index key KEYS[1].
+     * Returns 1 if JWT token was removed, 0 otherwise.
+     */
+    static final String REMOVE_TOKEN = """
+            local key = redis.call('get', KEYS[1])
+            if not key then
+              return 0
+            end
+            redis.call('del', KEYS[1])
+            if redis.call('get', key) == ARGV[1] then
+              return redis.call('del', key)
+            end
+            return 0
+            """;
+
+    /**
+     * Script that removes JWT token with key KEYS[1] and its index by
+     * prefix ARGV[1] and mode ARGV[2]. Returns 1 if JWT token was removed,
+     * 0 otherwise.
+     */
+    static final String REMOVE_KEY = """
+            local token = redis.call('get', KEYS[1])
+            if not token then
+              return 0
+            end
+            local index = ARGV[1] .. token
+            if ARGV[2] ~= 'DIGEST' then
+              index = ARGV[1] .. redis.sha1hex(token)
+            end
+            if redis.call('get', index) == KEYS[1] then
+              redis.call('del', index)
+            end
+            return redis.call('del', KEYS[1])
+            """;
+
+    /**
+     * Hexadecimal digits.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * SHA-1 of {@link #SAVE} to call it with EVALSHA.
+     */
+    static final String SAVE_SHA = sha1Hex(SAVE);
+
+    /**
+     * SHA-1 of {@link #REMOVE_TOKEN} to call it with EVALSHA.
+     */
+    static final String REMOVE_TOKEN_SHA = sha1Hex(REMOVE_TOKEN);
+
+    /**
+     * SHA-1 of {@link #REMOVE_KEY} to call it with EVALSHA.
+     */
+    static final String REMOVE_KEY_SHA = sha1Hex(REMOVE_KEY);
+
+    private RedisScripts() {
+    }
+
+    /**
+     * Returns index key of stored value.
+     *
+     * @param prefix prefix of index keys
+     * @param mode   what is stored for every JWT token
+     * @param value  JWT token or its digest
+     * @return index key
+     */
+    static String indexKey(
+            final String prefix,
+            final TokenStorageMode mode,
+            final String value
+    ) {
+        if (mode == TokenStorageMode.DIGEST) {
+            return prefix + value;
+        }
+        return prefix + sha1Hex(value);
+    }
+
+    /**
+     * Returns lowercase hex SHA-1 of JWT token, the same redis.sha1hex
+     * returns.
+     *
+     * @param token JWT token
+     * @return hex digest
+     */
+    static String sha1Hex(
+            final String token
+    ) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[digest[i] >> 4 & 0xf];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+}
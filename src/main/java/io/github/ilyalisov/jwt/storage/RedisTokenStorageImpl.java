@@ -6,9 +6,26 @@ import io.github.ilyalisov.jwt.config.redis.RedisSchema;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Implementation of TokenStorage based on Redis.
+ * Implementation of TokenStorage based on Redis. JWT token and its
+ * expiration are saved by a single atomic script called by its SHA-1, and
+ * batch methods take one round trip. A reverse index from JWT token to its
+ * key lets {@link #remove(String)} find JWT token without scanning keys.
+ * <p>
+ * With {@link TokenStorageMode#DIGEST} digest of JWT token is stored
+ * instead of JWT token, and it is also the suffix of index key, so no
+ * SHA-1 of it is computed.
  */
 public class RedisTokenStorageImpl implements TokenStorage {
 
@@ -22,6 +39,11 @@ public class RedisTokenStorageImpl implements TokenStorage {
      */
     private final RedisSchema redisSchema;
 
+    /**
+     * What is stored for every JWT token.
+     */
+    private final TokenStorageMode mode;
+
     /**
      * Creates an object.
      *
@@ -32,6 +54,7 @@ public class RedisTokenStorageImpl implements TokenStorage {
     ) {
         this.jedisPool = jedisPool;
         this.redisSchema = new DefaultRedisSchema();
+        this.mode = TokenStorageMode.TOKEN;
     }
 
     /**
@@ -43,9 +66,25 @@ public class RedisTokenStorageImpl implements TokenStorage {
     public RedisTokenStorageImpl(
             final JedisPool jedisPool,
             final RedisSchema redisSchema
+    ) {
+        this(jedisPool, redisSchema, TokenStorageMode.TOKEN);
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param jedisPool   JedisPool object
+     * @param redisSchema RedisSchema object
+     * @param mode        what is stored for every JWT token
+     */
+    public RedisTokenStorageImpl(
+            final JedisPool jedisPool,
+            final RedisSchema redisSchema,
+            final TokenStorageMode mode
     ) {
         this.jedisPool = jedisPool;
         this.redisSchema = redisSchema;
+        this.mode = mode;
     }
 
     /**
@@ -66,6 +105,7 @@ public class RedisTokenStorageImpl implements TokenStorage {
                 port
         );
         this.redisSchema = new DefaultRedisSchema();
+        this.mode = TokenStorageMode.TOKEN;
     }
 
     /**
@@ -92,6 +132,7 @@ public class RedisTokenStorageImpl implements TokenStorage {
                 password
         );
         this.redisSchema = new DefaultRedisSchema();
+        this.mode = TokenStorageMode.TOKEN;
     }
 
     @Override
@@ -99,16 +140,37 @@ public class RedisTokenStorageImpl implements TokenStorage {
             final String token,
             final TokenParameters params
     ) {
+        String value = mode.encode(token);
         try (Jedis jedis = jedisPool.getResource()) {
-            String tokenKey = redisSchema.subjectTokenKey(
-                    params.getSubject(),
-                    params.getType()
+            eval(
+                    jedis,
+                    RedisScripts.SAVE,
+                    RedisScripts.SAVE_SHA,
+                    saveKeys(value, params),
+                    saveArgs(value, params)
             );
-            jedis.set(
-                    tokenKey,
-                    token
+        }
+    }
+
+    @Override
+    public void saveAll(
+            final Map<String, TokenParameters> tokens
+    ) {
+        List<List<String>> keys = new ArrayList<>(tokens.size());
+        List<List<String>> args = new ArrayList<>(tokens.size());
+        tokens.forEach((token, params) -> {
+            String value = mode.encode(token);
+            keys.add(saveKeys(value, params));
+            args.add(saveArgs(value, params));
+        });
+        try (Jedis jedis = jedisPool.getResource()) {
+            evalAll(
+                    jedis,
+                    RedisScripts.SAVE,
+                    RedisScripts.SAVE_SHA,
+                    keys,
+                    args
             );
-            jedis.pexpireAt(tokenKey, params.getExpiredAt().getTime());
         }
     }
 
@@ -122,10 +184,30 @@ public class RedisTokenStorageImpl implements TokenStorage {
                     params.getSubject(),
                     params.getType()
             );
-            return token.equals(jedis.get(tokenKey));
+            return mode.encode(token).equals(jedis.get(tokenKey));
         }
     }
 
+    @Override
+    public Set<String> existsAll(
+            final Map<String, TokenParameters> tokens
+    ) {
+        List<String> candidates = new ArrayList<>(tokens.size());
+        List<TokenParameters> params = new ArrayList<>(tokens.size());
+        tokens.forEach((token, tokenParams) -> {
+            candidates.add(token);
+            params.add(tokenParams);
+        });
+        List<String> stored = values(params);
+        Set<String> existing = new HashSet<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (mode.encode(candidates.get(i)).equals(stored.get(i))) {
+                existing.add(candidates.get(i));
+            }
+        }
+        return existing;
+    }
+
     @Override
     public String get(
             final TokenParameters params
@@ -135,7 +217,27 @@ public class RedisTokenStorageImpl implements TokenStorage {
                     params.getSubject(),
                     params.getType()
             );
-            return jedis.get(tokenKey);
+            return mode.decode(jedis.get(tokenKey));
+        }
+    }
+
+    @Override
+    public List<String> getAll(
+            final List<TokenParameters> params
+    ) {
+        List<String> tokens = values(params);
+        tokens.replaceAll(mode::decode);
+        return tokens;
+    }
+
+    private List<String> values(
+            final List<TokenParameters> params
+    ) {
+        if (params.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            return new ArrayList<>(jedis.mget(keys(params)));
         }
     }
 
@@ -143,21 +245,16 @@ public class RedisTokenStorageImpl implements TokenStorage {
     public boolean remove(
             final String token
     ) {
+        String value = mode.encode(token);
         try (Jedis jedis = jedisPool.getResource()) {
-            String script = """
-                    local keys = redis.call('keys', ARGV[1])
-                    for _, key in ipairs(keys) do
-                      redis.call('del', key)
-                    end
-                    return #keys > 0
-                    """;
-            Long result = (Long) jedis.eval(
-                    script,
-                    0,
-                    "*",
-                    token
+            Object removed = eval(
+                    jedis,
+                    RedisScripts.REMOVE_TOKEN,
+                    RedisScripts.REMOVE_TOKEN_SHA,
+                    List.of(indexKey(value)),
+                    List.of(value)
             );
-            return result != null && result > 0;
+            return isPositive(removed);
         }
     }
 
@@ -166,12 +263,182 @@ public class RedisTokenStorageImpl implements TokenStorage {
             final TokenParameters params
     ) {
         try (Jedis jedis = jedisPool.getResource()) {
-            String tokenKey = redisSchema.subjectTokenKey(
-                    params.getSubject(),
-                    params.getType()
+            Object removed = eval(
+                    jedis,
+                    RedisScripts.REMOVE_KEY,
+                    RedisScripts.REMOVE_KEY_SHA,
+                    List.of(key(params)),
+                    List.of(redisSchema.tokenIndexPrefix(), mode.name())
             );
-            return jedis.del(tokenKey) > 0;
+            return isPositive(removed);
+        }
+    }
+
+    @Override
+    public int removeAll(
+            final Collection<TokenParameters> params
+    ) {
+        if (params.isEmpty()) {
+            return 0;
+        }
+        List<List<String>> keys = new ArrayList<>(params.size());
+        List<List<String>> args = new ArrayList<>(params.size());
+        for (TokenParameters tokenParams : params) {
+            keys.add(List.of(key(tokenParams)));
+            args.add(List.of(redisSchema.tokenIndexPrefix(), mode.name()));
         }
+        try (Jedis jedis = jedisPool.getResource()) {
+            int removed = 0;
+            for (Object reply : evalAll(
+                    jedis,
+                    RedisScripts.REMOVE_KEY,
+                    RedisScripts.REMOVE_KEY_SHA,
+                    keys,
+                    args
+            )) {
+                if (isPositive(reply)) {
+                    removed++;
+                }
+            }
+            return removed;
+        }
+    }
+
+    /**
+     * Runs script by its SHA-1. If Redis does not have the script cached,
+     * runs it by source, which caches it.
+     *
+     * @param jedis  connection
+     * @param script source of script
+     * @param sha    SHA-1 of script
+     * @param keys   KEYS of script
+     * @param args   ARGV of script
+     * @return reply of script
+     */
+    private static Object eval(
+            final Jedis jedis,
+            final String script,
+            final String sha,
+            final List<String> keys,
+            final List<String> args
+    ) {
+        try {
+            return jedis.evalsha(sha, keys, args);
+        } catch (JedisDataException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            return jedis.eval(script, keys, args);
+        }
+    }
+
+    /**
+     * Checks if Redis replied that it does not have the script cached.
+     *
+     * @param e error reply
+     * @return true - if script has to be sent by source, false - otherwise
+     */
+    private static boolean isNoScript(
+            final JedisDataException e
+    ) {
+        return e.getMessage() != null
+                && e.getMessage().startsWith("NOSCRIPT");
+    }
+
+    /**
+     * Runs script for every set of KEYS and ARGV in a single pipeline.
+     * Calls that fail because Redis does not have the script cached are
+     * repeated one by one.
+     *
+     * @param jedis  connection
+     * @param script source of script
+     * @param sha    SHA-1 of script
+     * @param keys   KEYS of every call
+     * @param args   ARGV of every call
+     * @return replies in the order of calls
+     */
+    private static List<Object> evalAll(
+            final Jedis jedis,
+            final String script,
+            final String sha,
+            final List<List<String>> keys,
+            final List<List<String>> args
+    ) {
+        List<Response<Object>> responses = new ArrayList<>(keys.size());
+        Pipeline pipeline = jedis.pipelined();
+        for (int i = 0; i < keys.size(); i++) {
+            responses.add(pipeline.evalsha(sha, keys.get(i), args.get(i)));
+        }
+        pipeline.sync();
+        List<Object> replies = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Object reply;
+            try {
+                reply = responses.get(i).get();
+            } catch (JedisDataException e) {
+                if (!isNoScript(e)) {
+                    throw e;
+                }
+                reply = eval(jedis, script, sha, keys.get(i), args.get(i));
+            }
+            replies.add(reply);
+        }
+        return replies;
+    }
+
+    private String key(
+            final TokenParameters params
+    ) {
+        return redisSchema.subjectTokenKey(
+                params.getSubject(),
+                params.getType()
+        );
+    }
+
+    private String[] keys(
+            final Collection<TokenParameters> params
+    ) {
+        String[] keys = new String[params.size()];
+        int i = 0;
+        for (TokenParameters tokenParams : params) {
+            keys[i++] = key(tokenParams);
+        }
+        return keys;
+    }
+
+    private String indexKey(
+            final String value
+    ) {
+        return RedisScripts.indexKey(
+                redisSchema.tokenIndexPrefix(),
+                mode,
+                value
+        );
+    }
+
+    private List<String> saveKeys(
+            final String value,
+            final TokenParameters params
+    ) {
+        return List.of(key(params), indexKey(value));
+    }
+
+    private List<String> saveArgs(
+            final String value,
+            final TokenParameters params
+    ) {
+        return List.of(
+                value,
+                Long.toString(params.getExpiredAt().getTime()),
+                redisSchema.tokenIndexPrefix(),
+                mode.name()
+        );
+    }
+
+    private static boolean isPositive(
+            final Object reply
+    ) {
+        return reply instanceof Long && (Long) reply > 0;
     }
 
 }
@@ -0,0 +1,205 @@
+package io.github.ilyalisov.jwt.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoder of commands and incremental decoder of replies of Redis
+ * serialization protocol (RESP2).
+ */
+final class Resp {
+
+    /**
+     * Marker of reply that is not fully received yet.
+     */
+    static final Object INCOMPLETE = new Object();
+
+    /**
+     * Line terminator.
+     */
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private Resp() {
+    }
+
+    /**
+     * Returns number of bytes of encoded command.
+     *
+     * @param args name and arguments of command
+     * @return number of bytes
+     */
+    static int length(
+            final byte[][] args
+    ) {
+        int length = 1 + digits(args.length) + CRLF.length;
+        for (byte[] arg : args) {
+            length += 1 + digits(arg.length) + CRLF.length
+                    + arg.length + CRLF.length;
+        }
+        return length;
+    }
+
+    /**
+     * Writes command as array of bulk strings.
+     *
+     * @param args name and arguments of command
+     * @param out  buffer with enough space for command
+     */
+    static void write(
+            final byte[][] args,
+            final ByteBuffer out
+    ) {
+        out.put((byte) '*');
+        number(args.length, out);
+        for (byte[] arg : args) {
+            out.put((byte) '$');
+            number(arg.length, out);
+            out.put(arg);
+            out.put(CRLF);
+        }
+    }
+
+    private static void number(
+            final int value,
+            final ByteBuffer out
+    ) {
+        int digits = digits(value);
+        int position = out.position();
+        int rest = value;
+        for (int i = digits - 1; i >= 0; i--) {
+            out.put(position + i, (byte) ('0' + rest % 10));
+            rest /= 10;
+        }
+        out.position(position + digits);
+        out.put(CRLF);
+    }
+
+    private static int digits(
+            final int value
+    ) {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Reads reply if it is fully received. Bulk strings are decoded as
+     * UTF-8 strings, integers as Long, arrays as lists, and errors as
+     * IllegalStateException.
+     *
+     * @param in buffer in read mode
+     * @return reply, null for null bulk string or array, or
+     * {@link #INCOMPLETE} if buffer has only part of reply, in which case
+     * position is not changed
+     */
+    static Object read(
+            final ByteBuffer in
+    ) {
+        int start = in.position();
+        Object reply = value(in);
+        if (reply == INCOMPLETE) {
+            in.position(start);
+        }
+        return reply;
+    }
+
+    private static Object value(
+            final ByteBuffer in
+    ) {
+        int lineEnd = lineEnd(in);
+        if (lineEnd < 0) {
+            return INCOMPLETE;
+        }
+        byte type = in.get();
+        if (type == '+') {
+            return line(in, lineEnd);
+        }
+        if (type == '-') {
+            return new IllegalStateException(line(in, lineEnd));
+        }
+        long number = number(in, lineEnd);
+        if (type == ':') {
+            return number;
+        }
+        if (type == '$') {
+            if (number < 0) {
+                return null;
+            }
+            if (in.remaining() < number + CRLF.length) {
+                return INCOMPLETE;
+            }
+            byte[] bytes = new byte[(int) number];
+            in.get(bytes);
+            in.position(in.position() + CRLF.length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (type == '*') {
+            if (number < 0) {
+                return null;
+            }
+            List<Object> values = new ArrayList<>((int) number);
+            for (long i = 0; i < number; i++) {
+                Object value = value(in);
+                if (value == INCOMPLETE) {
+                    return INCOMPLETE;
+                }
+                values.add(value);
+            }
+            return values;
+        }
+        throw new IllegalArgumentException(
+                "Invalid RESP reply type '" + (char) type + "'."
+        );
+    }
+
+    private static int lineEnd(
+            final ByteBuffer in
+    ) {
+        for (int i = in.position(); i < in.limit() - 1; i++) {
+            if (in.get(i) == '\r' && in.get(i + 1) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String line(
+            final ByteBuffer in,
+            final int lineEnd
+    ) {
+        byte[] bytes = new byte[lineEnd - in.position()];
+        in.get(bytes);
+        in.position(lineEnd + CRLF.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long number(
+            final ByteBuffer in,
+            final int lineEnd
+    ) {
+        boolean negative = in.get(in.position()) == '-';
+        if (negative) {
+            in.get();
+        }
+        long value = 0;
+        while (in.position() < lineEnd) {
+            byte b = in.get();
+            if (b < '0' || b > '9') {
+                throw new IllegalArgumentException(
+                        "Invalid RESP number."
+                );
+            }
+            value = value * 10 + b - '0';
+        }
+        in.position(lineEnd + CRLF.length);
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,361 @@
+package io.github.ilyalisov.jwt.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking connection to Redis that pipelines commands of concurrent
+ * callers. Callers put commands into a queue, and single I/O thread writes
+ * all queued commands at once and completes their futures as replies
+ * arrive, in order they were sent.
+ * <p>
+ * Futures are completed on I/O thread, so dependent actions must not
+ * block. Connection is opened when first command is sent, and is opened
+ * again after an I/O error, which fails all commands sent over it.
+ * <p>
+ * NOSCRIPT error reply means Redis lost scripts that hello commands
+ * loaded, for example after SCRIPT FLUSH. It is handled as an I/O error,
+ * so commands sent after the failed one fail too, and scripts are loaded
+ * again before any later command. No command is sent twice, so commands
+ * are never reordered.
+ */
+final class RespConnection implements AutoCloseable {
+
+    /**
+     * Initial size of buffers.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Prefix of error reply to EVALSHA of a script Redis does not have.
+     */
+    private static final String NOSCRIPT = "NOSCRIPT";
+
+    /**
+     * Address of Redis.
+     */
+    private final InetSocketAddress address;
+
+    /**
+     * Commands that are sent first over every opened connection.
+     */
+    private final List<byte[][]> hello;
+
+    /**
+     * Connect timeout in milliseconds.
+     */
+    private final int connectTimeout;
+
+    /**
+     * Commands that are not sent yet.
+     */
+    private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Whether selector was woken up after last command was queued.
+     */
+    private final AtomicBoolean wakeup = new AtomicBoolean();
+
+    /**
+     * Selector of I/O thread.
+     */
+    private final Selector selector;
+
+    /**
+     * I/O thread.
+     */
+    private final Thread thread;
+
+    /**
+     * Whether connection is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Opened channel, or null. It is accessed by I/O thread only.
+     */
+    private SocketChannel channel;
+
+    /**
+     * Key of opened channel, or null.
+     */
+    private SelectionKey key;
+
+    /**
+     * Futures of sent commands, in order they were sent.
+     */
+    private final Queue<CompletableFuture<Object>> sent = new ArrayDeque<>();
+
+    /**
+     * Encoded commands that are not written yet, in write mode.
+     */
+    private ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Received bytes that are not parsed yet, in write mode.
+     */
+    private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Creates an object and starts its I/O thread.
+     *
+     * @param address        address of Redis
+     * @param hello          commands sent first over every opened
+     *                       connection, their replies are ignored
+     * @param connectTimeout connect timeout
+     * @param name           name of I/O thread
+     */
+    RespConnection(
+            final InetSocketAddress address,
+            final List<byte[][]> hello,
+            final Duration connectTimeout,
+            final String name
+    ) {
+        this.address = address;
+        this.hello = List.copyOf(hello);
+        this.connectTimeout = (int) Math.min(
+                connectTimeout.toMillis(),
+                Integer.MAX_VALUE
+        );
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Sends command.
+     *
+     * @param args name and arguments of command
+     * @return future of reply, see {@link Resp#read(ByteBuffer)}. Error
+     * replies complete it with IllegalStateException, and I/O errors with
+     * UncheckedIOException. Commands that were sent after NOSCRIPT reply
+     * complete with IllegalStateException too.
+     */
+    CompletableFuture<Object> send(
+            final byte[]... args
+    ) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        queue.add(new Command(args, future));
+        if (closed) {
+            failQueued(closedException());
+        } else if (wakeup.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+        return future;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                if (queue.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+                wakeup.set(false);
+                selector.selectedKeys().clear();
+                try {
+                    if (key != null && key.isReadable()) {
+                        read();
+                    }
+                    if (!queue.isEmpty()) {
+                        if (channel == null) {
+                            connect();
+                        }
+                        encode();
+                    }
+                    if (channel != null && out.position() > 0) {
+                        write();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                }
+            }
+        } catch (IOException e) {
+            closed = true;
+        } finally {
+            fail(closedException());
+            failQueued(closedException());
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // nothing to do with a failure to close
+            }
+        }
+    }
+
+    private void connect() throws IOException {
+        SocketChannel opened = SocketChannel.open();
+        try {
+            opened.socket().setTcpNoDelay(true);
+            opened.socket().connect(address, connectTimeout);
+            opened.configureBlocking(false);
+            key = opened.register(selector, SelectionKey.OP_READ);
+            channel = opened;
+        } catch (IOException e) {
+            opened.close();
+            failQueued(e);
+            throw e;
+        }
+        for (byte[][] command : hello) {
+            put(command);
+            sent.add(new CompletableFuture<>());
+        }
+    }
+
+    private void encode() {
+        for (Command command = queue.poll();
+             command != null;
+             command = queue.poll()) {
+            put(command.args());
+            sent.add(command.future());
+        }
+    }
+
+    private void put(
+            final byte[][] args
+    ) {
+        int length = Resp.length(args);
+        if (out.remaining() < length) {
+            ByteBuffer grown = ByteBuffer.allocate(
+                    Math.max(out.capacity() * 2, out.position() + length)
+            );
+            out.flip();
+            grown.put(out);
+            out = grown;
+        }
+        Resp.write(args, out);
+    }
+
+    private void write() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+        if (out.position() > 0) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void read() throws IOException {
+        if (channel.read(in) < 0) {
+            throw new EOFException("Redis closed connection.");
+        }
+        in.flip();
+        Object reply = Resp.read(in);
+        while (reply != Resp.INCOMPLETE) {
+            CompletableFuture<Object> future = sent.poll();
+            if (future == null) {
+                throw new IllegalStateException(
+                        "Redis sent reply to no command."
+                );
+            }
+            if (reply instanceof IllegalStateException) {
+                IllegalStateException error = (IllegalStateException) reply;
+                future.completeExceptionally(error);
+                if (error.getMessage() != null
+                        && error.getMessage().startsWith(NOSCRIPT)) {
+                    throw new IllegalStateException(
+                            "Redis lost scripts, connection is reopened.",
+                            error
+                    );
+                }
+            } else {
+                future.complete(reply);
+            }
+            reply = Resp.read(in);
+        }
+        in.compact();
+        if (!in.hasRemaining()) {
+            ByteBuffer grown = ByteBuffer.allocate(in.capacity() * 2);
+            in.flip();
+            grown.put(in);
+            in = grown;
+        }
+    }
+
+    private void fail(
+            final Exception cause
+    ) {
+        RuntimeException exception = unchecked(cause);
+        for (CompletableFuture<Object> future = sent.poll();
+             future != null;
+             future = sent.poll()) {
+            future.completeExceptionally(exception);
+        }
+        if (channel != null) {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // channel is discarded anyway
+            }
+        }
+        channel = null;
+        key = null;
+        out.clear();
+        in.clear();
+    }
+
+    private void failQueued(
+            final Exception cause
+    ) {
+        RuntimeException exception = unchecked(cause);
+        for (Command command = queue.poll();
+             command != null;
+             command = queue.poll()) {
+            command.future().completeExceptionally(exception);
+        }
+    }
+
+    private static RuntimeException unchecked(
+            final Exception cause
+    ) {
+        if (cause instanceof IOException) {
+            return new UncheckedIOException((IOException) cause);
+        }
+        return (RuntimeException) cause;
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("Connection is closed.");
+    }
+
+    /**
+     * Command that is not sent yet.
+     *
+     * @param args   name and arguments of command
+     * @param future future of reply
+     */
+    private record Command(
+            byte[][] args,
+            CompletableFuture<Object> future
+    ) {
+    }
+
+}
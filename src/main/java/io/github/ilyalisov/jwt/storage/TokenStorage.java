@@ -2,6 +2,13 @@ package io.github.ilyalisov.jwt.storage;
 
 import io.github.ilyalisov.jwt.config.TokenParameters;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * TokenStorage interface.
  */
@@ -18,6 +25,18 @@ public interface TokenStorage {
             TokenParameters params
     );
 
+    /**
+     * Saves a batch of JWT tokens to storage. Implementations should do it
+     * in a single operation, by default tokens are saved one by one.
+     *
+     * @param tokens a map of JWT tokens and their params
+     */
+    default void saveAll(
+            final Map<String, TokenParameters> tokens
+    ) {
+        tokens.forEach(this::save);
+    }
+
     /**
      * Checks if JWT token is stored.
      *
@@ -30,6 +49,26 @@ public interface TokenStorage {
             TokenParameters params
     );
 
+    /**
+     * Checks which JWT tokens of a batch are stored. Implementations should
+     * do it in a single operation, by default tokens are checked one by
+     * one.
+     *
+     * @param tokens a map of JWT tokens and their params
+     * @return JWT tokens that are stored
+     */
+    default Set<String> existsAll(
+            final Map<String, TokenParameters> tokens
+    ) {
+        Set<String> stored = new HashSet<>();
+        tokens.forEach((token, params) -> {
+            if (exists(token, params)) {
+                stored.add(token);
+            }
+        });
+        return stored;
+    }
+
     /**
      * Returns JWT token from storage by its params.
      *
@@ -40,6 +79,25 @@ public interface TokenStorage {
             TokenParameters params
     );
 
+    /**
+     * Returns a batch of JWT tokens from storage by their params.
+     * Implementations should do it in a single operation, by default
+     * tokens are read one by one.
+     *
+     * @param params params of JWT tokens
+     * @return stored JWT tokens in order of params, null for JWT tokens
+     * that are not stored
+     */
+    default List<String> getAll(
+            final List<TokenParameters> params
+    ) {
+        List<String> tokens = new ArrayList<>(params.size());
+        for (TokenParameters tokenParams : params) {
+            tokens.add(get(tokenParams));
+        }
+        return tokens;
+    }
+
     /**
      * Removes JWT token from storage.
      *
@@ -60,4 +118,23 @@ public interface TokenStorage {
             TokenParameters params
     );
 
+    /**
+     * Removes a batch of JWT tokens from storage. Implementations should do
+     * it in a single operation, by default tokens are removed one by one.
+     *
+     * @param params params of JWT tokens
+     * @return number of removed JWT tokens
+     */
+    default int removeAll(
+            final Collection<TokenParameters> params
+    ) {
+        int removed = 0;
+        for (TokenParameters tokenParams : params) {
+            if (remove(tokenParams)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
 }
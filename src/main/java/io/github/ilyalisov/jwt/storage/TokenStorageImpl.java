@@ -3,53 +3,627 @@ package io.github.ilyalisov.jwt.storage;
 import io.github.ilyalisov.jwt.config.TokenParameters;
 import lombok.Getter;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 
 /**
  * Basic implementation of TokenStorage.
+ * <p>
+ * Expired JWT tokens are never returned. They are removed when they are
+ * read, and by cleanup that runs once a tick. Cleanup uses an index of
+ * JWT tokens by expiration time, so a tick touches only JWT tokens that
+ * expired since previous one.
+ * <p>
+ * Storage can be bounded by number of JWT tokens. When a save exceeds it,
+ * one writer at a time evicts JWT tokens until storage fits again, and
+ * other writers do not wait for it, so storage may briefly hold a few JWT
+ * tokens more. Every victim is chosen by {@link EvictionPolicy} among
+ * {@link #EVICTION_SAMPLE} JWT tokens that follow the previous sample, so
+ * eviction costs the same regardless of size of storage. Evicted JWT
+ * tokens are not reported to expiration listeners, and they leave index by
+ * expiration time at once, so index never holds more entries than storage.
  */
 public class TokenStorageImpl implements TokenStorage {
 
+    /**
+     * Default duration of cleanup tick.
+     */
+    public static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+
+    /**
+     * Number of JWT tokens compared to choose one to evict.
+     */
+    public static final int EVICTION_SAMPLE = 8;
+
+    /**
+     * Part of maximum number of JWT tokens that is kept from eviction by
+     * {@link EvictionPolicy#TINY_LFU} as newest JWT tokens.
+     */
+    private static final int WINDOW_DIVISOR = 100;
+
     /**
      * Inner map of key-value pairs.
      */
     private final ConcurrentHashMap<String, TokenEntry> tokens;
 
+    /**
+     * Keys of stored JWT tokens by stored value. It is updated under lock of
+     * key in inner map, so both maps change together.
+     */
+    private final ConcurrentHashMap<String, String> keysByToken;
+
+    /**
+     * Index of entries by expiration time.
+     */
+    private final ExpirationQueue<TokenEntry> expirations;
+
+    /**
+     * Listeners of expired JWT tokens.
+     */
+    private final List<ExpirationListener> listeners;
+
     /**
      * Scheduled executor for cleanup tokens.
      */
     private final ScheduledExecutorService scheduler;
 
+    /**
+     * Clock to expire JWT tokens against.
+     */
+    private final Clock clock;
+
+    /**
+     * What is stored for every JWT token.
+     */
+    private final TokenStorageMode mode;
+
+    /**
+     * Maximum number of JWT tokens.
+     */
+    private final int maxEntries;
+
+    /**
+     * Policy of choosing JWT tokens to evict.
+     */
+    private final EvictionPolicy policy;
+
+    /**
+     * Estimated frequencies of reads, null unless policy is TinyLFU.
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * Lock of eviction, that is held by one writer at a time.
+     */
+    private final ReentrantLock evictionLock;
+
+    /**
+     * Position of eviction in inner map. It is guarded by eviction lock.
+     */
+    private Iterator<TokenEntry> evictionHand;
+
+    /**
+     * Sequence number of last saved JWT token.
+     */
+    private final AtomicLong saves;
+
+    /**
+     * Number of evicted JWT tokens.
+     */
+    private final LongAdder evictions;
+
+    /**
+     * Number of JWT tokens eviction compared.
+     */
+    private final LongAdder sampled;
+
+    /**
+     * Number of cleanup ticks.
+     */
+    private final LongAdder ticks;
+
+    /**
+     * Number of index entries cleanup ticks examined.
+     */
+    private final LongAdder examined;
+
+    /**
+     * Number of removed expired JWT tokens.
+     */
+    private final LongAdder expired;
+
+    /**
+     * Number of exceptions thrown by expiration listeners.
+     */
+    private final LongAdder listenerFailures;
+
+    /**
+     * Total duration of cleanup ticks in nanoseconds.
+     */
+    private final LongAdder tickNanos;
+
+    /**
+     * Duration of last cleanup tick in nanoseconds.
+     */
+    private final AtomicLong lastTickNanos;
+
+    /**
+     * Maximum duration of cleanup tick in nanoseconds.
+     */
+    private final AtomicLong maxTickNanos;
+
+    /**
+     * Number of index entries last cleanup tick examined.
+     */
+    private final AtomicLong lastTickExamined;
+
+    /**
+     * Creates an object.
+     */
+    public TokenStorageImpl(
+    ) {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * Creates an object with cleanup once a second.
+     *
+     * @param clock clock to expire JWT tokens against
+     */
+    public TokenStorageImpl(
+            final Clock clock
+    ) {
+        this(clock, DEFAULT_TICK);
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param clock clock to expire JWT tokens against
+     * @param tick  duration of cleanup tick, JWT tokens stay in memory for
+     *              up to this time after they expire unless they are read
+     */
+    public TokenStorageImpl(
+            final Clock clock,
+            final Duration tick
+    ) {
+        this(clock, tick, TokenStorageMode.TOKEN);
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param clock clock to expire JWT tokens against
+     * @param tick  duration of cleanup tick, JWT tokens stay in memory for
+     *              up to this time after they expire unless they are read
+     * @param mode  what is stored for every JWT token
+     */
+    public TokenStorageImpl(
+            final Clock clock,
+            final Duration tick,
+            final TokenStorageMode mode
+    ) {
+        this(clock, tick, mode, Integer.MAX_VALUE, EvictionPolicy.LRU);
+    }
+
     /**
      * Creates an object.
+     *
+     * @param clock      clock to expire JWT tokens against
+     * @param tick       duration of cleanup tick, JWT tokens stay in memory
+     *                   for up to this time after they expire unless they
+     *                   are read
+     * @param mode       what is stored for every JWT token
+     * @param maxEntries maximum number of JWT tokens
+     * @param policy     policy of choosing JWT tokens to evict
      */
     public TokenStorageImpl(
+            final Clock clock,
+            final Duration tick,
+            final TokenStorageMode mode,
+            final int maxEntries,
+            final EvictionPolicy policy
     ) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException(
+                    "Maximum number of tokens must be positive."
+            );
+        }
         this.tokens = new ConcurrentHashMap<>();
+        this.keysByToken = new ConcurrentHashMap<>();
+        this.expirations = new ExpirationQueue<>(tick);
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.clock = clock;
+        this.mode = mode;
+        this.maxEntries = maxEntries;
+        this.policy = policy;
+        if (policy == EvictionPolicy.TINY_LFU) {
+            this.sketch = new FrequencySketch(maxEntries);
+        } else {
+            this.sketch = null;
+        }
+        this.evictionLock = new ReentrantLock();
+        this.evictionHand = Collections.emptyIterator();
+        this.saves = new AtomicLong();
+        this.evictions = new LongAdder();
+        this.sampled = new LongAdder();
+        this.ticks = new LongAdder();
+        this.examined = new LongAdder();
+        this.expired = new LongAdder();
+        this.listenerFailures = new LongAdder();
+        this.tickNanos = new LongAdder();
+        this.lastTickNanos = new AtomicLong();
+        this.maxTickNanos = new AtomicLong();
+        this.lastTickExamined = new AtomicLong();
         this.scheduler = Executors.newSingleThreadScheduledExecutor();
         scheduler.scheduleAtFixedRate(
-                () -> {
-                    Date date = new Date();
-                    for (Map.Entry<
-                            String,
-                            TokenEntry
-                            > entry : tokens.entrySet()) {
-                        if (entry.getValue().isAfter(date)) {
-                            tokens.remove(entry.getKey());
-                        }
-                    }
-                },
-                0,
-                1,
-                TimeUnit.SECONDS
+                this::removeExpired,
+                tick.toMillis(),
+                tick.toMillis(),
+                TimeUnit.MILLISECONDS
         );
     }
 
+    /**
+     * Adds listener of expired JWT tokens. Exceptions it throws are
+     * counted by {@link #getListenerFailureCount()}.
+     *
+     * @param listener listener
+     */
+    public void addExpirationListener(
+            final ExpirationListener listener
+    ) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes listener of expired JWT tokens.
+     *
+     * @param listener listener
+     */
+    public void removeExpirationListener(
+            final ExpirationListener listener
+    ) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns number of evicted JWT tokens.
+     *
+     * @return number of evicted JWT tokens
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns number of JWT tokens eviction compared to choose victims.
+     *
+     * @return number of compared JWT tokens
+     */
+    public long getEvictionSampleCount() {
+        return sampled.sum();
+    }
+
+    /**
+     * Returns number of stored JWT tokens, including expired ones that
+     * were not removed yet.
+     *
+     * @return number of JWT tokens
+     */
+    public long size() {
+        return tokens.mappingCount();
+    }
+
+    /**
+     * Returns number of cleanup ticks.
+     *
+     * @return number of ticks
+     */
+    public long getTickCount() {
+        return ticks.sum();
+    }
+
+    /**
+     * Returns number of index entries cleanup ticks examined. Replaced,
+     * removed and evicted JWT tokens leave index at once, so it is larger
+     * than number of expired JWT tokens only by JWT tokens that were
+     * replaced or removed while their tick was polled.
+     *
+     * @return number of examined index entries
+     */
+    public long getExaminedCount() {
+        return examined.sum();
+    }
+
+    /**
+     * Returns number of removed expired JWT tokens, both by cleanup and on
+     * reads.
+     *
+     * @return number of expired JWT tokens
+     */
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * Returns number of exceptions thrown by expiration listeners. They
+     * do not stop cleanup or other listeners, so they are only counted.
+     *
+     * @return number of listener failures
+     */
+    public long getListenerFailureCount() {
+        return listenerFailures.sum();
+    }
+
+    /**
+     * Returns total duration of cleanup ticks.
+     *
+     * @return duration in nanoseconds
+     */
+    public long getTotalTickNanos() {
+        return tickNanos.sum();
+    }
+
+    /**
+     * Returns duration of last cleanup tick.
+     *
+     * @return duration in nanoseconds
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos.get();
+    }
+
+    /**
+     * Returns maximum duration of cleanup tick.
+     *
+     * @return duration in nanoseconds
+     */
+    public long getMaxTickNanos() {
+        return maxTickNanos.get();
+    }
+
+    /**
+     * Returns number of index entries last cleanup tick examined.
+     *
+     * @return number of examined index entries
+     */
+    public long getLastTickExamined() {
+        return lastTickExamined.get();
+    }
+
+    /**
+     * Removes expired JWT tokens whose tick is over. Entries replaced
+     * concurrently are kept.
+     */
+    void removeExpired() {
+        long start = System.nanoTime();
+        long now = clock.millis();
+        int polled = expirations.poll(now, entry -> {
+            if (entry.isExpired(now)) {
+                expire(entry);
+            }
+        });
+        long nanos = System.nanoTime() - start;
+        ticks.increment();
+        examined.add(polled);
+        tickNanos.add(nanos);
+        lastTickNanos.set(nanos);
+        lastTickExamined.set(polled);
+        maxTickNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private void expire(
+            final TokenEntry entry
+    ) {
+        if (detach(entry.key, stored -> stored == entry) == null) {
+            return;
+        }
+        expired.increment();
+        for (ExpirationListener listener : listeners) {
+            try {
+                listener.expired(entry.key, mode.decode(entry.token));
+            } catch (RuntimeException e) {
+                // a failing listener must not stop cleanup
+                listenerFailures.increment();
+            }
+        }
+    }
+
+    private TokenEntry entry(
+            final String tokenKey
+    ) {
+        TokenEntry entry = tokens.get(tokenKey);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(clock.millis())) {
+            expire(entry);
+            return null;
+        }
+        touch(entry);
+        return entry;
+    }
+
+    /**
+     * Records read of JWT token for eviction policy.
+     *
+     * @param entry read entry
+     */
+    private void touch(
+            final TokenEntry entry
+    ) {
+        if (policy == EvictionPolicy.SOONEST_EXPIRY
+                || maxEntries == Integer.MAX_VALUE) {
+            return;
+        }
+        entry.accessed = System.nanoTime();
+        if (sketch != null) {
+            sketch.increment(entry.key.hashCode());
+        }
+    }
+
+    /**
+     * Evicts JWT tokens until storage fits maximum number of them, unless
+     * another writer already does it.
+     */
+    private void evict() {
+        if (tokens.mappingCount() <= maxEntries
+                || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (tokens.mappingCount() > maxEntries) {
+                TokenEntry victim = sample();
+                if (victim == null) {
+                    return;
+                }
+                if (victim.isExpired(clock.millis())) {
+                    expire(victim);
+                } else if (detach(victim.key, e -> e == victim) != null) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Chooses JWT token to evict among next entries of inner map.
+     *
+     * @return victim or null if storage is empty
+     */
+    private TokenEntry sample() {
+        long now = clock.millis();
+        long window = saves.get() - maxEntries / WINDOW_DIVISOR;
+        TokenEntry victim = null;
+        for (int i = 0; i < EVICTION_SAMPLE; i++) {
+            if (!evictionHand.hasNext()) {
+                evictionHand = tokens.values().iterator();
+                if (!evictionHand.hasNext()) {
+                    break;
+                }
+            }
+            TokenEntry entry = evictionHand.next();
+            sampled.increment();
+            if (entry.isExpired(now)) {
+                return entry;
+            }
+            if (victim == null || isBetterVictim(entry, victim, window)) {
+                victim = entry;
+            }
+        }
+        return victim;
+    }
+
+    private boolean isBetterVictim(
+            final TokenEntry entry,
+            final TokenEntry victim,
+            final long window
+    ) {
+        if (policy == EvictionPolicy.SOONEST_EXPIRY) {
+            return entry.expiredAt < victim.expiredAt;
+        }
+        if (policy == EvictionPolicy.TINY_LFU) {
+            boolean protectedEntry = entry.sequence > window;
+            boolean protectedVictim = victim.sequence > window;
+            if (protectedEntry != protectedVictim) {
+                return protectedVictim;
+            }
+            if (!protectedEntry) {
+                int frequency = sketch.frequency(entry.key.hashCode());
+                int victimFrequency = sketch.frequency(victim.key.hashCode());
+                if (frequency != victimFrequency) {
+                    return frequency < victimFrequency;
+                }
+            }
+        }
+        return entry.accessed < victim.accessed;
+    }
+
+    /**
+     * Removes entry from both maps if it matches condition.
+     *
+     * @param tokenKey  key of entry
+     * @param condition condition of stored entry
+     * @return removed entry or null
+     */
+    private TokenEntry detach(
+            final String tokenKey,
+            final Predicate<TokenEntry> condition
+    ) {
+        TokenEntry[] detached = new TokenEntry[1];
+        tokens.computeIfPresent(tokenKey, (key, entry) -> {
+            if (!condition.test(entry)) {
+                return entry;
+            }
+            keysByToken.remove(entry.token, key);
+            unindex(entry);
+            detached[0] = entry;
+            return null;
+        });
+        return detached[0];
+    }
+
+    /**
+     * Stores entry in both maps.
+     *
+     * @param entry entry
+     */
+    private void attach(
+            final TokenEntry entry
+    ) {
+        entry.sequence = saves.incrementAndGet();
+        if (sketch != null) {
+            sketch.increment(entry.key.hashCode());
+        }
+        tokens.compute(entry.key, (key, previous) -> {
+            if (previous != null) {
+                keysByToken.remove(previous.token, key);
+                unindex(previous);
+            }
+            keysByToken.put(entry.token, key);
+            index(entry);
+            return entry;
+        });
+        evict();
+    }
+
+    /**
+     * Checks that every stored JWT token is indexed by its key and there
+     * are no other entries in index. Storage must not change while it
+     * runs.
+     *
+     * @return true - if maps match, false - otherwise
+     */
+    boolean isIndexConsistent() {
+        if (keysByToken.size() != tokens.size()) {
+            return false;
+        }
+        for (Map.Entry<String, TokenEntry> entry : tokens.entrySet()) {
+            String key = keysByToken.get(entry.getValue().token);
+            if (!entry.getKey().equals(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private String subjectTokenKey(
             final String subject,
             final String type
@@ -57,6 +631,43 @@ public class TokenStorageImpl implements TokenStorage {
         return "tokens:" + subject + ":" + type;
     }
 
+    /**
+     * Adds entry to index by expiration time. It is called under lock of
+     * key in inner map.
+     *
+     * @param entry entry
+     */
+    private void index(
+            final TokenEntry entry
+    ) {
+        if (entry.expiredAt != Long.MAX_VALUE) {
+            entry.node = expirations.add(entry, entry.expiredAt);
+        }
+    }
+
+    /**
+     * Removes entry from index by expiration time. It is called under lock
+     * of key in inner map.
+     *
+     * @param entry entry
+     */
+    private void unindex(
+            final TokenEntry entry
+    ) {
+        if (entry.node != null) {
+            expirations.remove(entry.node);
+        }
+    }
+
+    /**
+     * Returns number of entries in index by expiration time.
+     *
+     * @return number of indexed entries
+     */
+    int indexSize() {
+        return expirations.size();
+    }
+
     @Override
     public void save(
             final String token,
@@ -66,11 +677,13 @@ public class TokenStorageImpl implements TokenStorage {
                 params.getSubject(),
                 params.getType()
         );
-        TokenEntry entry = new TokenEntry(
-                token,
-                params.getExpiredAt()
+        attach(
+                new TokenEntry(
+                        tokenKey,
+                        mode.encode(token),
+                        params.getExpiredAt()
+                )
         );
-        tokens.put(tokenKey, entry);
     }
 
     @Override
@@ -82,11 +695,11 @@ public class TokenStorageImpl implements TokenStorage {
                 params.getSubject(),
                 params.getType()
         );
-        TokenEntry entry = tokens.get(tokenKey);
+        TokenEntry entry = entry(tokenKey);
         if (entry == null) {
             return false;
         }
-        return token.equals(entry.token);
+        return mode.encode(token).equals(entry.token);
     }
 
     @Override
@@ -97,25 +710,30 @@ public class TokenStorageImpl implements TokenStorage {
                 params.getSubject(),
                 params.getType()
         );
-        TokenEntry entry = tokens.get(tokenKey);
+        TokenEntry entry = entry(tokenKey);
         if (entry == null) {
             return null;
         }
-        return entry.token;
+        return mode.decode(entry.token);
     }
 
+    /**
+     * Removes JWT token in constant time. If the same JWT token was saved
+     * with different keys, it is removed only from the last one.
+     *
+     * @param token JWT token
+     * @return true - if JWT token was removed, false - otherwise
+     */
     @Override
     public boolean remove(
             final String token
     ) {
-        boolean deleted = false;
-        for (Map.Entry<String, TokenEntry> entry : tokens.entrySet()) {
-            if (entry.getValue().token.equals(token)) {
-                tokens.remove(entry.getKey());
-                deleted = true;
-            }
+        String value = mode.encode(token);
+        String tokenKey = keysByToken.get(value);
+        if (tokenKey == null) {
+            return false;
         }
-        return deleted;
+        return detach(tokenKey, entry -> entry.token.equals(value)) != null;
     }
 
     @Override
@@ -126,34 +744,63 @@ public class TokenStorageImpl implements TokenStorage {
                 params.getSubject(),
                 params.getType()
         );
-        return tokens.remove(tokenKey) != null;
+        return detach(tokenKey, entry -> true) != null;
     }
 
     @Getter
     private static class TokenEntry {
 
         /**
-         * Token.
+         * Key of entry.
+         */
+        private final String key;
+
+        /**
+         * JWT token or its digest.
          */
         private final String token;
 
         /**
-         * Expiration date.
+         * Expiration time in millis.
+         */
+        private final long expiredAt;
+
+        /**
+         * Time of last read in nanos. Concurrent reads may overwrite each
+         * other, which is fine for choosing a victim.
+         */
+        private long accessed;
+
+        /**
+         * Sequence number of save. It is set before entry is published.
          */
-        private final Date expiredAt;
+        private long sequence;
+
+        /**
+         * Node of entry in index by expiration time or null if entry never
+         * expires. It is guarded by lock of key in inner map.
+         */
+        private ExpirationQueue.Node<TokenEntry> node;
 
         TokenEntry(
+                final String key,
                 final String token,
                 final Date expiredAt
         ) {
+            this.key = key;
             this.token = token;
-            this.expiredAt = expiredAt;
+            this.accessed = System.nanoTime();
+            if (expiredAt == null) {
+                this.expiredAt = Long.MAX_VALUE;
+            } else {
+                this.expiredAt = expiredAt.getTime();
+            }
         }
 
-        public boolean isAfter(
-                final Date date
+        boolean isExpired(
+                final long millis
         ) {
-            return expiredAt.after(date);
+            return expiredAt < millis;
         }
 
     }
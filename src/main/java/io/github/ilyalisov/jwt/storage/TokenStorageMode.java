@@ -0,0 +1,75 @@
+package io.github.ilyalisov.jwt.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * What token storage keeps for every JWT token.
+ */
+public enum TokenStorageMode {
+
+    /**
+     * JWT token is stored as it is.
+     */
+    TOKEN,
+
+    /**
+     * Only 22 characters of base64url of first 128 bits of SHA-256 of JWT
+     * token are stored, which is an order of magnitude less than usual JWT
+     * token. JWT tokens are checked and removed by their digests, but
+     * {@link TokenStorage#get(io.github.ilyalisov.jwt.config.TokenParameters)}
+     * returns null, as JWT token can not be restored from its digest. So
+     * {@link io.github.ilyalisov.jwt.service.PersistentTokenServiceImpl}
+     * creates a new JWT token every time and the previous one is revoked,
+     * and expiration listeners get null instead of JWT token.
+     */
+    DIGEST;
+
+    /**
+     * Number of bytes of SHA-256 that are stored.
+     */
+    private static final int DIGEST_BYTES = 16;
+
+    /**
+     * Returns value that is stored for JWT token.
+     *
+     * @param token JWT token
+     * @return JWT token or its digest
+     */
+    public String encode(
+            final String token
+    ) {
+        if (this == TOKEN) {
+            return token;
+        }
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(Arrays.copyOf(digest, DIGEST_BYTES));
+    }
+
+    /**
+     * Returns JWT token by stored value.
+     *
+     * @param value stored value
+     * @return JWT token or null if only digest is stored
+     */
+    String decode(
+            final String value
+    ) {
+        if (this == TOKEN) {
+            return value;
+        }
+        return null;
+    }
+
+}
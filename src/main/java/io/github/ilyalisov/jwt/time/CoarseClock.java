@@ -0,0 +1,168 @@
+package io.github.ilyalisov.jwt.time;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock that reads time from a field updated by a background thread.
+ * Reading it is a single volatile read, so it is cheaper than asking the
+ * system for time on every call, but it lags behind system clock by up to
+ * its resolution.
+ * <p>
+ * Background thread is a daemon. Closed clock reads system clock directly.
+ */
+public final class CoarseClock extends Clock implements AutoCloseable {
+
+    /**
+     * Default interval between updates of time.
+     */
+    private static final Duration DEFAULT_RESOLUTION = Duration.ofMillis(1);
+
+    /**
+     * Source of time shared by clocks with other zones.
+     */
+    private final Ticker ticker;
+
+    /**
+     * Time zone of clock.
+     */
+    private final ZoneId zone;
+
+    /**
+     * Creates an object that updates time every millisecond.
+     */
+    public CoarseClock() {
+        this(DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Creates an object.
+     *
+     * @param resolution interval between updates of time
+     */
+    public CoarseClock(
+            final Duration resolution
+    ) {
+        this(
+                new Ticker(Clock.systemUTC(), resolution),
+                ZoneOffset.UTC
+        );
+    }
+
+    private CoarseClock(
+            final Ticker ticker,
+            final ZoneId zone
+    ) {
+        this.ticker = ticker;
+        this.zone = zone;
+    }
+
+    @Override
+    public long millis() {
+        return ticker.millis();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(ticker.millis());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns clock with another zone. It shares time and background
+     * thread with this clock.
+     *
+     * @param zone time zone
+     * @return clock
+     */
+    @Override
+    public Clock withZone(
+            final ZoneId zone
+    ) {
+        return new CoarseClock(ticker, zone);
+    }
+
+    /**
+     * Stops background thread.
+     */
+    @Override
+    public void close() {
+        ticker.close();
+    }
+
+    private static final class Ticker {
+
+        /**
+         * Clock time is read from.
+         */
+        private final Clock source;
+
+        /**
+         * Executor of background thread, null when it is stopped.
+         */
+        private volatile ScheduledExecutorService scheduler;
+
+        /**
+         * Last read time in millis.
+         */
+        private volatile long millis;
+
+        Ticker(
+                final Clock source,
+                final Duration resolution
+        ) {
+            if (resolution.isNegative() || resolution.isZero()) {
+                throw new IllegalArgumentException(
+                        "Resolution must be positive."
+                );
+            }
+            this.source = source;
+            this.millis = source.millis();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(
+                                runnable,
+                                "jwt-coarse-clock"
+                        );
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+            );
+            scheduler.scheduleAtFixedRate(
+                    () -> {
+                        millis = source.millis();
+                    },
+                    resolution.toNanos(),
+                    resolution.toNanos(),
+                    TimeUnit.NANOSECONDS
+            );
+        }
+
+        long millis() {
+            if (scheduler == null) {
+                return source.millis();
+            }
+            return millis;
+        }
+
+        void close() {
+            ScheduledExecutorService executor = scheduler;
+            if (executor != null) {
+                scheduler = null;
+                executor.shutdownNow();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package io.github.ilyalisov.jwt.time;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clock that shows the time it was set to. It moves only when it is
+ * asked to, so expiration can be tested without waiting.
+ */
+public final class ManualClock extends Clock {
+
+    /**
+     * Current time in millis, shared by clocks with other zones.
+     */
+    private final AtomicLong millis;
+
+    /**
+     * Time zone of clock.
+     */
+    private final ZoneId zone;
+
+    /**
+     * Creates an object.
+     *
+     * @param instant initial time
+     */
+    public ManualClock(
+            final Instant instant
+    ) {
+        this(new AtomicLong(instant.toEpochMilli()), ZoneOffset.UTC);
+    }
+
+    private ManualClock(
+            final AtomicLong millis,
+            final ZoneId zone
+    ) {
+        this.millis = millis;
+        this.zone = zone;
+    }
+
+    /**
+     * Sets current time.
+     *
+     * @param instant new time
+     */
+    public void set(
+            final Instant instant
+    ) {
+        millis.set(instant.toEpochMilli());
+    }
+
+    /**
+     * Moves current time.
+     *
+     * @param duration duration to move time by, can be negative
+     */
+    public void advance(
+            final Duration duration
+    ) {
+        millis.addAndGet(duration.toMillis());
+    }
+
+    @Override
+    public long millis() {
+        return millis.get();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis.get());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns clock with another zone. It shares time with this clock.
+     *
+     * @param zone time zone
+     * @return clock
+     */
+    @Override
+    public Clock withZone(
+            final ZoneId zone
+    ) {
+        return new ManualClock(millis, zone);
+    }
+
+}
@@ -0,0 +1,102 @@
+package io.github.ilyalisov.jwt.benchmark;
+
+import io.github.ilyalisov.jwt.concurrent.VirtualThreads;
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.service.AsyncTokenService;
+import io.github.ilyalisov.jwt.service.DecodedToken;
+import io.github.ilyalisov.jwt.service.TokenServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares synchronous TokenServiceImpl with default AsyncTokenService
+ * adapter, which starts a new thread for every call, and with adapter on
+ * a pool of platform threads.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -DskipTests
+ * -Dbenchmark=AsyncBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class AsyncBenchmark {
+
+    private static final String SECRET_KEY = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+
+    private TokenServiceImpl tokenService;
+    private AsyncTokenService asyncService;
+    private ExecutorService platformExecutor;
+    private AsyncTokenService platformService;
+    private TokenParameters params;
+    private String token;
+
+    @Setup
+    public void setup() {
+        tokenService = new TokenServiceImpl(SECRET_KEY);
+        asyncService = AsyncTokenService.of(tokenService);
+        platformExecutor = VirtualThreads.newPlatformExecutor(
+                Runtime.getRuntime().availableProcessors()
+        );
+        platformService = AsyncTokenService.of(tokenService, platformExecutor);
+        params = TokenParameters.builder(
+                        "user@example.com",
+                        "access",
+                        Duration.ofHours(1)
+                )
+                .claim("role", "ADMIN")
+                .build();
+        token = tokenService.create(params);
+    }
+
+    @TearDown
+    public void tearDown() {
+        platformExecutor.shutdown();
+    }
+
+    @Benchmark
+    public String create() {
+        return tokenService.create(params);
+    }
+
+    @Benchmark
+    public String asyncCreate() {
+        return asyncService.create(params)
+                .join();
+    }
+
+    @Benchmark
+    public String platformCreate() {
+        return platformService.create(params)
+                .join();
+    }
+
+    @Benchmark
+    public DecodedToken decode() {
+        return tokenService.decode(token);
+    }
+
+    @Benchmark
+    public DecodedToken asyncDecode() {
+        return asyncService.decode(token)
+                .join();
+    }
+
+}
@@ -0,0 +1,139 @@
+package io.github.ilyalisov.jwt.benchmark;
+
+import io.github.ilyalisov.jwt.codec.ClaimsCodec;
+import io.github.ilyalisov.jwt.codec.JjwtClaimsCodec;
+import io.github.ilyalisov.jwt.codec.StreamingClaimsCodec;
+import io.github.ilyalisov.jwt.config.ServiceParameters;
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.service.DecodedToken;
+import io.github.ilyalisov.jwt.service.TokenServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares jjwt-jackson with streaming ClaimsCodec. Deserialization
+ * benchmarks read only the claims TokenService checks.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -DskipTests
+ * -Dbenchmark=ClaimsCodecBenchmark}. Allocation rate is reported by
+ * {@code gc} profiler as {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClaimsCodecBenchmark {
+
+    private static final String SECRET_KEY = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+
+    private ClaimsCodec jackson;
+    private ClaimsCodec streaming;
+    private Map<String, Object> claims;
+    private byte[] json;
+    private TokenServiceImpl jacksonService;
+    private TokenServiceImpl streamingService;
+    private TokenParameters params;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jackson = new JjwtClaimsCodec();
+        streaming = new StreamingClaimsCodec();
+        claims = new LinkedHashMap<>();
+        claims.put("sub", "user@example.com");
+        claims.put("role", "ADMIN");
+        claims.put("scopes", List.of("read", "write"));
+        claims.put("tokenType", "access");
+        claims.put("iat", 1_700_000_000L);
+        claims.put("exp", 1_700_003_600L);
+        json = jackson.serialize(claims);
+        jacksonService = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .claimsCodec(jackson)
+                        .build()
+        );
+        streamingService = new TokenServiceImpl(SECRET_KEY);
+        params = TokenParameters.builder(
+                        "user@example.com",
+                        "access",
+                        Duration.ofHours(1)
+                )
+                .claim("role", "ADMIN")
+                .claim("scopes", List.of("read", "write"))
+                .build();
+        token = streamingService.create(params);
+    }
+
+    @Benchmark
+    public byte[] jacksonSerialize() {
+        return jackson.serialize(claims);
+    }
+
+    @Benchmark
+    public byte[] streamingSerialize() {
+        return streaming.serialize(claims);
+    }
+
+    @Benchmark
+    public void jacksonDeserialize(
+            final Blackhole blackhole
+    ) {
+        read(jackson.deserialize(json, json.length), blackhole);
+    }
+
+    @Benchmark
+    public void streamingDeserialize(
+            final Blackhole blackhole
+    ) {
+        read(streaming.deserialize(json, json.length), blackhole);
+    }
+
+    @Benchmark
+    public String jacksonCreate() {
+        return jacksonService.create(params);
+    }
+
+    @Benchmark
+    public String streamingCreate() {
+        return streamingService.create(params);
+    }
+
+    @Benchmark
+    public DecodedToken jacksonVerify() {
+        return jacksonService.decode(token);
+    }
+
+    @Benchmark
+    public DecodedToken streamingVerify() {
+        return streamingService.decode(token);
+    }
+
+    private static void read(
+            final Map<String, Object> claims,
+            final Blackhole blackhole
+    ) {
+        blackhole.consume(claims.get("sub"));
+        blackhole.consume(claims.get("tokenType"));
+        blackhole.consume(claims.get("iat"));
+        blackhole.consume(claims.get("exp"));
+        blackhole.consume(claims.get("nbf"));
+    }
+
+}
@@ -0,0 +1,122 @@
+package io.github.ilyalisov.jwt.benchmark;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.service.DecodedToken;
+import io.github.ilyalisov.jwt.service.TokenServiceImpl;
+import io.github.ilyalisov.jwt.service.TokenTemplate;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares jjwt builder and parser with HMAC fast path of TokenServiceImpl.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -DskipTests
+ * -Dbenchmark=HmacBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HmacBenchmark {
+
+    private static final String SECRET_KEY = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+
+    private SecretKey key;
+    private JwtParser parser;
+    private TokenServiceImpl tokenService;
+    private TokenParameters params;
+    private TokenTemplate template;
+    private String token;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(key)
+                .build();
+        tokenService = new TokenServiceImpl(SECRET_KEY);
+        params = TokenParameters.builder(
+                        "user@example.com",
+                        "access",
+                        Duration.ofHours(1)
+                )
+                .claim("role", "ADMIN")
+                .build();
+        token = tokenService.create(params);
+        bytes = token.getBytes(StandardCharsets.US_ASCII);
+        template = tokenService.template(params);
+    }
+
+    @Benchmark
+    public String jjwtCreate() {
+        Claims claims = Jwts.claims()
+                .subject(params.getSubject())
+                .add(params.getClaims())
+                .add(TokenServiceImpl.TOKEN_TYPE_KEY, params.getType())
+                .build();
+        return Jwts.builder()
+                .claims(claims)
+                .issuedAt(params.getIssuedAt())
+                .expiration(params.getExpiredAt())
+                .signWith(key)
+                .compact();
+    }
+
+    @Benchmark
+    public String create() {
+        return tokenService.create(params);
+    }
+
+    @Benchmark
+    public String templateCreate() {
+        return template.create(
+                params.getSubject(),
+                params.getIssuedAt(),
+                params.getExpiredAt()
+        );
+    }
+
+    @Benchmark
+    public Claims jjwtVerify() {
+        return parser.parseSignedClaims(token)
+                .getPayload();
+    }
+
+    @Benchmark
+    public DecodedToken verify() {
+        return tokenService.decode(token);
+    }
+
+    @Benchmark
+    public DecodedToken verifyStringFromBytes() {
+        return tokenService.decode(
+                new String(bytes, StandardCharsets.US_ASCII)
+        );
+    }
+
+    @Benchmark
+    public DecodedToken verifyBytes() {
+        return tokenService.decode(bytes, 0, bytes.length);
+    }
+
+}
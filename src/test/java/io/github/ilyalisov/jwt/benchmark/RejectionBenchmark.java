@@ -0,0 +1,111 @@
+package io.github.ilyalisov.jwt.benchmark;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.service.TokenServiceImpl;
+import io.github.ilyalisov.jwt.service.TokenStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rejection of forged, expired and garbage JWT tokens with
+ * exceptions and with validation results.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -DskipTests
+ * -Dbenchmark=RejectionBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionBenchmark {
+
+    private static final String SECRET_KEY = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+
+    private TokenServiceImpl tokenService;
+    private String forged;
+    private String expired;
+    private String garbage;
+
+    @Setup
+    public void setup() {
+        tokenService = new TokenServiceImpl(SECRET_KEY);
+        String token = tokenService.create(
+                TokenParameters.builder(
+                                "user@example.com",
+                                "access",
+                                Duration.ofHours(1)
+                        )
+                        .claim("role", "ADMIN")
+                        .build()
+        );
+        forged = token.substring(0, token.lastIndexOf('.')) + ".Zm9yZ2Vk";
+        expired = tokenService.create(
+                TokenParameters.builder(
+                                "user@example.com",
+                                "access",
+                                Duration.ofHours(1)
+                        )
+                        .claim("role", "ADMIN")
+                        .issuedAt(new Date(0))
+                        .expiredAt(new Date(1000))
+                        .build()
+        );
+        garbage = token.replace('.', '!');
+    }
+
+    private boolean decode(
+            final String token
+    ) {
+        try {
+            tokenService.decode(token);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean forgedDecode() {
+        return decode(forged);
+    }
+
+    @Benchmark
+    public TokenStatus forgedValidate() {
+        return tokenService.validate(forged).getStatus();
+    }
+
+    @Benchmark
+    public boolean expiredDecode() {
+        return decode(expired);
+    }
+
+    @Benchmark
+    public TokenStatus expiredValidate() {
+        return tokenService.validate(expired).getStatus();
+    }
+
+    @Benchmark
+    public boolean garbageDecode() {
+        return decode(garbage);
+    }
+
+    @Benchmark
+    public TokenStatus garbageValidate() {
+        return tokenService.validate(garbage).getStatus();
+    }
+
+}
@@ -0,0 +1,74 @@
+package io.github.ilyalisov.jwt.benchmark;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.service.TokenServiceImpl;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building a JwtParser on every call with a shared one.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -DskipTests
+ * -Dbenchmark=TokenParserBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenParserBenchmark {
+
+    private static final String SECRET_KEY = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+
+    private SecretKey key;
+    private TokenServiceImpl tokenService;
+    private String token;
+
+    @Setup
+    public void setup() {
+        key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        tokenService = new TokenServiceImpl(SECRET_KEY);
+        token = tokenService.create(
+                TokenParameters.builder(
+                                "user@example.com",
+                                "access",
+                                Duration.ofHours(1)
+                        )
+                        .claim("role", "ADMIN")
+                        .build()
+        );
+    }
+
+    @Benchmark
+    public boolean parserPerCall() {
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getExpiration()
+                .before(new Date());
+    }
+
+    @Benchmark
+    public boolean sharedParser() {
+        return tokenService.isExpired(token);
+    }
+
+}
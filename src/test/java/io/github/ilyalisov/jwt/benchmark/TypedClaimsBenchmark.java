@@ -0,0 +1,89 @@
+package io.github.ilyalisov.jwt.benchmark;
+
+import io.github.ilyalisov.jwt.codec.UserClaims;
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.service.DecodedToken;
+import io.github.ilyalisov.jwt.service.TokenServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares claims passed as a map with claims record encoded by generated
+ * codec.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test -DskipTests
+ * -Dbenchmark=TypedClaimsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypedClaimsBenchmark {
+
+    private static final String SECRET_KEY = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+
+    private TokenServiceImpl tokenService;
+    private TokenParameters params;
+    private UserClaims claims;
+    private String token;
+
+    @Setup
+    public void setup() {
+        tokenService = new TokenServiceImpl(SECRET_KEY);
+        params = TokenParameters.builder(
+                        "user@example.com",
+                        null,
+                        Duration.ofHours(1)
+                )
+                .claim("tenantId", 123_456_789_012L)
+                .claim("roleMask", 5)
+                .build();
+        claims = new UserClaims("user@example.com", 123_456_789_012L, 5);
+        token = tokenService.create(claims, Duration.ofHours(1));
+    }
+
+    @Benchmark
+    public String mapCreate() {
+        return tokenService.create(params);
+    }
+
+    @Benchmark
+    public String typedCreate() {
+        return tokenService.create(claims, Duration.ofHours(1));
+    }
+
+    @Benchmark
+    public void mapDecode(
+            final Blackhole blackhole
+    ) {
+        DecodedToken decoded = tokenService.decode(token);
+        blackhole.consume(decoded.getSubject());
+        blackhole.consume(decoded.claim("tenantId", Long.class).longValue());
+        blackhole.consume(decoded.claim("roleMask", Integer.class).intValue());
+    }
+
+    @Benchmark
+    public void typedDecode(
+            final Blackhole blackhole
+    ) {
+        UserClaims decoded = tokenService.decode(token, UserClaims.class);
+        blackhole.consume(decoded.sub());
+        blackhole.consume(decoded.tenantId());
+        blackhole.consume(decoded.roleMask());
+    }
+
+}
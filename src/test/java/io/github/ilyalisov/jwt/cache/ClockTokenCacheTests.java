@@ -0,0 +1,211 @@
+package io.github.ilyalisov.jwt.cache;
+
+import io.github.ilyalisov.jwt.service.DecodedToken;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClockTokenCacheTests {
+
+    private final MutableClock clock = new MutableClock(1_000_000);
+
+    private DecodedToken decoded(
+            final long expiredAt
+    ) {
+        return new DecodedToken(
+                "subject",
+                "type",
+                new Date(0),
+                new Date(expiredAt),
+                new HashMap<>()
+        );
+    }
+
+    private ClockTokenCache cache(
+            final int maxEntries,
+            final long maxWeight
+    ) {
+        return new ClockTokenCache(
+                maxEntries,
+                maxWeight,
+                Duration.ofHours(1),
+                clock
+        );
+    }
+
+    @Test
+    void shouldCountHitsAndMisses() {
+        ClockTokenCache cache = cache(10, 100_000);
+        DecodedToken token = decoded(2_000_000);
+
+        assertNull(cache.get("token"));
+        cache.put("token", token);
+
+        assertSame(token, cache.get("token"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void shouldNotOutliveExpiration() {
+        ClockTokenCache cache = cache(10, 100_000);
+        cache.put("token", decoded(1_500_000));
+
+        clock.millis = 1_500_000;
+
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldNotStoreExpiredToken() {
+        ClockTokenCache cache = cache(10, 100_000);
+
+        cache.put("token", decoded(500_000));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldNotOutliveMaxAge() {
+        ClockTokenCache cache = cache(10, 100_000);
+        cache.put("token", decoded(Long.MAX_VALUE));
+
+        clock.millis += Duration.ofHours(1).toMillis();
+
+        assertNull(cache.get("token"));
+    }
+
+    @Test
+    void shouldEvictByEntryCount() {
+        ClockTokenCache cache = cache(2, 100_000);
+        cache.put("token1", decoded(2_000_000));
+        cache.put("token2", decoded(2_000_000));
+        cache.get("token1");
+
+        cache.put("token3", decoded(2_000_000));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get("token1"));
+        assertNull(cache.get("token2"));
+        assertNotNull(cache.get("token3"));
+    }
+
+    @Test
+    void shouldEvictByWeight() {
+        ClockTokenCache cache = cache(100, 700);
+        cache.put("token1", decoded(2_000_000));
+        cache.put("token2", decoded(2_000_000));
+
+        cache.put("token3", decoded(2_000_000));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void shouldWeighRetainedClaims() {
+        ClockTokenCache cache = cache(100, 30_000);
+        DecodedToken large = new DecodedToken(
+                "subject",
+                "type",
+                new Date(0),
+                new Date(2_000_000),
+                new HashMap<>(Map.of("payload", "x".repeat(10_000)))
+        );
+        cache.put("token1", large);
+        cache.put("token2", large);
+
+        cache.put("token3", large);
+
+        assertTrue(large.estimateSize() > 10_000);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void shouldInvalidate() {
+        ClockTokenCache cache = cache(10, 100_000);
+        cache.put("token", decoded(2_000_000));
+
+        cache.invalidate("token");
+
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldClear() {
+        ClockTokenCache cache = cache(2, 100_000);
+        cache.put("token1", decoded(2_000_000));
+        cache.put("token2", decoded(2_000_000));
+
+        cache.clear();
+
+        assertNull(cache.get("token1"));
+        assertEquals(0, cache.size());
+        cache.put("token3", decoded(2_000_000));
+        cache.put("token4", decoded(2_000_000));
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    void shouldRejectInvalidBounds() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new ClockTokenCache(0, 100)
+        );
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private long millis;
+
+        MutableClock(
+                final long millis
+        ) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(
+                final ZoneId zone
+        ) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+    }
+
+}
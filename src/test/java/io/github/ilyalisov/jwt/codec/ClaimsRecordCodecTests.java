@@ -0,0 +1,237 @@
+package io.github.ilyalisov.jwt.codec;
+
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimsRecordCodecTests {
+
+    @JwtClaims
+    record AllTypes(
+            String string,
+            long primitiveLong,
+            int primitiveInt,
+            boolean primitiveBoolean,
+            double primitiveDouble,
+            Long boxedLong,
+            Integer boxedInt,
+            Boolean boxedBoolean,
+            Double boxedDouble,
+            List<String> list,
+            Map<String, Object> map,
+            Object any
+    ) {
+
+    }
+
+    record NotAnnotated(
+            String sub
+    ) {
+
+    }
+
+    private static <T extends Record> String write(
+            final T claims
+    ) {
+        @SuppressWarnings("unchecked")
+        ClaimsRecordCodec<T> codec = ClaimsRecordCodec.of(
+                (Class<T>) claims.getClass()
+        );
+        ClaimsWriter writer = new ClaimsWriter();
+        writer.begin();
+        codec.write(claims, writer);
+        int length = writer.end();
+        return new String(writer.buffer(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static <T extends Record> T read(
+            final Class<T> type,
+            final String json
+    ) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return ClaimsRecordCodec.of(type)
+                .read(new ClaimsReader(bytes, bytes.length));
+    }
+
+    @Test
+    void shouldWriteSameJsonAsClaimsCodec() {
+        AllTypes claims = new AllTypes(
+                "é \"quoted\"",
+                12_345_678_901L,
+                -7,
+                true,
+                2.5,
+                null,
+                42,
+                false,
+                0.1,
+                List.of("read", "write"),
+                Map.of("nested", 1),
+                "any"
+        );
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("string", claims.string());
+        map.put("primitiveLong", claims.primitiveLong());
+        map.put("primitiveInt", claims.primitiveInt());
+        map.put("primitiveBoolean", claims.primitiveBoolean());
+        map.put("primitiveDouble", claims.primitiveDouble());
+        map.put("boxedInt", claims.boxedInt());
+        map.put("boxedBoolean", claims.boxedBoolean());
+        map.put("boxedDouble", claims.boxedDouble());
+        map.put("list", claims.list());
+        map.put("map", claims.map());
+        map.put("any", claims.any());
+
+        assertEquals(
+                new String(
+                        new JjwtClaimsCodec().serialize(map),
+                        StandardCharsets.UTF_8
+                ),
+                write(claims)
+        );
+    }
+
+    @Test
+    void shouldReadWrittenRecord() {
+        AllTypes claims = new AllTypes(
+                "subject",
+                Long.MIN_VALUE + 1,
+                Integer.MAX_VALUE,
+                true,
+                -1.5E10,
+                7L,
+                null,
+                true,
+                null,
+                List.of("a"),
+                Map.of("b", List.of(1, 2)),
+                3
+        );
+        UserClaims user = new UserClaims("user", 42, 0b101);
+
+        assertEquals(claims, read(AllTypes.class, write(claims)));
+        assertEquals(user, read(UserClaims.class, write(user)));
+        assertEquals(
+                "{\"sub\":\"user\",\"tenantId\":42,\"roleMask\":5}",
+                write(user)
+        );
+    }
+
+    @Test
+    void shouldSkipUnknownAndMissingClaims() {
+        UserClaims claims = read(
+                UserClaims.class,
+                " { \"other\" : [1, {\"a\": \"b\"}], \"tenantId\" : 7 ,"
+                        + "\"s\\u0075b\":\"escaped\", \"x\": null }\n"
+        );
+
+        assertEquals(new UserClaims("escaped", 7, 0), claims);
+        assertEquals(new UserClaims(null, 0, 0), read(UserClaims.class, "{}"));
+    }
+
+    @Test
+    void shouldCaptureTimeClaims() {
+        byte[] json = ("{\"iat\":1,\"sub\":\"user\",\"exp\":2,\"nbf\":null}")
+                .getBytes(StandardCharsets.UTF_8);
+        ClaimsReader reader = new ClaimsReader(json, json.length);
+
+        UserClaims claims = ClaimsRecordCodec.of(UserClaims.class)
+                .read(reader);
+
+        assertEquals("user", claims.sub());
+        assertEquals(1, reader.getIssuedAt());
+        assertEquals(2, reader.getExpiration());
+        assertEquals(ClaimsReader.ABSENT, reader.getNotBefore());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void shouldReadPartOfBuffer() {
+        byte[] json = Arrays.copyOf(
+                "{\"sub\":\"user\"}".getBytes(StandardCharsets.UTF_8),
+                64
+        );
+
+        UserClaims claims = ClaimsRecordCodec.of(UserClaims.class)
+                .read(new ClaimsReader(json, 14));
+
+        assertEquals("user", claims.sub());
+    }
+
+    @Test
+    void shouldRejectMalformedClaims() {
+        List<String> payloads = List.of(
+                "",
+                "[]",
+                "{\"sub\":1}",
+                "{\"tenantId\":\"1\"}",
+                "{\"tenantId\":1.5}",
+                "{\"tenantId\":99999999999999999999}",
+                "{\"roleMask\":2147483648}",
+                "{\"exp\":1,\"exp\":2}",
+                "{\"exp\":\"soon\"}",
+                "{\"sub\":\"user\"}x",
+                "{\"sub\":\"user\" \"tenantId\":1}",
+                "{\"other\":[1 2]}",
+                "{sub:1}"
+        );
+        for (String payload : payloads) {
+            assertThrows(
+                    MalformedJwtException.class,
+                    () -> read(UserClaims.class, payload),
+                    payload
+            );
+        }
+        assertThrows(
+                MalformedJwtException.class,
+                () -> read(AllTypes.class, "{\"primitiveBoolean\":1}")
+        );
+        assertThrows(
+                MalformedJwtException.class,
+                () -> read(AllTypes.class, "{\"list\":{}}")
+        );
+    }
+
+    @Test
+    void writerShouldRejectUnsupportedValues() {
+        AllTypes claims = new AllTypes(
+                null, 0, 0, false, Double.NaN,
+                null, null, null, null, null, null, null
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> write(claims));
+    }
+
+    @Test
+    void shouldLookUpGeneratedCodec() {
+        ClaimsRecordCodec<AllTypes> codec =
+                ClaimsRecordCodec.of(AllTypes.class);
+
+        assertSame(codec, ClaimsRecordCodec.of(AllTypes.class));
+        assertEquals(AllTypes.class, codec.type());
+        assertEquals(
+                "ClaimsRecordCodecTests_AllTypesJwtCodec",
+                codec.getClass().getSimpleName()
+        );
+        assertTrue(
+                assertThrows(
+                        IllegalArgumentException.class,
+                        () -> ClaimsRecordCodec.of(NotAnnotated.class)
+                ).getMessage().contains("@JwtClaims")
+        );
+        assertEquals("a.b.C_DJwtCodec", RecordCodecs.codecName("a.b", "a.b.C$D"));
+        assertEquals("CJwtCodec", RecordCodecs.codecName("", "C"));
+    }
+
+}
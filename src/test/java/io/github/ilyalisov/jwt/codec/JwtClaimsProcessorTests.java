@@ -0,0 +1,126 @@
+package io.github.ilyalisov.jwt.codec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtClaimsProcessorTests {
+
+    @TempDir
+    private Path output;
+
+    private List<String> compile(
+            final String name,
+            final String source
+    ) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics =
+                new DiagnosticCollector<>();
+        JavaFileObject file = new SimpleJavaFileObject(
+                URI.create("string:///" + name.replace('.', '/') + ".java"),
+                JavaFileObject.Kind.SOURCE
+        ) {
+            @Override
+            public CharSequence getCharContent(
+                    final boolean ignoreEncodingErrors
+            ) {
+                return source;
+            }
+        };
+        String classes = Path.of(
+                ClaimsRecordCodec.class.getProtectionDomain()
+                        .getCodeSource()
+                        .getLocation()
+                        .toURI()
+        ).toString();
+        JavaCompiler.CompilationTask task = compiler.getTask(
+                null,
+                null,
+                diagnostics,
+                List.of(
+                        "-classpath", classes,
+                        "-d", output.toString(),
+                        "-s", output.toString(),
+                        "-proc:only"
+                ),
+                null,
+                List.of(file)
+        );
+        task.setProcessors(List.of(new JwtClaimsProcessor()));
+        task.call();
+        return diagnostics.getDiagnostics()
+                .stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .map(d -> d.getMessage(null))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void shouldGenerateCodecOfNestedRecord() throws Exception {
+        List<String> errors = compile(
+                "test.Outer",
+                "package test;\n"
+                        + "import io.github.ilyalisov.jwt.codec.JwtClaims;\n"
+                        + "public class Outer {\n"
+                        + "    @JwtClaims\n"
+                        + "    public record Claims(String sub, long id,\n"
+                        + "            java.util.List<String> roles) {}\n"
+                        + "}\n"
+        );
+
+        assertEquals(List.of(), errors);
+        String codec = Files.readString(
+                output.resolve("test/Outer_ClaimsJwtCodec.java")
+        );
+        assertTrue(codec.contains(
+                "public final class Outer_ClaimsJwtCodec"
+        ));
+        assertTrue(codec.contains("ClaimsWriter.name(\"roles\")"));
+        assertTrue(codec.contains("c1 = reader.readLong();"));
+        assertTrue(codec.contains("return new test.Outer.Claims(c0, c1, c2);"));
+    }
+
+    @Test
+    void shouldRejectUnsupportedDeclarations() throws Exception {
+        String[][] cases = {
+                {"plain", "@JwtClaims class Claims {}",
+                        "@JwtClaims can only be applied to records."},
+                {"generic", "@JwtClaims record Claims<T>(T sub) {}",
+                        "Claims record can not be generic."},
+                {"hidden", "class Outer { @JwtClaims private record "
+                        + "Claims(String sub) {} }",
+                        "Claims record can not be private."},
+                {"reserved", "@JwtClaims record Claims(long exp) {}",
+                        "Claim \"exp\" is set by TokenService."},
+                {"unsupported", "@JwtClaims record Claims(float f, "
+                        + "java.util.Date date, int[] array) {}",
+                        "Unsupported type of claim: float"},
+        };
+        for (String[] c : cases) {
+            List<String> errors = compile(
+                    c[0] + ".Claims",
+                    "package " + c[0] + ";\n"
+                            + "import io.github.ilyalisov.jwt.codec"
+                            + ".JwtClaims;\n"
+                            + c[1] + "\n"
+            );
+
+            assertTrue(errors.contains(c[2]), c[0] + ": " + errors);
+        }
+    }
+
+}
@@ -0,0 +1,231 @@
+package io.github.ilyalisov.jwt.codec;
+
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingClaimsCodecTests {
+
+    private final ClaimsCodec jackson = new JjwtClaimsCodec();
+
+    private final ClaimsCodec codec = new StreamingClaimsCodec(jackson);
+
+    private static Map<String, Object> claims() {
+        StringBuilder ascii = new StringBuilder();
+        for (char c = 0; c < 0x80; c++) {
+            ascii.append(c);
+        }
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("null", null);
+        nested.put("list", List.of(1, "two", false, List.of()));
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", "user@example.com");
+        claims.put("ascii", ascii.toString());
+        claims.put("unicode", "é ж 中 \u2028 😀 \ud800");
+        claims.put("int", -123);
+        claims.put("long", 12_345_678_901L);
+        claims.put("short", (short) 7);
+        claims.put("double", 2.5);
+        claims.put("small", 1.0E-10);
+        claims.put("float", 0.1f);
+        claims.put("big", new BigInteger("123456789012345678901234567890"));
+        claims.put("decimal", new BigDecimal("1.50"));
+        claims.put("bool", true);
+        claims.put("set", Set.of("one"));
+        claims.put("array", new Object[]{1, "a"});
+        claims.put("nested", nested);
+        claims.put("empty", Map.of());
+        claims.put("", "empty key");
+        return claims;
+    }
+
+    @Test
+    void serializeShouldMatchJackson() {
+        Map<String, Object> claims = claims();
+
+        assertEquals(
+                new String(jackson.serialize(claims), StandardCharsets.UTF_8),
+                new String(codec.serialize(claims), StandardCharsets.UTF_8)
+        );
+        assertArrayEquals(
+                jackson.serialize(Map.of()),
+                codec.serialize(Map.of())
+        );
+    }
+
+    @Test
+    void serializeShouldFallBackForUnsupportedValues() {
+        List<Object> values = List.of(
+                new Date(1000),
+                Double.NaN,
+                Float.POSITIVE_INFINITY,
+                'c',
+                new int[]{1, 2},
+                Map.of(1, "integer key")
+        );
+        for (Object value : values) {
+            Map<String, Object> claims = Map.of("value", value);
+
+            assertArrayEquals(
+                    jackson.serialize(claims),
+                    codec.serialize(claims)
+            );
+        }
+    }
+
+    @Test
+    void deserializeShouldMatchJackson() {
+        List<String> payloads = List.of(
+                new String(jackson.serialize(claims()), StandardCharsets.UTF_8),
+                "{}",
+                " { \"a\" : \"\\u00e9\\n\\\"\\/\\ud83d\\ude00\" , "
+                        + "\"b\" :[ 1, -2, 3.5e2, -0, 0.5E-3, 12345678901, "
+                        + "9223372036854775807, 9223372036854775808, "
+                        + "123456789012345678901234] ,\n\"c\":{\"d\":null,"
+                        + "\"e\":true,\"f\":false,\"g\":{}},\"h\":[]}\r\n",
+                "{\"esc\":\"a\\tb\\u0001é\\\\\",\"num\":-2147483649}"
+        );
+        for (String payload : payloads) {
+            byte[] json = payload.getBytes(StandardCharsets.UTF_8);
+
+            Map<String, Object> expected = jackson.deserialize(
+                    json,
+                    json.length
+            );
+            Map<String, Object> actual = codec.deserialize(json, json.length);
+
+            assertEquals(expected, actual);
+            assertEquals(expected.toString(), actual.toString());
+            for (String key : expected.keySet()) {
+                Object value = expected.get(key);
+                if (value != null
+                        && !(value instanceof Map)
+                        && !(value instanceof List)) {
+                    assertEquals(value.getClass(), actual.get(key).getClass());
+                }
+            }
+        }
+    }
+
+    @Test
+    void deserializeShouldNotKeepBuffer() {
+        byte[] buffer = Arrays.copyOf(
+                "{\"a\":\"first\",\"b\":[1]}".getBytes(StandardCharsets.UTF_8),
+                64
+        );
+
+        Map<String, Object> claims = codec.deserialize(buffer, 21);
+        Arrays.fill(buffer, (byte) ' ');
+
+        assertEquals("first", claims.get("a"));
+        assertEquals(List.of(1), claims.get("b"));
+        assertEquals(2, claims.size());
+    }
+
+    @Test
+    void deserializeShouldAllowReplacingValues() {
+        byte[] json = "{\"iat\":1,\"sub\":\"x\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        Map<String, Object> claims = codec.deserialize(json, json.length);
+
+        assertEquals(1, claims.put("iat", 1L));
+        claims.put("custom", "value");
+        assertEquals(1L, claims.get("iat"));
+        assertEquals(
+                List.of("iat", "sub", "custom"),
+                List.copyOf(claims.keySet())
+        );
+    }
+
+    @Test
+    void deserializeShouldLookUpManyClaims() {
+        Map<String, Object> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            expected.put("claim" + i, i);
+        }
+        byte[] json = codec.serialize(expected);
+
+        Map<String, Object> claims = codec.deserialize(json, json.length);
+
+        assertEquals(expected, claims);
+        assertEquals(42, claims.get("claim42"));
+        assertTrue(claims.containsKey("claim99"));
+    }
+
+    @Test
+    void footprintShouldCoverPendingAndReadValues() {
+        byte[] json = codec.serialize(Map.of(
+                "payload",
+                "x".repeat(10_000),
+                "roles",
+                List.of("admin", "user")
+        ));
+
+        Map<String, Object> claims = codec.deserialize(json, json.length);
+        long pending = ClaimsFootprint.estimate(claims);
+        claims.get("payload");
+        long read = ClaimsFootprint.estimate(claims);
+
+        assertTrue(pending > 2L * json.length);
+        assertTrue(read > json.length + 10_000);
+        assertTrue(read < 3L * json.length);
+    }
+
+    @Test
+    void deserializeShouldRejectMalformedJson() {
+        List<String> payloads = List.of(
+                "",
+                "[]",
+                "\"string\"",
+                "{",
+                "{\"a\"}",
+                "{\"a\":1,}",
+                "{\"a\":01}",
+                "{\"a\":1.}",
+                "{\"a\":-}",
+                "{\"a\":+1}",
+                "{\"a\":.5}",
+                "{\"a\":1e}",
+                "{\"a\":1}x",
+                "{\"a\":\"\\x\"}",
+                "{\"a\":\"\\u12\"}",
+                "{\"a\":\"\t\"}",
+                "{\"a\":\"unterminated}",
+                "{\"a\":tru}",
+                "{\"a\":nul}",
+                "{\"a\":[1 2]}",
+                "{\"a\":{\"b\" 1}}",
+                "{\"a\":{1:2}}",
+                "{a:1}",
+                "{\"a\":1,\"a\":2}",
+                "{\"a\":" + "[".repeat(2000) + "]".repeat(2000) + "}"
+        );
+        for (String payload : payloads) {
+            byte[] json = payload.getBytes(StandardCharsets.UTF_8);
+
+            MalformedJwtException e = assertThrows(
+                    MalformedJwtException.class,
+                    () -> codec.deserialize(json, json.length),
+                    payload
+            );
+            assertInstanceOf(String.class, e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,10 @@
+package io.github.ilyalisov.jwt.codec;
+
+@JwtClaims
+public record UserClaims(
+        String sub,
+        long tenantId,
+        int roleMask
+) {
+
+}
@@ -0,0 +1,84 @@
+package io.github.ilyalisov.jwt.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadsTests {
+
+    @Test
+    void shouldDetectVirtualThreads() {
+        assertEquals(
+                Runtime.version().feature() >= 21,
+                VirtualThreads.isAvailable()
+        );
+        assertSame(VirtualThreads.shared(), VirtualThreads.shared());
+    }
+
+    @Test
+    void platformExecutorShouldReuseThreads() throws Exception {
+        ExecutorService executor = VirtualThreads.newPlatformExecutor(2);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futures.add(executor.submit(
+                        () -> threads.add(Thread.currentThread())
+                ));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(threads.size() <= 2);
+        assertTrue(threads.stream().allMatch(Thread::isDaemon));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> VirtualThreads.newPlatformExecutor(0)
+        );
+    }
+
+    @Test
+    void shouldNotQueueTasksBehindBlockedOnes() throws Exception {
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+        int tasks = 64;
+        CountDownLatch started = new CountDownLatch(tasks);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < tasks; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            executor.submit(() -> assertTrue(Thread.currentThread().isDaemon()))
+                    .get();
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+}
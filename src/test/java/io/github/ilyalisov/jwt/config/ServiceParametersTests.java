@@ -0,0 +1,37 @@
+package io.github.ilyalisov.jwt.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ServiceParametersTests {
+
+    @Test
+    void shouldCreateWithDefaults() {
+        ServiceParameters params = ServiceParameters.builder("secret")
+                .build();
+
+        assertEquals("secret", params.getSecret());
+        assertEquals(Duration.ZERO, params.getLeeway());
+        assertNotNull(params.getClock());
+    }
+
+    @Test
+    void shouldSetLeewayAndClock() {
+        Clock clock = Clock.systemDefaultZone();
+        Duration leeway = Duration.ofSeconds(30);
+
+        ServiceParameters params = ServiceParameters.builder("secret")
+                .leeway(leeway)
+                .clock(clock)
+                .build();
+
+        assertEquals(leeway, params.getLeeway());
+        assertEquals(clock, params.getClock());
+    }
+
+}
@@ -1,8 +1,10 @@
 package io.github.ilyalisov.jwt.config;
 
+import io.github.ilyalisov.jwt.time.ManualClock;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -129,4 +131,35 @@ class TokenParametersTests {
         assertEquals(value2, tokenParameters.getClaims().get(key2));
     }
 
+    @Test
+    void shouldTakeDatesFromClock() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+
+        TokenParameters tokenParameters = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30),
+                        clock
+                )
+                .build();
+
+        assertEquals(new Date(1_000_000), tokenParameters.getIssuedAt());
+        assertEquals(new Date(2_800_000), tokenParameters.getExpiredAt());
+    }
+
+    @Test
+    void shouldSetInstants() {
+        TokenParameters tokenParameters = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .issuedAt(Instant.ofEpochSecond(10))
+                .expiredAt(Instant.ofEpochSecond(20))
+                .build();
+
+        assertEquals(new Date(10_000), tokenParameters.getIssuedAt());
+        assertEquals(new Date(20_000), tokenParameters.getExpiredAt());
+    }
+
 }
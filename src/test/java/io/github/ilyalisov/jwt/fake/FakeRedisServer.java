@@ -0,0 +1,455 @@
+package io.github.ilyalisov.jwt.fake;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * In-process server that speaks RESP2 and supports commands used by token
+ * storages. Lua scripts are not interpreted, tests register Java handlers
+ * for them instead. Commands are executed one at a time, as Redis does.
+ */
+public class FakeRedisServer implements AutoCloseable {
+
+    private static final Object OK = new Object();
+
+    private final ServerSocket server;
+
+    private final Map<String, String> values = new HashMap<>();
+
+    private final Map<String, Long> expirations = new HashMap<>();
+
+    private final Map<String, BiFunction<List<String>, List<String>, Object>>
+            scripts = new ConcurrentHashMap<>();
+
+    private final Map<String, String> sources = new ConcurrentHashMap<>();
+
+    private final Set<String> loaded = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger maxBatch = new AtomicInteger();
+
+    private volatile String password;
+
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    public FakeRedisServer() throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread thread = new Thread(this::accept, "fake-redis");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    public void requirePassword(
+            final String password
+    ) {
+        this.password = password;
+    }
+
+    /**
+     * Registers handler of Lua script.
+     *
+     * @param source  source of script
+     * @param handler function of KEYS and ARGV that returns reply
+     */
+    public void script(
+            final String source,
+            final BiFunction<List<String>, List<String>, Object> handler
+    ) {
+        scripts.put(source, handler);
+        sources.put(sha1(source), source);
+    }
+
+    /**
+     * Forgets cached scripts, as Redis does after SCRIPT FLUSH or restart.
+     */
+    public void flushScripts() {
+        loaded.clear();
+    }
+
+    /**
+     * Returns number of received commands with a name.
+     *
+     * @param name name of command in upper case
+     * @return number of commands
+     */
+    public int count(
+            final String name
+    ) {
+        AtomicInteger count = counts.get(name);
+        if (count == null) {
+            return 0;
+        }
+        return count.get();
+    }
+
+    /**
+     * Stops executing commands until {@link #resume()}. Commands are still
+     * received.
+     */
+    public void pause() {
+        gate = new CountDownLatch(1);
+    }
+
+    public void resume() {
+        gate.countDown();
+    }
+
+    public void dropConnections() throws IOException {
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    /**
+     * Returns maximum number of commands that were received before server
+     * had to wait for more.
+     *
+     * @return maximum number of pipelined commands
+     */
+    public int maxBatch() {
+        return maxBatch.get();
+    }
+
+    public synchronized String get(
+            final String key
+    ) {
+        Long expiration = expirations.get(key);
+        if (expiration != null && expiration <= System.currentTimeMillis()) {
+            delete(key);
+        }
+        return values.get(key);
+    }
+
+    public synchronized void set(
+            final String key,
+            final String value
+    ) {
+        values.put(key, value);
+        expirations.remove(key);
+    }
+
+    public synchronized boolean delete(
+            final String key
+    ) {
+        expirations.remove(key);
+        return values.remove(key) != null;
+    }
+
+    public synchronized boolean expireAt(
+            final String key,
+            final long millis
+    ) {
+        if (get(key) == null) {
+            return false;
+        }
+        expirations.put(key, millis);
+        return true;
+    }
+
+    public synchronized Long expiration(
+            final String key
+    ) {
+        return expirations.get(key);
+    }
+
+    public synchronized Set<String> keys() {
+        List<String> keys = new ArrayList<>(values.keySet());
+        keys.removeIf(key -> get(key) == null);
+        return Set.copyOf(keys);
+    }
+
+    @Override
+    public void close() throws IOException {
+        resume();
+        server.close();
+        dropConnections();
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                Socket client = server.accept();
+                connections.incrementAndGet();
+                clients.add(client);
+                Thread thread = new Thread(
+                        () -> serve(client),
+                        "fake-redis-client"
+                );
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (IOException e) {
+            // server is closed
+        }
+    }
+
+    private void serve(
+            final Socket client
+    ) {
+        try (client) {
+            InputStream in = new BufferedInputStream(client.getInputStream());
+            OutputStream out = new BufferedOutputStream(
+                    client.getOutputStream()
+            );
+            boolean authenticated = password == null;
+            int batch = 0;
+            while (true) {
+                if (in.available() == 0) {
+                    out.flush();
+                    batch = 0;
+                }
+                List<String> command = command(in);
+                gate.await();
+                batch++;
+                maxBatch.accumulateAndGet(batch, Math::max);
+                Object reply;
+                String name = command.get(0).toUpperCase();
+                counts.computeIfAbsent(name, key -> new AtomicInteger())
+                        .incrementAndGet();
+                if (name.equals("AUTH")) {
+                    authenticated = command.get(command.size() - 1)
+                            .equals(password);
+                    if (authenticated) {
+                        reply = OK;
+                    } else {
+                        reply = new IllegalStateException(
+                                "WRONGPASS invalid username-password pair"
+                        );
+                    }
+                } else if (!authenticated) {
+                    reply = new IllegalStateException(
+                            "NOAUTH Authentication required."
+                    );
+                } else {
+                    reply = execute(name, command);
+                }
+                write(reply, out);
+            }
+        } catch (IOException | InterruptedException e) {
+            // client is disconnected
+        } finally {
+            clients.remove(client);
+        }
+    }
+
+    private Object execute(
+            final String name,
+            final List<String> command
+    ) {
+        synchronized (this) {
+            switch (name) {
+                case "PING":
+                    return "PONG";
+                case "SET":
+                    set(command.get(1), command.get(2));
+                    return OK;
+                case "GET":
+                    return get(command.get(1));
+                case "MGET":
+                    List<String> replies = new ArrayList<>();
+                    for (String key : command.subList(1, command.size())) {
+                        replies.add(get(key));
+                    }
+                    return replies;
+                case "CLIENT":
+                    return OK;
+                case "DEL":
+                    long removed = 0;
+                    for (String key : command.subList(1, command.size())) {
+                        if (delete(key)) {
+                            removed++;
+                        }
+                    }
+                    return removed;
+                case "PEXPIREAT":
+                    if (expireAt(command.get(1),
+                            Long.parseLong(command.get(2)))) {
+                        return 1L;
+                    }
+                    return 0L;
+                case "EVAL":
+                    return eval(command);
+                case "EVALSHA":
+                    return evalSha(command);
+                case "SCRIPT":
+                    return script(command);
+                default:
+                    return new IllegalStateException(
+                            "ERR unknown command '" + name + "'"
+                    );
+            }
+        }
+    }
+
+    private Object evalSha(
+            final List<String> command
+    ) {
+        String source = sources.get(command.get(1).toLowerCase());
+        if (source == null || !loaded.contains(command.get(1))) {
+            return new IllegalStateException(
+                    "NOSCRIPT No matching script. Please use EVAL."
+            );
+        }
+        List<String> eval = new ArrayList<>(command);
+        eval.set(1, source);
+        return eval(eval);
+    }
+
+    private Object script(
+            final List<String> command
+    ) {
+        String subcommand = command.get(1).toUpperCase();
+        if (subcommand.equals("LOAD")) {
+            String sha = sha1(command.get(2));
+            loaded.add(sha);
+            return sha;
+        }
+        if (subcommand.equals("FLUSH")) {
+            flushScripts();
+            return OK;
+        }
+        return new IllegalStateException(
+                "ERR unknown subcommand '" + subcommand + "'"
+        );
+    }
+
+    private Object eval(
+            final List<String> command
+    ) {
+        var handler = scripts.get(command.get(1));
+        if (handler == null) {
+            return new IllegalStateException("NOSCRIPT No matching script.");
+        }
+        loaded.add(sha1(command.get(1)));
+        int keys = Integer.parseInt(command.get(2));
+        return handler.apply(
+                List.copyOf(command.subList(3, 3 + keys)),
+                List.copyOf(command.subList(3 + keys, command.size()))
+        );
+    }
+
+    private static String sha1(
+            final String source
+    ) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-1")
+                            .digest(source.getBytes(StandardCharsets.UTF_8))
+            );
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> command(
+            final InputStream in
+    ) throws IOException {
+        String header = line(in);
+        if (header.charAt(0) != '*') {
+            throw new IOException("Expected array of bulk strings.");
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<String> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(line(in).substring(1));
+            byte[] bytes = in.readNBytes(length + 2);
+            if (bytes.length < length + 2) {
+                throw new EOFException();
+            }
+            args.add(new String(bytes, 0, length, StandardCharsets.UTF_8));
+        }
+        return args;
+    }
+
+    private static String line(
+            final InputStream in
+    ) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b = in.read();
+        while (b != '\r') {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            line.append((char) b);
+            b = in.read();
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static void write(
+            final Object reply,
+            final OutputStream out
+    ) throws IOException {
+        StringBuilder text = new StringBuilder();
+        if (reply == OK) {
+            text.append("+OK\r\n");
+        } else if (reply == null) {
+            text.append("$-1\r\n");
+        } else if (reply instanceof Exception) {
+            text.append('-').append(((Exception) reply).getMessage())
+                    .append("\r\n");
+        } else if (reply instanceof Number) {
+            text.append(':').append(((Number) reply).longValue())
+                    .append("\r\n");
+        } else if (reply instanceof Boolean) {
+            if ((Boolean) reply) {
+                text.append(":1\r\n");
+            } else {
+                text.append("$-1\r\n");
+            }
+        } else if (reply instanceof List) {
+            List<?> list = (List<?>) reply;
+            out.write(("*" + list.size() + "\r\n").getBytes(
+                    StandardCharsets.UTF_8
+            ));
+            for (Object value : list) {
+                write(value, out);
+            }
+            return;
+        } else {
+            byte[] bytes = reply.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(("$" + bytes.length + "\r\n").getBytes(
+                    StandardCharsets.UTF_8
+            ));
+            out.write(bytes);
+            text.append("\r\n");
+        }
+        out.write(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,166 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.fake.FakeTokenStorageImpl;
+import io.github.ilyalisov.jwt.storage.TokenStorageImpl;
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncTokenServiceTests {
+
+    private static final String SECRET_KEY = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+
+    private static TokenParameters params(
+            final String subject
+    ) {
+        return TokenParameters.builder(
+                        subject,
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+    }
+
+    @Test
+    void shouldDelegateToPersistentService() {
+        AsyncTokenService service = AsyncTokenService.of(
+                new PersistentTokenServiceImpl(
+                        SECRET_KEY,
+                        new TokenStorageImpl()
+                )
+        );
+
+        String token = service.create(params("first")).join();
+        List<String> tokens = service.createAll(
+                List.of(params("second"), params("third"))
+        ).join();
+
+        assertEquals("first", service.decode(token).join().getSubject());
+        assertEquals(
+                "third",
+                service.decode(tokens.get(1)).join().getSubject()
+        );
+        assertTrue(service.validate(token).join().isValid());
+        assertTrue(service.invalidate(token).join());
+        assertEquals(
+                TokenStatus.REVOKED,
+                service.validate(token).join().getStatus()
+        );
+        assertTrue(service.invalidate(params("second")).join());
+        assertFalse(service.invalidate(params("second")).join());
+    }
+
+    @Test
+    void shouldNotBlockCallerOnStorage() {
+        CountDownLatch release = new CountDownLatch(1);
+        FakeTokenStorageImpl storage = new FakeTokenStorageImpl() {
+            @Override
+            public String get(
+                    final TokenParameters params
+            ) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.get(params);
+            }
+        };
+        AsyncTokenService service = AsyncTokenService.of(
+                new PersistentTokenServiceImpl(SECRET_KEY, storage)
+        );
+
+        CompletableFuture<String> token = service.create(params("subject"));
+
+        assertFalse(token.isDone());
+        release.countDown();
+        assertEquals(
+                "subject",
+                service.decode(token.join()).join().getSubject()
+        );
+    }
+
+    @Test
+    void blockedStorageCallsShouldNotStallOtherCalls() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        FakeTokenStorageImpl storage = new FakeTokenStorageImpl() {
+            @Override
+            public String get(
+                    final TokenParameters params
+            ) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.get(params);
+            }
+        };
+        PersistentTokenServiceImpl persistent =
+                new PersistentTokenServiceImpl(SECRET_KEY, storage);
+        AsyncTokenService service = AsyncTokenService.of(persistent);
+        String token = new TokenServiceImpl(SECRET_KEY).create(
+                params("other")
+        );
+        List<CompletableFuture<String>> blocked = new ArrayList<>();
+        try {
+            int calls = Runtime.getRuntime().availableProcessors() * 4;
+            for (int i = 0; i < calls; i++) {
+                blocked.add(service.create(params("subject" + i)));
+            }
+
+            DecodedToken decoded = service.decode(token)
+                    .get(10, TimeUnit.SECONDS);
+
+            assertEquals("other", decoded.getSubject());
+            assertTrue(blocked.stream().noneMatch(CompletableFuture::isDone));
+        } finally {
+            release.countDown();
+        }
+        for (CompletableFuture<String> future : blocked) {
+            assertTrue(persistent.validate(future.join()).isValid());
+        }
+    }
+
+    @Test
+    void shouldCompleteExceptionally() {
+        AsyncTokenService service = AsyncTokenService.of(
+                new TokenServiceImpl(SECRET_KEY),
+                Runnable::run
+        );
+
+        CompletionException malformed = assertThrows(
+                CompletionException.class,
+                () -> service.decode("a.b").join()
+        );
+        CompletionException unsupported = assertThrows(
+                CompletionException.class,
+                () -> service.invalidate("a.b.c").join()
+        );
+
+        assertInstanceOf(MalformedJwtException.class, malformed.getCause());
+        assertInstanceOf(
+                UnsupportedOperationException.class,
+                unsupported.getCause()
+        );
+        assertEquals(
+                TokenStatus.MALFORMED,
+                service.validate("a.b").join().getStatus()
+        );
+    }
+
+}
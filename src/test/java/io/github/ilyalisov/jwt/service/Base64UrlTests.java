@@ -0,0 +1,78 @@
+package io.github.ilyalisov.jwt.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Base64UrlTests {
+
+    @Test
+    void shouldMatchJdkCodec() {
+        Random random = new Random(42);
+        for (int length = 0; length < 100; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String expected = Base64.getUrlEncoder()
+                    .withoutPadding()
+                    .encodeToString(data);
+
+            byte[] encoded = new byte[Base64Url.encodedLength(length)];
+            int end = Base64Url.encode(data, 0, length, encoded, 0);
+            assertEquals(encoded.length, end);
+            assertEquals(expected, new String(encoded));
+
+            byte[] decoded = new byte[Base64Url.decodedLength(end)];
+            end = Base64Url.decode(expected, 0, expected.length(), decoded, 0);
+            assertEquals(length, end);
+            assertArrayEquals(data, Arrays.copyOf(decoded, end));
+
+            byte[] ascii = expected.getBytes(StandardCharsets.US_ASCII);
+            Arrays.fill(decoded, (byte) 0);
+            end = Base64Url.decode(ascii, 0, ascii.length, decoded, 0);
+            assertEquals(length, end);
+            assertArrayEquals(data, Arrays.copyOf(decoded, end));
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidInput() {
+        byte[] buffer = new byte[16];
+        assertEquals(-1, Base64Url.decode("ab+c", 0, 4, buffer, 0));
+        assertEquals(-1, Base64Url.decode("abc=", 0, 4, buffer, 0));
+        assertEquals(-1, Base64Url.decode("abcde", 0, 5, buffer, 0));
+        assertEquals(-1, Base64Url.decode("abcdeŁ", 0, 6, buffer, 0));
+        assertEquals(-1, Base64Url.decode("abŁd", 0, 4, buffer, 0));
+        assertEquals(-1, Base64Url.decode(bytes("ab/c"), 0, 4, buffer, 0));
+        assertEquals(-1, Base64Url.decode(bytes("abcde"), 0, 5, buffer, 0));
+        assertEquals(-1, Base64Url.decode(bytes("abcde+"), 0, 6, buffer, 0));
+        assertEquals(
+                -1,
+                Base64Url.decode(new byte[]{'a', 'b', (byte) 0xe9}, 0, 3,
+                        buffer, 0)
+        );
+    }
+
+    @Test
+    void shouldDecodeSlice() {
+        byte[] buffer = new byte[4];
+        buffer[0] = 9;
+
+        int end = Base64Url.decode("x.e30.y", 2, 5, buffer, 1);
+
+        assertEquals(3, end);
+        assertArrayEquals(new byte[]{9, '{', '}', 0}, buffer);
+    }
+
+    private static byte[] bytes(
+            final String value
+    ) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,153 @@
+package io.github.ilyalisov.jwt.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecodedTokenTests {
+
+    @Test
+    void shouldNotExposeMutableState() {
+        Date issuedAt = new Date(1000);
+        Date expiredAt = new Date(2000);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("key", "value");
+
+        DecodedToken token = new DecodedToken(
+                "subject",
+                "type",
+                issuedAt,
+                expiredAt,
+                claims
+        );
+        issuedAt.setTime(0);
+        token.getExpiredAt().setTime(0);
+
+        assertEquals(1000, token.getIssuedAt().getTime());
+        assertEquals(2000, token.getExpiredAt().getTime());
+        assertNotSame(token.getIssuedAt(), token.getIssuedAt());
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> token.getClaims().put("key", "other")
+        );
+    }
+
+    @Test
+    void withoutExpirationShouldNotBeExpired() {
+        DecodedToken token = new DecodedToken(
+                "subject",
+                "type",
+                null,
+                null,
+                new HashMap<>()
+        );
+
+        assertNull(token.getIssuedAt());
+        assertNull(token.getExpiredAt());
+        assertFalse(token.isExpired(new Date()));
+    }
+
+    @Test
+    void withPastExpirationShouldBeExpired() {
+        DecodedToken token = new DecodedToken(
+                "subject",
+                "type",
+                new Date(0),
+                new Date(1000),
+                new HashMap<>()
+        );
+
+        assertTrue(token.isExpired(new Date()));
+    }
+
+    @Test
+    void nestedClaimsShouldBeReadOnlyViews() {
+        List<Object> permissions = new ArrayList<>(List.of("read", "write"));
+        Map<String, Object> tenant = new HashMap<>();
+        tenant.put("id", 42);
+        tenant.put("tags", new ArrayList<>(List.of("a")));
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("permissions", permissions);
+        claims.put("tenant", tenant);
+
+        DecodedToken token = new DecodedToken(
+                "subject",
+                "type",
+                null,
+                null,
+                claims
+        );
+        List<?> viewed = token.claim("permissions", List.class);
+        Map<?, ?> nested = token.claim("tenant", Map.class);
+
+        assertEquals(permissions, viewed);
+        assertEquals(tenant, nested);
+        assertEquals(claims, token.getClaims());
+        assertEquals(claims.hashCode(), token.getClaims().hashCode());
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> viewed.remove(0)
+        );
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> nested.remove("id")
+        );
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> ((List<?>) nested.get("tags")).clear()
+        );
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> token.getClaims().entrySet().clear()
+        );
+        for (Map.Entry<String, Object> entry : token.getClaims().entrySet()) {
+            assertThrows(
+                    UnsupportedOperationException.class,
+                    () -> entry.setValue("other")
+            );
+        }
+    }
+
+    @Test
+    void claimShouldConvertNumbers() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("small", 42);
+        claims.put("big", 5_000_000_000L);
+        claims.put("text", "value");
+
+        DecodedToken token = new DecodedToken(
+                "subject",
+                "type",
+                null,
+                null,
+                claims
+        );
+
+        assertEquals(42L, token.claim("small", Long.class));
+        assertEquals(42, token.claim("small", Integer.class));
+        assertEquals(42.0, token.claim("small", Double.class));
+        assertEquals(42, token.claim("small", Number.class));
+        assertEquals(5_000_000_000L, token.claim("big", Long.class));
+        assertNull(token.claim("missing", Long.class));
+        assertThrows(
+                ClassCastException.class,
+                () -> token.claim("big", Integer.class)
+        );
+        assertThrows(
+                ClassCastException.class,
+                () -> token.claim("text", Long.class)
+        );
+    }
+
+}
@@ -0,0 +1,174 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class HmacSignerTests {
+
+    private static final int[] KEY_SIZES = {256, 384, 512};
+
+    private static SecretKey key(
+            final int bits
+    ) {
+        byte[] bytes = new byte[bits / 8];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31 + 7);
+        }
+        return Keys.hmacShaKeyFor(bytes);
+    }
+
+    private static Map<String, Object> payload() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sub", "user@example.com");
+        payload.put("text", "quote \" slash \\ line \n unicode é");
+        payload.put("number", 123);
+        payload.put("list", List.of(1, "two", true));
+        payload.put("map", Map.of("key", 2.5));
+        payload.put("tokenType", "access");
+        payload.put("iat", 1_700_000_000L);
+        payload.put("exp", 1_700_003_600L);
+        return payload;
+    }
+
+    @Test
+    void signShouldProduceSameTokenAsJjwt() {
+        for (int bits : KEY_SIZES) {
+            SecretKey key = key(bits);
+            Map<String, Object> payload = payload();
+
+            String token = HmacSigner.of(key)
+                    .sign(Json.serialize(payload));
+
+            String expected = Jwts.builder()
+                    .claims(payload)
+                    .signWith(key)
+                    .compact();
+            assertEquals(expected, token);
+        }
+    }
+
+    @Test
+    void verifyShouldAcceptJjwtToken() {
+        for (int bits : KEY_SIZES) {
+            SecretKey key = key(bits);
+            Map<String, Object> payload = payload();
+            String token = Jwts.builder()
+                    .claims(payload)
+                    .signWith(key)
+                    .compact();
+
+            HmacSigner signer = HmacSigner.of(key);
+            int length = signer.verify(token);
+
+            assertArrayEquals(
+                    Json.serialize(payload),
+                    Arrays.copyOf(signer.payload(), length)
+            );
+        }
+    }
+
+    @Test
+    void verifyShouldRejectTamperedSignature() {
+        for (int bits : KEY_SIZES) {
+            HmacSigner signer = HmacSigner.of(key(bits));
+            String token = signer.sign(
+                    "{\"sub\":\"x\"}".getBytes(StandardCharsets.UTF_8)
+            );
+            String tampered = token.substring(0, token.length() - 2)
+                    + "AA";
+
+            assertEquals(HmacSigner.BAD_SIGNATURE, signer.verify(tampered));
+            assertEquals(
+                    HmacSigner.BAD_SIGNATURE,
+                    signer.verify(token + "A")
+            );
+        }
+    }
+
+    @Test
+    void verifyShouldSkipUnknownHeader() {
+        SecretKey key = key(256);
+        String token = Jwts.builder()
+                .header()
+                .keyId("kid")
+                .and()
+                .subject("x")
+                .signWith(key)
+                .compact();
+        String hs256 = HmacSigner.of(key)
+                .sign(new byte[]{'{', '}'});
+
+        assertEquals(HmacSigner.FOREIGN, HmacSigner.of(key).verify(token));
+        assertEquals(
+                HmacSigner.FOREIGN,
+                HmacSigner.of(key(512)).verify(hs256)
+        );
+        assertEquals(HmacSigner.FOREIGN, HmacSigner.of(key).verify("abc"));
+    }
+
+    @Test
+    void verifyShouldRejectMalformedToken() {
+        HmacSigner signer = HmacSigner.of(key(256));
+        String token = signer.sign(new byte[]{'{', '}'});
+        String header = token.substring(0, token.indexOf('.') + 1);
+
+        String valid = signer.sign(new byte[]{'{', '}', ' '});
+
+        assertEquals(HmacSigner.MALFORMED, signer.verify(header + "e30"));
+        assertEquals(HmacSigner.MALFORMED, signer.verify(header + "e30.a.b"));
+        assertEquals(HmacSigner.MALFORMED, signer.verify(header + "e3Ł.abc"));
+        assertEquals(3, signer.verify(valid));
+        assertArrayEquals(
+                new byte[]{'{', '}', ' '},
+                Arrays.copyOf(signer.payload(), 3)
+        );
+    }
+
+    @Test
+    void verifyShouldReusePayloadBuffer() {
+        HmacSigner signer = HmacSigner.of(key(256));
+        String first = signer.sign("{\"sub\":\"first\"}".getBytes());
+        String second = signer.sign("{\"sub\":\"2\"}".getBytes());
+
+        signer.verify(first);
+        byte[] buffer = signer.payload();
+        int length = signer.verify(second);
+
+        assertSame(buffer, signer.payload());
+        assertEquals(
+                "{\"sub\":\"2\"}",
+                new String(buffer, 0, length, StandardCharsets.UTF_8)
+        );
+    }
+
+    @Test
+    void shouldCacheDecodedHeader() {
+        HmacSigner signer = HmacSigner.of(key(512), "k1");
+
+        assertEquals(
+                Map.of("kid", "k1", "alg", "HS512"),
+                signer.headerClaims()
+        );
+        assertSame(signer.headerClaims(), signer.headerClaims());
+    }
+
+    @Test
+    void shouldNotSupportNonHmacKey() {
+        assertNull(HmacSigner.of(new SecretKeySpec(new byte[32], "AES")));
+    }
+
+}
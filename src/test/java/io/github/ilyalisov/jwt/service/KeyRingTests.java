@@ -0,0 +1,205 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.github.ilyalisov.jwt.cache.ClockTokenCache;
+import io.github.ilyalisov.jwt.config.ServiceParameters;
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyRingTests {
+
+    private static final String FIRST_SECRET = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+    private static final String SECOND_SECRET = "YW5vdGhlcmxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25n";
+
+    private static TokenParameters params() {
+        return TokenParameters.builder(
+                        "user@example.com",
+                        "access",
+                        Duration.ofMinutes(30)
+                )
+                .claim("role", "ADMIN")
+                .build();
+    }
+
+    private static String header(
+            final String token
+    ) {
+        return new String(
+                Base64.getUrlDecoder()
+                        .decode(token.substring(0, token.indexOf('.'))),
+                StandardCharsets.UTF_8
+        );
+    }
+
+    @Test
+    void shouldManageKeys() {
+        KeyRing keyRing = new KeyRing("k1", FIRST_SECRET);
+        keyRing.add("k2", SECOND_SECRET);
+
+        assertEquals("k1", keyRing.getActiveKeyId());
+        assertEquals(Set.of("k1", "k2"), keyRing.getKeyIds());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> keyRing.add("k2", FIRST_SECRET)
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> keyRing.activate("k3")
+        );
+        assertThrows(
+                IllegalStateException.class,
+                () -> keyRing.retire("k1")
+        );
+
+        keyRing.activate("k2");
+        assertEquals("k2", keyRing.getActiveKeyId());
+        assertTrue(keyRing.retire("k1"));
+        assertFalse(keyRing.retire("k1"));
+        assertEquals(Set.of("k2"), keyRing.getKeyIds());
+    }
+
+    @Test
+    void shouldRotateKeys() {
+        KeyRing keyRing = new KeyRing("k1", FIRST_SECRET);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(keyRing)
+                        .build()
+        );
+        String first = service.create(params());
+        assertEquals("{\"kid\":\"k1\",\"alg\":\"HS512\"}", header(first));
+
+        keyRing.add("k2", SECOND_SECRET);
+        keyRing.activate("k2");
+        String second = service.create(params());
+        assertEquals("{\"kid\":\"k2\",\"alg\":\"HS512\"}", header(second));
+        assertEquals("user@example.com", service.getSubject(first));
+        assertEquals("user@example.com", service.getSubject(second));
+
+        keyRing.retire("k1");
+        assertThrows(JwtException.class, () -> service.decode(first));
+        assertEquals("user@example.com", service.getSubject(second));
+    }
+
+    @Test
+    void shouldProduceSameTokenAsJjwt() {
+        KeyRing keyRing = new KeyRing("k1", FIRST_SECRET);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(keyRing)
+                        .build()
+        );
+        TokenParameters params = params();
+
+        String expected = Jwts.builder()
+                .header()
+                .keyId("k1")
+                .and()
+                .subject(params.getSubject())
+                .claims(params.getClaims())
+                .claim(TokenServiceImpl.TOKEN_TYPE_KEY, params.getType())
+                .issuedAt(params.getIssuedAt())
+                .expiration(params.getExpiredAt())
+                .signWith(Keys.hmacShaKeyFor(FIRST_SECRET.getBytes()))
+                .compact();
+
+        assertEquals(expected, service.create(params));
+    }
+
+    @Test
+    void shouldVerifyTokenWithOtherHeaderByKeyId() {
+        KeyRing keyRing = new KeyRing("k1", FIRST_SECRET);
+        keyRing.add("k2", SECOND_SECRET);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(keyRing)
+                        .build()
+        );
+
+        String token = Jwts.builder()
+                .header()
+                .keyId("k2")
+                .type("JWT")
+                .and()
+                .subject("user@example.com")
+                .signWith(Keys.hmacShaKeyFor(SECOND_SECRET.getBytes()))
+                .compact();
+
+        assertEquals("user@example.com", service.getSubject(token));
+    }
+
+    @Test
+    void shouldVerifyTokenWithoutKeyIdWithSecret() {
+        String legacy = new TokenServiceImpl(FIRST_SECRET)
+                .create(params());
+        KeyRing keyRing = new KeyRing("k2", SECOND_SECRET);
+
+        TokenServiceImpl withSecret = new TokenServiceImpl(
+                ServiceParameters.builder(keyRing)
+                        .secret(FIRST_SECRET)
+                        .build()
+        );
+        TokenServiceImpl withoutSecret = new TokenServiceImpl(
+                ServiceParameters.builder(keyRing)
+                        .build()
+        );
+
+        assertEquals("user@example.com", withSecret.getSubject(legacy));
+        assertThrows(
+                JwtException.class,
+                () -> withoutSecret.decode(legacy)
+        );
+        assertEquals(
+                "{\"kid\":\"k2\",\"alg\":\"HS512\"}",
+                header(withSecret.create(params()))
+        );
+    }
+
+    @Test
+    void retireShouldClearCache() {
+        KeyRing keyRing = new KeyRing("k1", FIRST_SECRET);
+        ClockTokenCache cache = new ClockTokenCache(100, 1_000_000);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(keyRing)
+                        .cache(cache)
+                        .build()
+        );
+        String token = service.create(params());
+        service.decode(token);
+        assertEquals(1, cache.size());
+
+        keyRing.add("k2", SECOND_SECRET);
+        keyRing.activate("k2");
+        keyRing.retire("k1");
+
+        assertThrows(JwtException.class, () -> service.decode(token));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void templateShouldSignWithActiveKey() {
+        KeyRing keyRing = new KeyRing("k1", FIRST_SECRET);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(keyRing)
+                        .build()
+        );
+        TokenTemplate template = service.template(params());
+        keyRing.add("k2", SECOND_SECRET);
+        keyRing.activate("k2");
+
+        String token = template.create("other@example.com");
+
+        assertEquals("{\"kid\":\"k2\",\"alg\":\"HS512\"}", header(token));
+        assertEquals("other@example.com", service.getSubject(token));
+    }
+
+}
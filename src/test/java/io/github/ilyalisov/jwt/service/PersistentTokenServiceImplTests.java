@@ -1,13 +1,21 @@
 package io.github.ilyalisov.jwt.service;
 
+import io.github.ilyalisov.jwt.cache.ClockTokenCache;
+import io.github.ilyalisov.jwt.codec.UserClaims;
+import io.github.ilyalisov.jwt.config.ServiceParameters;
 import io.github.ilyalisov.jwt.config.TokenParameters;
 import io.github.ilyalisov.jwt.fake.FakeTokenStorageImpl;
 import io.github.ilyalisov.jwt.storage.TokenStorage;
+import io.github.ilyalisov.jwt.storage.TokenStorageImpl;
+import io.github.ilyalisov.jwt.storage.TokenStorageMode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -319,4 +327,208 @@ class PersistentTokenServiceImplTests {
         assertNotEquals(token, newToken);
     }
 
+    @Test
+    void invalidateShouldEvictCachedToken() {
+        ClockTokenCache cache = new ClockTokenCache(100, 1_000_000);
+        PersistentTokenServiceImpl service = new PersistentTokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .cache(cache)
+                        .build(),
+                new FakeTokenStorageImpl()
+        );
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String token = service.create(params);
+        service.decode(token);
+        assertEquals(1, cache.size());
+
+        service.invalidate(token);
+        assertEquals(0, cache.size());
+
+        token = service.create(params);
+        service.decode(token);
+        assertEquals(1, cache.size());
+
+        service.invalidate(params);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidateShouldEvictTokenCachedWhileItIsRemoved() {
+        ClockTokenCache cache = new ClockTokenCache(100, 1_000_000);
+        PersistentTokenServiceImpl[] service =
+                new PersistentTokenServiceImpl[1];
+        String[] token = new String[1];
+        TokenStorage storage = new FakeTokenStorageImpl() {
+
+            @Override
+            public boolean remove(
+                    final TokenParameters params
+            ) {
+                service[0].validate(token[0]);
+                return super.remove(params);
+            }
+
+        };
+        service[0] = new PersistentTokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .cache(cache)
+                        .build(),
+                storage
+        );
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        token[0] = service[0].create(params);
+
+        assertTrue(service[0].invalidate(params));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void validationShouldEvictTokenInvalidatedByDigest() {
+        ClockTokenCache cache = new ClockTokenCache(100, 1_000_000);
+        PersistentTokenServiceImpl service = new PersistentTokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .cache(cache)
+                        .build(),
+                new TokenStorageImpl(
+                        Clock.systemUTC(),
+                        TokenStorageImpl.DEFAULT_TICK,
+                        TokenStorageMode.DIGEST
+                )
+        );
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String token = service.create(params);
+        assertEquals(TokenStatus.VALID, service.validate(token).getStatus());
+        assertEquals(1, cache.size());
+
+        assertTrue(service.invalidate(params));
+
+        assertEquals(TokenStatus.REVOKED, service.validate(token).getStatus());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void recordTokensShouldBeSavedToStorage() {
+        UserClaims claims = new UserClaims("testSubject", 42, 5);
+
+        String token = tokenService.create(claims, Duration.ofMinutes(30));
+
+        assertTrue(tokenService.validate(token).isValid());
+        assertEquals(claims, tokenService.decode(token, UserClaims.class));
+        assertTrue(tokenService.invalidate(token));
+        assertEquals(
+                TokenStatus.REVOKED,
+                tokenService.validate(token).getStatus()
+        );
+    }
+
+    @Test
+    void createAllShouldSaveTokensInOneBatch() {
+        List<Map<String, TokenParameters>> batches = new ArrayList<>();
+        TokenStorage storage = new FakeTokenStorageImpl() {
+
+            @Override
+            public void saveAll(
+                    final Map<String, TokenParameters> tokens
+            ) {
+                batches.add(tokens);
+                super.saveAll(tokens);
+            }
+
+        };
+        PersistentTokenServiceImpl service = new PersistentTokenServiceImpl(
+                SECRET_KEY,
+                storage
+        );
+        List<TokenParameters> params = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            params.add(
+                    TokenParameters.builder(
+                                    "subject" + i,
+                                    "any",
+                                    Duration.ofMinutes(30)
+                            )
+                            .build()
+            );
+        }
+
+        List<String> tokens = service.createAll(params);
+
+        assertEquals(1, batches.size());
+        assertEquals(params.size(), batches.get(0).size());
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals(tokens.get(i), storage.get(params.get(i)));
+            assertEquals("subject" + i, service.getSubject(tokens.get(i)));
+        }
+    }
+
+    @Test
+    void validateShouldReportRevokedToken() {
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String token = tokenService.create(params);
+
+        assertEquals(TokenStatus.VALID, tokenService.validate(token).getStatus());
+
+        tokenService.invalidate(token);
+
+        TokenValidationResult result = tokenService.validate(token);
+        assertEquals(TokenStatus.REVOKED, result.getStatus());
+        assertNull(result.getToken());
+    }
+
+    @Test
+    void digestStorageShouldReplaceTokenOnCreate() {
+        PersistentTokenServiceImpl service = new PersistentTokenServiceImpl(
+                SECRET_KEY,
+                new TokenStorageImpl(
+                        Clock.systemUTC(),
+                        TokenStorageImpl.DEFAULT_TICK,
+                        TokenStorageMode.DIGEST
+                )
+        );
+        String first = service.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(30)
+                        )
+                        .build()
+        );
+
+        String second = service.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(31)
+                        )
+                        .build()
+        );
+
+        assertNotEquals(first, second);
+        assertEquals(TokenStatus.REVOKED, service.validate(first).getStatus());
+        assertEquals(TokenStatus.VALID, service.validate(second).getStatus());
+        assertTrue(service.invalidate(second));
+        assertEquals(TokenStatus.REVOKED, service.validate(second).getStatus());
+    }
+
 }
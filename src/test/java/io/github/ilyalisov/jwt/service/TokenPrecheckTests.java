@@ -0,0 +1,107 @@
+package io.github.ilyalisov.jwt.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TokenPrecheckTests {
+
+    private static String token(
+            final String payload
+    ) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes())
+                + "."
+                + encoder.encodeToString(
+                payload.getBytes(StandardCharsets.UTF_8)
+        )
+                + ".c2lnbmF0dXJl";
+    }
+
+    @Test
+    void shouldRejectByStructure() {
+        assertNull(TokenPrecheck.check("a.b.c", 100));
+        assertEquals(
+                RejectionReason.SEGMENTS,
+                TokenPrecheck.check("a.b", 100)
+        );
+        assertEquals(
+                RejectionReason.SEGMENTS,
+                TokenPrecheck.check("a.b.c.d", 100)
+        );
+        assertEquals(
+                RejectionReason.LENGTH,
+                TokenPrecheck.check("a.b.c", 4)
+        );
+        assertEquals(
+                RejectionReason.LENGTH,
+                TokenPrecheck.check(".b.c", 100)
+        );
+        assertEquals(
+                RejectionReason.LENGTH,
+                TokenPrecheck.check("a..c", 100)
+        );
+        assertEquals(
+                RejectionReason.LENGTH,
+                TokenPrecheck.check("a.b.", 100)
+        );
+        assertEquals(
+                RejectionReason.CHARSET,
+                TokenPrecheck.check("a.b+.c", 100)
+        );
+        assertEquals(
+                RejectionReason.CHARSET,
+                TokenPrecheck.check("a.b.c=", 100)
+        );
+        assertEquals(
+                RejectionReason.CHARSET,
+                TokenPrecheck.check("a.é.c", 100)
+        );
+    }
+
+    @Test
+    void shouldReadExpiration() {
+        assertEquals(
+                1700000000L,
+                TokenPrecheck.expiration(
+                        token("{\"sub\":\"a\",\"exp\":1700000000}")
+                )
+        );
+        assertEquals(
+                42L,
+                TokenPrecheck.expiration(token("{ \"exp\" : 42 }"))
+        );
+        assertEquals(
+                42L,
+                TokenPrecheck.expiration(
+                        token("{\"a\":{\"exp\":1},\"b\":\"\\\"exp\\\":2\","
+                                + "\"c\":[\"exp\"],\"exp\":42}")
+                )
+        );
+    }
+
+    @Test
+    void shouldSkipUnreadableExpiration() {
+        String[] payloads = {
+                "{\"sub\":\"a\"}",
+                "{\"a\":{\"exp\":1}}",
+                "{\"exp\":1.5}",
+                "{\"exp\":1e10}",
+                "{\"exp\":\"1\"}",
+                "{\"exp\":12345678901234567890}",
+                "not json"
+        };
+        for (String payload : payloads) {
+            assertEquals(
+                    TokenPrecheck.NO_EXPIRATION,
+                    TokenPrecheck.expiration(token(payload)),
+                    payload
+            );
+        }
+    }
+
+}
@@ -1,17 +1,41 @@
 package io.github.ilyalisov.jwt.service;
 
+import io.github.ilyalisov.jwt.cache.ClockTokenCache;
+import io.github.ilyalisov.jwt.codec.JjwtClaimsCodec;
+import io.github.ilyalisov.jwt.codec.UserClaims;
+import io.github.ilyalisov.jwt.config.ServiceParameters;
 import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.time.ManualClock;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TokenServiceImplTests {
@@ -203,6 +227,30 @@ class TokenServiceImplTests {
         assertEquals("value1", claim);
     }
 
+    @Test
+    void shouldReturnTypedClaimValue() {
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .claim("id", 123)
+                .claim("permissions", List.of("read", "write"))
+                .build();
+
+        String token = tokenService.create(params);
+
+        assertEquals(123L, tokenService.claim(token, "id", Long.class));
+        assertEquals(
+                List.of("read", "write"),
+                tokenService.claim(token, "permissions", List.class)
+        );
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> tokenService.claims(token).put("id", 1)
+        );
+    }
+
     @Test
     void shouldReturnNull() {
         String subject = "testSubject";
@@ -228,4 +276,839 @@ class TokenServiceImplTests {
         assertNull(claim);
     }
 
+    @Test
+    void isExpiredWithLeewayShouldAcceptRecentlyExpiredToken() {
+        Instant now = Instant.now();
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .leeway(Duration.ofMinutes(5))
+                        .clock(Clock.fixed(now, ZoneOffset.UTC))
+                        .build()
+        );
+
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .issuedAt(Date.from(now.minusSeconds(600)))
+                .expiredAt(Date.from(now.minusSeconds(60)))
+                .build();
+        String token = service.create(params);
+
+        assertEquals("testSubject", service.getSubject(token));
+        assertFalse(service.isExpired(token));
+    }
+
+    @Test
+    void expiryRulesShouldHonorLeeway() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .leeway(Duration.ofSeconds(30))
+                        .clock(clock)
+                        .build()
+        );
+        String token = service.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(1),
+                                clock
+                        )
+                        .build()
+        );
+
+        clock.advance(Duration.ofSeconds(80));
+
+        assertTrue(service.validate(token).isValid());
+        assertEquals(List.of(true), service.validateAll(List.of(token)));
+        assertFalse(service.isExpired(token));
+        assertFalse(service.isExpired(token, clock.instant()));
+
+        clock.advance(Duration.ofSeconds(20));
+
+        assertEquals(
+                TokenStatus.EXPIRED,
+                service.validate(token).getStatus()
+        );
+        assertEquals(List.of(false), service.validateAll(List.of(token)));
+        assertTrue(service.isExpired(token));
+        assertTrue(service.isExpired(token, clock.instant()));
+    }
+
+    @Test
+    void isExpiredShouldUseConfiguredClock() {
+        Instant now = Instant.now();
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String token = tokenService.create(params);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .clock(Clock.fixed(
+                                now.plus(Duration.ofHours(1)),
+                                ZoneOffset.UTC
+                        ))
+                        .build()
+        );
+
+        assertFalse(tokenService.isExpired(token));
+        assertTrue(service.isExpired(token));
+    }
+
+    @Test
+    void isExpiredShouldFollowManualClock() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .clock(clock)
+                        .build()
+        );
+        String token = service.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(30),
+                                clock
+                        )
+                        .build()
+        );
+
+        assertFalse(service.isExpired(token));
+        assertFalse(service.isExpired(token, Instant.ofEpochSecond(2800)));
+        assertTrue(service.isExpired(token, Instant.ofEpochSecond(2801)));
+        assertTrue(service.decode(token).isExpired(Instant.ofEpochSecond(2801)));
+        clock.advance(Duration.ofMinutes(31));
+        assertTrue(service.isExpired(token));
+        assertEquals(
+                TokenStatus.EXPIRED,
+                service.validate(token).getStatus()
+        );
+    }
+
+    @Test
+    void shouldDecodeToken() {
+        String subject = "testSubject";
+        String type = "any";
+        Duration duration = Duration.ofMinutes(30);
+
+        TokenParameters params = TokenParameters.builder(
+                        subject,
+                        type,
+                        duration
+                )
+                .claim("testKey", "testValue")
+                .build();
+        String token = tokenService.create(params);
+
+        DecodedToken decoded = tokenService.decode(token);
+
+        assertEquals(subject, decoded.getSubject());
+        assertEquals(type, decoded.getType());
+        assertEquals(
+                params.getIssuedAt().getTime() / 1000,
+                decoded.getIssuedAt().getTime() / 1000
+        );
+        assertEquals(
+                params.getExpiredAt().getTime() / 1000,
+                decoded.getExpiredAt().getTime() / 1000
+        );
+        assertEquals("testValue", decoded.claim("testKey"));
+        assertEquals("testValue", decoded.claim("testKey", String.class));
+        assertTrue(decoded.has("testKey", "testValue"));
+        assertFalse(decoded.has("notExistingKey", "testValue"));
+        assertFalse(decoded.isExpired(new Date()));
+    }
+
+    @Test
+    void decodeShouldUseCache() {
+        ClockTokenCache cache = new ClockTokenCache(100, 1_000_000);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .cache(cache)
+                        .build()
+        );
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String token = service.create(params);
+
+        DecodedToken first = service.decode(token);
+        DecodedToken second = service.decode(token);
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void cachedTokenShouldExpireAgainstServiceClock() {
+        ManualClock clock = new ManualClock(Instant.now());
+        ClockTokenCache cache = new ClockTokenCache(100, 1_000_000);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .clock(clock)
+                        .leeway(Duration.ofSeconds(30))
+                        .cache(cache)
+                        .build()
+        );
+        String token = service.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(1),
+                                clock
+                        )
+                        .build()
+        );
+        service.decode(token);
+
+        clock.advance(Duration.ofSeconds(80));
+
+        assertTrue(service.validate(token).isValid());
+        assertEquals(1, cache.getHitCount());
+
+        clock.advance(Duration.ofSeconds(20));
+
+        assertEquals(
+                TokenStatus.EXPIRED,
+                service.validate(token).getStatus()
+        );
+        assertThrows(ExpiredJwtException.class, () -> service.decode(token));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void tokenVerifiedWhileKeyIsRetiredShouldNotStayCached() {
+        KeyRing keyRing = new KeyRing("k1", SECRET_KEY);
+        ClockTokenCache cache = new ClockTokenCache(100, 1_000_000) {
+            @Override
+            public void put(
+                    final String token,
+                    final DecodedToken decoded
+            ) {
+                keyRing.retire("k1");
+                super.put(token, decoded);
+            }
+        };
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(keyRing)
+                        .cache(cache)
+                        .build()
+        );
+        String token = service.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(30)
+                        )
+                        .build()
+        );
+        keyRing.add("k2", "other" + SECRET_KEY);
+        keyRing.activate("k2");
+
+        service.decode(token);
+
+        assertEquals(0, cache.size());
+        assertFalse(service.validate(token).isValid());
+    }
+
+    private List<String> batch(
+            final int size
+    ) {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (i % 7 == 0) {
+                tokens.add("invalidToken" + i);
+                continue;
+            }
+            tokens.add(tokenService.create(
+                    TokenParameters.builder(
+                                    "subject" + i,
+                                    "any",
+                                    Duration.ofMinutes(30)
+                            )
+                            .build()
+            ));
+        }
+        return tokens;
+    }
+
+    @Test
+    void decodeAllShouldKeepOrderAndReportErrors() {
+        List<String> tokens = batch(300);
+
+        List<DecodeResult> results = tokenService.decodeAll(tokens);
+
+        assertEquals(tokens.size(), results.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            DecodeResult result = results.get(i);
+            if (i % 7 == 0) {
+                assertFalse(result.isSuccess());
+                assertNull(result.getToken());
+                assertInstanceOf(RuntimeException.class, result.getError());
+            } else {
+                assertTrue(result.isSuccess());
+                assertEquals(
+                        "subject" + i,
+                        result.getToken().getSubject()
+                );
+            }
+        }
+    }
+
+    @Test
+    void validateAllShouldUseProvidedExecutor() {
+        List<String> tokens = batch(300);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Boolean> results = tokenService.validateAll(
+                    tokens,
+                    executor
+            );
+
+            assertEquals(tokens.size(), results.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                assertEquals(i % 7 != 0, results.get(i));
+            }
+            assertEquals(
+                    List.of(true, false),
+                    tokenService.validateAll(
+                            List.of(tokens.get(1), tokens.get(0))
+                    )
+            );
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private String createWithJjwt(
+            final TokenParameters params
+    ) {
+        return Jwts.builder()
+                .claims(Jwts.claims()
+                        .subject(params.getSubject())
+                        .add(params.getClaims())
+                        .add(TokenServiceImpl.TOKEN_TYPE_KEY, params.getType())
+                        .build())
+                .issuedAt(params.getIssuedAt())
+                .expiration(params.getExpiredAt())
+                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .compact();
+    }
+
+    @Test
+    void createShouldProduceSameTokenAsJjwt() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("role", "ADMIN");
+        claims.put("permissions", List.of("read", "write"));
+        claims.put("tenant", Map.of("id", 42));
+        claims.put("nothing", null);
+        claims.put(TokenServiceImpl.TOKEN_TYPE_KEY, "overridden");
+
+        TokenParameters params = TokenParameters.builder(
+                        "user@example.com",
+                        "access",
+                        Duration.ofMinutes(30)
+                )
+                .claims(claims)
+                .build();
+        TokenParameters registered = TokenParameters.builder(
+                        "user@example.com",
+                        "access",
+                        Duration.ofMinutes(30)
+                )
+                .claim("iss", "issuer")
+                .build();
+
+        assertEquals(createWithJjwt(params), tokenService.create(params));
+        assertEquals(
+                createWithJjwt(registered),
+                tokenService.create(registered)
+        );
+    }
+
+    @Test
+    void decodeShouldMatchJjwt() {
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .claim("number", 1)
+                .build();
+        String token = tokenService.create(params);
+
+        Map<String, Object> expected = new HashMap<>(
+                Jwts.parser()
+                        .verifyWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                        .build()
+                        .parseSignedClaims(token)
+                        .getPayload()
+        );
+
+        assertEquals(expected, tokenService.claims(token));
+    }
+
+    @Test
+    void decodeShouldVerifyTokenWithOtherHeader() {
+        String token = Jwts.builder()
+                .header()
+                .keyId("kid")
+                .and()
+                .subject("testSubject")
+                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .compact();
+
+        assertEquals("testSubject", tokenService.getSubject(token));
+    }
+
+    @Test
+    void decodeShouldRejectInvalidSignature() {
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String token = new TokenServiceImpl(SECRET_KEY.substring(1))
+                .create(params);
+
+        assertThrows(
+                SignatureException.class,
+                () -> tokenService.decode(token)
+        );
+    }
+
+    @Test
+    void decodeShouldRejectExpiredToken() {
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .issuedAt(new Date(System.currentTimeMillis() - 20_000))
+                .expiredAt(new Date(System.currentTimeMillis() - 10_000))
+                .build();
+        String token = tokenService.create(params);
+
+        ExpiredJwtException e = assertThrows(
+                ExpiredJwtException.class,
+                () -> tokenService.decode(token)
+        );
+        assertEquals("testSubject", e.getClaims().getSubject());
+        assertEquals("HS512", e.getHeader().getAlgorithm());
+        assertTrue(tokenService.isExpired(token));
+    }
+
+    @Test
+    void decodeShouldDescribeExpiredTokenWithForeignHeader() {
+        String token = Jwts.builder()
+                .header()
+                .type("JWT")
+                .and()
+                .subject("testSubject")
+                .expiration(new Date(1000))
+                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .compact();
+
+        ExpiredJwtException e = assertThrows(
+                ExpiredJwtException.class,
+                () -> tokenService.decode(token)
+        );
+        assertEquals("JWT", e.getHeader().getType());
+        assertEquals("HS512", e.getHeader().getAlgorithm());
+    }
+
+    @Test
+    void shouldProduceSameTokensWithAnyClaimsCodec() {
+        TokenServiceImpl jackson = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .claimsCodec(new JjwtClaimsCodec())
+                        .build()
+        );
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .claim("role", "ADMIN")
+                .claim("scopes", List.of("read", "write"))
+                .claim("level", 3)
+                .build();
+
+        String token = tokenService.create(params);
+
+        assertEquals(token, jackson.create(params));
+        assertEquals(
+                jackson.decode(token).getClaims(),
+                tokenService.decode(token).getClaims()
+        );
+        assertEquals(
+                List.of("read", "write"),
+                tokenService.claim(token, "scopes")
+        );
+        assertEquals(3, tokenService.claim(token, "level", Integer.class));
+    }
+
+    @Test
+    void shouldCreateAndDecodeClaimsRecord() {
+        UserClaims claims = new UserClaims("testSubject", 42, 5);
+
+        String token = tokenService.create(claims, Duration.ofMinutes(30));
+        DecodedToken decoded = tokenService.decode(token);
+
+        assertEquals(claims, tokenService.decode(token, UserClaims.class));
+        assertEquals("testSubject", decoded.getSubject());
+        assertEquals(42, decoded.claim("tenantId", Integer.class));
+        assertEquals(
+                30 * 60 * 1000,
+                decoded.getExpiredAt().getTime()
+                        - decoded.getIssuedAt().getTime()
+        );
+    }
+
+    @Test
+    void decodeClaimsRecordShouldVerifyToken() {
+        String expired = tokenService.create(
+                new UserClaims("testSubject", 1, 0),
+                Duration.ofMinutes(-1)
+        );
+        String token = tokenService.create(
+                new UserClaims("testSubject", 1, 0),
+                Duration.ofMinutes(30)
+        );
+        String forged = token.substring(0, token.lastIndexOf('.'))
+                + ".Zm9yZ2Vk";
+        String foreign = Jwts.builder()
+                .header()
+                .type("JWT")
+                .and()
+                .subject("foreign")
+                .claim("tenantId", 7)
+                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .compact();
+        String premature = Jwts.builder()
+                .subject("testSubject")
+                .notBefore(new Date(System.currentTimeMillis() + 600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .compact();
+        String mapped = tokenService.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(30)
+                        )
+                        .claim("roleMask", 3)
+                        .build()
+        );
+
+        assertEquals(
+                new UserClaims("foreign", 7, 0),
+                tokenService.decode(foreign, UserClaims.class)
+        );
+        assertEquals(
+                new UserClaims("testSubject", 0, 3),
+                tokenService.decode(mapped, UserClaims.class)
+        );
+        assertThrows(
+                ExpiredJwtException.class,
+                () -> tokenService.decode(expired, UserClaims.class)
+        );
+        assertThrows(
+                SignatureException.class,
+                () -> tokenService.decode(forged, UserClaims.class)
+        );
+        assertThrows(
+                PrematureJwtException.class,
+                () -> tokenService.decode(premature, UserClaims.class)
+        );
+        assertThrows(
+                MalformedJwtException.class,
+                () -> tokenService.decode("a.b", UserClaims.class)
+        );
+    }
+
+    @Test
+    void decodeClaimsRecordShouldCheckTimeClaimsItReads() {
+        Clock clock = Clock.fixed(Instant.ofEpochSecond(1000), ZoneOffset.UTC);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .clock(clock)
+                        .build()
+        );
+        HmacSigner signer = service.signingKey().getSigner();
+        String expired = signer.sign(
+                "{\"sub\":\"a\",\"exp\":999}".getBytes(StandardCharsets.UTF_8)
+        );
+        String premature = signer.sign(
+                "{\"sub\":\"a\",\"nbf\":1001}".getBytes(StandardCharsets.UTF_8)
+        );
+        String malformed = signer.sign(
+                "{\"sub\":1}".getBytes(StandardCharsets.UTF_8)
+        );
+
+        assertThrows(
+                ExpiredJwtException.class,
+                () -> service.decode(expired, UserClaims.class)
+        );
+        assertThrows(
+                PrematureJwtException.class,
+                () -> service.decode(premature, UserClaims.class)
+        );
+        assertThrows(
+                MalformedJwtException.class,
+                () -> service.decode(malformed, UserClaims.class)
+        );
+    }
+
+    @Test
+    void createAllShouldKeepOrder() {
+        List<TokenParameters> params = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            params.add(
+                    TokenParameters.builder(
+                                    "subject" + i,
+                                    "any",
+                                    Duration.ofMinutes(30)
+                            )
+                            .build()
+            );
+        }
+
+        List<String> tokens = tokenService.createAll(params);
+
+        assertEquals(params.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals("subject" + i, tokenService.getSubject(tokens.get(i)));
+        }
+    }
+
+    @Test
+    void shouldRejectMalformedAndExpiredTokensBeforeVerification() {
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(SECRET_KEY)
+                        .maxTokenLength(1000)
+                        .build()
+        );
+        String expired = service.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(30)
+                        )
+                        .issuedAt(new Date(0))
+                        .expiredAt(new Date(1000))
+                        .build()
+        );
+        String forged = expired.substring(0, expired.lastIndexOf('.'))
+                + ".Zm9yZ2Vk";
+
+        assertTrue(service.isExpired(expired));
+        assertTrue(service.isExpired(forged));
+        assertEquals(2, service.getRejectionCount(RejectionReason.EXPIRED));
+        assertThrows(
+                ExpiredJwtException.class,
+                () -> service.decode(expired)
+        );
+        assertThrows(
+                MalformedJwtException.class,
+                () -> service.isExpired("a.b")
+        );
+        assertThrows(
+                MalformedJwtException.class,
+                () -> service.decode("a".repeat(1001))
+        );
+        assertThrows(
+                MalformedJwtException.class,
+                () -> service.decode("a.b c.d")
+        );
+        assertEquals(1, service.getRejectionCount(RejectionReason.SEGMENTS));
+        assertEquals(1, service.getRejectionCount(RejectionReason.LENGTH));
+        assertEquals(1, service.getRejectionCount(RejectionReason.CHARSET));
+    }
+
+    @Test
+    void validateShouldReportStatusWithoutThrowing() {
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String token = tokenService.create(params);
+        String expired = tokenService.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(30)
+                        )
+                        .issuedAt(new Date(0))
+                        .expiredAt(new Date(1000))
+                        .build()
+        );
+        String premature = Jwts.builder()
+                .subject("testSubject")
+                .notBefore(new Date(System.currentTimeMillis() + 600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .compact();
+        String forged = token.substring(0, token.lastIndexOf('.'))
+                + ".Zm9yZ2Vk";
+        String foreign = Jwts.builder()
+                .header()
+                .keyId("kid")
+                .and()
+                .subject("testSubject")
+                .signWith(Keys.hmacShaKeyFor(("other" + SECRET_KEY).getBytes()))
+                .compact();
+
+        TokenValidationResult valid = tokenService.validate(token);
+        assertTrue(valid.isValid());
+        assertEquals(TokenStatus.VALID, valid.getStatus());
+        assertEquals("testSubject", valid.getToken().getSubject());
+        assertEquals(
+                TokenStatus.EXPIRED,
+                tokenService.validate(expired).getStatus()
+        );
+        assertEquals(
+                TokenStatus.NOT_YET_VALID,
+                tokenService.validate(premature).getStatus()
+        );
+        assertEquals(
+                TokenStatus.BAD_SIGNATURE,
+                tokenService.validate(forged).getStatus()
+        );
+        assertEquals(
+                TokenStatus.BAD_SIGNATURE,
+                tokenService.validate(foreign).getStatus()
+        );
+        assertEquals(
+                TokenStatus.MALFORMED,
+                tokenService.validate("a.b").getStatus()
+        );
+        assertNull(tokenService.validate(forged).getToken());
+        assertSame(
+                tokenService.validate(forged),
+                tokenService.validate(forged)
+        );
+    }
+
+    @Test
+    void decodeShouldThrowDescriptiveExceptions() {
+        String token = tokenService.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(30)
+                        )
+                        .build()
+        );
+        String forged = token.substring(0, token.lastIndexOf('.'))
+                + ".Zm9yZ2Vk";
+        String premature = Jwts.builder()
+                .subject("testSubject")
+                .notBefore(new Date(System.currentTimeMillis() + 600_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
+                .compact();
+
+        assertThrows(SignatureException.class, () -> tokenService.decode(forged));
+        assertThrows(
+                PrematureJwtException.class,
+                () -> tokenService.decode(premature)
+        );
+        assertThrows(
+                MalformedJwtException.class,
+                () -> tokenService.decode("a.b.c.d")
+        );
+        assertThrows(
+                SignatureException.class,
+                () -> tokenService.isExpired(forged)
+        );
+    }
+
+    @Test
+    void shouldDecodeFromBytesWithoutString() {
+        String token = tokenService.create(
+                TokenParameters.builder(
+                                "testSubject",
+                                "any",
+                                Duration.ofMinutes(30)
+                        )
+                        .claim("role", "ADMIN")
+                        .build()
+        );
+        byte[] bytes = ("Bearer " + token + "\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        heap.position(7).limit(7 + token.length());
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).position(7).limit(7 + token.length());
+
+        assertEquals(
+                "testSubject",
+                tokenService.decode(bytes, 7, token.length()).getSubject()
+        );
+        assertEquals("ADMIN", tokenService.decode(heap).claim("role"));
+        assertEquals(7, heap.position());
+        assertTrue(tokenService.validate(direct).isValid());
+        assertEquals(7, direct.position());
+        assertEquals(
+                "testSubject",
+                tokenService.decode(new StringBuilder(token)).getSubject()
+        );
+        assertEquals(
+                TokenStatus.BAD_SIGNATURE,
+                tokenService.validate(bytes, 7, token.length() - 1)
+                        .getStatus()
+        );
+        assertEquals(
+                TokenStatus.MALFORMED,
+                tokenService.validate(bytes, 0, token.length()).getStatus()
+        );
+        assertThrows(
+                IndexOutOfBoundsException.class,
+                () -> tokenService.decode(bytes, 7, bytes.length)
+        );
+    }
+
+    @Test
+    void shouldDecodeFromBytesWithKeyRingAndCache() {
+        KeyRing keyRing = new KeyRing("k1", SECRET_KEY);
+        TokenServiceImpl service = new TokenServiceImpl(
+                ServiceParameters.builder(keyRing)
+                        .cache(new ClockTokenCache(100, 1_000_000))
+                        .build()
+        );
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String first = service.create(params);
+        keyRing.add("k2", "other" + SECRET_KEY);
+        keyRing.activate("k2");
+        String second = service.create(params);
+
+        for (String token : List.of(first, second)) {
+            byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(
+                    "testSubject",
+                    service.decode(bytes, 0, bytes.length).getSubject()
+            );
+            assertEquals(
+                    "testSubject",
+                    service.decode(ByteBuffer.wrap(bytes)).getSubject()
+            );
+        }
+    }
+
 }
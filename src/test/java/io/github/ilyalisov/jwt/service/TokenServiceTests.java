@@ -0,0 +1,228 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.github.ilyalisov.jwt.codec.UserClaims;
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.time.ManualClock;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenServiceTests {
+
+    private static final String SECRET_KEY = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+
+    private final TokenServiceImpl delegate = new TokenServiceImpl(
+            SECRET_KEY
+    );
+
+    private final TokenService tokenService = new SingleTokenService(
+            delegate,
+            Clock.systemUTC()
+    );
+
+    private TokenParameters params(
+            final String subject,
+            final Duration duration
+    ) {
+        return TokenParameters.builder(
+                        subject,
+                        "access",
+                        duration
+                )
+                .claim("level", 3)
+                .build();
+    }
+
+    @Test
+    void defaultsShouldDecodeAndValidateTokens() {
+        String token = tokenService.create(
+                params("testSubject", Duration.ofMinutes(30))
+        );
+        String expired = tokenService.create(
+                params("testSubject", Duration.ofMinutes(-1))
+        );
+        String forged = token.substring(0, token.lastIndexOf('.'))
+                + ".Zm9yZ2Vk";
+        byte[] bytes = token.getBytes(StandardCharsets.US_ASCII);
+
+        DecodedToken decoded = tokenService.decode(bytes, 0, bytes.length);
+
+        assertEquals("testSubject", decoded.getSubject());
+        assertEquals("access", decoded.getType());
+        assertEquals(
+                Duration.ofMinutes(30).toMillis(),
+                decoded.getExpiredAt().getTime()
+                        - decoded.getIssuedAt().getTime()
+        );
+        assertEquals(3, tokenService.claim(token, "level", Integer.class));
+        assertTrue(tokenService.validate(ByteBuffer.wrap(bytes)).isValid());
+        assertEquals(
+                TokenStatus.EXPIRED,
+                tokenService.validate(expired).getStatus()
+        );
+        assertEquals(
+                TokenStatus.BAD_SIGNATURE,
+                tokenService.validate(forged).getStatus()
+        );
+        assertEquals(
+                TokenStatus.MALFORMED,
+                tokenService.validate("not a token").getStatus()
+        );
+        assertFalse(tokenService.isExpired(token, Instant.now()));
+    }
+
+    @Test
+    void defaultsShouldProcessBatches() {
+        List<String> tokens = tokenService.createAll(List.of(
+                params("first", Duration.ofMinutes(30)),
+                params("second", Duration.ofMinutes(-1))
+        ));
+
+        List<DecodeResult> decoded = tokenService.decodeAll(tokens);
+
+        assertEquals("first", delegate.getSubject(tokens.get(0)));
+        assertEquals("first", decoded.get(0).getToken().getSubject());
+        assertFalse(decoded.get(1).isSuccess());
+        assertNotNull(decoded.get(1).getError());
+        assertNull(decoded.get(1).getToken());
+        assertEquals(
+                List.of(true, false),
+                tokenService.validateAll(tokens)
+        );
+    }
+
+    @Test
+    void defaultsShouldCreateTokensFromTemplatesAndRecords() {
+        TokenTemplate template = tokenService.template(
+                params("prototype", Duration.ofMinutes(30))
+        );
+        UserClaims claims = new UserClaims("testSubject", 42, 5);
+
+        String token = template.create("user");
+        String record = tokenService.create(claims, Duration.ofMinutes(30));
+
+        assertEquals("user", delegate.getSubject(token));
+        assertEquals(3, delegate.claim(token, "level"));
+        assertEquals(claims, delegate.decode(record, UserClaims.class));
+        assertEquals(claims, tokenService.decode(record, UserClaims.class));
+    }
+
+    @Test
+    void defaultTemplateShouldTakeTimeFromClockOfService() {
+        ManualClock clock = new ManualClock(
+                Instant.now().minusSeconds(600).truncatedTo(ChronoUnit.SECONDS)
+        );
+        TokenService service = new SingleTokenService(delegate, clock);
+
+        String token = service.template(
+                params("prototype", Duration.ofMinutes(30))
+        ).create("user");
+
+        DecodedToken decoded = delegate.decode(token);
+        assertEquals(Date.from(clock.instant()), decoded.getIssuedAt());
+        assertEquals(
+                Date.from(clock.instant().plus(Duration.ofMinutes(30))),
+                decoded.getExpiredAt()
+        );
+    }
+
+    /**
+     * TokenService that implements only methods for a single JWT token and
+     * provides its clock.
+     */
+    private static final class SingleTokenService implements TokenService {
+
+        private final TokenService delegate;
+
+        private final Clock clock;
+
+        SingleTokenService(
+                final TokenService delegate,
+                final Clock clock
+        ) {
+            this.delegate = delegate;
+            this.clock = clock;
+        }
+
+        @Override
+        public Clock clock() {
+            return clock;
+        }
+
+        @Override
+        public String create(
+                final TokenParameters params
+        ) {
+            return delegate.create(params);
+        }
+
+        @Override
+        public boolean isExpired(
+                final String token
+        ) {
+            return delegate.isExpired(token);
+        }
+
+        @Override
+        public boolean isExpired(
+                final String token,
+                final Date date
+        ) {
+            return delegate.isExpired(token, date);
+        }
+
+        @Override
+        public boolean has(
+                final String token,
+                final String key,
+                final Object value
+        ) {
+            return delegate.has(token, key, value);
+        }
+
+        @Override
+        public String getSubject(
+                final String token
+        ) {
+            return delegate.getSubject(token);
+        }
+
+        @Override
+        public String getType(
+                final String token
+        ) {
+            return delegate.getType(token);
+        }
+
+        @Override
+        public Map<String, Object> claims(
+                final String token
+        ) {
+            return delegate.claims(token);
+        }
+
+        @Override
+        public Object claim(
+                final String token,
+                final String key
+        ) {
+            return delegate.claim(token, key);
+        }
+
+    }
+
+}
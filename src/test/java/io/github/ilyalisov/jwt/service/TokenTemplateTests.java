@@ -0,0 +1,211 @@
+package io.github.ilyalisov.jwt.service;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.fake.FakeTokenStorageImpl;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenTemplateTests {
+
+    private static final String SECRET_KEY = "c29tZWxvbmdzZWNyZXRzdHJpbmdmb3JleGFtcGxlYW5kaXRuZWVkc3RvYmVsb25nDQo=";
+
+    private final TokenServiceImpl tokenService = new TokenServiceImpl(
+            SECRET_KEY
+    );
+
+    private TokenParameters prototype() {
+        return TokenParameters.builder(
+                        "prototype",
+                        "access",
+                        Duration.ofMinutes(30)
+                )
+                .claim("iss", "issuer")
+                .build();
+    }
+
+    private TokenParameters params(
+            final String subject,
+            final TokenParameters prototype,
+            final Date issuedAt,
+            final Date expiredAt
+    ) {
+        return TokenParameters.builder(
+                        subject,
+                        prototype.getType(),
+                        Duration.ZERO
+                )
+                .claims(prototype.getClaims())
+                .issuedAt(issuedAt)
+                .expiredAt(expiredAt)
+                .build();
+    }
+
+    @Test
+    void shouldProduceSameTokenAsService() {
+        TokenParameters prototype = TokenParameters.builder(
+                        "prototype",
+                        "access",
+                        Duration.ofMinutes(30)
+                )
+                .claim("role", "ADMIN")
+                .claim("permissions", List.of("read", "write"))
+                .build();
+        TokenTemplate template = tokenService.template(prototype);
+        Date issuedAt = new Date(1_700_000_000_123L);
+        Date expiredAt = new Date(1_700_003_600_999L);
+
+        for (String subject : List.of(
+                "user@example.com",
+                "quote\"slash\\",
+                "unicode é ✓"
+        )) {
+            assertEquals(
+                    tokenService.create(
+                            params(subject, prototype, issuedAt, expiredAt)
+                    ),
+                    template.create(subject, issuedAt, expiredAt)
+            );
+        }
+        assertEquals(
+                tokenService.create(params(
+                        "user",
+                        prototype,
+                        new Date(-5_000),
+                        new Date(0)
+                )),
+                template.create("user", new Date(-5_000), new Date(0))
+        );
+    }
+
+    @Test
+    void shouldKeepClaimOrderOfPrototype() {
+        TokenParameters.TokenParametersBuilder builder =
+                TokenParameters.builder(
+                        "prototype",
+                        "access",
+                        Duration.ofMinutes(30)
+                );
+        for (int i = 199; i >= 0; i--) {
+            builder.claim("claim" + i, i);
+        }
+        TokenParameters prototype = builder.build();
+        prototype.getClaims().keySet()
+                .removeIf(key -> !key.endsWith("7"));
+        TokenTemplate template = tokenService.template(prototype);
+        Date issuedAt = prototype.getIssuedAt();
+        Date expiredAt = prototype.getExpiredAt();
+
+        String token = template.create("prototype", issuedAt, expiredAt);
+
+        assertEquals(tokenService.create(prototype), token);
+        assertEquals(
+                tokenService.create(
+                        params("prototype", prototype, issuedAt, expiredAt)
+                ),
+                token
+        );
+    }
+
+    @Test
+    void shouldProduceSameTokenWithoutClaims() {
+        TokenParameters prototype = TokenParameters.builder(
+                        "prototype",
+                        null,
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        TokenTemplate template = tokenService.template(prototype);
+        Date issuedAt = new Date();
+        Date expiredAt = new Date(issuedAt.getTime() + 60_000);
+
+        assertEquals(
+                tokenService.create(
+                        params("user", prototype, issuedAt, expiredAt)
+                ),
+                template.create("user", issuedAt, expiredAt)
+        );
+    }
+
+    @Test
+    void shouldFallBackForRegisteredClaims() {
+        TokenParameters prototype = prototype();
+        TokenTemplate template = tokenService.template(prototype);
+        Date issuedAt = new Date();
+        Date expiredAt = new Date(issuedAt.getTime() + 60_000);
+
+        assertEquals(
+                tokenService.create(
+                        params("user", prototype, issuedAt, expiredAt)
+                ),
+                template.create("user", issuedAt, expiredAt)
+        );
+    }
+
+    @Test
+    void shouldIssueWithPrototypeDuration() {
+        TokenTemplate template = tokenService.template(
+                TokenParameters.builder(
+                                "prototype",
+                                "access",
+                                Duration.ofMinutes(30)
+                        )
+                        .build()
+        );
+
+        DecodedToken token = tokenService.decode(template.create("user"));
+
+        assertEquals("user", token.getSubject());
+        assertEquals("access", token.getType());
+        assertEquals(
+                Duration.ofMinutes(30).toMillis(),
+                token.getExpiredAt().getTime() - token.getIssuedAt().getTime()
+        );
+    }
+
+    @Test
+    void persistentTemplateShouldSaveTokens() {
+        FakeTokenStorageImpl storage = new FakeTokenStorageImpl();
+        PersistentTokenServiceImpl service = new PersistentTokenServiceImpl(
+                SECRET_KEY,
+                storage
+        );
+        TokenTemplate template = service.template(
+                TokenParameters.builder(
+                                "prototype",
+                                "access",
+                                Duration.ofMinutes(30)
+                        )
+                        .build()
+        );
+
+        String token = template.create("user");
+        TokenParameters params = TokenParameters.builder(
+                        "user",
+                        "access",
+                        Duration.ZERO
+                )
+                .build();
+
+        assertEquals(token, storage.get(params));
+        assertTrue(storage.exists(token, params));
+        assertEquals(token, template.create("user"));
+        assertEquals(token, service.create(params));
+        service.invalidate(params);
+        assertNotEquals(
+                token,
+                template.create(
+                        "user",
+                        new Date(0),
+                        new Date(System.currentTimeMillis() + 60_000)
+                )
+        );
+    }
+
+}
@@ -0,0 +1,173 @@
+package io.github.ilyalisov.jwt.storage;
+
+import io.github.ilyalisov.jwt.concurrent.VirtualThreads;
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.config.redis.DefaultRedisSchema;
+import io.github.ilyalisov.jwt.fake.FakeRedisServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AsyncTokenStorageTests {
+
+    private static TokenParameters params(
+            final String subject
+    ) {
+        return TokenParameters.builder(
+                        subject,
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+    }
+
+    @Test
+    void shouldDelegateToStorage() {
+        AsyncTokenStorage storage = AsyncTokenStorage.of(
+                new TokenStorageImpl()
+        );
+        TokenParameters first = params("first");
+        TokenParameters second = params("second");
+
+        storage.save("firstToken", first).join();
+        storage.saveAll(Map.of("secondToken", second)).join();
+
+        assertTrue(storage.exists("firstToken", first).join());
+        assertEquals("secondToken", storage.get(second).join());
+        assertTrue(storage.remove("firstToken").join());
+        assertTrue(storage.remove(second).join());
+        assertFalse(storage.exists("firstToken", first).join());
+        assertNull(storage.get(second).join());
+    }
+
+    @Test
+    void shouldRunCallsOnProvidedExecutor() {
+        AtomicInteger calls = new AtomicInteger();
+        Executor executor = task -> {
+            calls.incrementAndGet();
+            task.run();
+        };
+        AsyncTokenStorage storage = AsyncTokenStorage.of(
+                new TokenStorageImpl(),
+                executor
+        );
+
+        storage.get(params("subject")).join();
+        storage.remove("token").join();
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldNotBlockCaller() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        TokenStorage blocking = new TokenStorageImpl() {
+            @Override
+            public String get(
+                    final TokenParameters params
+            ) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "token";
+            }
+        };
+
+        CompletableFuture<String> token = AsyncTokenStorage.of(blocking)
+                .get(params("subject"));
+
+        assertFalse(token.isDone());
+        release.countDown();
+        assertEquals("token", token.join());
+    }
+
+    @Test
+    void redisCallsShouldNotPinCarrierThreads() throws Exception {
+        assumeTrue(VirtualThreads.isAvailable());
+        Path dump = Files.createTempFile("pinned", ".jfr");
+        try (FakeRedisServer server = new FakeRedisServer();
+             JedisPool jedisPool = new JedisPool("localhost", server.port());
+             Recording recording = new Recording()) {
+            FakeRedisScripts.register(server);
+            recording.enable("jdk.VirtualThreadPinned")
+                    .withThreshold(Duration.ZERO)
+                    .withStackTrace();
+            recording.start();
+            AsyncTokenStorage storage = AsyncTokenStorage.of(
+                    new RedisTokenStorageImpl(
+                            jedisPool,
+                            new DefaultRedisSchema()
+                    )
+            );
+            server.pause();
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(storage.save("token" + i, params("s" + i)));
+                futures.add(storage.get(params("s" + i)));
+            }
+            Thread.sleep(200);
+            server.resume();
+            for (CompletableFuture<?> future : futures) {
+                future.join();
+            }
+            recording.stop();
+            recording.dump(dump);
+
+            List<RecordedEvent> pinned = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+                if (event.getEventType()
+                        .getName()
+                        .equals("jdk.VirtualThreadPinned")) {
+                    pinned.add(event);
+                }
+            }
+
+            assertEquals(List.of(), pinned);
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    @Test
+    void shouldCompleteExceptionallyOnFailure() {
+        TokenStorage failing = new TokenStorageImpl() {
+            @Override
+            public boolean remove(
+                    final String token
+            ) {
+                throw new IllegalStateException("Storage is down.");
+            }
+        };
+
+        CompletionException e = assertThrows(
+                CompletionException.class,
+                () -> AsyncTokenStorage.of(failing).remove("token").join()
+        );
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+}
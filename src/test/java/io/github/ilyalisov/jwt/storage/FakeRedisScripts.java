@@ -0,0 +1,63 @@
+package io.github.ilyalisov.jwt.storage;
+
+import io.github.ilyalisov.jwt.fake.FakeRedisServer;
+
+/**
+ * Java versions of {@link RedisScripts} for {@link FakeRedisServer}, which
+ * does not run Lua.
+ */
+final class FakeRedisScripts {
+
+    private FakeRedisScripts() {
+    }
+
+    static void register(
+            final FakeRedisServer server
+    ) {
+        server.script(RedisScripts.SAVE, (keys, args) -> {
+            String old = server.get(keys.get(0));
+            if (old != null && !old.equals(args.get(0))) {
+                String index = RedisScripts.indexKey(
+                        args.get(2),
+                        TokenStorageMode.valueOf(args.get(3)),
+                        old
+                );
+                if (keys.get(0).equals(server.get(index))) {
+                    server.delete(index);
+                }
+            }
+            long expiredAt = Long.parseLong(args.get(1));
+            server.set(keys.get(0), args.get(0));
+            server.expireAt(keys.get(0), expiredAt);
+            server.set(keys.get(1), keys.get(0));
+            return server.expireAt(keys.get(1), expiredAt);
+        });
+        server.script(RedisScripts.REMOVE_TOKEN, (keys, args) -> {
+            String key = server.get(keys.get(0));
+            if (key == null) {
+                return 0L;
+            }
+            server.delete(keys.get(0));
+            if (args.get(0).equals(server.get(key))) {
+                return server.delete(key);
+            }
+            return 0L;
+        });
+        server.script(RedisScripts.REMOVE_KEY, (keys, args) -> {
+            String token = server.get(keys.get(0));
+            if (token == null) {
+                return 0L;
+            }
+            String index = RedisScripts.indexKey(
+                    args.get(0),
+                    TokenStorageMode.valueOf(args.get(1)),
+                    token
+            );
+            if (keys.get(0).equals(server.get(index))) {
+                server.delete(index);
+            }
+            return server.delete(keys.get(0));
+        });
+    }
+
+}
@@ -0,0 +1,243 @@
+package io.github.ilyalisov.jwt.storage;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.time.ManualClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapTokenStorageImplTests {
+
+    private ManualClock clock;
+
+    private OffHeapTokenStorageImpl tokenStorage;
+
+    @BeforeEach
+    void setup() {
+        clock = new ManualClock(Instant.ofEpochSecond(1000));
+        tokenStorage = new OffHeapTokenStorageImpl(1024, 64, clock);
+    }
+
+    private TokenParameters params(
+            final String subject,
+            final Duration duration
+    ) {
+        return TokenParameters.builder(
+                        subject,
+                        "any",
+                        duration,
+                        clock
+                )
+                .build();
+    }
+
+    @Test
+    void shouldStoreReplaceAndRemoveTokens() {
+        TokenParameters params = params("testSubject", Duration.ofMinutes(30));
+        TokenParameters other = params("otherSubject", Duration.ofMinutes(30));
+
+        tokenStorage.save("testToken", params);
+        tokenStorage.save("otherToken", other);
+
+        assertTrue(tokenStorage.exists("testToken", params));
+        assertFalse(tokenStorage.exists("otherToken", params));
+        assertEquals("otherToken", tokenStorage.get(other));
+        tokenStorage.save("newToken", params);
+        assertEquals("newToken", tokenStorage.get(params));
+        assertFalse(tokenStorage.remove("testToken"));
+        assertTrue(tokenStorage.remove("newToken"));
+        assertNull(tokenStorage.get(params));
+        assertTrue(tokenStorage.remove(other));
+        assertFalse(tokenStorage.remove(other));
+        assertEquals(1024L * 112, tokenStorage.getMemorySize());
+    }
+
+    @Test
+    void shouldStoreNonAsciiTokensOfMaximumLength() {
+        TokenParameters params = params("тест", Duration.ofMinutes(30));
+        String token = "ж".repeat(32);
+
+        tokenStorage.save(token, params);
+
+        assertEquals(token, tokenStorage.get(params));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> tokenStorage.save(token + "x", params)
+        );
+        assertEquals(token, tokenStorage.get(params));
+    }
+
+    @Test
+    void shouldNotReturnExpiredTokens() {
+        TokenParameters params = params("testSubject", Duration.ofMinutes(1));
+        tokenStorage.save("testToken", params);
+
+        clock.advance(Duration.ofMinutes(2));
+
+        assertNull(tokenStorage.get(params));
+        assertFalse(tokenStorage.exists("testToken", params));
+        assertFalse(tokenStorage.remove(params));
+    }
+
+    @Test
+    void fullTableShouldRejectNewKeysUntilTokensExpire() {
+        OffHeapTokenStorageImpl storage = new OffHeapTokenStorageImpl(
+                4,
+                16,
+                clock
+        );
+        for (int i = 0; i < 4; i++) {
+            storage.save(
+                    "token" + i,
+                    params("subject" + i, Duration.ofMinutes(i + 1))
+            );
+        }
+        TokenParameters extra = params("extraSubject", Duration.ofMinutes(5));
+
+        IllegalStateException e = assertThrows(
+                IllegalStateException.class,
+                () -> storage.save("extraToken", extra)
+        );
+        assertEquals("Token storage is full.", e.getMessage());
+        storage.save("newToken0", params("subject0", Duration.ofMinutes(1)));
+        assertEquals(
+                "newToken0",
+                storage.get(params("subject0", Duration.ZERO))
+        );
+
+        clock.advance(Duration.ofSeconds(90));
+        storage.save("extraToken", extra);
+
+        assertEquals("extraToken", storage.get(extra));
+        assertNull(storage.get(params("subject0", Duration.ZERO)));
+        assertEquals("token3", storage.get(params("subject3", Duration.ZERO)));
+        assertThrows(
+                IllegalStateException.class,
+                () -> storage.save("token0", params("subject0", Duration.ZERO))
+        );
+        assertTrue(storage.remove("token3"));
+        storage.save("token0", params("subject0", Duration.ofMinutes(5)));
+        assertEquals("token0", storage.get(params("subject0", Duration.ZERO)));
+    }
+
+    @Test
+    void readsShouldNotSeeTornOrDuplicateTokensUnderContention()
+            throws Exception {
+        OffHeapTokenStorageImpl storage = new OffHeapTokenStorageImpl(
+                256,
+                128
+        );
+        int keys = 64;
+        int threads = 8;
+        int operations = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(thread);
+                for (int i = 0; i < operations; i++) {
+                    int key = random.nextInt(keys);
+                    TokenParameters params = TokenParameters.builder(
+                                    "subject" + key,
+                                    "any",
+                                    Duration.ofHours(1)
+                            )
+                            .build();
+                    int operation = random.nextInt(10);
+                    if (operation < 4) {
+                        String token = key + ":" + "x".repeat(
+                                random.nextInt(100)
+                        );
+                        storage.save(token, params);
+                    } else if (operation < 5) {
+                        storage.remove(params);
+                    } else {
+                        String token = storage.get(params);
+                        if (token != null) {
+                            String[] parts = token.split(":");
+                            assertEquals(Integer.toString(key), parts[0]);
+                            assertTrue(parts.length == 1
+                                    || parts[1].matches("x*"));
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (int key = 0; key < keys; key++) {
+            TokenParameters params = TokenParameters.builder(
+                            "subject" + key,
+                            "any",
+                            Duration.ofHours(1)
+                    )
+                    .build();
+            storage.remove(params);
+            assertNull(storage.get(params));
+        }
+        assertEquals(0, storage.indexSize());
+    }
+
+    @Test
+    void removeByTokenShouldUseIndexOfTokenHashes() {
+        OffHeapTokenStorageImpl storage = new OffHeapTokenStorageImpl(
+                4096,
+                32,
+                clock
+        );
+        Map<Integer, String> model = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(2048);
+            TokenParameters params = params("subject" + key, Duration.ofHours(1));
+            int operation = random.nextInt(10);
+            if (operation < 6) {
+                String token = "token" + random.nextInt(4096);
+                storage.save(token, params);
+                model.put(key, token);
+            } else if (operation < 8) {
+                String token = "token" + random.nextInt(4096);
+                boolean stored = model.containsValue(token);
+                model.values().removeIf(token::equals);
+                assertEquals(stored, storage.remove(token));
+            } else {
+                assertEquals(model.remove(key) != null, storage.remove(params));
+            }
+        }
+
+        for (Map.Entry<Integer, String> entry : model.entrySet()) {
+            assertEquals(
+                    entry.getValue(),
+                    storage.get(params("subject" + entry.getKey(), Duration.ZERO))
+            );
+        }
+        assertTrue(storage.getIndexMemorySize() > 0);
+        for (String token : Set.copyOf(model.values())) {
+            assertTrue(storage.remove(token));
+            assertFalse(storage.remove(token));
+        }
+        assertEquals(0, storage.indexSize());
+    }
+
+}
@@ -0,0 +1,538 @@
+package io.github.ilyalisov.jwt.storage;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.config.redis.DefaultRedisSchema;
+import io.github.ilyalisov.jwt.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelinedRedisTokenStorageImplTests {
+
+    private FakeRedisServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeRedisServer();
+        FakeRedisScripts.register(server);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    private PipelinedRedisTokenStorageImpl storage(
+            final String password,
+            final int connections,
+            final Duration timeout
+    ) {
+        return new PipelinedRedisTokenStorageImpl(
+                new InetSocketAddress("localhost", server.port()),
+                null,
+                password,
+                new DefaultRedisSchema(),
+                connections,
+                timeout
+        );
+    }
+
+    private static TokenParameters params(
+            final String subject
+    ) {
+        return TokenParameters.builder(
+                        subject,
+                        "access",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+    }
+
+    @Test
+    void shouldSaveGetAndRemoveTokens() {
+        try (PipelinedRedisTokenStorageImpl storage =
+                     new PipelinedRedisTokenStorageImpl(
+                             "localhost",
+                             server.port()
+                     )) {
+            TokenParameters first = params("first");
+            TokenParameters second = params("second");
+            TokenParameters third = params("third");
+
+            storage.save("firstToken", first);
+            storage.saveAll(Map.of(
+                    "secondToken", second,
+                    "thirdToken", third
+            ));
+
+            assertTrue(storage.exists("firstToken", first));
+            assertFalse(storage.exists("secondToken", first));
+            assertEquals("secondToken", storage.get(second));
+            assertEquals(
+                    third.getExpiredAt().getTime(),
+                    server.expiration("tokens:third:access")
+            );
+            assertTrue(storage.remove("firstToken"));
+            assertFalse(storage.remove("firstToken"));
+            assertNull(storage.get(first));
+            assertTrue(storage.remove(second));
+            assertFalse(storage.remove(second));
+            assertEquals("thirdToken", storage.async().get(third).join());
+        }
+    }
+
+    @Test
+    void shouldKeepReverseIndexOfTokens() {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                1,
+                Duration.ofSeconds(5)
+        )) {
+            TokenParameters params = params("subject");
+            String firstIndex = "tokens:index:" + RedisScripts.sha1Hex("first");
+            String secondIndex = "tokens:index:"
+                    + RedisScripts.sha1Hex("second");
+            server.set("unrelated", "first");
+
+            storage.save("first", params);
+            storage.save("second", params);
+
+            assertNull(server.get(firstIndex));
+            assertEquals("tokens:subject:access", server.get(secondIndex));
+            assertEquals(
+                    params.getExpiredAt().getTime(),
+                    server.expiration(secondIndex)
+            );
+            assertFalse(storage.remove("first"));
+            assertTrue(storage.remove("second"));
+            assertNull(server.get(secondIndex));
+            assertEquals("first", server.get("unrelated"));
+
+            storage.save("third", params);
+
+            assertTrue(storage.remove(params));
+            assertEquals(Set.of("unrelated"), server.keys());
+            assertEquals(
+                    "a9993e364706816aba3e25717850c26c9cd0d89d",
+                    RedisScripts.sha1Hex("abc")
+            );
+        }
+    }
+
+    @Test
+    void batchMethodsShouldSendCommandsTogether() {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                1,
+                Duration.ofSeconds(5)
+        )) {
+            Map<String, TokenParameters> tokens = new LinkedHashMap<>();
+            for (int i = 0; i < 10; i++) {
+                tokens.put("token" + i, params("subject" + i));
+            }
+            List<TokenParameters> params = new ArrayList<>(tokens.values());
+            params.add(params("missing"));
+            Map<String, TokenParameters> candidates =
+                    new LinkedHashMap<>(tokens);
+            candidates.put("otherToken", params.get(0));
+
+            storage.saveAll(tokens);
+            List<String> stored = storage.getAll(params);
+
+            List<String> expected = new ArrayList<>(tokens.keySet());
+            expected.add(null);
+            assertEquals(expected, stored);
+            assertEquals(tokens.keySet(), storage.existsAll(candidates));
+            assertEquals(10, storage.removeAll(params));
+            assertEquals(Set.of(), storage.existsAll(tokens));
+        }
+    }
+
+    @Test
+    void shouldCallScriptsBySha() {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                2,
+                Duration.ofSeconds(5)
+        )) {
+            storage.save("first", params("first"));
+            storage.save("second", params("second"));
+            assertTrue(storage.remove("first"));
+            assertTrue(storage.remove(params("second")));
+
+            assertEquals(0, server.count("EVAL"));
+            assertEquals(4, server.count("EVALSHA"));
+
+            server.flushScripts();
+            IllegalStateException e = assertThrows(
+                    IllegalStateException.class,
+                    () -> storage.save("third", params("third"))
+            );
+            assertTrue(e.getMessage().startsWith("NOSCRIPT"));
+
+            storage.save("third", params("third"));
+
+            assertEquals("third", storage.get(params("third")));
+            assertEquals(0, server.count("EVAL"));
+        }
+    }
+
+    @Test
+    void lostScriptsShouldFailLaterCommandsInsteadOfReorderingThem()
+            throws Exception {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                1,
+                Duration.ofSeconds(5)
+        )) {
+            storage.save("first", params("subject"));
+            server.flushScripts();
+            server.pause();
+            CompletableFuture<Void> save = storage.async()
+                    .save("second", params("subject"));
+            CompletableFuture<String> get = storage.async()
+                    .get(params("subject"));
+            Thread.sleep(100);
+            server.resume();
+
+            ExecutionException saveFailure = assertThrows(
+                    ExecutionException.class,
+                    () -> save.get(5, TimeUnit.SECONDS)
+            );
+            ExecutionException getFailure = assertThrows(
+                    ExecutionException.class,
+                    () -> get.get(5, TimeUnit.SECONDS)
+            );
+            assertInstanceOf(
+                    IllegalStateException.class,
+                    saveFailure.getCause()
+            );
+            assertInstanceOf(
+                    IllegalStateException.class,
+                    getFailure.getCause()
+            );
+
+            assertEquals("first", storage.get(params("subject")));
+            storage.save("second", params("subject"));
+            assertEquals("second", storage.get(params("subject")));
+            assertEquals(0, server.count("EVAL"));
+        }
+    }
+
+    @Test
+    void asyncFuturesShouldTimeOut() throws Exception {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                1,
+                Duration.ofMillis(200)
+        )) {
+            storage.save("token", params("subject"));
+            server.pause();
+            try {
+                CompletableFuture<String> get = storage.async()
+                        .get(params("subject"));
+
+                ExecutionException e = assertThrows(
+                        ExecutionException.class,
+                        () -> get.get(5, TimeUnit.SECONDS)
+                );
+                assertInstanceOf(TimeoutException.class, e.getCause());
+            } finally {
+                server.resume();
+            }
+        }
+    }
+
+    @Test
+    void getAllShouldSendOneMgetPerConnection() {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                2,
+                Duration.ofSeconds(5)
+        )) {
+            Map<String, TokenParameters> tokens = new LinkedHashMap<>();
+            for (int i = 0; i < 20; i++) {
+                tokens.put("token" + i, params("subject" + i));
+            }
+            storage.saveAll(tokens);
+
+            List<String> stored = storage.getAll(
+                    new ArrayList<>(tokens.values())
+            );
+
+            assertEquals(new ArrayList<>(tokens.keySet()), stored);
+            assertEquals(2, server.count("MGET"));
+            assertEquals(0, server.count("GET"));
+        }
+    }
+
+    @Test
+    void removeByTokenShouldFollowPrecedingSave() {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                4,
+                Duration.ofSeconds(5)
+        )) {
+            for (int i = 0; i < 50; i++) {
+                TokenParameters params = params("subject" + i);
+                storage.async().save("token" + i, params);
+
+                assertTrue(storage.remove("token" + i));
+                assertNull(storage.get(params));
+            }
+        }
+    }
+
+    @Test
+    void digestModeShouldStoreDigestsOfTokens() {
+        try (PipelinedRedisTokenStorageImpl storage =
+                     new PipelinedRedisTokenStorageImpl(
+                             new InetSocketAddress("localhost", server.port()),
+                             null,
+                             null,
+                             new DefaultRedisSchema(),
+                             2,
+                             Duration.ofSeconds(5),
+                             TokenStorageMode.DIGEST
+                     )) {
+            TokenParameters first = params("first");
+            TokenParameters second = params("second");
+
+            storage.save("firstToken", first);
+            storage.save("secondToken", second);
+
+            assertEquals(
+                    TokenStorageMode.DIGEST.encode("firstToken"),
+                    server.get("tokens:first:access")
+            );
+            assertEquals(
+                    "tokens:first:access",
+                    server.get("tokens:index:"
+                            + TokenStorageMode.DIGEST.encode("firstToken"))
+            );
+            assertNull(storage.get(first));
+            assertEquals(Arrays.asList(null, null), storage.getAll(
+                    List.of(first, second)
+            ));
+            assertTrue(storage.exists("firstToken", first));
+            assertFalse(storage.exists("secondToken", first));
+            assertEquals(
+                    Set.of("secondToken"),
+                    storage.existsAll(Map.of(
+                            "secondToken", second,
+                            "otherToken", first
+                    ))
+            );
+            assertTrue(storage.remove("firstToken"));
+            assertFalse(storage.exists("firstToken", first));
+        }
+    }
+
+    @Test
+    void shouldPipelineCommandsOfConcurrentCallers() throws Exception {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                1,
+                Duration.ofSeconds(5)
+        )) {
+            storage.save("warmUp", params("warmUp"));
+            server.pause();
+            List<CompletableFuture<Void>> saves = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                CompletableFuture<Void> save = new CompletableFuture<>();
+                saves.add(save);
+                int subject = i;
+                Thread thread = new Thread(() -> {
+                    storage.save("token" + subject, params("" + subject));
+                    save.complete(null);
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            Thread.sleep(200);
+
+            assertFalse(saves.get(0).isDone());
+
+            server.resume();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            for (int i = 0; i < 32; i++) {
+                assertTrue(saves.get(i).isDone());
+                assertEquals("token" + i, storage.get(params("" + i)));
+            }
+            assertEquals(1, server.connections());
+            assertTrue(server.maxBatch() > 1);
+        }
+    }
+
+    @Test
+    void shouldFailOnErrorReply() {
+        server.requirePassword("secret");
+        try (PipelinedRedisTokenStorageImpl anonymous = storage(
+                null,
+                1,
+                Duration.ofSeconds(5)
+        );
+             PipelinedRedisTokenStorageImpl wrong = storage(
+                     "wrong",
+                     1,
+                     Duration.ofSeconds(5)
+             );
+             PipelinedRedisTokenStorageImpl authenticated = storage(
+                     "secret",
+                     2,
+                     Duration.ofSeconds(5)
+             )) {
+            IllegalStateException e = assertThrows(
+                    IllegalStateException.class,
+                    () -> anonymous.get(params("subject"))
+            );
+            assertTrue(e.getMessage().startsWith("NOAUTH"));
+            assertThrows(
+                    IllegalStateException.class,
+                    () -> wrong.get(params("subject"))
+            );
+
+            authenticated.save("token", params("subject"));
+
+            assertEquals("token", authenticated.get(params("subject")));
+        }
+    }
+
+    @Test
+    void shouldTimeOutAndKeepRepliesInOrder() {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                1,
+                Duration.ofMillis(200)
+        )) {
+            storage.save("first", params("first"));
+            storage.save("second", params("second"));
+            server.pause();
+
+            assertThrows(
+                    IllegalStateException.class,
+                    () -> storage.get(params("first"))
+            );
+
+            server.resume();
+
+            assertEquals("second", storage.get(params("second")));
+        }
+    }
+
+    @Test
+    void shouldReconnectAfterConnectionIsDropped() throws Exception {
+        try (PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                1,
+                Duration.ofSeconds(5)
+        )) {
+            storage.save("token", params("subject"));
+            server.dropConnections();
+            Thread.sleep(100);
+
+            String token = null;
+            for (int i = 0; i < 10 && token == null; i++) {
+                try {
+                    token = storage.get(params("subject"));
+                } catch (UncheckedIOException e) {
+                    // commands sent before drop was noticed fail
+                }
+            }
+
+            assertEquals("token", token);
+            assertEquals(2, server.connections());
+        }
+    }
+
+    @Test
+    void shouldFailWhenRedisIsUnavailable() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        try (PipelinedRedisTokenStorageImpl storage =
+                     new PipelinedRedisTokenStorageImpl("localhost", port)) {
+            assertThrows(
+                    UncheckedIOException.class,
+                    () -> storage.get(params("subject"))
+            );
+        }
+    }
+
+    @Test
+    void shouldFailAfterClose() {
+        PipelinedRedisTokenStorageImpl storage = storage(
+                null,
+                1,
+                Duration.ofSeconds(5)
+        );
+        storage.close();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> storage.get(params("subject"))
+        );
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> storage(null, 0, Duration.ofSeconds(5))
+        );
+    }
+
+    @Test
+    void shouldParseRepliesReceivedInParts() {
+        byte[] reply = ("*5\r\n+OK\r\n:-42\r\n$4\r\nhé!\r\n$-1\r\n"
+                + "*2\r\n-ERR failed\r\n*0\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+        for (int length = 0; length < reply.length; length++) {
+            ByteBuffer part = ByteBuffer.wrap(reply, 0, length);
+
+            assertSame(Resp.INCOMPLETE, Resp.read(part));
+            assertEquals(0, part.position());
+        }
+
+        List<?> values = (List<?>) Resp.read(ByteBuffer.wrap(reply));
+
+        assertEquals("OK", values.get(0));
+        assertEquals(-42L, values.get(1));
+        assertEquals("hé!", values.get(2));
+        assertNull(values.get(3));
+        List<?> nested = (List<?>) values.get(4);
+        assertEquals(
+                "ERR failed",
+                ((IllegalStateException) nested.get(0)).getMessage()
+        );
+        assertEquals(List.of(), nested.get(1));
+    }
+
+}
@@ -0,0 +1,135 @@
+package io.github.ilyalisov.jwt.storage;
+
+import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.config.redis.DefaultRedisSchema;
+import io.github.ilyalisov.jwt.fake.FakeRedisServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisScriptsTests {
+
+    private FakeRedisServer server;
+
+    private JedisPool jedisPool;
+
+    private RedisTokenStorageImpl tokenStorage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeRedisServer();
+        FakeRedisScripts.register(server);
+        jedisPool = new JedisPool("localhost", server.port());
+        tokenStorage = new RedisTokenStorageImpl(
+                jedisPool,
+                new DefaultRedisSchema()
+        );
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        jedisPool.close();
+        server.close();
+    }
+
+    private static TokenParameters params(
+            final String subject
+    ) {
+        return TokenParameters.builder(
+                        subject,
+                        "access",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+    }
+
+    @Test
+    void shaShouldMatchDigestOfSource() {
+        assertEquals(
+                RedisScripts.sha1Hex(RedisScripts.SAVE),
+                RedisScripts.SAVE_SHA
+        );
+        assertEquals(40, RedisScripts.REMOVE_TOKEN_SHA.length());
+        assertEquals(40, RedisScripts.REMOVE_KEY_SHA.length());
+    }
+
+    @Test
+    void storageShouldSendScriptSourceOnlyOnce() {
+        tokenStorage.save("first", params("first"));
+        tokenStorage.save("second", params("second"));
+        tokenStorage.save("third", params("third"));
+
+        assertEquals(1, server.count("EVAL"));
+        assertEquals(3, server.count("EVALSHA"));
+        assertEquals("second", tokenStorage.get(params("second")));
+        assertTrue(tokenStorage.remove("first"));
+        assertTrue(tokenStorage.remove(params("second")));
+        assertFalse(tokenStorage.remove(params("second")));
+        assertEquals(3, server.count("EVAL"));
+        assertEquals(6, server.count("EVALSHA"));
+    }
+
+    @Test
+    void digestModeShouldIndexByDigest() {
+        RedisTokenStorageImpl storage = new RedisTokenStorageImpl(
+                jedisPool,
+                new DefaultRedisSchema(),
+                TokenStorageMode.DIGEST
+        );
+        String first = TokenStorageMode.DIGEST.encode("first");
+        String second = TokenStorageMode.DIGEST.encode("second");
+
+        storage.save("first", params("subject"));
+
+        assertEquals(
+                "tokens:subject:access",
+                server.get("tokens:index:" + first)
+        );
+
+        storage.save("second", params("subject"));
+
+        assertNull(server.get("tokens:index:" + first));
+        assertEquals(
+                "tokens:subject:access",
+                server.get("tokens:index:" + second)
+        );
+        assertTrue(storage.remove(params("subject")));
+        assertEquals(Set.of(), server.keys());
+        storage.save("third", params("subject"));
+        assertTrue(storage.remove("third"));
+        assertEquals(Set.of(), server.keys());
+    }
+
+    @Test
+    void storageShouldFallBackToEvalAfterScriptsAreFlushed() {
+        tokenStorage.save("first", params("first"));
+        server.flushScripts();
+
+        tokenStorage.saveAll(Map.of(
+                "second", params("second"),
+                "third", params("third")
+        ));
+        server.flushScripts();
+        int removed = tokenStorage.removeAll(
+                List.of(params("first"), params("second"), params("fourth"))
+        );
+
+        assertEquals(2, removed);
+        assertNull(tokenStorage.get(params("first")));
+        assertEquals("third", tokenStorage.get(params("third")));
+        assertEquals(3, server.count("EVAL"));
+    }
+
+}
@@ -8,10 +8,16 @@ import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -182,4 +188,160 @@ class RedisTokenStorageImplTests {
         assertNull(existingToken);
     }
 
+    @Test
+    void saveAllShouldStoreTokens() {
+        Map<String, TokenParameters> tokens = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            tokens.put(
+                    "testToken" + i,
+                    TokenParameters.builder(
+                                    "testSubject" + i,
+                                    "any",
+                                    Duration.ofMinutes(30)
+                            )
+                            .build()
+            );
+        }
+
+        tokenStorage.saveAll(tokens);
+
+        tokens.forEach((token, params) -> {
+            assertTrue(tokenStorage.exists(token, params));
+            assertEquals(token, tokenStorage.get(params));
+        });
+    }
+
+    @Test
+    void batchMethodsShouldReadAndRemoveTokens() {
+        Map<String, TokenParameters> tokens = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            tokens.put(
+                    "testToken" + i,
+                    TokenParameters.builder(
+                                    "testSubject" + i,
+                                    "any",
+                                    Duration.ofMinutes(30)
+                            )
+                            .build()
+            );
+        }
+        tokenStorage.saveAll(tokens);
+        List<TokenParameters> params = new ArrayList<>(tokens.values());
+        TokenParameters missing = TokenParameters.builder(
+                        "missingSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        params.add(missing);
+        Map<String, TokenParameters> candidates = new LinkedHashMap<>(tokens);
+        candidates.put("otherToken", params.get(0));
+
+        List<String> stored = tokenStorage.getAll(params);
+
+        List<String> expected = new ArrayList<>(tokens.keySet());
+        expected.add(null);
+        assertEquals(expected, stored);
+        assertEquals(tokens.keySet(), tokenStorage.existsAll(candidates));
+        assertEquals(10, tokenStorage.removeAll(params));
+        assertEquals(Set.of(), tokenStorage.existsAll(tokens));
+        assertEquals(0, tokenStorage.removeAll(List.of()));
+    }
+
+    @Test
+    void saveShouldSetExpirationInSameCommand() {
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+
+        tokenStorage.save("testToken", params);
+
+        try (Jedis jedis = new Jedis(
+                redis.getHost(),
+                redis.getMappedPort(6379)
+        )) {
+            long ttl = jedis.pttl("tokens:testSubject:any");
+            assertTrue(ttl > 0 && ttl <= Duration.ofMinutes(30).toMillis());
+        }
+    }
+
+    @Test
+    void removeByTokenShouldUseReverseIndex() {
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String firstIndex = "tokens:index:" + RedisScripts.sha1Hex("first");
+        String secondIndex = "tokens:index:" + RedisScripts.sha1Hex("second");
+
+        try (Jedis jedis = new Jedis(
+                redis.getHost(),
+                redis.getMappedPort(6379)
+        )) {
+            jedis.set("unrelated", "first");
+
+            tokenStorage.save("first", params);
+            tokenStorage.save("second", params);
+
+            assertNull(jedis.get(firstIndex));
+            assertEquals("tokens:testSubject:any", jedis.get(secondIndex));
+            assertTrue(jedis.pttl(secondIndex) > 0);
+            assertFalse(tokenStorage.remove("first"));
+            assertTrue(tokenStorage.remove("second"));
+            assertNull(jedis.get(secondIndex));
+            assertEquals("first", jedis.get("unrelated"));
+
+            tokenStorage.save("third", params);
+
+            assertTrue(tokenStorage.remove(params));
+            assertEquals(Set.of("unrelated"), jedis.keys("*"));
+        }
+    }
+
+    @Test
+    void digestModeShouldStoreOnlyDigests() {
+        RedisTokenStorageImpl storage = new RedisTokenStorageImpl(
+                new JedisPool(redis.getHost(), redis.getMappedPort(6379)),
+                new DefaultRedisSchema(),
+                TokenStorageMode.DIGEST
+        );
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        String token = "header." + "x".repeat(1000) + ".signature";
+
+        try (Jedis jedis = new Jedis(
+                redis.getHost(),
+                redis.getMappedPort(6379)
+        )) {
+            storage.save(token, params);
+
+            assertEquals(22, jedis.get("tokens:testSubject:any").length());
+            assertEquals(
+                    "tokens:testSubject:any",
+                    jedis.get("tokens:index:"
+                            + TokenStorageMode.DIGEST.encode(token))
+            );
+            assertTrue(storage.exists(token, params));
+            assertFalse(storage.exists("otherToken", params));
+            assertEquals(
+                    Set.of(token),
+                    storage.existsAll(Map.of(token, params))
+            );
+            assertNull(storage.get(params));
+            storage.save("otherToken", params);
+            assertFalse(storage.remove(token));
+            assertTrue(storage.remove("otherToken"));
+            assertEquals(Set.of(), jedis.keys("*"));
+        }
+    }
+
 }
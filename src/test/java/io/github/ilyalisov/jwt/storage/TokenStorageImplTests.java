@@ -1,14 +1,31 @@
 package io.github.ilyalisov.jwt.storage;
 
 import io.github.ilyalisov.jwt.config.TokenParameters;
+import io.github.ilyalisov.jwt.time.ManualClock;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TokenStorageImplTests {
@@ -158,5 +175,560 @@ class TokenStorageImplTests {
         assertNull(existingToken);
     }
 
-}
+    @Test
+    void saveAllShouldStoreTokens() {
+        Map<String, TokenParameters> tokens = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            tokens.put(
+                    "testToken" + i,
+                    TokenParameters.builder(
+                                    "testSubject" + i,
+                                    "any",
+                                    Duration.ofMinutes(30)
+                            )
+                            .build()
+            );
+        }
+
+        tokenStorage.saveAll(tokens);
+
+        tokens.forEach((token, params) -> {
+            assertTrue(tokenStorage.exists(token, params));
+            assertEquals(token, tokenStorage.get(params));
+        });
+    }
+
+    @Test
+    void shouldNotReturnExpiredTokens() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = new TokenStorageImpl(clock);
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30),
+                        clock
+                )
+                .build();
+        storage.save("testToken", params);
+
+        clock.advance(Duration.ofMinutes(30));
+        assertEquals("testToken", storage.get(params));
+        clock.advance(Duration.ofMillis(1));
+
+        assertNull(storage.get(params));
+        assertFalse(storage.exists("testToken", params));
+    }
+
+    @Test
+    void cleanupShouldRemoveOnlyExpiredTokens() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = new TokenStorageImpl(clock);
+        TokenParameters shortLived = TokenParameters.builder(
+                        "testSubject",
+                        "short",
+                        Duration.ofMinutes(1),
+                        clock
+                )
+                .build();
+        TokenParameters longLived = TokenParameters.builder(
+                        "testSubject",
+                        "long",
+                        Duration.ofMinutes(30),
+                        clock
+                )
+                .build();
+        storage.save("shortToken", shortLived);
+        storage.save("longToken", longLived);
+
+        storage.removeExpired();
+        assertTrue(storage.exists("shortToken", shortLived));
+        clock.advance(Duration.ofMinutes(5));
+        storage.removeExpired();
+
+        assertFalse(storage.remove(shortLived));
+        assertTrue(storage.exists("longToken", longLived));
+    }
 
+    @Test
+    void cleanupShouldExamineOnlyDueTokens() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = new TokenStorageImpl(
+                clock,
+                Duration.ofMinutes(10)
+        );
+        Map<String, String> expired = new ConcurrentHashMap<>();
+        storage.addExpirationListener(expired::put);
+        for (int i = 0; i < 100; i++) {
+            storage.save(
+                    "shortToken" + i,
+                    TokenParameters.builder(
+                                    "testSubject" + i,
+                                    "short",
+                                    Duration.ofMinutes(1),
+                                    clock
+                            )
+                            .build()
+            );
+            storage.save(
+                    "longToken" + i,
+                    TokenParameters.builder(
+                                    "testSubject" + i,
+                                    "long",
+                                    Duration.ofHours(1),
+                                    clock
+                            )
+                            .build()
+            );
+        }
+        TokenParameters replaced = TokenParameters.builder(
+                        "replacedSubject",
+                        "any",
+                        Duration.ofHours(1),
+                        clock
+                )
+                .build();
+        storage.save(
+                "oldToken",
+                TokenParameters.builder(
+                                "replacedSubject",
+                                "any",
+                                Duration.ofMinutes(1),
+                                clock
+                        )
+                        .build()
+        );
+        storage.save("newToken", replaced);
+
+        storage.removeExpired();
+        assertEquals(0, storage.getLastTickExamined());
+        clock.advance(Duration.ofMinutes(15));
+        storage.removeExpired();
+
+        assertEquals(100, storage.getLastTickExamined());
+        assertEquals(100, storage.getExpiredCount());
+        assertEquals(100, expired.size());
+        assertEquals("shortToken7", expired.get("tokens:testSubject7:short"));
+        assertEquals("newToken", storage.get(replaced));
+        assertTrue(storage.getTickCount() >= 2);
+        assertTrue(storage.getMaxTickNanos() >= storage.getLastTickNanos());
+        assertTrue(storage.getTotalTickNanos() >= storage.getMaxTickNanos());
+        clock.advance(Duration.ofHours(1));
+        storage.removeExpired();
+        assertEquals(101, storage.getLastTickExamined());
+        assertEquals(201, storage.getExaminedCount());
+    }
+
+    @Test
+    void replacedAndRemovedTokensShouldLeaveIndex() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = new TokenStorageImpl(clock);
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofHours(1),
+                        clock
+                )
+                .build();
+
+        for (int i = 0; i < 1000; i++) {
+            storage.save("token" + i, params);
+        }
+
+        assertEquals(1, storage.indexSize());
+
+        storage.remove("token999");
+        storage.save("otherToken", params);
+        storage.remove(params);
+
+        assertEquals(0, storage.indexSize());
+        clock.advance(Duration.ofHours(2));
+        storage.removeExpired();
+        assertEquals(0, storage.getLastTickExamined());
+    }
+
+    @Test
+    void listenersShouldBeCalledOnceForTokenExpiredOnRead() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = new TokenStorageImpl(clock);
+        List<String> expired = new CopyOnWriteArrayList<>();
+        storage.addExpirationListener((key, token) -> {
+            throw new IllegalStateException("Failing listener.");
+        });
+        storage.addExpirationListener((key, token) -> expired.add(token));
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(1),
+                        clock
+                )
+                .build();
+        storage.save("testToken", params);
+
+        clock.advance(Duration.ofMinutes(2));
+        assertNull(storage.get(params));
+        storage.removeExpired();
+
+        assertEquals(List.of("testToken"), expired);
+        assertEquals(1, storage.getExpiredCount());
+        assertEquals(1, storage.getListenerFailureCount());
+    }
+
+    @Test
+    void reverseIndexShouldMatchTokensUnderContention() throws Exception {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = new TokenStorageImpl(
+                clock,
+                Duration.ofHours(1)
+        );
+        int threads = 8;
+        int operations = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(thread);
+                List<String> saved = new ArrayList<>();
+                for (int i = 0; i < operations; i++) {
+                    TokenParameters params = TokenParameters.builder(
+                                    "testSubject" + random.nextInt(32),
+                                    "any",
+                                    Duration.ofMillis(random.nextInt(200)),
+                                    clock
+                            )
+                            .build();
+                    int operation = random.nextInt(10);
+                    if (operation < 5) {
+                        String token = "testToken" + thread + ":" + i;
+                        storage.save(token, params);
+                        saved.add(token);
+                    } else if (operation < 7 && !saved.isEmpty()) {
+                        storage.remove(
+                                saved.get(random.nextInt(saved.size()))
+                        );
+                    } else if (operation < 8) {
+                        storage.remove(params);
+                    } else if (operation < 9) {
+                        storage.get(params);
+                        clock.advance(Duration.ofMillis(1));
+                    } else {
+                        storage.removeExpired();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertTrue(storage.isIndexConsistent());
+        for (int i = 0; i < 32; i++) {
+            TokenParameters params = TokenParameters.builder(
+                            "testSubject" + i,
+                            "any",
+                            Duration.ofMinutes(1)
+                    )
+                    .build();
+            String token = storage.get(params);
+            if (token != null) {
+                assertTrue(storage.remove(token));
+                assertFalse(storage.remove(token));
+            }
+        }
+        assertTrue(storage.isIndexConsistent());
+        clock.advance(Duration.ofHours(1));
+        storage.removeExpired();
+        assertTrue(storage.isIndexConsistent());
+    }
+
+    @Test
+    void removeByTokenShouldIgnoreReplacedToken() {
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        tokenStorage.save("oldToken", params);
+        tokenStorage.save("newToken", params);
+
+        assertFalse(tokenStorage.remove("oldToken"));
+        assertEquals("newToken", tokenStorage.get(params));
+        assertTrue(tokenStorage.isIndexConsistent());
+        assertTrue(tokenStorage.remove("newToken"));
+        assertTrue(tokenStorage.isIndexConsistent());
+    }
+
+    @Test
+    void digestModeShouldCheckAndRemoveTokensByDigest() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = new TokenStorageImpl(
+                clock,
+                Duration.ofMinutes(1),
+                TokenStorageMode.DIGEST
+        );
+        List<String> expired = new ArrayList<>();
+        storage.addExpirationListener((key, token) -> expired.add(token));
+        TokenParameters params = TokenParameters.builder(
+                        "testSubject",
+                        "any",
+                        Duration.ofMinutes(1),
+                        clock
+                )
+                .build();
+        String token = "header." + "x".repeat(1000) + ".signature";
+
+        storage.save(token, params);
+
+        assertTrue(storage.exists(token, params));
+        assertFalse(storage.exists("otherToken", params));
+        assertNull(storage.get(params));
+        assertTrue(storage.remove(token));
+        assertFalse(storage.exists(token, params));
+        storage.save(token, params);
+        clock.advance(Duration.ofMinutes(5));
+        storage.removeExpired();
+        assertEquals(Collections.singletonList(null), expired);
+        assertTrue(storage.isIndexConsistent());
+    }
+
+    @Test
+    void digestShouldBeShortAndStable() {
+        String digest = TokenStorageMode.DIGEST.encode("testToken");
+
+        assertEquals(22, digest.length());
+        assertEquals(digest, TokenStorageMode.DIGEST.encode("testToken"));
+        assertNotEquals(digest, TokenStorageMode.DIGEST.encode("testToken2"));
+        assertEquals("testToken", TokenStorageMode.TOKEN.encode("testToken"));
+    }
+
+    private static TokenStorageImpl bounded(
+            final ManualClock clock,
+            final EvictionPolicy policy
+    ) {
+        return new TokenStorageImpl(
+                clock,
+                Duration.ofHours(1),
+                TokenStorageMode.TOKEN,
+                4,
+                policy
+        );
+    }
+
+    private static TokenParameters params(
+            final String subject,
+            final Duration duration,
+            final ManualClock clock
+    ) {
+        return TokenParameters.builder(
+                        subject,
+                        "any",
+                        duration,
+                        clock
+                )
+                .build();
+    }
+
+    @Test
+    void lruShouldEvictTokenNotReadForLongest() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = bounded(clock, EvictionPolicy.LRU);
+        for (String subject : List.of("a", "b", "c", "d")) {
+            storage.save(subject, params(subject, Duration.ofHours(1), clock));
+        }
+        for (String subject : List.of("a", "c", "d")) {
+            assertEquals(
+                    subject,
+                    storage.get(params(subject, Duration.ZERO, clock))
+            );
+        }
+
+        storage.save("e", params("e", Duration.ofHours(1), clock));
+
+        assertNull(storage.get(params("b", Duration.ZERO, clock)));
+        assertEquals("a", storage.get(params("a", Duration.ZERO, clock)));
+        assertEquals(4, storage.size());
+        assertEquals(1, storage.getEvictionCount());
+        assertTrue(storage.getEvictionSampleCount() >= 5);
+        assertTrue(storage.isIndexConsistent());
+    }
+
+    @Test
+    void soonestExpiryShouldEvictTokenThatExpiresFirst() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = bounded(
+                clock,
+                EvictionPolicy.SOONEST_EXPIRY
+        );
+        storage.save("a", params("a", Duration.ofMinutes(30), clock));
+        storage.save("b", params("b", Duration.ofMinutes(10), clock));
+        storage.save("c", params("c", Duration.ofMinutes(20), clock));
+        storage.save("d", params("d", Duration.ofMinutes(40), clock));
+
+        storage.save("e", params("e", Duration.ofMinutes(5), clock));
+        storage.save("f", params("f", Duration.ofMinutes(50), clock));
+
+        assertNull(storage.get(params("b", Duration.ZERO, clock)));
+        assertNull(storage.get(params("e", Duration.ZERO, clock)));
+        assertEquals("c", storage.get(params("c", Duration.ZERO, clock)));
+        assertEquals(2, storage.getEvictionCount());
+    }
+
+    @Test
+    void tinyLfuShouldEvictRarelyReadToken() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = bounded(clock, EvictionPolicy.TINY_LFU);
+        for (String subject : List.of("a", "b", "c", "d")) {
+            storage.save(subject, params(subject, Duration.ofHours(1), clock));
+        }
+        for (int i = 0; i < 5; i++) {
+            for (String subject : List.of("a", "b", "c")) {
+                storage.get(params(subject, Duration.ZERO, clock));
+            }
+        }
+        storage.get(params("d", Duration.ZERO, clock));
+
+        storage.save("e", params("e", Duration.ofHours(1), clock));
+
+        assertNull(storage.get(params("e", Duration.ZERO, clock)));
+        assertEquals("d", storage.get(params("d", Duration.ZERO, clock)));
+        assertEquals(1, storage.getEvictionCount());
+    }
+
+    @Test
+    void evictionShouldRemoveExpiredTokensFirst() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        TokenStorageImpl storage = bounded(clock, EvictionPolicy.LRU);
+        List<String> expired = new ArrayList<>();
+        storage.addExpirationListener((key, token) -> expired.add(token));
+        storage.save("a", params("a", Duration.ofHours(1), clock));
+        storage.save("b", params("b", Duration.ofMinutes(1), clock));
+        storage.save("c", params("c", Duration.ofHours(1), clock));
+        storage.save("d", params("d", Duration.ofHours(1), clock));
+        clock.advance(Duration.ofMinutes(2));
+
+        storage.save("e", params("e", Duration.ofHours(1), clock));
+
+        assertEquals(List.of("b"), expired);
+        assertEquals(0, storage.getEvictionCount());
+        assertEquals(4, storage.size());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new TokenStorageImpl(
+                        clock,
+                        Duration.ofHours(1),
+                        TokenStorageMode.TOKEN,
+                        0,
+                        EvictionPolicy.LRU
+                )
+        );
+    }
+
+    @Test
+    void boundedStorageShouldStayNearLimitUnderContention()
+            throws Exception {
+        int threads = 8;
+        int saves = 10_000;
+        int maxEntries = 1000;
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            TokenStorageImpl storage = new TokenStorageImpl(
+                    Clock.systemUTC(),
+                    Duration.ofHours(1),
+                    TokenStorageMode.TOKEN,
+                    maxEntries,
+                    policy
+            );
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < saves; i++) {
+                        TokenParameters params = TokenParameters.builder(
+                                        "subject" + thread + ":" + i,
+                                        "any",
+                                        Duration.ofMinutes(i % 60 + 1)
+                                )
+                                .build();
+                        storage.save("token" + thread + ":" + i, params);
+                        storage.get(params);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            assertTrue(storage.size() <= maxEntries + threads, policy.name());
+            assertTrue(
+                    storage.getEvictionCount()
+                            >= (long) threads * saves - maxEntries - threads,
+                    policy.name()
+            );
+            assertTrue(storage.isIndexConsistent(), policy.name());
+            assertTrue(
+                    storage.indexSize() <= maxEntries + threads,
+                    policy.name()
+            );
+        }
+    }
+
+    @Test
+    void evictedTokensShouldLeaveExpirationIndex() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            TokenStorageImpl storage = bounded(clock, policy);
+
+            for (int i = 0; i < 10_000; i++) {
+                storage.save(
+                        "token" + i,
+                        params("subject" + i, Duration.ofDays(30), clock)
+                );
+            }
+
+            assertEquals(4, storage.size(), policy.name());
+            assertEquals(4, storage.indexSize(), policy.name());
+            assertEquals(9996, storage.getEvictionCount(), policy.name());
+        }
+    }
+
+    @Test
+    void batchMethodsShouldReadAndRemoveTokens() {
+        Map<String, TokenParameters> tokens = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            tokens.put(
+                    "testToken" + i,
+                    TokenParameters.builder(
+                                    "testSubject" + i,
+                                    "any",
+                                    Duration.ofMinutes(30)
+                            )
+                            .build()
+            );
+        }
+        tokenStorage.saveAll(tokens);
+        List<TokenParameters> params = new ArrayList<>(tokens.values());
+        TokenParameters missing = TokenParameters.builder(
+                        "missingSubject",
+                        "any",
+                        Duration.ofMinutes(30)
+                )
+                .build();
+        params.add(missing);
+        Map<String, TokenParameters> candidates = new LinkedHashMap<>(tokens);
+        candidates.put("otherToken", params.get(0));
+
+        List<String> stored = tokenStorage.getAll(params);
+
+        List<String> expected = new ArrayList<>(tokens.keySet());
+        expected.add(null);
+        assertEquals(expected, stored);
+        assertEquals(tokens.keySet(), tokenStorage.existsAll(candidates));
+        assertEquals(10, tokenStorage.removeAll(params));
+        assertEquals(Set.of(), tokenStorage.existsAll(tokens));
+        assertEquals(0, tokenStorage.removeAll(List.of()));
+    }
+
+}
@@ -0,0 +1,64 @@
+package io.github.ilyalisov.jwt.time;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoarseClockTests {
+
+    @Test
+    void shouldFollowSystemClock() throws InterruptedException {
+        try (CoarseClock clock = new CoarseClock()) {
+            long start = clock.millis();
+
+            Thread.sleep(50);
+
+            assertTrue(clock.millis() > start);
+            assertTrue(
+                    Math.abs(System.currentTimeMillis() - clock.millis()) < 1000
+            );
+            assertEquals(ZoneOffset.UTC, clock.getZone());
+        }
+    }
+
+    @Test
+    void shouldShareTimeWithOtherZones() {
+        try (CoarseClock clock = new CoarseClock(Duration.ofHours(1))) {
+            ZoneId zone = ZoneId.of("Europe/Paris");
+
+            Clock zoned = clock.withZone(zone);
+
+            assertEquals(zone, zoned.getZone());
+            assertEquals(clock.millis(), zoned.millis());
+            assertEquals(clock.instant(), zoned.instant());
+        }
+    }
+
+    @Test
+    void closedClockShouldReadSystemClock() throws InterruptedException {
+        CoarseClock clock = new CoarseClock(Duration.ofHours(1));
+        long start = clock.millis();
+
+        clock.close();
+        clock.close();
+        Thread.sleep(20);
+
+        assertTrue(clock.millis() > start);
+    }
+
+    @Test
+    void shouldRejectNonPositiveResolution() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new CoarseClock(Duration.ZERO)
+        );
+    }
+
+}
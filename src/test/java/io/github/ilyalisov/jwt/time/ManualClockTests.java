@@ -0,0 +1,40 @@
+package io.github.ilyalisov.jwt.time;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ManualClockTests {
+
+    @Test
+    void shouldMoveOnlyWhenAsked() {
+        ManualClock clock = new ManualClock(Instant.ofEpochSecond(1000));
+
+        assertEquals(1_000_000, clock.millis());
+        clock.advance(Duration.ofSeconds(5));
+        assertEquals(Instant.ofEpochSecond(1005), clock.instant());
+        clock.advance(Duration.ofMillis(-10));
+        assertEquals(1_004_990, clock.millis());
+        clock.set(Instant.EPOCH);
+        assertEquals(0, clock.millis());
+    }
+
+    @Test
+    void shouldShareTimeWithOtherZones() {
+        ManualClock clock = new ManualClock(Instant.EPOCH);
+        ZoneId zone = ZoneId.of("Asia/Tokyo");
+
+        Clock zoned = clock.withZone(zone);
+        clock.advance(Duration.ofMinutes(1));
+
+        assertEquals(zone, zoned.getZone());
+        assertEquals(60_000, zoned.millis());
+        assertEquals(Instant.ofEpochSecond(60), zoned.instant());
+    }
+
+}